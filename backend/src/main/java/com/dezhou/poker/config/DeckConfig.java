@@ -0,0 +1,48 @@
+package com.dezhou.poker.config;
+
+import com.dezhou.poker.engine.DeckPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+
+/**
+ * 洗牌配置类
+ */
+@Configuration
+public class DeckConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DeckConfig.class);
+
+    /**
+     * 牌组来源
+     * 配置了 poker.deck.seed 时使用确定性洗牌（仅限测试和回放），否则使用 SecureRandom 预洗牌池
+     */
+    @Bean(destroyMethod = "close")
+    public DeckPool deckPool(@Value("${poker.deck.pool-size:64}") int poolSize,
+                             @Value("${poker.deck.algorithm:}") String algorithm,
+                             @Value("${poker.deck.seed:}") String seed) {
+        if (!seed.isEmpty()) {
+            log.warn("使用固定种子洗牌，仅用于测试和回放: {}", seed);
+            return DeckPool.seeded(Long.parseLong(seed));
+        }
+
+        SecureRandom random;
+        if (algorithm.isEmpty()) {
+            random = new SecureRandom();
+        } else {
+            try {
+                random = SecureRandom.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                log.warn("不支持的随机数算法 {}，使用默认 SecureRandom", algorithm);
+                random = new SecureRandom();
+            }
+        }
+        log.info("洗牌随机数算法: {}, 预洗牌队列容量: {}", random.getAlgorithm(), poolSize);
+        return DeckPool.secure(random, poolSize);
+    }
+}
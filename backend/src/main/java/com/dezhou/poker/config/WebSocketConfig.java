@@ -2,15 +2,20 @@ package com.dezhou.poker.config;
 
 import com.dezhou.poker.websocket.WebSocketAuthChannelInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 /**
  * WebSocket配置类
+ * 默认使用进程内的简单代理；开启 poker.broker.relay.enabled 后改为转发到外部 STOMP 代理
+ * （RabbitMQ、ActiveMQ 等），房间频道的订阅者可以分布在多个应用节点上，
+ * 用户目的地（如 /user/queue/cards）也通过代理在节点之间广播解析。
  */
 @Configuration
 @EnableWebSocketMessageBroker
@@ -19,9 +24,49 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private WebSocketAuthChannelInterceptor webSocketAuthChannelInterceptor;
 
+    @Value("${poker.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${poker.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${poker.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${poker.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${poker.broker.relay.client-login:guest}")
+    private String clientLogin;
+
+    @Value("${poker.broker.relay.client-passcode:guest}")
+    private String clientPasscode;
+
+    @Value("${poker.broker.relay.system-login:guest}")
+    private String systemLogin;
+
+    @Value("${poker.broker.relay.system-passcode:guest}")
+    private String systemPasscode;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if (relayEnabled) {
+            StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                .setRelayHost(relayHost)
+                .setRelayPort(relayPort)
+                .setClientLogin(clientLogin)
+                .setClientPasscode(clientPasscode)
+                .setSystemLogin(systemLogin)
+                .setSystemPasscode(systemPasscode)
+                // 其他节点上的用户会话通过代理解析
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (!relayVirtualHost.isEmpty()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
     }
 
@@ -0,0 +1,78 @@
+package com.dezhou.poker.controller;
+
+import com.dezhou.poker.dto.PlayerAggregate;
+import com.dezhou.poker.dto.response.ApiResponse;
+import com.dezhou.poker.service.HandAnalyticsService;
+import com.dezhou.poker.service.HandExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线分析控制器
+ * 导出牌局到列式文件，并基于导出文件计算玩家统计，不查询业务库的动作表
+ */
+@RestController
+@RequestMapping("/analytics")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+    @Autowired
+    private HandExportService handExportService;
+
+    @Autowired
+    private HandAnalyticsService handAnalyticsService;
+
+    /**
+     * 立即从检查点导出到当前上界
+     *
+     * @return 导出的牌局数和新的检查点
+     */
+    @PostMapping("/export")
+    public ResponseEntity<?> export() {
+        try {
+            long exported = handExportService.export();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("exported", exported);
+            result.put("checkpoint", handExportService.getCheckpoint());
+            return ResponseEntity.ok(new ApiResponse(true, "导出完成", result));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    /**
+     * 按导出文件计算玩家统计
+     *
+     * @param from   起始日期（含）
+     * @param to     结束日期（含）
+     * @param roomId 房间ID
+     * @param userId 用户ID
+     * @param limit  最多返回的玩家数
+     * @return 玩家统计，按手数倒序
+     */
+    @GetMapping("/players")
+    public ResponseEntity<?> getPlayerAggregates(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的数量"));
+        }
+        List<PlayerAggregate> aggregates = handAnalyticsService.playerAggregates(from, to, roomId, userId, limit);
+        return ResponseEntity.ok(new ApiResponse(true, "获取玩家统计成功", aggregates));
+    }
+}
@@ -0,0 +1,84 @@
+package com.dezhou.poker.controller;
+
+import com.dezhou.poker.dto.response.ApiResponse;
+import com.dezhou.poker.engine.TableRouter;
+import com.dezhou.poker.service.ShardLeaseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 集群控制器
+ * 提供房间所有者节点查询，负载均衡或客户端据此把同一房间的请求和连接发往同一节点
+ */
+@RestController
+@RequestMapping("/cluster")
+public class ClusterController {
+
+    @Autowired
+    private TableRouter tableRouter;
+
+    @Autowired
+    private ShardLeaseService shardLeaseService;
+
+    /**
+     * 获取集群节点
+     *
+     * @return 本节点和全部节点
+     */
+    @GetMapping("/nodes")
+    public ResponseEntity<?> getNodes() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodeId", tableRouter.getNodeId());
+        result.put("nodes", tableRouter.getNodes());
+        result.put("lease", shardLeaseService.isEnabled());
+        return ResponseEntity.ok(new ApiResponse(true, "获取集群节点成功", result));
+    }
+
+    /**
+     * 获取房间的所有者节点
+     *
+     * @param roomId 房间ID
+     * @return 所有者节点ID和访问地址
+     */
+    @GetMapping("/route/{roomId}")
+    public ResponseEntity<?> getRoute(@PathVariable Long roomId) {
+        String owner = tableRouter.ownerOf(roomId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("roomId", roomId);
+        result.put("shard", tableRouter.shardOf(roomId));
+        result.put("node", owner);
+        result.put("url", tableRouter.getNodeUrl(owner));
+        result.put("local", tableRouter.isLocal(roomId));
+        return ResponseEntity.ok(new ApiResponse(true, "获取房间路由成功", result));
+    }
+
+    /**
+     * 获取分片分布
+     *
+     * @return 分片所有者、每个节点持有的分片数和租约换手次数
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<?> getShards() {
+        String[] owners = tableRouter.getShardOwners();
+        Map<String, Integer> perNode = new TreeMap<>();
+        for (String owner : owners) {
+            perNode.merge(owner != null ? owner : "-", 1, Integer::sum);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shards", owners.length);
+        result.put("perNode", perNode);
+        result.put("owners", owners);
+        result.put("acquired", shardLeaseService.getAcquiredCount());
+        result.put("released", shardLeaseService.getReleasedCount());
+        result.put("lost", shardLeaseService.getLostCount());
+        return ResponseEntity.ok(new ApiResponse(true, "获取分片分布成功", result));
+    }
+}
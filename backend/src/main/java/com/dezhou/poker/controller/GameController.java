@@ -1,7 +1,13 @@
 package com.dezhou.poker.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.dezhou.poker.dto.EquityResult;
+import com.dezhou.poker.dto.PlayerActionSummary;
 import com.dezhou.poker.dto.response.ApiResponse;
+import com.dezhou.poker.engine.TableExecutor;
+import com.dezhou.poker.engine.TableState;
+import com.dezhou.poker.engine.TableStateManager;
 import com.dezhou.poker.entity.AllinVote;
 import com.dezhou.poker.entity.GameAction;
 import com.dezhou.poker.entity.GameHistory;
@@ -12,10 +18,13 @@ import com.dezhou.poker.entity.User;
 import com.dezhou.poker.exception.BusinessException;
 import com.dezhou.poker.security.UserPrincipal;
 import com.dezhou.poker.service.AllinVoteService;
+import com.dezhou.poker.service.EquityService;
 import com.dezhou.poker.service.GameActionService;
 import com.dezhou.poker.service.GameService;
 import com.dezhou.poker.service.PlayerGameHistoryService;
 import com.dezhou.poker.service.RoomService;
+import com.dezhou.poker.service.TableDeltaService;
+import com.dezhou.poker.service.TurnTimerService;
 import com.dezhou.poker.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,13 +34,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.Random;
+
+import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -48,12 +53,6 @@ public class GameController {
 
     private static final Logger logger = LoggerFactory.getLogger(GameController.class);
 
-    // 添加执行计划任务的服务
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    
-    // 存储游戏计时器信息
-    private final ConcurrentHashMap<Long, GameTimerInfo> gameTimers = new ConcurrentHashMap<>();
-
     @Autowired
     private GameService gameService;
     
@@ -66,6 +65,21 @@ public class GameController {
     @Autowired
     private AllinVoteService allinVoteService;
 
+    @Autowired
+    private EquityService equityService;
+
+    @Autowired
+    private TableExecutor tableExecutor;
+
+    @Autowired
+    private TableStateManager tableStateManager;
+
+    @Autowired
+    private TurnTimerService turnTimerService;
+
+    @Autowired
+    private TableDeltaService tableDeltaService;
+
     @Autowired
     private RoomService roomService;
 
@@ -75,6 +89,11 @@ public class GameController {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @PostConstruct
+    public void init() {
+        turnTimerService.setTimeoutHandler(this::handleTimeOut);
+    }
+
     /**
      * 获取房间当前游戏
      *
@@ -98,14 +117,8 @@ public class GameController {
             // 获取当前游戏
             GameHistory gameHistory = gameService.getCurrentGame(roomId);
             if (gameHistory == null) {
-                // 如果没有找到游戏，但房间状态是PLAYING，则创建一个新游戏
-                try {
-                    gameHistory = gameService.startNewGame(roomId);
-                    System.out.println("自动创建游戏: " + gameHistory.getId());
-                } catch (Exception e) {
-                    System.err.println("创建游戏失败: " + e.getMessage());
-                    return ResponseEntity.badRequest().body(new ApiResponse(false, "房间当前没有进行中的游戏，且无法自动创建游戏"));
-                }
+                // 查询不开局，开局统一走 POST /room/{roomId}/manage
+                return ResponseEntity.badRequest().body(new ApiResponse(false, "房间当前没有进行中的游戏"));
             }
 
             // 设置游戏关联的房间信息
@@ -154,7 +167,7 @@ public class GameController {
             }
             
             // 发牌
-            Map<String, Object> result = gameService.dealCards(gameId);
+            Map<String, Object> result = tableExecutor.call(game.getRoomId(), () -> gameService.dealCards(gameId));
             logger.info("发牌成功, 游戏ID: {}, 结果: {}", gameId, result);
             
             // 返回结果
@@ -211,6 +224,43 @@ public class GameController {
         }
     }
 
+    /**
+     * 获取全下后的胜率
+     * 剩余发牌组合较少时穷举，否则使用蒙特卡洛估算
+     *
+     * @param gameId 游戏ID
+     * @return 每位未弃牌玩家的胜率
+     */
+    @GetMapping("/{gameId}/equity")
+    public ResponseEntity<?> getEquity(@PathVariable Long gameId) {
+        try {
+            EquityResult equity = equityService.calculate(gameId);
+            return ResponseEntity.ok(new ApiResponse(true, "计算胜率成功", equity));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取牌桌完整快照
+     * 客户端发现增量序号不连续或刚进入房间时调用，之后只需应用序号更大的增量
+     *
+     * @param gameId 游戏ID
+     * @return 牌桌快照
+     */
+    @GetMapping("/{gameId}/state")
+    public ResponseEntity<?> getTableState(@PathVariable Long gameId) {
+        TableState state = tableStateManager.get(gameId);
+        if (state == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "游戏不存在或已结束"));
+        }
+        Map<String, Object> snapshot;
+        synchronized (state) {
+            snapshot = tableDeltaService.snapshot(state);
+        }
+        return ResponseEntity.ok(new ApiResponse(true, "获取牌桌快照成功", snapshot));
+    }
+
     /**
      * 管理房间游戏状态
      * 根据房间人数和游戏状态自动管理游戏
@@ -225,7 +275,7 @@ public class GameController {
             logger.info("管理房间游戏状态, 房间ID: {}", roomId);
             
             // 调用服务方法
-            Map<String, Object> result = gameService.manageRoomGameState(roomId);
+            Map<String, Object> result = tableExecutor.call(roomId, () -> gameService.manageRoomGameState(roomId));
             logger.info("房间游戏状态管理结果: {}", result);
             
             return ResponseEntity.ok(new ApiResponse(true, "游戏状态管理成功", result));
@@ -251,7 +301,7 @@ public class GameController {
             logger.info("处理玩家离开座位, 房间ID: {}, 用户ID: {}", roomId, currentUser.getId());
             
             // 调用服务方法
-            Map<String, Object> result = gameService.handlePlayerLeave(roomId, currentUser.getId());
+            Map<String, Object> result = tableExecutor.call(roomId, () -> gameService.handlePlayerLeave(roomId, currentUser.getId()));
             logger.info("玩家离开座位处理结果: {}", result);
             
             return ResponseEntity.ok(new ApiResponse(true, "处理玩家离开成功", result));
@@ -275,7 +325,10 @@ public class GameController {
             logger.info("检查游戏结束条件, 游戏ID: {}", gameId);
             
             // 调用服务方法
-            boolean isEnded = gameService.checkGameEndCondition(gameId);
+            TableState state = tableStateManager.get(gameId);
+            boolean isEnded = state != null
+                    ? tableExecutor.call(state.getRoomId(), () -> gameService.checkGameEndCondition(gameId))
+                    : gameService.checkGameEndCondition(gameId);
             logger.info("游戏结束条件检查结果: {}", isEnded);
             
             Map<String, Object> result = new HashMap<>();
@@ -316,7 +369,7 @@ public class GameController {
             }
             
             // 发牌
-            Map<String, Object> result = gameService.dealCards(currentGame.getId());
+            Map<String, Object> result = tableExecutor.call(roomId, () -> gameService.dealCards(currentGame.getId()));
             logger.info("自动发牌成功, 游戏ID: {}, 结果: {}", currentGame.getId(), result);
             
             return ResponseEntity.ok(new ApiResponse(true, "自动发牌成功", result));
@@ -346,78 +399,8 @@ public class GameController {
                 return ResponseEntity.badRequest().body(new ApiResponse(false, "游戏不存在"));
             }
             
-            // 获取游戏玩家
-            List<PlayerGameHistory> players = gameService.getGamePlayers(gameId);
-            if (players.isEmpty()) {
-                logger.error("游戏没有玩家, ID: {}", gameId);
-                return ResponseEntity.badRequest().body(new ApiResponse(false, "游戏没有玩家"));
-            }
-            
-            // 随机选择庄家位置
-            Random random = new Random();
-            int dealerIndex = random.nextInt(players.size());
-            PlayerGameHistory dealer = players.get(dealerIndex);
-            
-            // 获取房间玩家信息，以获取座位号
-            List<RoomPlayer> roomPlayers = roomService.getRoomPlayers(game.getRoomId());
-            Map<Long, Integer> userSeatMap = new HashMap<>();
-            for (RoomPlayer rp : roomPlayers) {
-                userSeatMap.put(rp.getUserId(), rp.getSeatNumber());
-            }
-            
-            // 找出庄家的座位号
-            Integer dealerSeat = userSeatMap.get(dealer.getUserId());
-            if (dealerSeat == null) {
-                logger.error("无法确定庄家座位, 用户ID: {}", dealer.getUserId());
-                return ResponseEntity.badRequest().body(new ApiResponse(false, "无法确定庄家座位"));
-            }
-            
-            // 计算小盲注和大盲注的位置
-            List<Integer> occupiedSeats = roomPlayers.stream()
-                    .map(RoomPlayer::getSeatNumber)
-                    .sorted()
-                    .collect(Collectors.toList());
-            
-            int dealerSeatIndex = occupiedSeats.indexOf(dealerSeat);
-            int smallBlindIndex = (dealerSeatIndex + 1) % occupiedSeats.size();
-            int bigBlindIndex = (dealerSeatIndex + 2) % occupiedSeats.size();
-            
-            int smallBlindSeat = occupiedSeats.get(smallBlindIndex);
-            int bigBlindSeat = occupiedSeats.get(bigBlindIndex);
-            
-            // 更新游戏中的庄家位置信息
-            game.setDealerPosition(dealerSeat);
-            game.setSmallBlindPosition(smallBlindSeat);
-            game.setBigBlindPosition(bigBlindSeat);
-            gameService.updateById(game);
-            
-            // 设置当前回合的玩家（从小盲注开始）
-            Long smallBlindUserId = null;
-            for (RoomPlayer rp : roomPlayers) {
-                if (rp.getSeatNumber() == smallBlindSeat) {
-                    smallBlindUserId = rp.getUserId();
-                    break;
-                }
-            }
-            
-            if (smallBlindUserId != null) {
-                // 设置当前回合玩家 - 需要修改GameHistory类以支持此方法
-                // game.setCurrentTurn(smallBlindUserId);
-                // 替代方案：使用自定义字段存储当前回合玩家ID
-                game.setCurrentPlayerId(smallBlindUserId);
-                gameService.updateById(game);
-                
-                // 启动计时器
-                startRoundTimer(gameId, smallBlindUserId, game.getRoomId());
-            }
-            
-            // 构建结果
-            Map<String, Object> result = new HashMap<>();
-            result.put("gameId", gameId);
-            result.put("dealerSeat", dealerSeat);
-            result.put("smallBlindSeat", smallBlindSeat);
-            result.put("bigBlindSeat", bigBlindSeat);
-            result.put("currentTurn", smallBlindUserId);
+            // 庄家、盲注位置和行动顺序在牌桌执行器中与动作串行修改
+            Map<String, Object> result = tableExecutor.call(game.getRoomId(), () -> gameService.assignDealer(gameId));
             
             return ResponseEntity.ok(new ApiResponse(true, "设置庄家位置成功", result));
         } catch (Exception e) {
@@ -448,10 +431,8 @@ public class GameController {
                 return ResponseEntity.badRequest().body(new ApiResponse(false, "游戏不存在"));
             }
             
-            // 更新游戏计时器信息
-            GameTimerInfo timerInfo = gameTimers.getOrDefault(gameId, new GameTimerInfo(gameId));
-            timerInfo.setTimePerRound(timePerRound);
-            gameTimers.put(gameId, timerInfo);
+            // 更新游戏计时器信息，从下一回合开始生效
+            turnTimerService.setTurnSeconds(gameId, timePerRound);
             
             // 构建结果
             Map<String, Object> result = new HashMap<>();
@@ -467,80 +448,28 @@ public class GameController {
     }
 
     /**
-     * 启动回合计时器
+     * 处理超时，由回合计时服务在房间邮箱线程上调用
      *
      * @param gameId 游戏ID
-     * @param userId 用户ID
      * @param roomId 房间ID
-     */
-    private void startRoundTimer(Long gameId, Long userId, Long roomId) {
-        GameTimerInfo timerInfo = gameTimers.getOrDefault(gameId, new GameTimerInfo(gameId));
-        
-        // 取消之前的计时器（如果有）
-        if (timerInfo.getTimerTask() != null) {
-            timerInfo.getTimerTask().cancel(true);
-        }
-        
-        // 设置当前玩家
-        timerInfo.setCurrentPlayerId(userId);
-        
-        // 重置剩余时间
-        timerInfo.setTimeLeft(timerInfo.getTimePerRound());
-        
-        // 创建新的计时器任务
-        Runnable timerTask = () -> {
-            try {
-                // 减少剩余时间
-                int timeLeft = timerInfo.getTimeLeft() - 1;
-                timerInfo.setTimeLeft(timeLeft);
-                
-                // 发送时间更新消息
-                Map<String, Object> timeUpdate = new HashMap<>();
-                timeUpdate.put("type", "ROUND_TIME_UPDATE");
-                timeUpdate.put("gameId", gameId);
-                timeUpdate.put("userId", userId);
-                
-                Map<String, Object> timeData = new HashMap<>();
-                timeData.put("timeLeft", timeLeft);
-                timeData.put("totalTime", timerInfo.getTimePerRound());
-                
-                timeUpdate.put("data", timeData);
-                
-                messagingTemplate.convertAndSend("/topic/room/" + roomId, timeUpdate);
-                
-                // 时间到，自动处理
-                if (timeLeft <= 0) {
-                    handleTimeOut(gameId, userId, roomId);
-                }
-            } catch (Exception e) {
-                logger.error("计时器任务执行错误", e);
-            }
-        };
-        
-        // 调度计时器任务
-        timerInfo.setTimerTask(scheduler.scheduleAtFixedRate(timerTask, 0, 1, TimeUnit.SECONDS));
-        
-        // 更新计时器信息
-        gameTimers.put(gameId, timerInfo);
-    }
-
-    /**
-     * 处理超时
-     *
-     * @param gameId 游戏ID
      * @param userId 用户ID
-     * @param roomId 房间ID
      */
-    private void handleTimeOut(Long gameId, Long userId, Long roomId) {
+    private void handleTimeOut(Long gameId, Long roomId, Long userId) {
         try {
-            logger.info("玩家回合超时, 游戏ID: {}, 用户ID: {}", gameId, userId);
-            
             // 获取游戏信息
             GameHistory game = gameService.findById(gameId);
             if (game == null || !game.getStatusEnum().equals(GameHistory.GameStatus.IN_PROGRESS)) {
                 return;
             }
             
+            // 到期与玩家行动可能同时发生，只处理仍然轮到该玩家的超时
+            TableState state = tableStateManager.get(gameId);
+            if (state != null && !userId.equals(state.getToActUserId())) {
+                return;
+            }
+            
+            logger.info("玩家回合超时, 游戏ID: {}, 用户ID: {}", gameId, userId);
+            
             // 判断是否可以过牌
             boolean canCheck = canPlayerCheck(gameId, userId);
             
@@ -558,24 +487,13 @@ public class GameController {
                 sendGameActionMessage(roomId, gameId, userId, "FOLD", "弃牌（自动）");
             }
             
-            // 更新游戏计时器信息
-            GameTimerInfo timerInfo = gameTimers.get(gameId);
-            if (timerInfo != null && timerInfo.getTimerTask() != null) {
-                timerInfo.getTimerTask().cancel(true);
-                timerInfo.setTimerTask(null);
-            }
-            
-            // 获取下一个玩家
-            Long nextPlayerId = getNextPlayerInTurn(gameId, userId);
+            // 更新当前回合玩家（下一位玩家的计时已在记录动作时开始）
+            Long nextPlayerId = state == null ? getNextPlayerInTurn(gameId, userId)
+                    : state.isStreetComplete() ? null : state.getToActUserId();
             if (nextPlayerId != null) {
-                // 更新当前回合玩家
-                // game.setCurrentTurn(nextPlayerId);
-                // 替代方案：使用自定义字段存储当前回合玩家ID
-                game.setCurrentPlayerId(nextPlayerId);
-                gameService.updateById(game);
-                
-                // 启动下一个玩家的计时器
-                startRoundTimer(gameId, nextPlayerId, roomId);
+                gameService.update(new LambdaUpdateWrapper<GameHistory>()
+                        .eq(GameHistory::getId, gameId)
+                        .set(GameHistory::getCurrentPlayerId, nextPlayerId));
             }
         } catch (Exception e) {
             logger.error("处理超时错误", e);
@@ -591,45 +509,16 @@ public class GameController {
      */
     private boolean canPlayerCheck(Long gameId, Long userId) {
         try {
-            // 获取当前轮次最高下注
-            GameHistory game = gameService.findById(gameId);
-            if (game == null) {
+            // 当前下注和玩家本轮投入都在牌桌状态中维护，无需读取动作记录
+            TableState state = tableStateManager.get(gameId);
+            if (state == null) {
                 return false;
             }
             
-            String currentRound = game.getCurrentRound() != null 
-                ? GameAction.GameRound.values()[game.getCurrentRound()].name() 
-                : GameAction.GameRound.PRE_FLOP.name();
-            
-            // 获取当前轮次的下注动作
-            List<GameAction> betActions = gameService.getGameRoundActions(gameId, GameAction.GameRound.valueOf(currentRound))
-                    .stream()
-                    .filter(action -> action.getActionTypeEnum() == GameAction.ActionType.BET || 
-                                     action.getActionTypeEnum() == GameAction.ActionType.RAISE || 
-                                     action.getActionTypeEnum() == GameAction.ActionType.CALL)
-                    .collect(Collectors.toList());
-            
-            if (betActions.isEmpty()) {
-                // 没有下注动作，可以过牌
-                return true;
+            synchronized (state) {
+                int index = state.indexOf(userId);
+                return index >= 0 && state.canCheck(index);
             }
-            
-            // 获取当前玩家在当前轮次的下注总额
-            BigDecimal playerBetAmount = BigDecimal.ZERO;
-            for (GameAction action : betActions) {
-                if (action.getUserId().equals(userId)) {
-                    playerBetAmount = playerBetAmount.add(action.getAmount());
-                }
-            }
-            
-            // 获取当前轮次的最高下注
-            BigDecimal highestBet = betActions.stream()
-                    .map(GameAction::getAmount)
-                    .max(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-            
-            // 如果玩家的下注等于最高下注，可以过牌
-            return playerBetAmount.compareTo(highestBet) >= 0;
         } catch (Exception e) {
             logger.error("判断是否可以过牌错误", e);
             return false;
@@ -659,7 +548,7 @@ public class GameController {
             GameAction.GameRound round = GameAction.GameRound.valueOf(roundStr);
             
             // 记录动作
-            gameService.recordGameAction(gameId, userId, actionType, amount, round);
+            tableExecutor.call(game.getRoomId(), () -> gameService.recordGameAction(gameId, userId, actionType, amount, round));
         } catch (Exception e) {
             logger.error("记录自动动作错误", e);
         }
@@ -686,9 +575,11 @@ public class GameController {
                 return null;
             }
             
-            // 过滤掉已弃牌的玩家
+            // 过滤掉已弃牌的玩家（一次查询得出所有玩家的弃牌标记）
+            GameAction.GameRound round = GameAction.GameRound.values()[game.getCurrentRound() != null ? game.getCurrentRound() : 0];
+            Map<Long, PlayerActionSummary> summaries = gameService.getPlayerActionSummaries(gameId, round);
             List<PlayerGameHistory> activePlayers = players.stream()
-                    .filter(p -> !hasPlayerFolded(gameId, p.getUserId()))
+                    .filter(p -> !hasPlayerFolded(summaries.get(p.getUserId())))
                     .collect(Collectors.toList());
             
             if (activePlayers.size() <= 1) {
@@ -746,25 +637,11 @@ public class GameController {
     /**
      * 判断玩家是否已弃牌
      *
-     * @param gameId 游戏ID
-     * @param userId 用户ID
+     * @param summary 玩家动作汇总，未行动时为 null
      * @return 是否已弃牌
      */
-    private boolean hasPlayerFolded(Long gameId, Long userId) {
-        try {
-            // 获取玩家的所有动作
-            List<GameAction> playerActions = gameService.getGameActions(gameId)
-                    .stream()
-                    .filter(action -> action.getUserId().equals(userId))
-                    .collect(Collectors.toList());
-            
-            // 检查是否有弃牌动作
-            return playerActions.stream()
-                    .anyMatch(action -> action.getActionTypeEnum() == GameAction.ActionType.FOLD);
-        } catch (Exception e) {
-            logger.error("判断玩家是否已弃牌错误", e);
-            return false;
-        }
+    private boolean hasPlayerFolded(PlayerActionSummary summary) {
+        return summary != null && Boolean.TRUE.equals(summary.getFolded());
     }
 
     /**
@@ -797,55 +674,4 @@ public class GameController {
             logger.error("发送游戏动作消息错误", e);
         }
     }
-
-    /**
-     * 游戏计时器信息类
-     */
-    private static class GameTimerInfo {
-        private final Long gameId;
-        private int timePerRound = 30; // 默认每回合30秒
-        private int timeLeft = 30;
-        private Long currentPlayerId;
-        private java.util.concurrent.ScheduledFuture<?> timerTask;
-        
-        public GameTimerInfo(Long gameId) {
-            this.gameId = gameId;
-        }
-        
-        public Long getGameId() {
-            return gameId;
-        }
-        
-        public int getTimePerRound() {
-            return timePerRound;
-        }
-        
-        public void setTimePerRound(int timePerRound) {
-            this.timePerRound = timePerRound;
-        }
-        
-        public int getTimeLeft() {
-            return timeLeft;
-        }
-        
-        public void setTimeLeft(int timeLeft) {
-            this.timeLeft = timeLeft;
-        }
-        
-        public Long getCurrentPlayerId() {
-            return currentPlayerId;
-        }
-        
-        public void setCurrentPlayerId(Long currentPlayerId) {
-            this.currentPlayerId = currentPlayerId;
-        }
-        
-        public java.util.concurrent.ScheduledFuture<?> getTimerTask() {
-            return timerTask;
-        }
-        
-        public void setTimerTask(java.util.concurrent.ScheduledFuture<?> timerTask) {
-            this.timerTask = timerTask;
-        }
-    }
 }
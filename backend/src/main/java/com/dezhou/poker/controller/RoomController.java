@@ -3,6 +3,7 @@ package com.dezhou.poker.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.dezhou.poker.dto.response.ApiResponse;
+import com.dezhou.poker.engine.TableExecutor;
 import com.dezhou.poker.entity.GameHistory;
 import com.dezhou.poker.entity.Room;
 import com.dezhou.poker.entity.RoomPlayer;
@@ -53,6 +54,9 @@ public class RoomController {
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private TableExecutor tableExecutor;
+
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
@@ -289,7 +293,7 @@ public class RoomController {
             }
             
             // 创建游戏实例
-            GameHistory gameHistory = gameService.startNewGame(roomId);
+            GameHistory gameHistory = tableExecutor.call(roomId, () -> gameService.startNewGame(roomId));
             
             // 更新房间状态为游戏中
             roomService.updateStatus(roomId, "PLAYING");
@@ -503,7 +507,7 @@ public class RoomController {
             GameHistory currentGame = gameService.getCurrentGame(roomId);
             if (currentGame != null) {
                 // 处理玩家在游戏中离开的情况
-                Map<String, Object> result = gameService.handlePlayerLeave(roomId, currentUser.getId());
+                Map<String, Object> result = tableExecutor.call(roomId, () -> gameService.handlePlayerLeave(roomId, currentUser.getId()));
                 logger.info("处理游戏中玩家离开结果: {}", result);
             }
 
@@ -0,0 +1,163 @@
+package com.dezhou.poker.controller;
+
+import com.dezhou.poker.dto.response.ApiResponse;
+import com.dezhou.poker.engine.DeckPool;
+import com.dezhou.poker.engine.TableExecutor;
+import com.dezhou.poker.engine.TableStateManager;
+import com.dezhou.poker.engine.WriteBehindJournal;
+import com.dezhou.poker.service.ArchiveService;
+import com.dezhou.poker.service.EntityCache;
+import com.dezhou.poker.service.HandExportService;
+import com.dezhou.poker.service.HoleCardService;
+import com.dezhou.poker.service.LeaderboardService;
+import com.dezhou.poker.service.PlayerStatsService;
+import com.dezhou.poker.service.TableDeltaService;
+import com.dezhou.poker.service.TurnTimerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 运行状态控制器
+ * 提供牌桌引擎内部计数器，便于观察吞吐量和资源使用情况
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    @Autowired
+    private TableStateManager tableStateManager;
+
+    @Autowired
+    private DeckPool deckPool;
+
+    @Autowired
+    private TableExecutor tableExecutor;
+
+    @Autowired
+    private TurnTimerService turnTimerService;
+
+    @Autowired
+    private WriteBehindJournal journal;
+
+    @Autowired
+    private TableDeltaService tableDeltaService;
+
+    @Autowired
+    private HoleCardService holeCardService;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private ArchiveService archiveService;
+
+    @Autowired
+    private HandExportService handExportService;
+
+    /**
+     * 获取牌桌引擎运行状态
+     *
+     * @return 运行状态
+     */
+    @GetMapping("/engine")
+    public ResponseEntity<?> getEngineStats() {
+        Map<String, Object> deck = new LinkedHashMap<>();
+        deck.put("shuffled", deckPool.getShuffledCount());
+        deck.put("served", deckPool.getServedCount());
+        deck.put("inline", deckPool.getInlineCount());
+        deck.put("available", deckPool.getAvailable());
+        deck.put("shufflesPerSecond", Math.round(deckPool.getShufflesPerSecond()));
+
+        Map<String, Object> actor = new LinkedHashMap<>();
+        actor.put("mailboxes", tableExecutor.getMailboxCount());
+        actor.put("pending", tableExecutor.getPending());
+        actor.put("maxMailboxDepth", tableExecutor.getMaxMailboxDepth());
+        actor.put("submitted", tableExecutor.getSubmittedCount());
+        actor.put("completed", tableExecutor.getCompletedCount());
+        actor.put("failed", tableExecutor.getFailedCount());
+        actor.put("rejected", tableExecutor.getRejectedCount());
+        actor.put("avgWaitMicros", tableExecutor.getAverageWaitMicros());
+        actor.put("maxWaitMicros", tableExecutor.getMaxWaitMicros());
+        actor.put("avgRunMicros", tableExecutor.getAverageRunMicros());
+
+        Map<String, Object> timer = new LinkedHashMap<>();
+        timer.put("pending", turnTimerService.getPending());
+        timer.put("expired", turnTimerService.getExpiredCount());
+        timer.put("cancelled", turnTimerService.getCancelledCount());
+
+        Map<String, Object> persistence = new LinkedHashMap<>();
+        persistence.put("pending", journal.getPending());
+        persistence.put("appended", journal.getAppendedCount());
+        persistence.put("appendedLsn", journal.getAppendedLsn());
+        persistence.put("flushedLsn", journal.getFlushedLsn());
+        persistence.put("batches", journal.getBatchCount());
+        persistence.put("rows", journal.getRowCount());
+        persistence.put("avgBatchSize", Math.round(journal.getAverageBatchSize() * 10) / 10.0);
+        persistence.put("retries", journal.getRetryCount());
+        persistence.put("deadLetters", journal.getDeadLetterCount());
+        persistence.put("backpressureWaits", journal.getBackpressureWaits());
+        persistence.put("fenced", journal.getFencedCount());
+
+        Map<String, Object> broadcast = new LinkedHashMap<>();
+        broadcast.put("deltas", tableDeltaService.getDeltaCount());
+        broadcast.put("resyncs", tableDeltaService.getSnapshotCount());
+
+        Map<String, Object> cards = new LinkedHashMap<>();
+        cards.put("pushed", holeCardService.getPushedCount());
+        cards.put("cachedGames", holeCardService.getCachedGames());
+        cards.put("cacheHits", holeCardService.getCacheHits());
+        cards.put("cacheMisses", holeCardService.getCacheMisses());
+
+        Map<String, Object> playerStats = new LinkedHashMap<>();
+        playerStats.put("backfilling", playerStatsService.isBackfilling());
+        playerStats.put("backfilledRows", playerStatsService.getBackfilledRows());
+        playerStats.put("backfillBatches", playerStatsService.getBackfillBatches());
+
+        Map<String, Object> leaderboard = new LinkedHashMap<>();
+        leaderboard.put("ready", leaderboardService.isReady());
+        leaderboard.put("players", leaderboardService.size());
+        leaderboard.put("incremental", leaderboardService.getIncrementalCount());
+        leaderboard.put("synced", leaderboardService.getSyncedCount());
+
+        Map<String, Object> archive = new LinkedHashMap<>();
+        archive.put("running", archiveService.isRunning());
+        archive.put("games", archiveService.getArchivedGames());
+        archive.put("players", archiveService.getArchivedPlayers());
+        archive.put("actions", archiveService.getArchivedActions());
+        archive.put("batches", archiveService.getBatches());
+        archive.put("throttledMs", archiveService.getThrottledMillis());
+
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("running", handExportService.isRunning());
+        export.put("games", handExportService.getExportedGames());
+        export.put("actions", handExportService.getExportedActions());
+        export.put("files", handExportService.getExportedFiles());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tables", tableStateManager.size());
+        stats.put("deck", deck);
+        stats.put("actor", actor);
+        stats.put("timer", timer);
+        stats.put("journal", persistence);
+        stats.put("broadcast", broadcast);
+        stats.put("cards", cards);
+        stats.put("cache", entityCache.getStats());
+        stats.put("playerStats", playerStats);
+        stats.put("leaderboard", leaderboard);
+        stats.put("archive", archive);
+        stats.put("export", export);
+        return ResponseEntity.ok(new ApiResponse(true, "获取运行状态成功", stats));
+    }
+}
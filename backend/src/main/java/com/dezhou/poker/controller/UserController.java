@@ -1,19 +1,22 @@
 package com.dezhou.poker.controller;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.dezhou.poker.dto.CursorPage;
+import com.dezhou.poker.dto.LeaderboardEntry;
 import com.dezhou.poker.dto.response.ApiResponse;
 import com.dezhou.poker.entity.ChipTransaction;
 import com.dezhou.poker.entity.GameHistory;
 import com.dezhou.poker.entity.PlayerGameHistory;
+import com.dezhou.poker.entity.PlayerStats;
 import com.dezhou.poker.entity.User;
 import com.dezhou.poker.security.UserPrincipal;
 import com.dezhou.poker.service.ChipTransactionService;
 import com.dezhou.poker.service.GameHistoryService;
+import com.dezhou.poker.service.LeaderboardService;
 import com.dezhou.poker.service.PlayerGameHistoryService;
+import com.dezhou.poker.service.PlayerStatsService;
 import com.dezhou.poker.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -21,7 +24,9 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户控制器
@@ -30,6 +35,8 @@ import java.util.List;
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private UserService userService;
 
@@ -42,6 +49,12 @@ public class UserController {
     @Autowired
     private ChipTransactionService chipTransactionService;
 
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
     /**
      * 获取当前用户信息
      *
@@ -71,49 +84,92 @@ public class UserController {
     }
 
     /**
-     * 获取用户游戏历史
+     * 获取用户游戏历史，按创建时间倒序的游标分页
      *
-     * @param userId 用户ID
-     * @param page   页码
-     * @param size   每页大小
-     * @return 游戏历史列表
+     * @param userId    用户ID
+     * @param cursor    上一页返回的 nextCursor，第一页不传
+     * @param size      每页大小
+     * @param withTotal 是否统计总数
+     * @return 游戏历史分页
      */
     @GetMapping("/{userId}/game-history")
     public ResponseEntity<?> getUserGameHistory(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        
-        Page<PlayerGameHistory> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<PlayerGameHistory> queryWrapper = new LambdaQueryWrapper<PlayerGameHistory>()
-                .eq(PlayerGameHistory::getUserId, userId)
-                .orderByDesc(PlayerGameHistory::getCreatedAt);
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         
-        IPage<PlayerGameHistory> historyPage = playerGameHistoryService.page(pageParam, queryWrapper);
-        return ResponseEntity.ok(historyPage);
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的分页参数"));
+        }
+        try {
+            CursorPage<PlayerGameHistory> historyPage = playerGameHistoryService.getUserGameHistoryPage(userId, cursor, size, withTotal);
+            return ResponseEntity.ok(historyPage);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        }
     }
 
     /**
-     * 获取用户筹码交易记录
+     * 获取用户统计（手数、胜率、净盈亏、VPIP、PFR），读取汇总表
      *
      * @param userId 用户ID
-     * @param page   页码
-     * @param size   每页大小
-     * @return 筹码交易记录列表
+     * @return 用户统计
+     */
+    @GetMapping("/{userId}/stats")
+    public ResponseEntity<?> getUserStats(@PathVariable Long userId) {
+        PlayerStats stats = playerStatsService.get(userId);
+        int hands = stats.getHands();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("userId", userId);
+        result.put("hands", hands);
+        result.put("wins", stats.getWins());
+        result.put("netProfit", stats.getNetProfit());
+        result.put("winRate", hands > 0 ? (double) stats.getWins() / hands : 0.0);
+        result.put("vpip", hands > 0 ? (double) stats.getVpipHands() / hands : 0.0);
+        result.put("pfr", hands > 0 ? (double) stats.getPfrHands() / hands : 0.0);
+        return ResponseEntity.ok(new ApiResponse(true, "获取用户统计成功", result));
+    }
+
+    /**
+     * 在后台回填玩家统计
+     *
+     * @return 是否已启动
+     */
+    @PostMapping("/stats/backfill")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> backfillStats() {
+        if (!playerStatsService.startBackfill()) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "玩家统计回填正在进行"));
+        }
+        return ResponseEntity.ok(new ApiResponse(true, "玩家统计回填已启动"));
+    }
+
+    /**
+     * 获取用户筹码交易记录，按创建时间倒序的游标分页
+     *
+     * @param userId    用户ID
+     * @param cursor    上一页返回的 nextCursor，第一页不传
+     * @param size      每页大小
+     * @param withTotal 是否统计总数
+     * @return 筹码交易记录分页
      */
     @GetMapping("/{userId}/chip-transactions")
     public ResponseEntity<?> getUserChipTransactions(
             @PathVariable Long userId,
-            @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
         
-        Page<ChipTransaction> pageParam = new Page<>(page, size);
-        LambdaQueryWrapper<ChipTransaction> queryWrapper = new LambdaQueryWrapper<ChipTransaction>()
-                .eq(ChipTransaction::getUserId, userId)
-                .orderByDesc(ChipTransaction::getCreatedAt);
-        
-        IPage<ChipTransaction> transactionPage = chipTransactionService.page(pageParam, queryWrapper);
-        return ResponseEntity.ok(transactionPage);
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的分页参数"));
+        }
+        try {
+            CursorPage<ChipTransaction> transactionPage = chipTransactionService.getUserTransactionPage(userId, cursor, size, withTotal);
+            return ResponseEntity.ok(transactionPage);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, e.getMessage()));
+        }
     }
 
     /**
@@ -155,38 +211,48 @@ public class UserController {
     }
 
     /**
-     * 获取排行榜
+     * 获取排行榜，由内存排行榜按名次截取，不再对用户表排序
      *
      * @param type 排行榜类型 (chips, wins, winRate)
+     * @param offset 跳过的名次数
      * @param limit 限制数量
      * @return 排行榜数据
      */
     @GetMapping("/leaderboard")
     public ResponseEntity<?> getLeaderboard(
             @RequestParam(defaultValue = "chips") String type,
+            @RequestParam(defaultValue = "0") int offset,
             @RequestParam(defaultValue = "10") int limit) {
         
-        LambdaQueryWrapper<User> queryWrapper = new LambdaQueryWrapper<>();
-        
-        switch (type) {
-            case "chips":
-                queryWrapper.orderByDesc(User::getCurrentChips);
-                break;
-            case "wins":
-                queryWrapper.orderByDesc(User::getWins);
-                break;
-            case "winRate":
-                queryWrapper.gt(User::getTotalGames, 0)
-                        .orderByDesc(u -> u.getWins() * 100 / u.getTotalGames());
-                break;
-            default:
-                return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的排行榜类型"));
+        LeaderboardService.Board board = LeaderboardService.Board.of(type);
+        if (board == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的排行榜类型"));
+        }
+        if (offset < 0 || limit <= 0 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的分页参数"));
+        }
+        if (!leaderboardService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ApiResponse(false, "排行榜正在加载"));
         }
         
-        // 限制返回数量
-        Page<User> page = new Page<>(1, limit);
-        IPage<User> userPage = userService.page(page, queryWrapper);
-        
-        return ResponseEntity.ok(userPage.getRecords());
+        List<LeaderboardEntry> entries = leaderboardService.top(board, offset, limit);
+        return ResponseEntity.ok(entries);
+    }
+
+    /**
+     * 获取用户在排行榜上的名次
+     *
+     * @param userId 用户ID
+     * @param type 排行榜类型 (chips, wins, winRate)
+     * @return 名次，未上榜时 data 为空
+     */
+    @GetMapping("/{userId}/rank")
+    public ResponseEntity<?> getUserRank(@PathVariable Long userId,
+                                         @RequestParam(defaultValue = "chips") String type) {
+        LeaderboardService.Board board = LeaderboardService.Board.of(type);
+        if (board == null) {
+            return ResponseEntity.badRequest().body(new ApiResponse(false, "无效的排行榜类型"));
+        }
+        return ResponseEntity.ok(new ApiResponse(true, "获取排名成功", leaderboardService.rank(board, userId)));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.dezhou.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 下注汇总DTO
+ * 每个动作之后牌局的底池、当前下注以及行动玩家的本局累计投入，随动作一起批量写回
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BettingUpdate {
+
+    /**
+     * 游戏ID
+     */
+    private Long gameId;
+
+    /**
+     * 行动玩家ID，进入下一轮等只更新牌局汇总时为空
+     */
+    private Long userId;
+
+    /**
+     * 底池
+     */
+    private BigDecimal potSize;
+
+    /**
+     * 本轮当前最高下注
+     */
+    private BigDecimal currentBet;
+
+    /**
+     * 玩家本局累计投入
+     */
+    private BigDecimal totalBet;
+}
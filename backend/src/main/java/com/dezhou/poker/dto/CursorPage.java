@@ -0,0 +1,37 @@
+package com.dezhou.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果DTO
+ * nextCursor 为空表示没有下一页；total 只在请求时统计，否则为空
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    /**
+     * 本页记录
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 总记录数
+     */
+    private Long total;
+}
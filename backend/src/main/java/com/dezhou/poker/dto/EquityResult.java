@@ -0,0 +1,88 @@
+package com.dezhou.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 胜率计算结果DTO
+ * 全下后按当前可见公共牌计算每位未弃牌玩家的胜率，并附带发牌次数投票结果
+ */
+@Data
+public class EquityResult {
+
+    /**
+     * 游戏ID
+     */
+    private Long gameId;
+
+    /**
+     * 房间ID
+     */
+    private Long roomId;
+
+    /**
+     * 计算时所处的轮次
+     */
+    private String round;
+
+    /**
+     * 已公开的公共牌
+     */
+    private String communityCards;
+
+    /**
+     * 是否为穷举结果（否则为蒙特卡洛估算）
+     */
+    private boolean exhaustive;
+
+    /**
+     * 计算的发牌次数
+     */
+    private long trials;
+
+    /**
+     * 计算耗时（毫秒）
+     */
+    private long elapsedMs;
+
+    /**
+     * 当前票数最多的发牌次数
+     */
+    private Integer runs;
+
+    /**
+     * 每位玩家的胜率
+     */
+    private List<PlayerEquity> players;
+
+    /**
+     * 单个玩家的胜率
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PlayerEquity {
+
+        private Long userId;
+
+        private String holeCards;
+
+        /**
+         * 胜率（平局按人数均分）
+         */
+        private double equity;
+
+        /**
+         * 独赢概率
+         */
+        private double win;
+
+        /**
+         * 平局概率
+         */
+        private double tie;
+    }
+}
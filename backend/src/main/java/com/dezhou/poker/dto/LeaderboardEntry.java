@@ -0,0 +1,51 @@
+package com.dezhou.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 排行榜条目DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    /**
+     * 排名，从 1 开始
+     */
+    private Integer rank;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 用户名
+     */
+    private String username;
+
+    /**
+     * 当前筹码
+     */
+    private BigDecimal currentChips;
+
+    /**
+     * 获胜局数
+     */
+    private Integer wins;
+
+    /**
+     * 总游戏局数
+     */
+    private Integer totalGames;
+
+    /**
+     * 胜率
+     */
+    private Double winRate;
+}
@@ -0,0 +1,45 @@
+package com.dezhou.poker.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 玩家动作汇总DTO
+ * 一次查询得出牌局中每位玩家是否弃牌、最后一个动作以及指定轮次的投入，没有内存牌桌状态时使用
+ */
+@Data
+@NoArgsConstructor
+public class PlayerActionSummary {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 是否已弃牌
+     */
+    private Boolean folded;
+
+    /**
+     * 最后一个动作类型
+     */
+    private String lastActionType;
+
+    /**
+     * 最后一个动作金额
+     */
+    private BigDecimal lastAmount;
+
+    /**
+     * 最后一个动作所在轮次
+     */
+    private String lastRound;
+
+    /**
+     * 指定轮次的累计投入
+     */
+    private BigDecimal streetContribution;
+}
@@ -0,0 +1,57 @@
+package com.dezhou.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 玩家离线统计DTO
+ * 由导出的列式牌局文件计算，不访问业务库
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerAggregate {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 手数
+     */
+    private int hands;
+
+    /**
+     * 赢得奖池的手数
+     */
+    private int wins;
+
+    /**
+     * 净盈亏（最终筹码 - 初始筹码）
+     */
+    private BigDecimal netProfit;
+
+    /**
+     * 总投入
+     */
+    private BigDecimal totalBet;
+
+    /**
+     * 翻牌前主动入池率
+     */
+    private double vpip;
+
+    /**
+     * 翻牌前加注率
+     */
+    private double pfr;
+
+    /**
+     * 激进度：(下注 + 加注 + 全下) / 跟注，没有跟注时为下注加注次数
+     */
+    private double aggression;
+}
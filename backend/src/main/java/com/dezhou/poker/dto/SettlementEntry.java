@@ -0,0 +1,32 @@
+package com.dezhou.poker.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * 结算明细DTO
+ * 一手牌结束时每位参与玩家的派彩结果，用于批量写回桌上筹码和战绩
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementEntry {
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 本手结束时的桌上筹码（剩余筹码加派彩）
+     */
+    private BigDecimal closingChips;
+
+    /**
+     * 是否获胜（1 是，0 否）
+     */
+    private int winFlag;
+}
@@ -0,0 +1,219 @@
+package com.dezhou.poker.engine;
+
+import java.util.Arrays;
+
+/**
+ * 扑克牌编码
+ * 每张牌编码为 0-51 的整数：card = suit * 13 + rank，
+ * rank 0-12 依次为 2-A，suit 0-3 依次为 H(红桃)、D(方块)、C(梅花)、S(黑桃)，
+ * 与原有 "AH" 字符串牌组的生成顺序一致。
+ * 有顺序的一组牌（如公共牌）存为字节数组，每张牌一个字节；
+ * 无顺序的一组牌可表示为 64 位掩码（bit = card），每种花色占连续的 13 位，便于位运算求值。
+ * 字符串形式只在接口和数据库的旧文本列边界使用。
+ */
+public final class Cards {
+
+    /**
+     * 一副牌的张数
+     */
+    public static final int DECK_SIZE = 52;
+
+    /**
+     * 点数个数
+     */
+    public static final int RANK_COUNT = 13;
+
+    /**
+     * 公共牌张数
+     */
+    public static final int BOARD_SIZE = 5;
+
+    private static final String RANKS = "23456789TJQKA";
+    private static final String SUITS = "HDCS";
+
+    private static final String[] NAMES = new String[DECK_SIZE];
+
+    static {
+        for (int card = 0; card < DECK_SIZE; card++) {
+            NAMES[card] = String.valueOf(RANKS.charAt(rank(card))) + SUITS.charAt(suit(card));
+        }
+    }
+
+    private Cards() {
+    }
+
+    /**
+     * 根据点数和花色构造牌
+     */
+    public static int of(int rank, int suit) {
+        return suit * RANK_COUNT + rank;
+    }
+
+    /**
+     * 牌的点数 (0=2 ... 12=A)
+     */
+    public static int rank(int card) {
+        return card % RANK_COUNT;
+    }
+
+    /**
+     * 牌的花色 (0=H, 1=D, 2=C, 3=S)
+     */
+    public static int suit(int card) {
+        return card / RANK_COUNT;
+    }
+
+    /**
+     * 牌对应的掩码位
+     */
+    public static long bit(int card) {
+        return 1L << card;
+    }
+
+    /**
+     * 解析单张牌，如 "AH"、"TD"、"10S"
+     *
+     * @param text 牌的字符串表示
+     * @return 牌编码
+     */
+    public static int parse(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("无效的牌: null");
+        }
+        String value = text.trim().toUpperCase();
+        if (value.startsWith("10")) {
+            value = "T" + value.substring(2);
+        }
+        if (value.length() != 2) {
+            throw new IllegalArgumentException("无效的牌: " + text);
+        }
+        int rank = RANKS.indexOf(value.charAt(0));
+        int suit = SUITS.indexOf(value.charAt(1));
+        if (rank < 0 || suit < 0) {
+            throw new IllegalArgumentException("无效的牌: " + text);
+        }
+        return of(rank, suit);
+    }
+
+    /**
+     * 牌编码转换为字符串
+     */
+    public static String toString(int card) {
+        return NAMES[card];
+    }
+
+    /**
+     * 解析逗号分隔的牌为字节数组（每张牌一个字节，保持顺序），如 "AH,KD"
+     *
+     * @param text 逗号分隔的牌
+     * @return 牌编码数组，空字符串返回空数组
+     */
+    public static byte[] parseBytes(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return new byte[0];
+        }
+        String[] parts = text.split(",");
+        byte[] cards = new byte[parts.length];
+        int n = 0;
+        for (String part : parts) {
+            if (!part.trim().isEmpty()) {
+                cards[n++] = (byte) parse(part);
+            }
+        }
+        return n == cards.length ? cards : Arrays.copyOf(cards, n);
+    }
+
+    /**
+     * 字节数组转换为逗号分隔的字符串（保持顺序）
+     */
+    public static String toString(byte[] cards) {
+        if (cards == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder(cards.length * 3);
+        for (byte card : cards) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(NAMES[card]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 字节数组转换为字符串数组
+     */
+    public static String[] toStrings(byte[] cards) {
+        String[] names = new String[cards.length];
+        for (int i = 0; i < cards.length; i++) {
+            names[i] = NAMES[cards[i]];
+        }
+        return names;
+    }
+
+    /**
+     * 字节数组前 count 张牌的掩码
+     */
+    public static long mask(byte[] cards, int count) {
+        long mask = 0L;
+        for (int i = 0; i < count; i++) {
+            mask |= bit(cards[i]);
+        }
+        return mask;
+    }
+
+    /**
+     * 字节数组的掩码
+     */
+    public static long mask(byte[] cards) {
+        return cards == null ? 0L : mask(cards, cards.length);
+    }
+
+    /**
+     * 掩码转换为字节数组（按编码顺序）
+     */
+    public static byte[] toBytes(long mask) {
+        byte[] cards = new byte[Long.bitCount(mask)];
+        int n = 0;
+        while (mask != 0L) {
+            cards[n++] = (byte) Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+        }
+        return cards;
+    }
+
+    /**
+     * 解析逗号分隔的牌为掩码，如 "AH,KD"
+     *
+     * @param text 逗号分隔的牌
+     * @return 掩码，空字符串返回 0
+     */
+    public static long parseMask(String text) {
+        long mask = 0L;
+        if (text == null || text.trim().isEmpty()) {
+            return mask;
+        }
+        for (String part : text.split(",")) {
+            if (!part.trim().isEmpty()) {
+                mask |= bit(parse(part));
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 掩码转换为逗号分隔的字符串（按编码顺序）
+     */
+    public static String maskToString(long mask) {
+        StringBuilder builder = new StringBuilder();
+        while (mask != 0L) {
+            int card = Long.numberOfTrailingZeros(mask);
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(NAMES[card]);
+            mask &= mask - 1;
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,43 @@
+package com.dezhou.poker.engine;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 筹码单位换算工具
+ * 引擎内部统一使用 long 表示筹码（最小单位为 0.01，与 DECIMAL(15,2) 对齐），
+ * 仅在数据库/接口边界与 BigDecimal 互相转换
+ */
+public final class ChipUnits {
+
+    /**
+     * 小数位数
+     */
+    public static final int SCALE = 2;
+
+    private ChipUnits() {
+    }
+
+    /**
+     * BigDecimal 转换为筹码单位
+     *
+     * @param value 金额
+     * @return 筹码单位，null 视为 0
+     */
+    public static long toUnits(BigDecimal value) {
+        if (value == null) {
+            return 0L;
+        }
+        return value.setScale(SCALE, RoundingMode.DOWN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 筹码单位转换为 BigDecimal
+     *
+     * @param units 筹码单位
+     * @return 金额
+     */
+    public static BigDecimal toDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+}
@@ -0,0 +1,231 @@
+package com.dezhou.poker.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 列式文件（.hcol）
+ * 只存 long 列（枚举存序号、金额存筹码单位、时间存 epoch 毫秒），按列连续存放：
+ * <pre>
+ * 文件头：magic "HCOL"、格式版本、行数、列数
+ * 每列：列名、原始长度、压缩长度、CRC32、数据块
+ * </pre>
+ * 数据块是相邻行的差值经 zigzag 变长编码后再 Deflate 压缩，有序的ID、序号和时间列压缩后通常每行不到 1 字节。
+ * 读取时按列名投影，不需要的列直接跳过压缩块，不解压。
+ */
+public final class ColumnarFile {
+
+    private static final int MAGIC = 0x48434F4C;
+    private static final int FORMAT = 1;
+
+    private ColumnarFile() {
+    }
+
+    /**
+     * 待写入的表，按行追加
+     */
+    public static final class Table {
+
+        private final String[] columns;
+        private long[][] values;
+        private int rows;
+
+        public Table(String... columns) {
+            this.columns = columns;
+            this.values = new long[columns.length][16];
+        }
+
+        /**
+         * 追加一行，值的顺序与列名一致
+         *
+         * @param row 各列的值
+         */
+        public void add(long... row) {
+            if (row.length != columns.length) {
+                throw new IllegalArgumentException("列数不匹配: " + row.length + " != " + columns.length);
+            }
+            if (rows == values[0].length) {
+                for (int i = 0; i < columns.length; i++) {
+                    values[i] = Arrays.copyOf(values[i], rows * 2);
+                }
+            }
+            for (int i = 0; i < columns.length; i++) {
+                values[i][rows] = row[i];
+            }
+            rows++;
+        }
+
+        public int size() {
+            return rows;
+        }
+    }
+
+    /**
+     * 写入文件：先写临时文件再原子替换，写到一半崩溃不会留下不完整的文件
+     *
+     * @param path  文件路径
+     * @param table 表
+     * @throws IOException 写入失败
+     */
+    public static void write(Path path, Table table) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT);
+            out.writeInt(table.rows);
+            out.writeShort(table.columns.length);
+            for (int i = 0; i < table.columns.length; i++) {
+                byte[] raw = encode(table.values[i], table.rows);
+                byte[] compressed = deflate(deflater, raw);
+                CRC32 crc = new CRC32();
+                crc.update(compressed);
+                out.writeUTF(table.columns[i]);
+                out.writeInt(raw.length);
+                out.writeInt(compressed.length);
+                out.writeLong(crc.getValue());
+                out.write(compressed);
+            }
+        } finally {
+            deflater.end();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取指定的列
+     *
+     * @param path    文件路径
+     * @param columns 需要的列名，为 null 时读取全部列
+     * @return 列名 -> 各行的值，文件中没有的列不出现在结果中
+     * @throws IOException 读取失败或文件损坏
+     */
+    public static Map<String, long[]> read(Path path, Set<String> columns) throws IOException {
+        Map<String, long[]> result = new LinkedHashMap<>();
+        Inflater inflater = new Inflater();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readByte() != FORMAT) {
+                throw new IOException("不支持的列式文件: " + path);
+            }
+            int rows = in.readInt();
+            int count = in.readShort();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                int rawLength = in.readInt();
+                int compressedLength = in.readInt();
+                long checksum = in.readLong();
+                if (columns != null && !columns.contains(name)) {
+                    in.skipBytes(compressedLength);
+                    continue;
+                }
+                byte[] compressed = new byte[compressedLength];
+                in.readFully(compressed);
+                CRC32 crc = new CRC32();
+                crc.update(compressed);
+                if (crc.getValue() != checksum) {
+                    throw new IOException("列式文件校验失败: " + path + " 列 " + name);
+                }
+                result.put(name, decode(inflate(inflater, compressed, rawLength), rows));
+            }
+        } finally {
+            inflater.end();
+        }
+        return result;
+    }
+
+    /**
+     * 差值 + zigzag 变长编码
+     */
+    private static byte[] encode(long[] values, int rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 2 + 16);
+        long previous = 0L;
+        for (int i = 0; i < rows; i++) {
+            long delta = values[i] - previous;
+            previous = values[i];
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                out.write((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            out.write((int) zigzag);
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] decode(byte[] raw, int rows) throws IOException {
+        long[] values = new long[rows];
+        long previous = 0L;
+        int pos = 0;
+        for (int i = 0; i < rows; i++) {
+            long zigzag = 0L;
+            int shift = 0;
+            while (true) {
+                if (pos >= raw.length || shift > 63) {
+                    throw new IOException("列数据损坏");
+                }
+                byte b = raw[pos++];
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                shift += 7;
+            }
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] compressed, int rawLength) throws IOException {
+        inflater.reset();
+        inflater.setInput(compressed);
+        byte[] raw = new byte[rawLength];
+        try {
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int read = inflater.inflate(raw, n, rawLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != rawLength) {
+                throw new IOException("列数据长度不符");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("列数据解压失败", e);
+        }
+        return raw;
+    }
+}
@@ -0,0 +1,152 @@
+package com.dezhou.poker.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 预洗牌池
+ * 后台线程使用 SecureRandom 对 byte[52] 做 Fisher-Yates 洗牌，并保持一个有界的预洗牌队列，
+ * 请求线程只需从队列取牌；队列被取空时才在调用线程上即时洗牌（计入 inlineCount）。
+ * 固定种子模式不启动后台线程，按调用顺序在调用线程上洗牌，同一种子得到同样的牌序，仅用于测试和回放。
+ */
+public class DeckPool implements DeckSource, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DeckPool.class);
+
+    private final Random random;
+    private final BlockingQueue<byte[]> ready;
+    private final Thread worker;
+
+    private final LongAdder shuffled = new LongAdder();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder inline = new LongAdder();
+    private final LongAdder shuffleNanos = new LongAdder();
+
+    private DeckPool(Random random, int capacity, boolean background) {
+        this.random = random;
+        if (background) {
+            this.ready = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            this.worker = new Thread(this::fill, "deck-shuffler");
+            this.worker.setDaemon(true);
+            this.worker.start();
+        } else {
+            this.ready = null;
+            this.worker = null;
+        }
+    }
+
+    /**
+     * 基于 SecureRandom 的预洗牌池
+     *
+     * @param random   安全随机数源
+     * @param capacity 预洗牌队列容量
+     */
+    public static DeckPool secure(SecureRandom random, int capacity) {
+        return new DeckPool(random, capacity, true);
+    }
+
+    /**
+     * 固定种子的确定性洗牌（不可用于真实牌局）
+     *
+     * @param seed 种子
+     */
+    public static DeckPool seeded(long seed) {
+        return new DeckPool(new Random(seed), 0, false);
+    }
+
+    @Override
+    public byte[] nextDeck() {
+        byte[] deck = ready != null ? ready.poll() : null;
+        if (deck == null) {
+            deck = shuffle();
+            if (ready != null) {
+                inline.increment();
+            }
+        }
+        served.increment();
+        return deck;
+    }
+
+    /**
+     * 按 Fisher-Yates 洗一副新牌
+     */
+    private byte[] shuffle() {
+        long start = System.nanoTime();
+        byte[] deck = new byte[Cards.DECK_SIZE];
+        for (int card = 0; card < Cards.DECK_SIZE; card++) {
+            deck[card] = (byte) card;
+        }
+        synchronized (random) {
+            for (int i = deck.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                byte temp = deck[i];
+                deck[i] = deck[j];
+                deck[j] = temp;
+            }
+        }
+        shuffleNanos.add(System.nanoTime() - start);
+        shuffled.increment();
+        return deck;
+    }
+
+    private void fill() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ready.put(shuffle());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("预洗牌线程异常退出，后续将在调用线程上洗牌", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * 累计洗牌次数
+     */
+    public long getShuffledCount() {
+        return shuffled.sum();
+    }
+
+    /**
+     * 累计发出的牌组数
+     */
+    public long getServedCount() {
+        return served.sum();
+    }
+
+    /**
+     * 队列为空时在调用线程上即时洗牌的次数
+     */
+    public long getInlineCount() {
+        return inline.sum();
+    }
+
+    /**
+     * 队列中可直接取用的牌组数
+     */
+    public int getAvailable() {
+        return ready != null ? ready.size() : 0;
+    }
+
+    /**
+     * 洗牌吞吐量（每秒可洗的牌组数，只计算洗牌本身的耗时）
+     */
+    public double getShufflesPerSecond() {
+        long nanos = shuffleNanos.sum();
+        return nanos == 0L ? 0.0 : shuffled.sum() * 1_000_000_000.0 / nanos;
+    }
+}
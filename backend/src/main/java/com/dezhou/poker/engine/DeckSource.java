@@ -0,0 +1,14 @@
+package com.dezhou.poker.engine;
+
+/**
+ * 洗好的牌组来源
+ */
+public interface DeckSource {
+
+    /**
+     * 取一副洗好的牌
+     *
+     * @return 52 张牌的字节数组（见 Cards），调用方独占，可以修改
+     */
+    byte[] nextDeck();
+}
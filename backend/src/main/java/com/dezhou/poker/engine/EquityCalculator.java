@@ -0,0 +1,332 @@
+package com.dezhou.poker.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 胜率计算器
+ * 剩余公共牌的组合数足够小时穷举所有发牌结果，否则在 ForkJoin 线程池上并行做蒙特卡洛抽样，
+ * 每个子任务使用独立拆分出的 SplittableRandom，并在截止时间到达时提前停止。
+ * 求值基于 HandEvaluator，单次求值不分配对象。
+ */
+public class EquityCalculator {
+
+    /**
+     * 蒙特卡洛每批抽样数，每批结束检查一次截止时间
+     */
+    private static final int BATCH = 1024;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 穷举上限（发牌组合数 × 玩家数）
+     */
+    private final long exhaustiveLimit;
+
+    public EquityCalculator(ForkJoinPool pool, long exhaustiveLimit) {
+        this.pool = pool;
+        this.exhaustiveLimit = exhaustiveLimit;
+    }
+
+    /**
+     * 计算胜率
+     *
+     * @param holeCards   每位玩家的手牌掩码
+     * @param board       已公开的公共牌掩码
+     * @param dead        其他不可用的牌
+     * @param maxSamples  蒙特卡洛最大抽样数
+     * @param budgetNanos 计算时间预算（纳秒）
+     * @return 计算结果
+     */
+    public Result calculate(long[] holeCards, long board, long dead, long maxSamples, long budgetNanos) {
+        int players = holeCards.length;
+        if (players < 2) {
+            throw new IllegalArgumentException("至少需要两名玩家");
+        }
+        long used = board | dead;
+        for (long cards : holeCards) {
+            if ((used & cards) != 0) {
+                throw new IllegalArgumentException("存在重复的牌");
+            }
+            used |= cards;
+        }
+
+        int[] remaining = new int[Cards.DECK_SIZE - Long.bitCount(used)];
+        int n = 0;
+        for (int card = 0; card < Cards.DECK_SIZE; card++) {
+            if ((used & Cards.bit(card)) == 0) {
+                remaining[n++] = card;
+            }
+        }
+        int toDeal = 5 - Long.bitCount(board);
+        if (toDeal < 0) {
+            throw new IllegalArgumentException("公共牌超过5张");
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        Tally tally;
+        boolean exhaustive = combinations(remaining.length, toDeal) * players <= exhaustiveLimit;
+        if (exhaustive) {
+            tally = pool.invoke(new ExhaustiveTask(holeCards, board, remaining, toDeal, 0, remaining.length));
+        } else {
+            int tasks = Math.max(1, pool.getParallelism() * 2);
+            tally = pool.invoke(new SamplingTask(holeCards, board, remaining, toDeal,
+                    new SplittableRandom(), tasks, (maxSamples + tasks - 1) / tasks, deadline));
+        }
+        return new Result(tally, exhaustive);
+    }
+
+    private static long combinations(int n, int k) {
+        long result = 1;
+        for (int i = 0; i < k; i++) {
+            result = result * (n - i) / (i + 1);
+        }
+        return result;
+    }
+
+    /**
+     * 对一种完整公共牌计分
+     */
+    private static void score(long[] holeCards, long board, int[] values, Tally tally) {
+        int best = Integer.MIN_VALUE;
+        int winners = 0;
+        for (int i = 0; i < holeCards.length; i++) {
+            values[i] = HandEvaluator.evaluate(board | holeCards[i]);
+            if (values[i] > best) {
+                best = values[i];
+                winners = 1;
+            } else if (values[i] == best) {
+                winners++;
+            }
+        }
+        double share = 1.0 / winners;
+        for (int i = 0; i < holeCards.length; i++) {
+            if (values[i] == best) {
+                tally.equity[i] += share;
+                if (winners == 1) {
+                    tally.wins[i]++;
+                } else {
+                    tally.ties[i]++;
+                }
+            }
+        }
+        tally.trials++;
+    }
+
+    /**
+     * 穷举任务：按第一张待发牌的下标区间拆分
+     */
+    private static final class ExhaustiveTask extends RecursiveTask<Tally> {
+
+        private final long[] holeCards;
+        private final long board;
+        private final int[] remaining;
+        private final int toDeal;
+        private final int from;
+        private final int to;
+
+        ExhaustiveTask(long[] holeCards, long board, int[] remaining, int toDeal, int from, int to) {
+            this.holeCards = holeCards;
+            this.board = board;
+            this.remaining = remaining;
+            this.toDeal = toDeal;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (toDeal == 0) {
+                Tally tally = new Tally(holeCards.length);
+                score(holeCards, board, new int[holeCards.length], tally);
+                return tally;
+            }
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ExhaustiveTask left = new ExhaustiveTask(holeCards, board, remaining, toDeal, from, mid);
+                left.fork();
+                Tally right = new ExhaustiveTask(holeCards, board, remaining, toDeal, mid, to).compute();
+                return right.merge(left.join());
+            }
+            Tally tally = new Tally(holeCards.length);
+            int[] values = new int[holeCards.length];
+            enumerate(board | Cards.bit(remaining[from]), from + 1, toDeal - 1, values, tally);
+            return tally;
+        }
+
+        private void enumerate(long partial, int start, int left, int[] values, Tally tally) {
+            if (left == 0) {
+                score(holeCards, partial, values, tally);
+                return;
+            }
+            for (int i = start; i <= remaining.length - left; i++) {
+                enumerate(partial | Cards.bit(remaining[i]), i + 1, left - 1, values, tally);
+            }
+        }
+    }
+
+    /**
+     * 抽样任务：拆分为多个子任务，每个子任务独立随机数源
+     */
+    private static final class SamplingTask extends RecursiveTask<Tally> {
+
+        private final long[] holeCards;
+        private final long board;
+        private final int[] remaining;
+        private final int toDeal;
+        private final SplittableRandom random;
+        private final int tasks;
+        private final long samplesPerTask;
+        private final long deadline;
+
+        SamplingTask(long[] holeCards, long board, int[] remaining, int toDeal, SplittableRandom random,
+                     int tasks, long samplesPerTask, long deadline) {
+            this.holeCards = holeCards;
+            this.board = board;
+            this.remaining = remaining;
+            this.toDeal = toDeal;
+            this.random = random;
+            this.tasks = tasks;
+            this.samplesPerTask = samplesPerTask;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (tasks > 1) {
+                List<SamplingTask> forked = new ArrayList<>(tasks - 1);
+                for (int t = 1; t < tasks; t++) {
+                    SamplingTask task = new SamplingTask(holeCards, board, remaining, toDeal, random.split(),
+                            1, samplesPerTask, deadline);
+                    task.fork();
+                    forked.add(task);
+                }
+                Tally tally = sample();
+                for (SamplingTask task : forked) {
+                    tally.merge(task.join());
+                }
+                return tally;
+            }
+            return sample();
+        }
+
+        private Tally sample() {
+            Tally tally = new Tally(holeCards.length);
+            int[] values = new int[holeCards.length];
+            int[] deck = remaining.clone();
+            long done = 0;
+            while (done < samplesPerTask) {
+                long batchEnd = Math.min(samplesPerTask, done + BATCH);
+                for (; done < batchEnd; done++) {
+                    long cards = board;
+                    // 部分 Fisher-Yates，只洗出需要的张数
+                    for (int i = 0; i < toDeal; i++) {
+                        int j = i + random.nextInt(deck.length - i);
+                        int swap = deck[i];
+                        deck[i] = deck[j];
+                        deck[j] = swap;
+                        cards |= Cards.bit(deck[i]);
+                    }
+                    score(holeCards, cards, values, tally);
+                }
+                if (System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+            return tally;
+        }
+    }
+
+    /**
+     * 计分累加器
+     */
+    private static final class Tally {
+
+        private final double[] equity;
+        private final long[] wins;
+        private final long[] ties;
+        private long trials;
+
+        Tally(int players) {
+            this.equity = new double[players];
+            this.wins = new long[players];
+            this.ties = new long[players];
+        }
+
+        Tally merge(Tally other) {
+            for (int i = 0; i < equity.length; i++) {
+                equity[i] += other.equity[i];
+                wins[i] += other.wins[i];
+                ties[i] += other.ties[i];
+            }
+            trials += other.trials;
+            return this;
+        }
+    }
+
+    /**
+     * 计算结果
+     */
+    public static final class Result {
+
+        private final double[] equity;
+        private final double[] win;
+        private final double[] tie;
+        private final long trials;
+        private final boolean exhaustive;
+
+        Result(Tally tally, boolean exhaustive) {
+            int players = tally.equity.length;
+            this.equity = new double[players];
+            this.win = new double[players];
+            this.tie = new double[players];
+            this.trials = tally.trials;
+            this.exhaustive = exhaustive;
+            if (trials > 0) {
+                for (int i = 0; i < players; i++) {
+                    equity[i] = tally.equity[i] / trials;
+                    win[i] = (double) tally.wins[i] / trials;
+                    tie[i] = (double) tally.ties[i] / trials;
+                }
+            }
+        }
+
+        /**
+         * 胜率（平局按人数均分）
+         */
+        public double[] getEquity() {
+            return equity;
+        }
+
+        /**
+         * 独赢概率
+         */
+        public double[] getWin() {
+            return win;
+        }
+
+        /**
+         * 平局概率
+         */
+        public double[] getTie() {
+            return tie;
+        }
+
+        /**
+         * 计算的发牌次数
+         */
+        public long getTrials() {
+            return trials;
+        }
+
+        /**
+         * 是否为穷举结果
+         */
+        public boolean isExhaustive() {
+            return exhaustive;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.dezhou.poker.engine;
+
+/**
+ * 牌型枚举
+ * 名称与前端 PokerUtils.HAND_TYPES 保持一致，直接写入 PlayerGameHistory.finalHandType
+ */
+public enum HandCategory {
+    HIGH_CARD,          // 高牌
+    ONE_PAIR,           // 一对
+    TWO_PAIR,           // 两对
+    THREE_OF_A_KIND,    // 三条
+    STRAIGHT,           // 顺子
+    FLUSH,              // 同花
+    FULL_HOUSE,         // 葫芦
+    FOUR_OF_A_KIND,     // 四条
+    STRAIGHT_FLUSH,     // 同花顺
+    ROYAL_FLUSH;        // 皇家同花顺
+
+    private static final HandCategory[] VALUES = values();
+
+    /**
+     * 根据 HandEvaluator 的求值结果获取牌型
+     *
+     * @param value 牌力值
+     * @return 牌型
+     */
+    public static HandCategory of(int value) {
+        int category = value >>> HandEvaluator.CATEGORY_SHIFT;
+        if (category == STRAIGHT_FLUSH.ordinal() && ((value >>> 16) & 0xF) == Cards.RANK_COUNT - 1) {
+            return ROYAL_FLUSH;
+        }
+        return VALUES[category];
+    }
+}
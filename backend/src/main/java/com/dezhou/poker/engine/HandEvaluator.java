@@ -0,0 +1,173 @@
+package com.dezhou.poker.engine;
+
+/**
+ * 5-7 张牌求值器
+ * 基于花色位掩码和预计算的 13 位点数表（顺子表、前五高牌表）实现，求值过程不分配对象。
+ * 返回的牌力值可直接比较大小：高 4 位为牌型，低 20 位依次为 5 个关键点数（每个 4 位）。
+ * 线程安全。
+ */
+public final class HandEvaluator {
+
+    /**
+     * 牌型在牌力值中的偏移
+     */
+    public static final int CATEGORY_SHIFT = 20;
+
+    private static final int RANK_MASK = (1 << Cards.RANK_COUNT) - 1;
+    private static final int TABLE_SIZE = 1 << Cards.RANK_COUNT;
+
+    private static final int HIGH_CARD = 0;
+    private static final int ONE_PAIR = 1;
+    private static final int TWO_PAIR = 2;
+    private static final int THREE_OF_A_KIND = 3;
+    private static final int STRAIGHT = 4;
+    private static final int FLUSH = 5;
+    private static final int FULL_HOUSE = 6;
+    private static final int FOUR_OF_A_KIND = 7;
+    private static final int STRAIGHT_FLUSH = 8;
+
+    /**
+     * 点数掩码 -> 最大顺子的最高点数，无顺子为 -1
+     */
+    private static final byte[] STRAIGHT_HIGH = new byte[TABLE_SIZE];
+
+    /**
+     * 点数掩码 -> 最高 5 个点数，按 4 位一组从高到低排列
+     */
+    private static final int[] TOP_FIVE = new int[TABLE_SIZE];
+
+    static {
+        for (int mask = 0; mask < TABLE_SIZE; mask++) {
+            STRAIGHT_HIGH[mask] = (byte) straightHigh(mask);
+
+            int packed = 0;
+            int taken = 0;
+            for (int rank = Cards.RANK_COUNT - 1; rank >= 0 && taken < 5; rank--) {
+                if ((mask & (1 << rank)) != 0) {
+                    packed |= rank << (4 * (4 - taken));
+                    taken++;
+                }
+            }
+            TOP_FIVE[mask] = packed;
+        }
+    }
+
+    private HandEvaluator() {
+    }
+
+    /**
+     * 求 7 张牌的牌力值
+     */
+    public static int evaluate(int c1, int c2, int c3, int c4, int c5, int c6, int c7) {
+        return evaluate(Cards.bit(c1) | Cards.bit(c2) | Cards.bit(c3) | Cards.bit(c4)
+                | Cards.bit(c5) | Cards.bit(c6) | Cards.bit(c7));
+    }
+
+    /**
+     * 求一组牌（5-7 张，以掩码表示）的牌力值
+     *
+     * @param cards 牌掩码
+     * @return 牌力值，越大越好
+     */
+    public static int evaluate(long cards) {
+        int h = (int) (cards & RANK_MASK);
+        int d = (int) ((cards >>> 13) & RANK_MASK);
+        int c = (int) ((cards >>> 26) & RANK_MASK);
+        int s = (int) ((cards >>> 39) & RANK_MASK);
+
+        // 同花（7 张牌最多只可能有一种花色达到 5 张）
+        int flushMask = Integer.bitCount(h) >= 5 ? h
+                : Integer.bitCount(d) >= 5 ? d
+                : Integer.bitCount(c) >= 5 ? c
+                : Integer.bitCount(s) >= 5 ? s : 0;
+        if (flushMask != 0) {
+            int high = STRAIGHT_HIGH[flushMask];
+            if (high >= 0) {
+                return (STRAIGHT_FLUSH << CATEGORY_SHIFT) | (high << 16);
+            }
+        }
+
+        int all = h | d | c | s;
+        int quads = h & d & c & s;
+        if (quads != 0) {
+            int quad = highest(quads);
+            return (FOUR_OF_A_KIND << CATEGORY_SHIFT) | (quad << 16)
+                    | (top(all & ~(1 << quad), 1) << 12);
+        }
+
+        int pairsOrBetter = (h & d) | (h & c) | (h & s) | (d & c) | (d & s) | (c & s);
+        int tripsOrBetter = ((h & d) & (c | s)) | ((c & s) & (h | d));
+        int pairs = pairsOrBetter & ~tripsOrBetter;
+
+        if (tripsOrBetter != 0) {
+            int trip = highest(tripsOrBetter);
+            int rest = (tripsOrBetter & ~(1 << trip)) | pairs;
+            if (rest != 0) {
+                return (FULL_HOUSE << CATEGORY_SHIFT) | (trip << 16) | (highest(rest) << 12);
+            }
+        }
+
+        if (flushMask != 0) {
+            return (FLUSH << CATEGORY_SHIFT) | TOP_FIVE[flushMask];
+        }
+
+        int straight = STRAIGHT_HIGH[all];
+        if (straight >= 0) {
+            return (STRAIGHT << CATEGORY_SHIFT) | (straight << 16);
+        }
+
+        if (tripsOrBetter != 0) {
+            int trip = highest(tripsOrBetter);
+            return (THREE_OF_A_KIND << CATEGORY_SHIFT) | (trip << 16)
+                    | (top(all & ~(1 << trip), 2) << 8);
+        }
+
+        if (Integer.bitCount(pairs) >= 2) {
+            int high = highest(pairs);
+            int low = highest(pairs & ~(1 << high));
+            return (TWO_PAIR << CATEGORY_SHIFT) | (high << 16) | (low << 12)
+                    | (top(all & ~(1 << high) & ~(1 << low), 1) << 8);
+        }
+
+        if (pairs != 0) {
+            int pair = highest(pairs);
+            return (ONE_PAIR << CATEGORY_SHIFT) | (pair << 16)
+                    | (top(all & ~(1 << pair), 3) << 4);
+        }
+
+        return (HIGH_CARD << CATEGORY_SHIFT) | TOP_FIVE[all];
+    }
+
+    /**
+     * 求牌型
+     *
+     * @param cards 牌掩码
+     * @return 牌型
+     */
+    public static HandCategory category(long cards) {
+        return HandCategory.of(evaluate(cards));
+    }
+
+    /**
+     * 掩码中最高的 n 个点数（按 4 位一组打包）
+     */
+    private static int top(int mask, int n) {
+        return TOP_FIVE[mask] >>> (4 * (5 - n));
+    }
+
+    private static int highest(int mask) {
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    private static int straightHigh(int mask) {
+        for (int high = Cards.RANK_COUNT - 1; high >= 4; high--) {
+            int run = 0x1F << (high - 4);
+            if ((mask & run) == run) {
+                return high;
+            }
+        }
+        // A-2-3-4-5
+        int wheel = (1 << 12) | 0xF;
+        return (mask & wheel) == wheel ? 3 : -1;
+    }
+}
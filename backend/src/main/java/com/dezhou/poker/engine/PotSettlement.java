@@ -0,0 +1,229 @@
+package com.dezhou.poker.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 奖池结算
+ * 根据每位玩家的总投入构建分层边池，每层由有资格的玩家中牌力最大者平分（多次发牌时每层先按发牌次数等分），
+ * 不能整除的零头按庄家左手起的座位顺序逐个分配（每人一个最小单位），保证结果确定且筹码守恒。
+ * 全部使用 long 筹码单位计算。
+ */
+public final class PotSettlement {
+
+    private PotSettlement() {
+    }
+
+    /**
+     * 结算奖池
+     *
+     * @param contributions 每位玩家本手牌的总投入
+     * @param foldedMask    已弃牌玩家位集
+     * @param handValues    每位玩家的牌力值（弃牌玩家忽略）
+     * @param dealerIndex   庄家索引，用于决定零头分配顺序
+     * @return 结算结果
+     */
+    public static Result settle(long[] contributions, int foldedMask, int[] handValues, int dealerIndex) {
+        return settle(contributions, foldedMask, new int[][]{handValues}, dealerIndex);
+    }
+
+    /**
+     * 多次发牌结算
+     * 每个奖池按发牌次数等分（零头归前面的发牌），每一份由该次发牌中牌力最大者赢得
+     *
+     * @param contributions  每位玩家本手牌的总投入
+     * @param foldedMask     已弃牌玩家位集
+     * @param runHandValues  每次发牌下每位玩家的牌力值
+     * @param dealerIndex    庄家索引，用于决定零头分配顺序
+     * @return 结算结果
+     */
+    public static Result settle(long[] contributions, int foldedMask, int[][] runHandValues, int dealerIndex) {
+        int size = contributions.length;
+        int runs = runHandValues.length;
+        if (runs == 0) {
+            throw new IllegalArgumentException("至少需要一次发牌");
+        }
+        long[] payouts = new long[size];
+        List<Pot> pots = layers(contributions, foldedMask, runs);
+
+        for (Pot pot : pots) {
+            long share = pot.amount / runs;
+            long odd = pot.amount % runs;
+            for (int run = 0; run < runs; run++) {
+                int winners = bestHands(pot.eligibleMask, runHandValues[run], size);
+                pot.winnerMasks[run] = winners;
+                distribute(winners, share + (run < odd ? 1 : 0), payouts, dealerIndex, size);
+            }
+        }
+
+        return new Result(payouts, pots, runs);
+    }
+
+    /**
+     * 根据投入构建分层奖池（主池在前）
+     */
+    private static List<Pot> layers(long[] contributions, int foldedMask, int runs) {
+        int size = contributions.length;
+        List<Pot> pots = new ArrayList<>();
+
+        long[] levels = contributions.clone();
+        Arrays.sort(levels);
+
+        long previous = 0L;
+        long carry = 0L;
+        for (long level : levels) {
+            if (level <= previous) {
+                continue;
+            }
+            long amount = carry;
+            int eligible = 0;
+            for (int i = 0; i < size; i++) {
+                amount += Math.min(contributions[i], level) - Math.min(contributions[i], previous);
+                if ((foldedMask & (1 << i)) == 0 && contributions[i] >= level) {
+                    eligible |= 1 << i;
+                }
+            }
+            previous = level;
+
+            if (eligible == 0) {
+                // 这一层没有未弃牌的玩家，并入上一层（或下一层）
+                if (!pots.isEmpty()) {
+                    pots.get(pots.size() - 1).amount += amount;
+                } else {
+                    carry = amount;
+                }
+                continue;
+            }
+            carry = 0L;
+            pots.add(new Pot(amount, eligible, runs));
+        }
+
+        if (carry > 0L) {
+            // 所有投入都来自已弃牌玩家（理论上不会发生），归剩余玩家中牌力最大者
+            int live = ~foldedMask & ((1 << size) - 1);
+            if (live != 0) {
+                pots.add(new Pot(carry, live, runs));
+            }
+        }
+        return pots;
+    }
+
+    private static int bestHands(int eligible, int[] handValues, int size) {
+        int best = Integer.MIN_VALUE;
+        int winners = 0;
+        for (int i = 0; i < size; i++) {
+            if ((eligible & (1 << i)) == 0) {
+                continue;
+            }
+            if (handValues[i] > best) {
+                best = handValues[i];
+                winners = 1 << i;
+            } else if (handValues[i] == best) {
+                winners |= 1 << i;
+            }
+        }
+        return winners;
+    }
+
+    private static void distribute(int winners, long amount, long[] payouts, int dealerIndex, int size) {
+        int count = Integer.bitCount(winners);
+        long share = amount / count;
+        long odd = amount % count;
+        for (int step = 1; step <= size; step++) {
+            int i = (dealerIndex + step) % size;
+            if ((winners & (1 << i)) == 0) {
+                continue;
+            }
+            payouts[i] += share;
+            if (odd > 0) {
+                payouts[i]++;
+                odd--;
+            }
+        }
+    }
+
+    /**
+     * 单个奖池（主池或边池）
+     */
+    public static final class Pot {
+
+        private long amount;
+        private final int eligibleMask;
+
+        /**
+         * 每次发牌的赢家位集
+         */
+        private final int[] winnerMasks;
+
+        Pot(long amount, int eligibleMask, int runs) {
+            this.amount = amount;
+            this.eligibleMask = eligibleMask;
+            this.winnerMasks = new int[runs];
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public int getEligibleMask() {
+            return eligibleMask;
+        }
+
+        /**
+         * 所有发牌中至少赢得一份的玩家
+         */
+        public int getWinnerMask() {
+            int mask = 0;
+            for (int winners : winnerMasks) {
+                mask |= winners;
+            }
+            return mask;
+        }
+
+        /**
+         * 某一次发牌的赢家
+         */
+        public int getWinnerMask(int run) {
+            return winnerMasks[run];
+        }
+    }
+
+    /**
+     * 结算结果
+     */
+    public static final class Result {
+
+        private final long[] payouts;
+        private final List<Pot> pots;
+        private final int runs;
+
+        Result(long[] payouts, List<Pot> pots, int runs) {
+            this.payouts = payouts;
+            this.pots = Collections.unmodifiableList(pots);
+            this.runs = runs;
+        }
+
+        /**
+         * 每位玩家赢得的筹码
+         */
+        public long[] getPayouts() {
+            return payouts;
+        }
+
+        /**
+         * 主池在前、边池依次在后
+         */
+        public List<Pot> getPots() {
+            return pots;
+        }
+
+        /**
+         * 发牌次数
+         */
+        public int getRuns() {
+            return runs;
+        }
+    }
+}
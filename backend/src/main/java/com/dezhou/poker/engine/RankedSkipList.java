@@ -0,0 +1,210 @@
+package com.dezhou.poker.engine;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 带跨度的跳表（有序统计结构）
+ * 元素为 (分数, ID)，按分数降序、分数相同按 ID 升序排列。每一层的前向指针记录跨过的元素数，
+ * 查找路径上累加跨度即得排名，因此插入、删除、按元素求排名和按排名定位都是 O(log n)，
+ * 取前 k 名为 O(log n + k)。非线程安全，由调用方加锁。
+ */
+public class RankedSkipList {
+
+    private static final int MAX_LEVEL = 32;
+    private static final double PROBABILITY = 0.25;
+
+    private final Node head = new Node(0L, 0L, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+
+    /**
+     * 插入元素，调用方需保证同一 ID 只插入一次
+     *
+     * @param score 分数
+     * @param id    ID
+     */
+    public void insert(long score, long id) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], score, id)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > level) {
+            for (int i = level; i < newLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                update[i].span[i] = size;
+            }
+            level = newLevel;
+        }
+
+        Node node = new Node(score, id, newLevel);
+        for (int i = 0; i < newLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            // update[i] 到新节点跨过 rank[0] - rank[i] 个元素，剩余跨度归新节点
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = newLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        size++;
+    }
+
+    /**
+     * 删除元素
+     *
+     * @param score 分数
+     * @param id    ID
+     * @return 是否存在并已删除
+     */
+    public boolean remove(long score, long id) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], score, id)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        Node target = x.next[0];
+        if (target == null || target.score != score || target.id != id) {
+            return false;
+        }
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * 元素的排名
+     *
+     * @param score 分数
+     * @param id    ID
+     * @return 从 1 开始的排名，不存在返回 0
+     */
+    public int rank(long score, long id) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !before(score, id, x.next[i].score, x.next[i].id)) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x != head && x.score == score && x.id == id) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 按排名顺序访问一段元素
+     *
+     * @param offset  跳过的元素数
+     * @param limit   最多访问的元素数
+     * @param visitor 访问者
+     */
+    public void range(int offset, int limit, Visitor visitor) {
+        if (offset < 0 || limit <= 0 || offset >= size) {
+            return;
+        }
+        // 先沿跨度定位到第 offset 个元素（head 为第 0 个），再沿最底层顺序访问
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= offset) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+        int rank = offset;
+        for (Node node = x.next[0]; node != null && rank < offset + limit; node = node.next[0]) {
+            visitor.visit(++rank, node.score, node.id);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空
+     */
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+        size = 0;
+    }
+
+    private static boolean before(Node node, long score, long id) {
+        return before(node.score, node.id, score, id);
+    }
+
+    /**
+     * (score1, id1) 是否排在 (score2, id2) 之前
+     */
+    private static boolean before(long score1, long id1, long score2, long id2) {
+        return score1 > score2 || (score1 == score2 && id1 < id2);
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextDouble() < PROBABILITY) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * 访问者
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * @param rank  从 1 开始的排名
+         * @param score 分数
+         * @param id    ID
+         */
+        void visit(int rank, long score, long id);
+    }
+
+    private static final class Node {
+
+        private final long score;
+        private final long id;
+        private final Node[] next;
+        private final int[] span;
+
+        Node(long score, long id, int level) {
+            this.score = score;
+            this.id = id;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.dezhou.poker.engine;
+
+import com.dezhou.poker.exception.TableNotOwnedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 牌桌执行器
+ * 每个房间对应一个邮箱（actor），同一房间的命令按提交顺序在共享线程池上逐个执行，
+ * 不同房间之间并行；邮箱每次最多连续处理 BATCH 条命令后让出线程，避免繁忙牌桌饿死其他牌桌。
+ * 多节点部署时只接受由本节点负责的房间（见 {@link TableRouter}），其他房间的命令直接失败。
+ */
+@Component
+public class TableExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(TableExecutor.class);
+
+    /**
+     * 邮箱每次被调度时最多处理的命令数
+     */
+    private static final int BATCH = 32;
+
+    /**
+     * 当前线程正在处理的房间，用于同一房间内的嵌套调用直接执行
+     */
+    private static final ThreadLocal<Long> CURRENT_ROOM = new ThreadLocal<>();
+
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    @Value("${poker.actor.threads:0}")
+    private int threads;
+
+    @Autowired
+    private TableRouter tableRouter;
+
+    private ExecutorService pool;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "table-actor-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("牌桌执行器线程数: {}", size);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * 提交命令到房间邮箱
+     *
+     * @param roomId  房间ID
+     * @param command 命令
+     * @return 命令结果
+     */
+    public <T> CompletableFuture<T> submit(Long roomId, Callable<T> command) {
+        if (!tableRouter.isLocal(roomId)) {
+            String owner = tableRouter.ownerOf(roomId);
+            rejected.increment();
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new TableNotOwnedException(roomId, owner, tableRouter.getNodeUrl(owner)));
+            return future;
+        }
+        return enqueue(roomId, command);
+    }
+
+    /**
+     * 不检查路由直接提交到房间邮箱，用于交出房间前排空邮箱
+     *
+     * @param roomId  房间ID
+     * @param command 命令
+     * @return 命令结果
+     */
+    public <T> CompletableFuture<T> submitLocal(Long roomId, Callable<T> command) {
+        return enqueue(roomId, command);
+    }
+
+    private <T> CompletableFuture<T> enqueue(Long roomId, Callable<T> command) {
+        Envelope<T> envelope = new Envelope<>(command);
+        submitted.increment();
+        pending.incrementAndGet();
+        mailboxes.computeIfAbsent(roomId, Mailbox::new).enqueue(envelope);
+        return envelope.future;
+    }
+
+    /**
+     * 提交命令并等待执行完成
+     * 已在该房间的邮箱线程中时直接执行，避免自己等待自己
+     *
+     * @param roomId  房间ID
+     * @param command 命令
+     * @return 命令结果
+     */
+    public <T> T call(Long roomId, Callable<T> command) {
+        if (roomId.equals(CURRENT_ROOM.get())) {
+            try {
+                return command.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }
+        try {
+            return submit(roomId, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 所有邮箱中待处理的命令数
+     */
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * 单个邮箱的最大积压
+     */
+    public int getMaxMailboxDepth() {
+        int max = 0;
+        for (Mailbox mailbox : mailboxes.values()) {
+            max = Math.max(max, mailbox.depth.get());
+        }
+        return max;
+    }
+
+    public int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 因房间不由本节点负责而拒绝的命令数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 命令平均排队时间（微秒）
+     */
+    public long getAverageWaitMicros() {
+        long count = completed.sum() + failed.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(waitNanos.sum() / count);
+    }
+
+    /**
+     * 命令最大排队时间（微秒）
+     */
+    public long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get());
+    }
+
+    /**
+     * 命令平均执行时间（微秒）
+     */
+    public long getAverageRunMicros() {
+        long count = completed.sum() + failed.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(runNanos.sum() / count);
+    }
+
+    /**
+     * 房间邮箱
+     */
+    private final class Mailbox implements Runnable {
+
+        private final Long roomId;
+        private final Queue<Envelope<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Mailbox(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        void enqueue(Envelope<?> envelope) {
+            queue.offer(envelope);
+            depth.incrementAndGet();
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                pool.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            CURRENT_ROOM.set(roomId);
+            try {
+                for (int i = 0; i < BATCH; i++) {
+                    Envelope<?> envelope = queue.poll();
+                    if (envelope == null) {
+                        break;
+                    }
+                    depth.decrementAndGet();
+                    pending.decrementAndGet();
+                    envelope.run();
+                }
+            } finally {
+                CURRENT_ROOM.remove();
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * 命令及其结果
+     */
+    private final class Envelope<T> {
+
+        private final Callable<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long enqueuedAt = System.nanoTime();
+
+        Envelope(Callable<T> command) {
+            this.command = command;
+        }
+
+        void run() {
+            long start = System.nanoTime();
+            long wait = start - enqueuedAt;
+            waitNanos.add(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            try {
+                T result = command.call();
+                completed.increment();
+                future.complete(result);
+            } catch (Throwable e) {
+                failed.increment();
+                future.completeExceptionally(e);
+            } finally {
+                runNanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+}
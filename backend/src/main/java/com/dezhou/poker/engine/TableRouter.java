@@ -0,0 +1,277 @@
+package com.dezhou.poker.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 牌桌路由
+ * 房间按哈希落到固定数量的分片，分片在节点组成的一致性哈希环上选出目标节点，
+ * 增删节点时只有环上相邻区间的分片换节点。该房间的所有命令只在所有者节点的邮箱中执行。
+ * <p>
+ * 静态模式下所有者就是环上的目标节点；开启租约后所有者由 {@link #setShardOwners} 按租约表设置，
+ * 本节点只在本地租约期限内认为自己是所有者，目标节点只用于决定分片该迁往哪里。
+ * 节点列表为空且未开启租约时为单节点模式，所有房间都在本节点执行。
+ */
+@Component
+public class TableRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(TableRouter.class);
+
+    /**
+     * 本节点ID
+     */
+    @Value("${poker.cluster.node-id:local}")
+    private String nodeId;
+
+    /**
+     * 集群节点，逗号分隔的 节点ID=访问地址，如 a=http://10.0.0.1:8080,b=http://10.0.0.2:8080
+     */
+    @Value("${poker.cluster.nodes:}")
+    private String nodesConfig;
+
+    /**
+     * 每个节点在环上的虚拟节点数
+     */
+    @Value("${poker.cluster.virtual-nodes:160}")
+    private int virtualNodes;
+
+    /**
+     * 分片数，集群运行后不能修改
+     */
+    @Value("${poker.cluster.shards:64}")
+    private int shardCount;
+
+    @Value("${poker.cluster.lease.enabled:false}")
+    private boolean leaseEnabled;
+
+    private volatile Map<String, String> nodes = Collections.emptyMap();
+
+    private volatile NavigableMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * 租约模式下的分片所有者，静态模式为 null
+     */
+    private volatile ShardOwners owners;
+
+    @PostConstruct
+    public void init() {
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String entry : nodesConfig.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int eq = trimmed.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("集群节点配置格式错误: " + trimmed);
+            }
+            parsed.put(trimmed.substring(0, eq).trim(), trimmed.substring(eq + 1).trim());
+        }
+        if (!parsed.isEmpty() && !parsed.containsKey(nodeId)) {
+            throw new IllegalStateException("本节点 " + nodeId + " 不在集群节点列表中");
+        }
+        setNodes(parsed);
+        if (leaseEnabled) {
+            // 第一次心跳拿到租约之前不执行任何房间的命令
+            owners = new ShardOwners(new String[shardCount], new long[shardCount], new long[shardCount]);
+        }
+        if (!parsed.isEmpty()) {
+            log.info("牌桌路由: 本节点 {}, 集群节点 {}", nodeId, parsed.keySet());
+        }
+    }
+
+    /**
+     * 替换集群节点并重建哈希环
+     *
+     * @param nodes 节点ID -> 访问地址
+     */
+    public void setNodes(Map<String, String> nodes) {
+        NavigableMap<Long, String> next = new TreeMap<>();
+        for (String node : nodes.keySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                next.put(hash(node + "#" + i), node);
+            }
+        }
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+        this.ring = next;
+    }
+
+    /**
+     * 切换到租约模式并替换分片所有者
+     *
+     * @param owners         分片ID -> 所有者节点ID，无人持有为 null
+     * @param localDeadlines 分片ID -> 本节点租约的本地到期时间（System.nanoTime），非本节点为 0
+     * @param epochs         分片ID -> 本节点持有的租约纪元，非本节点为 0
+     */
+    public synchronized void setShardOwners(String[] owners, long[] localDeadlines, long[] epochs) {
+        if (owners.length != shardCount || localDeadlines.length != shardCount || epochs.length != shardCount) {
+            throw new IllegalArgumentException("分片数不一致");
+        }
+        this.owners = new ShardOwners(owners.clone(), localDeadlines.clone(), epochs.clone());
+    }
+
+    /**
+     * 立即放弃本节点对分片的所有权，之后提交到该分片房间的命令都会被拒绝
+     *
+     * @param shard 分片ID
+     */
+    public synchronized void revoke(int shard) {
+        ShardOwners current = owners;
+        if (current == null) {
+            return;
+        }
+        String[] nextOwners = current.owners.clone();
+        long[] nextDeadlines = current.localDeadlines.clone();
+        long[] nextEpochs = current.epochs.clone();
+        nextOwners[shard] = null;
+        nextDeadlines[shard] = 0L;
+        nextEpochs[shard] = 0L;
+        owners = new ShardOwners(nextOwners, nextDeadlines, nextEpochs);
+    }
+
+    /**
+     * 房间所在分片
+     *
+     * @param roomId 房间ID
+     * @return 分片ID
+     */
+    public int shardOf(Long roomId) {
+        return (int) Math.floorMod(hash("room:" + roomId), (long) shardCount);
+    }
+
+    /**
+     * 分片在哈希环上的目标节点
+     *
+     * @param shard 分片ID
+     * @return 节点ID
+     */
+    public String targetOf(int shard) {
+        NavigableMap<Long, String> current = ring;
+        if (current.isEmpty()) {
+            return nodeId;
+        }
+        Map.Entry<Long, String> entry = current.ceilingEntry(hash("shard:" + shard));
+        return entry != null ? entry.getValue() : current.firstEntry().getValue();
+    }
+
+    /**
+     * 房间的所有者节点
+     *
+     * @param roomId 房间ID
+     * @return 节点ID，租约模式下无人持有时返回 null
+     */
+    public String ownerOf(Long roomId) {
+        int shard = shardOf(roomId);
+        ShardOwners current = owners;
+        return current != null ? current.owners[shard] : targetOf(shard);
+    }
+
+    /**
+     * 房间是否由本节点负责
+     *
+     * @param roomId 房间ID
+     * @return 是否本节点
+     */
+    public boolean isLocal(Long roomId) {
+        int shard = shardOf(roomId);
+        ShardOwners current = owners;
+        if (current == null) {
+            return nodeId.equals(targetOf(shard));
+        }
+        return nodeId.equals(current.owners[shard]) && System.nanoTime() - current.localDeadlines[shard] < 0;
+    }
+
+    /**
+     * 本节点写入该房间数据时携带的租约纪元，用于在数据库侧拒绝旧所有者的迟到写入
+     *
+     * @param roomId 房间ID
+     * @return 未开启租约时返回 0（不做防护）；本节点不持有该分片时返回 -1
+     */
+    public long epochOf(Long roomId) {
+        ShardOwners current = owners;
+        if (current == null) {
+            return 0L;
+        }
+        int shard = shardOf(roomId);
+        return nodeId.equals(current.owners[shard]) ? current.epochs[shard] : -1L;
+    }
+
+    /**
+     * 节点访问地址
+     *
+     * @param node 节点ID
+     * @return 访问地址，未知节点返回 null
+     */
+    public String getNodeUrl(String node) {
+        return node != null ? nodes.get(node) : null;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public Map<String, String> getNodes() {
+        return nodes;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 分片所有者快照
+     *
+     * @return 分片ID -> 所有者节点ID，静态模式为目标节点
+     */
+    public String[] getShardOwners() {
+        ShardOwners current = owners;
+        if (current != null) {
+            return current.owners.clone();
+        }
+        String[] result = new String[shardCount];
+        Arrays.setAll(result, this::targetOf);
+        return result;
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希再做一次混合，使相邻的键在环上分散开
+     */
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 租约模式下的分片所有者，整体替换保证读取一致
+     */
+    private static final class ShardOwners {
+
+        private final String[] owners;
+        private final long[] localDeadlines;
+        private final long[] epochs;
+
+        ShardOwners(String[] owners, long[] localDeadlines, long[] epochs) {
+            this.owners = owners;
+            this.localDeadlines = localDeadlines;
+            this.epochs = epochs;
+        }
+    }
+}
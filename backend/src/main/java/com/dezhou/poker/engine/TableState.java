@@ -0,0 +1,633 @@
+package com.dezhou.poker.engine;
+
+import com.dezhou.poker.entity.GameAction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 牌桌内存状态
+ * 一手牌的权威状态：座位、筹码、街道、当前下注、行动指针以及弃牌/全下位集。
+ * 所有决策都基于此状态完成，game_history/game_actions 只作为持久化副作用写入。
+ * 非线程安全，调用方需保证同一牌桌的操作串行执行。
+ */
+public class TableState {
+
+    /**
+     * 单桌最大座位数（位集使用 int 存储）
+     */
+    public static final int MAX_SEATS = 31;
+
+    /**
+     * 快照格式版本
+     */
+    private static final int SNAPSHOT_FORMAT = 3;
+
+    private final long roomId;
+    private final long gameId;
+    private final int size;
+
+    /**
+     * 以下数组均按座位号升序排列，下标即玩家索引
+     */
+    private final long[] userIds;
+    private final int[] seatNumbers;
+    private final long[] stacks;
+    private final long[] streetContributions;
+    private final long[] totalContributions;
+
+    /**
+     * 手牌掩码（见 Cards）
+     */
+    private final long[] holeCards;
+
+    /**
+     * 五张公共牌（整手牌预留，按街道逐步公开），按发牌顺序每张一个字节
+     */
+    private byte[] boardCards = new byte[0];
+
+    /**
+     * 公共牌掩码
+     */
+    private long board;
+
+    private int foldedMask;
+    private int allInMask;
+
+    /**
+     * 自上一次加注以来已行动的玩家
+     */
+    private int actedMask;
+
+    /**
+     * 翻牌前主动投入筹码（VPIP）和翻牌前加注（PFR）的玩家，结算时计入玩家统计
+     */
+    private int vpipMask;
+    private int pfrMask;
+
+    private GameAction.GameRound street = GameAction.GameRound.PRE_FLOP;
+    private long currentBet;
+
+    /**
+     * 大盲注（最小下注）和本轮上一次完整加注的幅度
+     */
+    private long bigBlind;
+    private long lastRaise;
+    private long pot;
+    private int dealerIndex;
+    private int toAct;
+
+    /**
+     * 状态版本号，每次变更递增
+     */
+    private long version;
+
+    /**
+     * 已应用的最后一个事件序号（game_actions.seq）
+     */
+    private long lastSeq;
+
+    public TableState(long roomId, long gameId, long[] userIds, int[] seatNumbers, long[] stacks, int dealerIndex) {
+        if (userIds.length != seatNumbers.length || userIds.length != stacks.length) {
+            throw new IllegalArgumentException("座位数据长度不一致");
+        }
+        if (userIds.length > MAX_SEATS) {
+            throw new IllegalArgumentException("座位数超过上限: " + userIds.length);
+        }
+        this.roomId = roomId;
+        this.gameId = gameId;
+        this.size = userIds.length;
+        this.userIds = userIds.clone();
+        this.seatNumbers = seatNumbers.clone();
+        this.stacks = stacks.clone();
+        this.streetContributions = new long[size];
+        this.totalContributions = new long[size];
+        this.holeCards = new long[size];
+        this.dealerIndex = size == 0 ? 0 : Math.floorMod(dealerIndex, size);
+        this.toAct = size == 0 ? -1 : firstToAct();
+    }
+
+    /**
+     * 分配下一个事件序号
+     */
+    public long nextSeq() {
+        return ++lastSeq;
+    }
+
+    /**
+     * 校验并应用玩家动作，校验失败时不修改任何状态
+     * <ul>
+     *     <li>只有轮到行动的玩家可以行动，本轮下注结束后不再接受动作</li>
+     *     <li>已全下的玩家不能再行动（包括弃牌）</li>
+     *     <li>CALL 投入 min(需跟注额, 剩余筹码)，忽略客户端金额</li>
+     *     <li>BET/RAISE 的金额必须超过需跟注额，且加注幅度不小于最小加注（大盲注与本轮上一次加注幅度中的较大者），
+     *     筹码不足时只能全下</li>
+     *     <li>不足最小加注的全下不重新打开已行动玩家的加注权</li>
+     * </ul>
+     *
+     * @param index  玩家索引
+     * @param type   动作类型
+     * @param amount BET/RAISE 本次投入的筹码，其他动作忽略
+     * @return 实际投入的筹码
+     * @throws IllegalStateException    不轮到该玩家或动作不合法
+     * @throws IllegalArgumentException 玩家不在牌桌上或金额不合法
+     */
+    public long apply(int index, GameAction.ActionType type, long amount) {
+        checkIndex(index);
+        int bit = 1 << index;
+        if ((foldedMask & bit) != 0) {
+            throw new IllegalStateException("玩家已弃牌");
+        }
+        if ((allInMask & bit) != 0) {
+            throw new IllegalStateException("玩家已全下");
+        }
+        if (toAct != index || isStreetComplete()) {
+            throw new IllegalStateException("还没有轮到该玩家行动");
+        }
+
+        long toCall = toCall(index);
+        long committed;
+        switch (type) {
+            case FOLD:
+                foldedMask |= bit;
+                committed = 0L;
+                break;
+            case CHECK:
+                if (streetContributions[index] < currentBet) {
+                    throw new IllegalStateException("当前有人下注，不能过牌");
+                }
+                committed = 0L;
+                break;
+            case CALL:
+                if (toCall <= 0L) {
+                    throw new IllegalStateException("当前无需跟注，请过牌");
+                }
+                committed = commit(index, toCall);
+                break;
+            case BET:
+            case RAISE:
+                if (type == GameAction.ActionType.BET && currentBet > 0L) {
+                    throw new IllegalStateException("本轮已有下注，只能加注");
+                }
+                if (amount >= stacks[index]) {
+                    // 金额达到剩余筹码时按全下处理
+                    committed = commit(index, stacks[index]);
+                    break;
+                }
+                if (amount <= toCall) {
+                    throw new IllegalStateException("加注金额必须超过需跟注的 " + ChipUnits.toDecimal(toCall));
+                }
+                long raise = streetContributions[index] + amount - currentBet;
+                if (raise < minRaise()) {
+                    throw new IllegalStateException("加注幅度不能小于 " + ChipUnits.toDecimal(minRaise()));
+                }
+                committed = commit(index, amount);
+                break;
+            case ALL_IN:
+                committed = commit(index, stacks[index]);
+                break;
+            default:
+                throw new IllegalArgumentException("未知动作类型: " + type);
+        }
+
+        boolean preFlop = street == GameAction.GameRound.PRE_FLOP;
+        if (preFlop && committed > 0) {
+            vpipMask |= bit;
+        }
+        if (streetContributions[index] > currentBet) {
+            long raise = streetContributions[index] - currentBet;
+            currentBet = streetContributions[index];
+            if (raise >= minRaise()) {
+                // 完整加注重新打开行动，其他玩家需要再次表态
+                lastRaise = raise;
+                actedMask = 0;
+            }
+            if (preFlop) {
+                pfrMask |= bit;
+            }
+        }
+        actedMask |= bit;
+        toAct = nextActive(index);
+        version++;
+        return committed;
+    }
+
+    /**
+     * 最小加注幅度：大盲注与本轮上一次完整加注幅度中的较大者
+     */
+    public long minRaise() {
+        return Math.max(Math.max(bigBlind, lastRaise), 1L);
+    }
+
+    /**
+     * 更换庄家，行动从新庄家的下一位开始；只应在本局第一个动作之前调用
+     *
+     * @param index 新庄家的玩家索引
+     */
+    public void moveDealer(int index) {
+        checkIndex(index);
+        dealerIndex = index;
+        toAct = firstToAct();
+        version++;
+    }
+
+    /**
+     * 当前街道是否所有玩家都已完成行动
+     */
+    public boolean isStreetComplete() {
+        // 只剩一名可行动玩家时，跟平当前下注即可，无需再表态
+        boolean single = actionableCount() <= 1;
+        for (int i = 0; i < size; i++) {
+            int bit = 1 << i;
+            if ((foldedMask & bit) != 0 || (allInMask & bit) != 0) {
+                continue;
+            }
+            if (streetContributions[i] < currentBet) {
+                return false;
+            }
+            if (!single && (actedMask & bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 进入下一条街道，重置本街道的下注信息
+     *
+     * @return 新的街道
+     */
+    public GameAction.GameRound advanceStreet() {
+        if (street == GameAction.GameRound.SHOWDOWN) {
+            return street;
+        }
+        street = GameAction.GameRound.values()[street.ordinal() + 1];
+        for (int i = 0; i < size; i++) {
+            streetContributions[i] = 0L;
+        }
+        currentBet = 0L;
+        lastRaise = 0L;
+        actedMask = 0;
+        toAct = street == GameAction.GameRound.SHOWDOWN ? -1 : firstToAct();
+        version++;
+        return street;
+    }
+
+    /**
+     * 某一轮次已公开的公共牌张数（翻牌3张、转牌4张、河牌及摊牌5张）
+     */
+    public static int visibleBoardCount(GameAction.GameRound street) {
+        switch (street) {
+            case FLOP:
+                return 3;
+            case TURN:
+                return 4;
+            case RIVER:
+            case SHOWDOWN:
+                return Cards.BOARD_SIZE;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 玩家还需跟注的筹码
+     */
+    public long toCall(int index) {
+        checkIndex(index);
+        return Math.min(Math.max(0L, currentBet - streetContributions[index]), stacks[index]);
+    }
+
+    /**
+     * 玩家是否可以过牌
+     */
+    public boolean canCheck(int index) {
+        checkIndex(index);
+        return streetContributions[index] >= currentBet;
+    }
+
+    /**
+     * 根据用户ID查找玩家索引
+     *
+     * @return 玩家索引，不存在返回 -1
+     */
+    public int indexOf(long userId) {
+        for (int i = 0; i < size; i++) {
+            if (userIds[i] == userId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 未弃牌的玩家数量
+     */
+    public int activeCount() {
+        return Integer.bitCount(~foldedMask & fullMask());
+    }
+
+    /**
+     * 仍可行动（未弃牌且未全下）的玩家数量
+     */
+    public int actionableCount() {
+        return Integer.bitCount(~(foldedMask | allInMask) & fullMask());
+    }
+
+    /**
+     * 玩家是否已弃牌
+     */
+    public boolean isFolded(int index) {
+        checkIndex(index);
+        return (foldedMask & (1 << index)) != 0;
+    }
+
+    /**
+     * 玩家是否已全下
+     */
+    public boolean isAllIn(int index) {
+        checkIndex(index);
+        return (allInMask & (1 << index)) != 0;
+    }
+
+    /**
+     * 当前轮到行动的用户ID
+     *
+     * @return 用户ID，无人可行动时返回 null
+     */
+    public Long getToActUserId() {
+        return toAct < 0 ? null : userIds[toAct];
+    }
+
+    private long commit(int index, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("下注金额不能为负数");
+        }
+        long actual = Math.min(amount, stacks[index]);
+        stacks[index] -= actual;
+        streetContributions[index] += actual;
+        totalContributions[index] += actual;
+        pot += actual;
+        if (stacks[index] == 0L) {
+            allInMask |= 1 << index;
+        }
+        return actual;
+    }
+
+    /**
+     * 每条街道从庄家下一位开始行动
+     */
+    private int firstToAct() {
+        return nextActive(dealerIndex);
+    }
+
+    private int nextActive(int from) {
+        int blocked = foldedMask | allInMask;
+        for (int step = 1; step <= size; step++) {
+            int i = (from + step) % size;
+            if ((blocked & (1 << i)) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int fullMask() {
+        return size == 32 ? -1 : (1 << size) - 1;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("玩家不在牌桌上");
+        }
+    }
+
+    public long getRoomId() {
+        return roomId;
+    }
+
+    public long getGameId() {
+        return gameId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getUserId(int index) {
+        return userIds[index];
+    }
+
+    public int getSeatNumber(int index) {
+        return seatNumbers[index];
+    }
+
+    public long getStack(int index) {
+        return stacks[index];
+    }
+
+    public long getStreetContribution(int index) {
+        return streetContributions[index];
+    }
+
+    public long getTotalContribution(int index) {
+        return totalContributions[index];
+    }
+
+    public long getHoleCards(int index) {
+        return holeCards[index];
+    }
+
+    public void setHoleCards(int index, long cards) {
+        holeCards[index] = cards;
+    }
+
+    public long getBoard() {
+        return board;
+    }
+
+    /**
+     * 按发牌顺序的全部公共牌（只读）
+     */
+    public byte[] getBoardCards() {
+        return boardCards;
+    }
+
+    public void setBoard(byte[] boardCards) {
+        this.boardCards = boardCards.clone();
+        this.board = Cards.mask(boardCards);
+    }
+
+    /**
+     * 当前轮次已公开的公共牌掩码
+     */
+    public long getVisibleBoard() {
+        return Cards.mask(boardCards, Math.min(visibleBoardCount(street), boardCards.length));
+    }
+
+    /**
+     * 当前轮次已公开的公共牌
+     */
+    public byte[] getVisibleBoardCards() {
+        return Arrays.copyOf(boardCards, Math.min(visibleBoardCount(street), boardCards.length));
+    }
+
+    public int getFoldedMask() {
+        return foldedMask;
+    }
+
+    public int getAllInMask() {
+        return allInMask;
+    }
+
+    public int getVpipMask() {
+        return vpipMask;
+    }
+
+    public int getPfrMask() {
+        return pfrMask;
+    }
+
+    public GameAction.GameRound getStreet() {
+        return street;
+    }
+
+    public long getCurrentBet() {
+        return currentBet;
+    }
+
+    public long getBigBlind() {
+        return bigBlind;
+    }
+
+    public void setBigBlind(long bigBlind) {
+        this.bigBlind = bigBlind;
+    }
+
+    public long getPot() {
+        return pot;
+    }
+
+    public int getDealerIndex() {
+        return dealerIndex;
+    }
+
+    public int getToAct() {
+        return toAct;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    /**
+     * 序列化为紧凑的二进制快照
+     */
+    public byte[] toSnapshot() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + size * 48);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SNAPSHOT_FORMAT);
+            out.writeLong(roomId);
+            out.writeLong(gameId);
+            out.writeByte(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(userIds[i]);
+                out.writeInt(seatNumbers[i]);
+                out.writeLong(stacks[i]);
+                out.writeLong(streetContributions[i]);
+                out.writeLong(totalContributions[i]);
+                out.writeLong(holeCards[i]);
+            }
+            out.writeByte(boardCards.length);
+            out.write(boardCards);
+            out.writeInt(foldedMask);
+            out.writeInt(allInMask);
+            out.writeInt(actedMask);
+            out.writeByte(street.ordinal());
+            out.writeLong(currentBet);
+            out.writeLong(pot);
+            out.writeByte(dealerIndex);
+            out.writeByte(toAct);
+            out.writeLong(version);
+            out.writeLong(lastSeq);
+            out.writeInt(vpipMask);
+            out.writeInt(pfrMask);
+            out.writeLong(bigBlind);
+            out.writeLong(lastRaise);
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化牌桌状态失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 从二进制快照恢复
+     */
+    public static TableState fromSnapshot(byte[] snapshot) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            int format = in.readByte();
+            // 格式 1 没有 VPIP/PFR 标记，按未入池恢复；格式 2 没有大盲注和加注幅度，由调用方补充大盲注
+            if (format < 1 || format > SNAPSHOT_FORMAT) {
+                throw new IllegalArgumentException("不支持的快照格式: " + format);
+            }
+            long roomId = in.readLong();
+            long gameId = in.readLong();
+            int size = in.readByte();
+            long[] userIds = new long[size];
+            int[] seats = new int[size];
+            long[] stacks = new long[size];
+            long[] street = new long[size];
+            long[] total = new long[size];
+            long[] hole = new long[size];
+            for (int i = 0; i < size; i++) {
+                userIds[i] = in.readLong();
+                seats[i] = in.readInt();
+                stacks[i] = in.readLong();
+                street[i] = in.readLong();
+                total[i] = in.readLong();
+                hole[i] = in.readLong();
+            }
+            byte[] board = new byte[in.readByte()];
+            in.readFully(board);
+
+            TableState state = new TableState(roomId, gameId, userIds, seats, stacks, 0);
+            System.arraycopy(street, 0, state.streetContributions, 0, size);
+            System.arraycopy(total, 0, state.totalContributions, 0, size);
+            System.arraycopy(hole, 0, state.holeCards, 0, size);
+            state.setBoard(board);
+            state.foldedMask = in.readInt();
+            state.allInMask = in.readInt();
+            state.actedMask = in.readInt();
+            state.street = GameAction.GameRound.values()[in.readByte()];
+            state.currentBet = in.readLong();
+            state.pot = in.readLong();
+            state.dealerIndex = in.readByte();
+            state.toAct = in.readByte();
+            state.version = in.readLong();
+            state.lastSeq = in.readLong();
+            if (format >= 2) {
+                state.vpipMask = in.readInt();
+                state.pfrMask = in.readInt();
+            }
+            if (format >= 3) {
+                state.bigBlind = in.readLong();
+                state.lastRaise = in.readLong();
+            }
+            return state;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("快照数据损坏", e);
+        }
+    }
+}
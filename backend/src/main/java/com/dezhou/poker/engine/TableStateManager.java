@@ -0,0 +1,340 @@
+package com.dezhou.poker.engine;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.dezhou.poker.entity.GameAction;
+import com.dezhou.poker.entity.GameHistory;
+import com.dezhou.poker.entity.GameSnapshot;
+import com.dezhou.poker.entity.PlayerGameHistory;
+import com.dezhou.poker.entity.RoomPlayer;
+import com.dezhou.poker.mapper.GameActionMapper;
+import com.dezhou.poker.mapper.GameHistoryMapper;
+import com.dezhou.poker.mapper.GameSnapshotMapper;
+import com.dezhou.poker.mapper.PlayerGameHistoryMapper;
+import com.dezhou.poker.mapper.RoomPlayerMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 牌桌状态管理器
+ * 持有所有进行中牌局的内存状态，缓存未命中时（如服务重启后）从数据库重建一次：
+ * 加载最新快照后只重放快照序号之后的动作，没有快照时才从玩家记录开始重放全部动作。
+ * 重建按游戏ID加锁，不同牌局的重建互不阻塞；已结束或不存在的牌局短时间内记为未命中，不再重复查库。
+ * 动作日志中有无法重放的动作时重建失败（同样记为未命中），不从与日志不一致的状态继续提供服务。
+ */
+@Component
+public class TableStateManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TableStateManager.class);
+
+    /**
+     * 游戏ID -> 牌桌状态
+     */
+    private final Map<Long, TableState> tables = new ConcurrentHashMap<>();
+
+    /**
+     * 房间ID -> 当前游戏ID
+     */
+    private final Map<Long, Long> roomIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 游戏ID -> 重建锁，重建完成后移除
+     */
+    private final Map<Long, Object> rebuildLocks = new ConcurrentHashMap<>();
+
+    /**
+     * 已结束、不存在或无法重建的游戏ID
+     */
+    private Cache<Long, Boolean> misses;
+
+    @Autowired
+    private GameHistoryMapper gameHistoryMapper;
+
+    @Autowired
+    private PlayerGameHistoryMapper playerGameHistoryMapper;
+
+    @Autowired
+    private GameActionMapper gameActionMapper;
+
+    @Autowired
+    private RoomPlayerMapper roomPlayerMapper;
+
+    @Autowired
+    private GameSnapshotMapper gameSnapshotMapper;
+
+    @Autowired
+    private WriteBehindJournal journal;
+
+    /**
+     * 每隔多少个动作写一次快照
+     */
+    @Value("${poker.snapshot.interval:16}")
+    private int snapshotInterval;
+
+    @Value("${poker.table.miss-ttl-seconds:30}")
+    private long missTtlSeconds;
+
+    @PostConstruct
+    public void init() {
+        misses = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(missTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 为新开的一手牌创建内存状态
+     *
+     * @param game          游戏
+     * @param seatedPlayers 已入座的玩家
+     * @return 牌桌状态
+     */
+    public TableState open(GameHistory game, List<RoomPlayer> seatedPlayers) {
+        List<RoomPlayer> players = new ArrayList<>(seatedPlayers);
+        players.sort(Comparator.comparing(RoomPlayer::getSeatNumber, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        int size = players.size();
+        long[] userIds = new long[size];
+        int[] seats = new int[size];
+        long[] stacks = new long[size];
+        int dealerIndex = -1;
+        for (int i = 0; i < size; i++) {
+            RoomPlayer player = players.get(i);
+            userIds[i] = player.getUserId();
+            seats[i] = player.getSeatNumber() != null ? player.getSeatNumber() : Integer.MAX_VALUE;
+            stacks[i] = ChipUnits.toUnits(player.getCurrentChips());
+            if (player.getSeatNumber() != null && player.getSeatNumber().equals(game.getDealerPosition())) {
+                dealerIndex = i;
+            }
+        }
+
+        TableState state = new TableState(game.getRoomId(), game.getId(), userIds, seats, stacks, dealerIndex);
+        state.setBigBlind(bigBlindUnits(game));
+        register(state);
+        return state;
+    }
+
+    /**
+     * 获取牌桌状态，不存在时从数据库重建
+     *
+     * @param gameId 游戏ID
+     * @return 牌桌状态，游戏不存在或已结束时返回 null
+     */
+    public TableState get(Long gameId) {
+        TableState state = tables.get(gameId);
+        if (state != null) {
+            return state;
+        }
+        if (misses.getIfPresent(gameId) != null) {
+            return null;
+        }
+        Object lock = rebuildLocks.computeIfAbsent(gameId, id -> new Object());
+        try {
+            synchronized (lock) {
+                state = tables.get(gameId);
+                if (state == null && misses.getIfPresent(gameId) == null) {
+                    state = rebuild(gameId);
+                    if (state != null) {
+                        register(state);
+                    } else {
+                        misses.put(gameId, Boolean.TRUE);
+                    }
+                }
+            }
+        } finally {
+            rebuildLocks.remove(gameId, lock);
+        }
+        return state;
+    }
+
+    /**
+     * 获取房间当前牌局的状态（仅内存）
+     *
+     * @param roomId 房间ID
+     * @return 牌桌状态，不存在返回 null
+     */
+    public TableState getByRoom(Long roomId) {
+        Long gameId = roomIndex.get(roomId);
+        return gameId != null ? tables.get(gameId) : null;
+    }
+
+    /**
+     * 牌局结束后释放内存状态
+     *
+     * @param gameId 游戏ID
+     */
+    public void close(Long gameId) {
+        TableState state = tables.remove(gameId);
+        if (state != null) {
+            roomIndex.remove(state.getRoomId(), gameId);
+        }
+        gameSnapshotMapper.deleteById(gameId);
+    }
+
+    /**
+     * 丢弃内存状态但保留快照，下次访问时从数据库重建（内存状态与事件日志不一致时使用）
+     *
+     * @param gameId 游戏ID
+     */
+    public void evict(Long gameId) {
+        TableState state = tables.remove(gameId);
+        if (state != null) {
+            roomIndex.remove(state.getRoomId(), gameId);
+        }
+    }
+
+    /**
+     * 写入牌桌状态快照，调用方需持有状态锁
+     *
+     * @param state 牌桌状态
+     */
+    public void snapshot(TableState state) {
+        gameSnapshotMapper.upsert(state.getGameId(), state.getLastSeq(), state.toSnapshot());
+    }
+
+    /**
+     * 动作写入事件日志后调用，按间隔写快照，调用方需持有状态锁
+     *
+     * @param state 牌桌状态
+     */
+    public void onEvent(TableState state) {
+        if (snapshotInterval > 0 && state.getLastSeq() % snapshotInterval == 0) {
+            snapshot(state);
+        }
+    }
+
+    /**
+     * 内存中有牌局的房间
+     *
+     * @return 房间ID -> 游戏ID
+     */
+    public Map<Long, Long> rooms() {
+        return new HashMap<>(roomIndex);
+    }
+
+    /**
+     * 当前内存中的牌桌数量
+     */
+    public int size() {
+        return tables.size();
+    }
+
+    private void register(TableState state) {
+        misses.invalidate(state.getGameId());
+        tables.put(state.getGameId(), state);
+        Long previous = roomIndex.put(state.getRoomId(), state.getGameId());
+        if (previous != null && !previous.equals(state.getGameId())) {
+            tables.remove(previous);
+        }
+    }
+
+    /**
+     * 从最新快照和之后的动作日志恢复内存状态
+     *
+     * @return 牌桌状态，牌局不存在、已结束或动作无法重放时返回 null
+     */
+    private TableState rebuild(Long gameId) {
+        GameHistory game = gameHistoryMapper.selectById(gameId);
+        if (game == null || game.getStatusEnum() != GameHistory.GameStatus.IN_PROGRESS) {
+            return null;
+        }
+
+        TableState state = null;
+        GameSnapshot snapshot = gameSnapshotMapper.selectById(gameId);
+        if (snapshot != null) {
+            try {
+                state = TableState.fromSnapshot(snapshot.getState());
+            } catch (IllegalArgumentException e) {
+                log.warn("牌桌快照无法解析，改为完整重放, 游戏ID: {}, 原因: {}", gameId, e.getMessage());
+            }
+        }
+        if (state == null) {
+            state = initialState(game);
+        } else if (state.getBigBlind() == 0L) {
+            // 旧格式快照不含大盲注
+            state.setBigBlind(bigBlindUnits(game));
+        }
+
+        // 本局还有未落库的动作时不能从数据库重建，否则会丢掉尾部
+        if (!journal.flushGame(gameId)) {
+            throw new IllegalStateException("动作记录尚未保存完成，暂时无法恢复牌桌状态");
+        }
+        List<GameAction> actions = gameActionMapper.selectAfterSeq(gameId, state.getLastSeq());
+        for (GameAction action : actions) {
+            // 动作日志中的每条动作都必须能重放，否则重建出的状态与日志不一致，不能继续提供服务
+            int index = state.indexOf(action.getUserId());
+            if (index < 0) {
+                log.error("重建牌桌状态失败，动作的玩家不在牌局中, 游戏ID: {}, 序号: {}, 用户ID: {}",
+                        gameId, action.getSeq(), action.getUserId());
+                return null;
+            }
+            while (state.getStreet().ordinal() < action.getRoundEnum().ordinal()) {
+                state.advanceStreet();
+            }
+            try {
+                state.apply(index, action.getActionTypeEnum(), ChipUnits.toUnits(action.getAmount()));
+            } catch (RuntimeException e) {
+                log.error("重建牌桌状态失败，动作无法重放, 游戏ID: {}, 序号: {}, 原因: {}", gameId, action.getSeq(), e.getMessage());
+                return null;
+            }
+            state.setLastSeq(action.getSeq());
+        }
+
+        int round = game.getCurrentRound() != null ? game.getCurrentRound() : 0;
+        while (state.getStreet().ordinal() < round) {
+            state.advanceStreet();
+        }
+        log.info("从数据库重建牌桌状态, 游戏ID: {}, 快照序号: {}, 重放动作数: {}",
+                gameId, snapshot != null ? snapshot.getSeq() : 0, actions.size());
+        return state;
+    }
+
+    private static long bigBlindUnits(GameHistory game) {
+        return game.getBigBlind() != null ? ChipUnits.toUnits(game.getBigBlind()) : 0L;
+    }
+
+    /**
+     * 没有快照时从 player_game_history 构建开局状态
+     */
+    private TableState initialState(GameHistory game) {
+        Map<Long, Integer> seatMap = new HashMap<>();
+        for (RoomPlayer rp : roomPlayerMapper.selectList(new QueryWrapper<RoomPlayer>().eq("room_id", game.getRoomId()))) {
+            seatMap.put(rp.getUserId(), rp.getSeatNumber());
+        }
+
+        List<PlayerGameHistory> histories = playerGameHistoryMapper.selectByGameId(game.getId());
+        List<RoomPlayer> players = new ArrayList<>();
+        for (PlayerGameHistory pgh : histories) {
+            Integer seat = pgh.getPosition() != null ? pgh.getPosition() : seatMap.get(pgh.getUserId());
+            players.add(new RoomPlayer()
+                    .setRoomId(game.getRoomId())
+                    .setUserId(pgh.getUserId())
+                    .setSeatNumber(seat)
+                    .setCurrentChips(pgh.getInitialChips()));
+        }
+        TableState state = open(game, players);
+        for (PlayerGameHistory pgh : histories) {
+            long holeCards = pgh.getHoleCardsBin() != null
+                    ? Cards.mask(pgh.getHoleCardsBin())
+                    : Cards.parseMask(pgh.getHoleCards());
+            state.setHoleCards(state.indexOf(pgh.getUserId()), holeCards);
+        }
+        state.setBoard(game.getCommunityCardsBin() != null
+                ? game.getCommunityCardsBin()
+                : Cards.parseBytes(game.getCommunityCards()));
+        return state;
+    }
+}
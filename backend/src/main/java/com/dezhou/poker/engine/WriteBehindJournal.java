@@ -0,0 +1,933 @@
+package com.dezhou.poker.engine;
+
+import com.dezhou.poker.dto.BettingUpdate;
+import com.dezhou.poker.entity.ChipTransaction;
+import com.dezhou.poker.entity.GameAction;
+import com.dezhou.poker.entity.TableShard;
+import com.dezhou.poker.mapper.ChipTransactionMapper;
+import com.dezhou.poker.mapper.GameActionMapper;
+import com.dezhou.poker.mapper.GameHistoryMapper;
+import com.dezhou.poker.mapper.PlayerGameHistoryMapper;
+import com.dezhou.poker.mapper.TableShardMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * 写后日志（write-behind journal）
+ * 牌局动作和筹码流水先追加到本地日志文件并刷盘后即返回，由后台写线程按批次
+ * 以多行 INSERT 写入 MySQL；动作携带的底池、当前下注和玩家累计投入在同一事务中批量写回。
+ * 写入成功后推进检查点，已落库的日志段被删除。
+ * <ul>
+ * <li>背压：队列中未落库的记录数有上限，写满时追加方最多等待 backpressure-ms，超时抛出异常</li>
+ * <li>刷写：{@link #flushGame(Long)} 只等待该牌局此前追加的记录落库（读取动作列表、重建状态和牌局结束时调用），
+ * {@link #flushShard(int)} 只等待该分片的记录落库（交出分片前调用），不受其他房间积压的影响；超时返回 false</li>
+ * <li>恢复：启动时重放检查点之后的日志记录；写入按 (game_id, seq) 和 journal_lsn 去重，重放是幂等的</li>
+ * <li>防护：每条记录携带追加时本节点持有的分片租约纪元，写库事务先以共享锁读取 table_shards 的当前纪元，
+ * 纪元已变化（分片已被其他节点接管）的记录直接丢弃，恢复时重放的旧纪元记录同样被丢弃</li>
+ * </ul>
+ * 日志记录格式：[长度 int][CRC32 int][类型 byte][LSN long][记录体][分片 int][纪元 long]，
+ * 文件尾部不完整的记录在恢复时被截断；早期格式没有分片和纪元，按不防护处理。
+ */
+@Component
+public class WriteBehindJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindJournal.class);
+
+    static final byte TYPE_ACTION = 1;
+    static final byte TYPE_CHIP = 2;
+    static final byte TYPE_BETTING = 3;
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String DEAD_LETTER = "dead-letter.log";
+
+    /**
+     * 单条记录的长度上限，超过视为损坏
+     */
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final long RETRY_BACKOFF_MS = 1000;
+
+    @Autowired
+    private GameActionMapper gameActionMapper;
+
+    @Autowired
+    private ChipTransactionMapper chipTransactionMapper;
+
+    @Autowired
+    private GameHistoryMapper gameHistoryMapper;
+
+    @Autowired
+    private PlayerGameHistoryMapper playerGameHistoryMapper;
+
+    @Autowired
+    private TableShardMapper tableShardMapper;
+
+    @Autowired
+    private TableRouter tableRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${poker.journal.dir:data/journal}")
+    private String dir;
+
+    @Value("${poker.journal.fsync:true}")
+    private boolean fsync;
+
+    @Value("${poker.journal.capacity:10000}")
+    private int capacity;
+
+    @Value("${poker.journal.batch-size:500}")
+    private int batchSize;
+
+    @Value("${poker.journal.segment-bytes:16777216}")
+    private long segmentBytes;
+
+    @Value("${poker.journal.backpressure-ms:5000}")
+    private long backpressureMs;
+
+    @Value("${poker.journal.flush-timeout-ms:5000}")
+    private long flushTimeoutMs;
+
+    private Path directory;
+    private TransactionTemplate transactionTemplate;
+    private Semaphore permits;
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+
+    /**
+     * 已关闭、等待落库后删除的日志段
+     */
+    private final Queue<Segment> closedSegments = new ConcurrentLinkedQueue<>();
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private final Object flushLock = new Object();
+
+    private Segment segment;
+    private long nextLsn;
+    private volatile long appendedLsn;
+    private volatile long durableLsn;
+    private volatile long flushedLsn;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder deadLetters = new LongAdder();
+    private final LongAdder backpressureWaits = new LongAdder();
+    private final LongAdder fenced = new LongAdder();
+
+    /**
+     * 每个牌局、每个分片最后追加的 LSN，落库后移除
+     */
+    private final Map<Long, Long> gameLsns = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> shardLsns = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        permits = new Semaphore(Math.max(1, capacity));
+
+        recover();
+        openSegment();
+
+        running = true;
+        writer = new Thread(this::drain, "journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!flush()) {
+            log.warn("关闭时仍有未落库的日志记录，将在下次启动时恢复, 已追加: {}, 已落库: {}", appendedLsn, flushedLsn);
+        }
+        running = false;
+        writer.interrupt();
+        synchronized (appendLock) {
+            closeQuietly(segment);
+        }
+    }
+
+    /**
+     * 追加牌局动作及动作之后的下注汇总
+     *
+     * @param roomId     房间ID，用于确定租约分片和纪元
+     * @param action     牌局动作
+     * @param pot        底池（筹码单位）
+     * @param currentBet 本轮当前最高下注（筹码单位）
+     * @param totalBet   行动玩家本局累计投入（筹码单位）
+     */
+    public void appendAction(Long roomId, GameAction action, long pot, long currentBet, long totalBet) {
+        Record record = fence(new Record(TYPE_ACTION, action, null), roomId);
+        record.betting = new BettingUpdate(action.getGameId(), action.getUserId(),
+                ChipUnits.toDecimal(pot), ChipUnits.toDecimal(currentBet), ChipUnits.toDecimal(totalBet));
+        appendRecords(roomId, Collections.singletonList(record));
+    }
+
+    /**
+     * 追加只更新牌局汇总的记录（如进入下一轮时当前下注归零），与动作的写回保持先后顺序
+     *
+     * @param roomId     房间ID，用于确定租约分片和纪元
+     * @param gameId     游戏ID
+     * @param pot        底池（筹码单位）
+     * @param currentBet 本轮当前最高下注（筹码单位）
+     */
+    public void appendBetting(Long roomId, Long gameId, long pot, long currentBet) {
+        Record record = fence(new Record(TYPE_BETTING, null, null), roomId);
+        record.betting = new BettingUpdate(gameId, null, ChipUnits.toDecimal(pot), ChipUnits.toDecimal(currentBet), null);
+        appendRecords(roomId, Collections.singletonList(record));
+    }
+
+    /**
+     * 追加筹码流水
+     *
+     * @param roomId       房间ID，用于确定租约分片和纪元
+     * @param transactions 筹码流水
+     */
+    public void appendTransactions(Long roomId, List<ChipTransaction> transactions) {
+        List<Record> records = new ArrayList<>(transactions.size());
+        for (ChipTransaction transaction : transactions) {
+            records.add(fence(new Record(TYPE_CHIP, null, transaction), roomId));
+        }
+        appendRecords(roomId, records);
+    }
+
+    /**
+     * 给记录打上房间所在分片和本节点持有的租约纪元；未开启租约时不防护
+     */
+    private Record fence(Record record, Long roomId) {
+        long epoch = tableRouter.epochOf(roomId);
+        if (epoch != 0L) {
+            record.shard = tableRouter.shardOf(roomId);
+            record.epoch = epoch;
+        }
+        return record;
+    }
+
+    /**
+     * 等待此前追加的所有记录写入数据库
+     *
+     * @return 是否在超时前全部落库
+     */
+    public boolean flush() {
+        return awaitFlushed(appendedLsn);
+    }
+
+    /**
+     * 等待某个牌局此前追加的记录写入数据库
+     *
+     * @param gameId 游戏ID
+     * @return 是否在超时前全部落库
+     */
+    public boolean flushGame(Long gameId) {
+        Long target = gameLsns.get(gameId);
+        return target == null || awaitFlushed(target);
+    }
+
+    /**
+     * 等待某个分片此前追加的记录写入数据库
+     *
+     * @param shard 分片ID
+     * @return 是否在超时前全部落库
+     */
+    public boolean flushShard(int shard) {
+        Long target = shardLsns.get(shard);
+        return target == null || awaitFlushed(target);
+    }
+
+    private boolean awaitFlushed(long target) {
+        long deadline = System.currentTimeMillis() + flushTimeoutMs;
+        synchronized (flushLock) {
+            while (flushedLsn < target) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    log.warn("等待日志落库超时, 目标: {}, 已落库: {}", target, flushedLsn);
+                    return false;
+                }
+                try {
+                    flushLock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void appendRecords(Long roomId, List<Record> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        acquire(records.size());
+        long last;
+        synchronized (appendLock) {
+            try {
+                if (segment.size >= segmentBytes) {
+                    rotate();
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(encode(records, nextLsn));
+                while (buffer.hasRemaining()) {
+                    segment.channel.write(buffer);
+                }
+            } catch (IOException e) {
+                permits.release(records.size());
+                throw new UncheckedIOException("写入本地日志失败", e);
+            }
+            for (Record record : records) {
+                record.lsn = nextLsn++;
+                segment.size += record.length;
+                segment.lastLsn = record.lsn;
+            }
+            last = nextLsn - 1;
+            appendedLsn = last;
+            for (Record record : records) {
+                Long gameId = record.gameId();
+                if (gameId != null) {
+                    gameLsns.put(gameId, record.lsn);
+                }
+            }
+            shardLsns.put(tableRouter.shardOf(roomId), last);
+            queue.addAll(records);
+        }
+        appended.add(records.size());
+        sync(last);
+    }
+
+    private void acquire(int count) {
+        if (permits.tryAcquire(count)) {
+            return;
+        }
+        backpressureWaits.increment();
+        try {
+            if (!permits.tryAcquire(count, backpressureMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("持久化队列已满，请稍后重试");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待持久化队列时被中断");
+        }
+    }
+
+    /**
+     * 组提交：一次 force 覆盖此前所有已写入的记录
+     */
+    private void sync(long lsn) {
+        if (!fsync || durableLsn >= lsn) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableLsn >= lsn) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            synchronized (appendLock) {
+                target = appendedLsn;
+                channel = segment.channel;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // 日志段已轮转，轮转时已经刷盘
+            } catch (IOException e) {
+                throw new UncheckedIOException("本地日志刷盘失败", e);
+            }
+            durableLsn = target;
+        }
+    }
+
+    private void rotate() throws IOException {
+        segment.channel.force(false);
+        segment.channel.close();
+        if (segment.lastLsn > 0) {
+            closedSegments.add(segment);
+        } else {
+            Files.deleteIfExists(segment.path);
+        }
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextLsn, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = new Segment(path, channel);
+        segment.size = channel.size();
+    }
+
+    /**
+     * 后台写线程：按批次写库，成功后推进检查点；数据库不可用时保留批次并退避重试
+     */
+    private void drain() {
+        List<Record> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    Record first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                write(batch);
+                permits.release(batch.size());
+                advance(batch.get(batch.size() - 1).lsn);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                retries.increment();
+                log.error("日志批量写库失败，{} 毫秒后重试, 批次大小: {}", RETRY_BACKOFF_MS, batch.size(), e);
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 以多行 INSERT 写入一个批次；批次因数据约束失败时逐条写入，无法写入的记录转入死信文件
+     */
+    private void write(List<Record> batch) {
+        try {
+            writeBatch(batch);
+        } catch (DataIntegrityViolationException e) {
+            if (batch.size() == 1) {
+                deadLetter(batch.get(0), e);
+                return;
+            }
+            for (Record record : batch) {
+                try {
+                    writeBatch(Collections.singletonList(record));
+                } catch (DataIntegrityViolationException single) {
+                    deadLetter(record, single);
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<Record> batch) {
+        transactionTemplate.executeWithoutResult(status -> writeCurrent(discardStale(batch)));
+        batches.increment();
+        rows.add(batch.size());
+    }
+
+    /**
+     * 在写库事务中以共享锁读取批次涉及分片的当前纪元，丢弃纪元已变化的记录；
+     * 锁持有到事务提交，期间其他节点无法接管这些分片
+     */
+    private List<Record> discardStale(List<Record> batch) {
+        Set<Integer> shards = new HashSet<>();
+        for (Record record : batch) {
+            if (record.shard >= 0) {
+                shards.add(record.shard);
+            }
+        }
+        if (shards.isEmpty()) {
+            return batch;
+        }
+        Map<Integer, Long> current = new HashMap<>();
+        for (TableShard shard : tableShardMapper.selectEpochsForShare(shards)) {
+            current.put(shard.getShardId(), shard.getEpoch());
+        }
+        List<Record> result = new ArrayList<>(batch.size());
+        for (Record record : batch) {
+            if (record.shard < 0 || Long.valueOf(record.epoch).equals(current.get(record.shard))) {
+                result.add(record);
+            } else {
+                fenced.increment();
+                log.warn("丢弃旧租约纪元的日志记录, LSN: {}, 分片: {}, 记录纪元: {}, 当前纪元: {}",
+                        record.lsn, record.shard, record.epoch, current.get(record.shard));
+            }
+        }
+        return result;
+    }
+
+    private void writeCurrent(List<Record> batch) {
+        List<GameAction> actions = new ArrayList<>();
+        List<ChipTransaction> transactions = new ArrayList<>();
+        // 批次按 LSN 排列，汇总只需保留每局、每名玩家的最后一条
+        Map<Long, BettingUpdate> games = new LinkedHashMap<>();
+        Map<String, BettingUpdate> players = new LinkedHashMap<>();
+        for (Record record : batch) {
+            if (record.type == TYPE_ACTION) {
+                actions.add(record.action);
+            } else if (record.type == TYPE_CHIP) {
+                record.transaction.setJournalLsn(record.lsn);
+                transactions.add(record.transaction);
+            }
+            BettingUpdate betting = record.betting;
+            if (betting != null) {
+                games.put(betting.getGameId(), betting);
+                if (betting.getUserId() != null) {
+                    players.put(betting.getGameId() + ":" + betting.getUserId(), betting);
+                }
+            }
+        }
+        if (!actions.isEmpty()) {
+            gameActionMapper.insertBatch(actions);
+        }
+        if (!transactions.isEmpty()) {
+            chipTransactionMapper.insertBatch(transactions);
+        }
+        if (!games.isEmpty()) {
+            gameHistoryMapper.batchUpdateBetting(new ArrayList<>(games.values()));
+        }
+        if (!players.isEmpty()) {
+            playerGameHistoryMapper.batchUpdateTotalBet(new ArrayList<>(players.values()));
+        }
+    }
+
+    private void advance(long lsn) {
+        flushedLsn = lsn;
+        writeCheckpoint(lsn);
+        synchronized (flushLock) {
+            flushLock.notifyAll();
+        }
+        // 按值条件删除，不会误删并发追加的更大 LSN
+        gameLsns.forEach((gameId, last) -> {
+            if (last <= lsn) {
+                gameLsns.remove(gameId, last);
+            }
+        });
+        shardLsns.forEach((shard, last) -> {
+            if (last <= lsn) {
+                shardLsns.remove(shard, last);
+            }
+        });
+        Segment closed;
+        while ((closed = closedSegments.peek()) != null && closed.lastLsn <= lsn) {
+            closedSegments.poll();
+            try {
+                Files.deleteIfExists(closed.path);
+            } catch (IOException e) {
+                log.warn("删除已落库的日志段失败: {}", closed.path, e);
+            }
+        }
+    }
+
+    /**
+     * 检查点丢失只会导致重复重放，而重放是幂等的，因此不需要刷盘
+     */
+    private void writeCheckpoint(long lsn) {
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        try {
+            Files.write(temp, Long.toString(lsn).getBytes(StandardCharsets.US_ASCII));
+            Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写入日志检查点失败: {}", lsn, e);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        String text = new String(Files.readAllBytes(path), StandardCharsets.US_ASCII).trim();
+        return text.isEmpty() ? 0L : Long.parseLong(text);
+    }
+
+    private void deadLetter(Record record, RuntimeException cause) {
+        deadLetters.increment();
+        log.error("日志记录无法写入数据库，已转入死信文件, LSN: {}", record.lsn, cause);
+        try {
+            Files.write(directory.resolve(DEAD_LETTER), encode(Collections.singletonList(record), record.lsn),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("写入死信文件失败, LSN: {}", record.lsn, e);
+        }
+    }
+
+    /**
+     * 启动恢复：读取全部日志段，把检查点之后的记录写入数据库，然后清空日志
+     */
+    private void recover() throws IOException {
+        long checkpoint = readCheckpoint();
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                segments.add(path);
+            }
+        }
+        Collections.sort(segments);
+
+        List<Record> pending = new ArrayList<>();
+        long maxLsn = checkpoint;
+        for (Path path : segments) {
+            for (Record record : read(path)) {
+                maxLsn = Math.max(maxLsn, record.lsn);
+                if (record.lsn > checkpoint) {
+                    pending.add(record);
+                }
+            }
+        }
+
+        // 写库时丢弃旧租约纪元的记录：本节点停机期间分片可能已被其他节点接管并继续了牌局
+        long fencedBefore = fenced.sum();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            write(pending.subList(from, Math.min(pending.size(), from + batchSize)));
+        }
+        if (!pending.isEmpty()) {
+            log.info("已从本地日志恢复 {} 条未落库的记录, 丢弃旧纪元记录 {} 条, 检查点: {}, 最大LSN: {}",
+                    pending.size(), fenced.sum() - fencedBefore, checkpoint, maxLsn);
+        }
+
+        // 日志目录被清空时，序号不能与数据库中已有的记录重复
+        maxLsn = Math.max(maxLsn, chipTransactionMapper.selectMaxJournalLsn());
+        writeCheckpoint(maxLsn);
+        for (Path path : segments) {
+            Files.deleteIfExists(path);
+        }
+        nextLsn = maxLsn + 1;
+        appendedLsn = maxLsn;
+        durableLsn = maxLsn;
+        flushedLsn = maxLsn;
+    }
+
+    /**
+     * 顺序读取一个日志段，遇到不完整或校验失败的记录即停止（崩溃时写了一半的尾部）
+     */
+    static List<Record> read(Path path) throws IOException {
+        List<Record> records = new ArrayList<>();
+        try (InputStream input = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(input)) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    log.warn("日志段 {} 在第 {} 条记录处长度异常，忽略之后的内容", path, records.size());
+                    break;
+                }
+                byte[] payload = new byte[length];
+                int crc;
+                try {
+                    crc = in.readInt();
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    log.warn("日志段 {} 尾部记录不完整，已忽略", path);
+                    break;
+                }
+                CRC32 checksum = new CRC32();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != crc) {
+                    log.warn("日志段 {} 在第 {} 条记录处校验失败，忽略之后的内容", path, records.size());
+                    break;
+                }
+                records.add(decode(payload));
+            }
+        }
+        return records;
+    }
+
+    static byte[] encode(List<Record> records, long firstLsn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        long lsn = firstLsn;
+        for (Record record : records) {
+            byte[] payload = encodePayload(record, lsn++);
+            CRC32 checksum = new CRC32();
+            checksum.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) checksum.getValue());
+            out.write(payload);
+            record.length = 8 + payload.length;
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodePayload(Record record, long lsn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(record.type);
+        out.writeLong(lsn);
+        if (record.type == TYPE_ACTION) {
+            GameAction action = record.action;
+            out.writeLong(action.getGameId());
+            out.writeLong(action.getSeq());
+            out.writeLong(action.getUserId());
+            out.writeUTF(action.getActionType());
+            out.writeLong(ChipUnits.toUnits(action.getAmount()));
+            out.writeUTF(action.getRound());
+            out.writeLong(toMillis(action.getActionTime()));
+            writeBetting(out, record.betting);
+        } else if (record.type == TYPE_BETTING) {
+            out.writeLong(record.betting.getGameId());
+            writeBetting(out, record.betting);
+        } else {
+            ChipTransaction transaction = record.transaction;
+            out.writeLong(transaction.getUserId());
+            out.writeBoolean(transaction.getGameId() != null);
+            out.writeLong(transaction.getGameId() != null ? transaction.getGameId() : 0L);
+            out.writeLong(ChipUnits.toUnits(transaction.getAmount()));
+            out.writeUTF(transaction.getTransactionType());
+            out.writeLong(toMillis(transaction.getTransactionTime()));
+        }
+        out.writeInt(record.shard);
+        out.writeLong(record.epoch);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static Record decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        long lsn = in.readLong();
+        Record record;
+        if (type == TYPE_ACTION) {
+            GameAction action = new GameAction();
+            action.setGameId(in.readLong());
+            action.setSeq(in.readLong());
+            action.setUserId(in.readLong());
+            action.setActionType(in.readUTF());
+            action.setAmount(ChipUnits.toDecimal(in.readLong()));
+            action.setRound(in.readUTF());
+            action.setActionTime(fromMillis(in.readLong()));
+            record = new Record(TYPE_ACTION, action, null);
+            record.betting = readBetting(in, action.getGameId(), action.getUserId());
+        } else if (type == TYPE_BETTING) {
+            long gameId = in.readLong();
+            record = new Record(TYPE_BETTING, null, null);
+            record.betting = readBetting(in, gameId, null);
+        } else if (type == TYPE_CHIP) {
+            ChipTransaction transaction = new ChipTransaction();
+            transaction.setUserId(in.readLong());
+            boolean hasGame = in.readBoolean();
+            long gameId = in.readLong();
+            transaction.setGameId(hasGame ? gameId : null);
+            transaction.setAmount(ChipUnits.toDecimal(in.readLong()));
+            transaction.setTransactionType(in.readUTF());
+            LocalDateTime time = fromMillis(in.readLong());
+            transaction.setTransactionTime(time);
+            transaction.setCreatedAt(time);
+            record = new Record(TYPE_CHIP, null, transaction);
+        } else {
+            throw new IOException("未知的日志记录类型: " + type);
+        }
+        // 早期格式没有分片和纪元
+        if (in.available() >= 12) {
+            record.shard = in.readInt();
+            record.epoch = in.readLong();
+        }
+        record.lsn = lsn;
+        return record;
+    }
+
+    private static void writeBetting(DataOutputStream out, BettingUpdate betting) throws IOException {
+        out.writeBoolean(betting != null);
+        if (betting != null) {
+            out.writeLong(ChipUnits.toUnits(betting.getPotSize()));
+            out.writeLong(ChipUnits.toUnits(betting.getCurrentBet()));
+            out.writeLong(ChipUnits.toUnits(betting.getTotalBet()));
+        }
+    }
+
+    private static BettingUpdate readBetting(DataInputStream in, Long gameId, Long userId) throws IOException {
+        // 早期格式的动作记录不带汇总
+        if (in.available() == 0 || !in.readBoolean()) {
+            return null;
+        }
+        BettingUpdate betting = new BettingUpdate();
+        betting.setGameId(gameId);
+        betting.setUserId(userId);
+        betting.setPotSize(ChipUnits.toDecimal(in.readLong()));
+        betting.setCurrentBet(ChipUnits.toDecimal(in.readLong()));
+        long totalBet = in.readLong();
+        betting.setTotalBet(userId != null ? ChipUnits.toDecimal(totalBet) : null);
+        return betting;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        LocalDateTime value = time != null ? time : LocalDateTime.now();
+        return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static void closeQuietly(Segment segment) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.channel.force(false);
+            segment.channel.close();
+        } catch (IOException e) {
+            log.warn("关闭日志段失败: {}", segment.path, e);
+        }
+    }
+
+    /**
+     * 尚未写入数据库的记录数
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    /**
+     * 平均每批写入的行数
+     */
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0.0 : (double) rows.sum() / count;
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getDeadLetterCount() {
+        return deadLetters.sum();
+    }
+
+    /**
+     * 追加时因队列已满而等待的次数
+     */
+    public long getBackpressureWaits() {
+        return backpressureWaits.sum();
+    }
+
+    /**
+     * 因租约纪元已变化而丢弃的记录数
+     */
+    public long getFencedCount() {
+        return fenced.sum();
+    }
+
+    public long getAppendedLsn() {
+        return appendedLsn;
+    }
+
+    public long getFlushedLsn() {
+        return flushedLsn;
+    }
+
+    /**
+     * 日志记录
+     */
+    static final class Record {
+
+        final byte type;
+        final GameAction action;
+        final ChipTransaction transaction;
+        BettingUpdate betting;
+        long lsn;
+        int length;
+
+        /**
+         * 追加时的租约分片和纪元，-1 表示不防护
+         */
+        int shard = -1;
+        long epoch;
+
+        Record(byte type, GameAction action, ChipTransaction transaction) {
+            this.type = type;
+            this.action = action;
+            this.transaction = transaction;
+        }
+
+        Long gameId() {
+            if (action != null) {
+                return action.getGameId();
+            }
+            if (transaction != null) {
+                return transaction.getGameId();
+            }
+            return betting != null ? betting.getGameId() : null;
+        }
+    }
+
+    /**
+     * 日志段文件
+     */
+    private static final class Segment {
+
+        private final Path path;
+        private final FileChannel channel;
+        private long size;
+        private long lastLsn;
+
+        Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
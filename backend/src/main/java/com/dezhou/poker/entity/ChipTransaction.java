@@ -102,6 +102,13 @@ public class ChipTransaction implements Serializable {
     @TableField("updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * 写后日志序号，重放日志时用于去重
+     */
+    @Column(name = "journal_lsn")
+    @TableField("journal_lsn")
+    private Long journalLsn;
+
     /**
      * 逻辑删除标志
      */
@@ -0,0 +1,55 @@
+package com.dezhou.poker.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 集群节点实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@TableName("cluster_nodes")
+@Entity
+@Table(name = "cluster_nodes")
+public class ClusterNode implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 节点ID
+     */
+    @Id
+    @TableId(value = "node_id", type = IdType.INPUT)
+    @Column(name = "node_id")
+    private String nodeId;
+
+    /**
+     * 节点访问地址
+     */
+    @Column(name = "url")
+    @TableField("url")
+    private String url;
+
+    /**
+     * 启动时间
+     */
+    @Column(name = "started_at")
+    @TableField("started_at")
+    private LocalDateTime startedAt;
+
+    /**
+     * 最近一次心跳时间
+     */
+    @Column(name = "heartbeat_at")
+    @TableField("heartbeat_at")
+    private LocalDateTime heartbeatAt;
+}
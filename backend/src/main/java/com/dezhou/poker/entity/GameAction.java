@@ -41,6 +41,13 @@ public class GameAction implements Serializable {
     @TableField("game_id")
     private Long gameId;
 
+    /**
+     * 局内动作序号（从1开始单调递增）
+     */
+    @Column(name = "seq")
+    @TableField("seq")
+    private Long seq;
+
     /**
      * 用户ID
      */
@@ -107,6 +107,13 @@ public class GameHistory implements Serializable {
     @TableField("community_cards")
     private String communityCards;
 
+    /**
+     * 公共牌（紧凑格式，每张牌一个字节，见 Cards）
+     */
+    @Column(name = "community_cards_bin")
+    @TableField("community_cards_bin")
+    private byte[] communityCardsBin;
+
     /**
      * 开始时间
      */
@@ -178,6 +185,55 @@ public class GameHistory implements Serializable {
     @TableField("current_bet")
     private BigDecimal currentBet;
 
+    /**
+     * 赢家ID列表，JSON格式
+     */
+    @Column(name = "winner_ids")
+    @TableField("winner_ids")
+    private String winnerIds;
+
+    /**
+     * 总奖池金额
+     */
+    @Column(name = "total_pot")
+    @TableField("total_pot")
+    private BigDecimal totalPot;
+
+    /**
+     * 边池信息，JSON格式
+     */
+    @Column(name = "side_pots")
+    @TableField("side_pots")
+    private String sidePots;
+
+    /**
+     * 发牌次数（全下后按投票结果多次发牌）
+     */
+    @Column(name = "run_count")
+    @TableField("run_count")
+    private Integer runCount;
+
+    /**
+     * 每次发出的完整公共牌，分号分隔，第一次与 community_cards 相同
+     */
+    @Column(name = "runouts")
+    @TableField("runouts")
+    private String runouts;
+
+    /**
+     * 每回合行动时间（秒），为空时使用默认值；只通过计时服务单独更新
+     */
+    @Column(name = "turn_seconds")
+    @TableField(value = "turn_seconds", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer turnSeconds;
+
+    /**
+     * 当前行动玩家的到期时间（epoch 毫秒），无人计时为空；只通过计时服务单独更新
+     */
+    @Column(name = "turn_deadline")
+    @TableField(value = "turn_deadline", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Long turnDeadline;
+
     /**
      * 获取游戏状态枚举
      */
@@ -0,0 +1,56 @@
+package com.dezhou.poker.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 牌局状态快照实体类
+ * 每局只保留最新一份，恢复时加载快照后再重放 seq 之后的动作
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@TableName("game_snapshots")
+@Entity
+@Table(name = "game_snapshots")
+public class GameSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 游戏ID
+     */
+    @Id
+    @TableId(value = "game_id", type = IdType.INPUT)
+    @Column(name = "game_id")
+    private Long gameId;
+
+    /**
+     * 快照包含的最后一个动作序号
+     */
+    @Column(name = "seq")
+    @TableField("seq")
+    private Long seq;
+
+    /**
+     * 序列化的牌桌状态（见 TableState.toSnapshot）
+     */
+    @Column(name = "state")
+    @TableField("state")
+    private byte[] state;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at")
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
@@ -81,6 +81,13 @@ public class PlayerGameHistory implements Serializable {
     @TableField("hole_cards")
     private String holeCards;
 
+    /**
+     * 手牌（紧凑格式，每张牌一个字节，见 Cards）
+     */
+    @Column(name = "hole_cards_bin")
+    @TableField("hole_cards_bin")
+    private byte[] holeCardsBin;
+
     /**
      * 最终牌型
      */
@@ -95,6 +102,13 @@ public class PlayerGameHistory implements Serializable {
     @TableField("position")
     private Integer position;
 
+    /**
+     * 本局累计投入
+     */
+    @Column(name = "total_bet")
+    @TableField("total_bet")
+    private BigDecimal totalBet;
+
     /**
      * 是否获胜
      */
@@ -102,6 +116,13 @@ public class PlayerGameHistory implements Serializable {
     @TableField("is_winner")
     private Boolean isWinner;
 
+    /**
+     * 是否已计入玩家统计：0 未计入，1 已计入，2 回填任务已认领
+     */
+    @Column(name = "stats_applied")
+    @TableField("stats_applied")
+    private Integer statsApplied;
+
     /**
      * 创建时间
      */
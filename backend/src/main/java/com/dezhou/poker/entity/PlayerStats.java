@@ -0,0 +1,77 @@
+package com.dezhou.poker.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 玩家统计汇总实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@TableName("player_stats")
+@Entity
+@Table(name = "player_stats")
+public class PlayerStats implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户ID
+     */
+    @Id
+    @TableId(value = "user_id", type = IdType.INPUT)
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * 已结束的手数
+     */
+    @Column(name = "hands")
+    @TableField("hands")
+    private Integer hands;
+
+    /**
+     * 赢得奖池的手数
+     */
+    @Column(name = "wins")
+    @TableField("wins")
+    private Integer wins;
+
+    /**
+     * 净盈亏
+     */
+    @Column(name = "net_profit")
+    @TableField("net_profit")
+    private BigDecimal netProfit;
+
+    /**
+     * 翻牌前主动入池的手数
+     */
+    @Column(name = "vpip_hands")
+    @TableField("vpip_hands")
+    private Integer vpipHands;
+
+    /**
+     * 翻牌前加注的手数
+     */
+    @Column(name = "pfr_hands")
+    @TableField("pfr_hands")
+    private Integer pfrHands;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_at")
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
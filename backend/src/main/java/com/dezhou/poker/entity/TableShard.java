@@ -0,0 +1,62 @@
+package com.dezhou.poker.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 牌桌分片租约实体类
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Accessors(chain = true)
+@TableName("table_shards")
+@Entity
+@Table(name = "table_shards")
+public class TableShard implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 分片ID
+     */
+    @Id
+    @TableId(value = "shard_id", type = IdType.INPUT)
+    @Column(name = "shard_id")
+    private Integer shardId;
+
+    /**
+     * 租约持有节点
+     */
+    @Column(name = "owner_node")
+    @TableField("owner_node")
+    private String ownerNode;
+
+    /**
+     * 换手次数
+     */
+    @Column(name = "epoch")
+    @TableField("epoch")
+    private Long epoch;
+
+    /**
+     * 租约到期时间
+     */
+    @Column(name = "lease_expires_at")
+    @TableField("lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * 按数据库时钟租约是否仍有效（查询时计算）
+     */
+    @Transient
+    @TableField(exist = false)
+    private Boolean leaseValid;
+}
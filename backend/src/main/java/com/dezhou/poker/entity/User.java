@@ -86,6 +86,13 @@ public class User implements Serializable {
     @TableField("last_login")
     private LocalDateTime lastLogin;
 
+    /**
+     * 最后修改时间，由数据库维护，写入时不回写旧值
+     */
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    @TableField(value = "updated_at", insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private LocalDateTime updatedAt;
+
     /**
      * 逻辑删除标志
      */
@@ -0,0 +1,35 @@
+package com.dezhou.poker.exception;
+
+/**
+ * 房间不由本节点负责
+ * 客户端应按 ownerUrl 改连所有者节点；分片正在换手时 owner 为 null，稍后重试即可
+ */
+public class TableNotOwnedException extends BusinessException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long roomId;
+    private final String owner;
+    private final String ownerUrl;
+
+    public TableNotOwnedException(Long roomId, String owner, String ownerUrl) {
+        super(owner == null
+                ? String.format("房间 %d 暂无节点负责，请稍后重试", roomId)
+                : String.format("房间 %d 由节点 %s 负责%s", roomId, owner, ownerUrl != null ? ": " + ownerUrl : ""));
+        this.roomId = roomId;
+        this.owner = owner;
+        this.ownerUrl = ownerUrl;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getOwnerUrl() {
+        return ownerUrl;
+    }
+}
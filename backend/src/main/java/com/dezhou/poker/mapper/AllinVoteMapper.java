@@ -20,7 +20,7 @@ public interface AllinVoteMapper extends BaseMapper<AllinVote> {
      * @param gameId 游戏ID
      * @return 投票结果
      */
-    @Select("SELECT vote_option, COUNT(*) as count FROM allin_vote " +
+    @Select("SELECT vote_option, COUNT(*) as count FROM allin_votes " +
             "WHERE game_id = #{gameId} AND deleted = 0 " +
             "GROUP BY vote_option")
     List<Object[]> countVotesByGameId(@Param("gameId") Long gameId);
@@ -31,7 +31,7 @@ public interface AllinVoteMapper extends BaseMapper<AllinVote> {
      * @param gameId 游戏ID
      * @return 最多票数的选项
      */
-    @Select("SELECT vote_option FROM allin_vote " +
+    @Select("SELECT vote_option FROM allin_votes " +
             "WHERE game_id = #{gameId} AND deleted = 0 " +
             "GROUP BY vote_option " +
             "ORDER BY COUNT(*) DESC " +
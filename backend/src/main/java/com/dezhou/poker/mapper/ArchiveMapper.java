@@ -0,0 +1,133 @@
+package com.dezhou.poker.mapper;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 牌局归档Mapper接口
+ * 把已结束的牌局连同玩家记录和动作从热表移入 *_archive 表（见 V14 迁移）
+ */
+@Mapper
+public interface ArchiveMapper {
+
+    /**
+     * 按游戏ID顺序查询可归档的牌局：已结束且结束时间早于截止时间。
+     * 已结束牌局中还有未计入 player_stats 的玩家记录时跳过，等回填完成后再归档
+     *
+     * @param afterGameId 起始游戏ID（不含）
+     * @param cutoff      截止时间
+     * @param limit       批大小
+     * @return 游戏ID
+     */
+    @Select("SELECT g.game_id FROM game_history g " +
+            "WHERE g.game_id > #{afterGameId} AND g.status <> 'IN_PROGRESS' " +
+            "AND COALESCE(g.end_time, g.start_time) < #{cutoff} " +
+            "AND NOT (g.status IN ('FINISHED', 'COMPLETED') AND EXISTS (" +
+            "SELECT 1 FROM player_game_history p WHERE p.game_id = g.game_id AND p.stats_applied <> 1)) " +
+            "ORDER BY g.game_id LIMIT #{limit}")
+    List<Long> selectArchivableGameIds(@Param("afterGameId") Long afterGameId,
+                                       @Param("cutoff") LocalDateTime cutoff,
+                                       @Param("limit") int limit);
+
+    /**
+     * 复制牌局到归档表，已归档的跳过
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT IGNORE INTO game_history_archive SELECT * FROM game_history WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int copyGames(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 复制玩家牌局记录到归档表
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT IGNORE INTO player_game_history_archive SELECT * FROM player_game_history WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int copyPlayers(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 复制动作到归档表
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT IGNORE INTO game_actions_archive SELECT * FROM game_actions WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int copyActions(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 删除牌局快照（只用于进行中牌局的恢复，不归档）
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Delete({"<script>",
+            "DELETE FROM game_snapshots WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int deleteSnapshots(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 删除全下投票（只在牌局进行中使用，不归档）
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Delete({"<script>",
+            "DELETE FROM allin_votes WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int deleteVotes(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 从热表删除动作
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Delete({"<script>",
+            "DELETE FROM game_actions WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int deleteActions(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 从热表删除玩家牌局记录
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Delete({"<script>",
+            "DELETE FROM player_game_history WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int deletePlayers(@Param("gameIds") List<Long> gameIds);
+
+    /**
+     * 从热表删除牌局
+     *
+     * @param gameIds 游戏ID
+     * @return 影响行数
+     */
+    @Delete({"<script>",
+            "DELETE FROM game_history WHERE game_id IN ",
+            "<foreach collection='gameIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int deleteGames(@Param("gameIds") List<Long> gameIds);
+}
@@ -2,10 +2,12 @@ package com.dezhou.poker.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.dezhou.poker.entity.ChipTransaction;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -25,4 +27,56 @@ public interface ChipTransactionMapper extends BaseMapper<ChipTransaction> {
             "WHERE ct.user_id = #{userId} AND ct.deleted = 0 " +
             "ORDER BY ct.transaction_time DESC")
     List<ChipTransaction> selectByUserId(@Param("userId") Long userId);
-} 
\ No newline at end of file
+
+    /**
+     * 批量插入交易记录，已存在相同 journal_lsn 的记录时跳过（日志重放）
+     *
+     * @param transactions 交易记录
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT INTO chip_transactions (user_id, game_id, amount, transaction_type, transaction_time, created_at, updated_at, deleted, journal_lsn) VALUES ",
+            "<foreach collection='transactions' item='t' separator=','>",
+            "(#{t.userId}, #{t.gameId}, #{t.amount}, #{t.transactionType}, #{t.transactionTime}, #{t.createdAt}, #{t.createdAt}, 0, #{t.journalLsn})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE journal_lsn = journal_lsn",
+            "</script>"})
+    int insertBatch(@Param("transactions") List<ChipTransaction> transactions);
+
+    /**
+     * 查询最大的写后日志序号
+     *
+     * @return 最大序号，没有日志写入的记录时返回 0
+     */
+    @Select("SELECT COALESCE(MAX(journal_lsn), 0) FROM chip_transactions")
+    long selectMaxJournalLsn();
+
+    /**
+     * 按 (created_at, transaction_id) 倒序的键集分页，走 (user_id, created_at) 索引，不使用 OFFSET
+     *
+     * @param userId    用户ID
+     * @param afterTime 上一页最后一条的创建时间，第一页为 null
+     * @param afterId   上一页最后一条的交易ID
+     * @param limit     数量
+     * @return 交易记录
+     */
+    @Select({"<script>",
+            "SELECT transaction_id AS id, user_id, game_id, amount, transaction_type, transaction_time, created_at, updated_at, deleted ",
+            "FROM chip_transactions WHERE user_id = #{userId} AND deleted = 0 ",
+            "<if test='afterTime != null'>",
+            "AND (created_at &lt; #{afterTime} OR (created_at = #{afterTime} AND transaction_id &lt; #{afterId})) ",
+            "</if>",
+            "ORDER BY created_at DESC, transaction_id DESC LIMIT #{limit}",
+            "</script>"})
+    List<ChipTransaction> selectPageByUser(@Param("userId") Long userId, @Param("afterTime") LocalDateTime afterTime,
+                                           @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 统计用户交易记录数
+     *
+     * @param userId 用户ID
+     * @return 记录数
+     */
+    @Select("SELECT COUNT(*) FROM chip_transactions WHERE user_id = #{userId} AND deleted = 0")
+    long countByUser(@Param("userId") Long userId);
+}
@@ -0,0 +1,40 @@
+package com.dezhou.poker.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.entity.ClusterNode;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 集群节点Mapper接口
+ */
+@Mapper
+public interface ClusterNodeMapper extends BaseMapper<ClusterNode> {
+
+    /**
+     * 写入节点心跳，节点不存在时登记
+     *
+     * @param nodeId 节点ID
+     * @param url    节点访问地址
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO cluster_nodes (node_id, url, started_at, heartbeat_at) " +
+            "VALUES (#{nodeId}, #{url}, NOW(3), NOW(3)) " +
+            "ON DUPLICATE KEY UPDATE url = VALUES(url), heartbeat_at = NOW(3)")
+    int heartbeat(@Param("nodeId") String nodeId, @Param("url") String url);
+
+    /**
+     * 查询心跳未超时的节点
+     *
+     * @param ttlMs 心跳超时时间（毫秒）
+     * @return 在线节点
+     */
+    @Select("SELECT * FROM cluster_nodes " +
+            "WHERE heartbeat_at >= DATE_SUB(NOW(3), INTERVAL #{ttlMs} * 1000 MICROSECOND) " +
+            "ORDER BY node_id")
+    List<ClusterNode> selectLive(@Param("ttlMs") long ttlMs);
+}
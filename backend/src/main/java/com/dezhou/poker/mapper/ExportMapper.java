@@ -0,0 +1,85 @@
+package com.dezhou.poker.mapper;
+
+import com.dezhou.poker.entity.GameAction;
+import com.dezhou.poker.entity.GameHistory;
+import com.dezhou.poker.entity.PlayerGameHistory;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 牌局导出Mapper接口
+ * 按游戏ID键集分页读取已结束的牌局（热表和归档表），只取导出需要的列
+ */
+@Mapper
+public interface ExportMapper {
+
+    /**
+     * 导出上界：最早的仍可能写入的牌局ID（近期开始的进行中牌局，或刚结束、动作可能还在写后日志中的牌局）。
+     * 导出只推进到它之前，检查点之前不会再出现新的已结束牌局；开始超过 staleBefore 仍未结束的牌局视为废弃，不阻塞导出
+     *
+     * @param staleBefore   早于此时开始的进行中牌局视为废弃
+     * @param settledBefore 早于此时结束的牌局才导出
+     * @return 上界游戏ID（不含），没有时返回 null
+     */
+    @Select("SELECT MIN(game_id) FROM game_history " +
+            "WHERE (status = 'IN_PROGRESS' AND start_time > #{staleBefore}) OR end_time > #{settledBefore}")
+    Long selectUpperBound(@Param("staleBefore") LocalDateTime staleBefore,
+                          @Param("settledBefore") LocalDateTime settledBefore);
+
+    /**
+     * 按游戏ID顺序读取一批已结束的牌局
+     *
+     * @param afterGameId 起始游戏ID（不含）
+     * @param upperGameId 上界游戏ID（不含）
+     * @param limit       批大小
+     * @return 牌局（只有ID、房间ID和开始时间）
+     */
+    @Select("SELECT t.game_id AS id, t.room_id, t.start_time FROM (" +
+            "(SELECT game_id, room_id, start_time FROM game_history " +
+            "WHERE game_id > #{afterGameId} AND game_id < #{upperGameId} AND status <> 'IN_PROGRESS' AND deleted = 0 " +
+            "ORDER BY game_id LIMIT #{limit}) " +
+            "UNION ALL " +
+            "(SELECT game_id, room_id, start_time FROM game_history_archive " +
+            "WHERE game_id > #{afterGameId} AND game_id < #{upperGameId} AND deleted = 0 " +
+            "ORDER BY game_id LIMIT #{limit})" +
+            ") t ORDER BY t.game_id LIMIT #{limit}")
+    List<GameHistory> selectGames(@Param("afterGameId") Long afterGameId,
+                                  @Param("upperGameId") Long upperGameId,
+                                  @Param("limit") int limit);
+
+    /**
+     * 读取一段游戏ID范围内的动作
+     *
+     * @param fromGameId 起始游戏ID（含）
+     * @param toGameId   结束游戏ID（含）
+     * @return 按游戏ID和序号排列的动作
+     */
+    @Select("SELECT t.* FROM (" +
+            "SELECT game_id, seq, user_id, round, action_type, amount, action_time FROM game_actions " +
+            "WHERE game_id BETWEEN #{fromGameId} AND #{toGameId} AND deleted = 0 " +
+            "UNION ALL " +
+            "SELECT game_id, seq, user_id, round, action_type, amount, action_time FROM game_actions_archive " +
+            "WHERE game_id BETWEEN #{fromGameId} AND #{toGameId} AND deleted = 0" +
+            ") t ORDER BY t.game_id, t.seq")
+    List<GameAction> selectActions(@Param("fromGameId") Long fromGameId, @Param("toGameId") Long toGameId);
+
+    /**
+     * 读取一段游戏ID范围内的玩家牌局记录
+     *
+     * @param fromGameId 起始游戏ID（含）
+     * @param toGameId   结束游戏ID（含）
+     * @return 按游戏ID和用户ID排列的玩家记录
+     */
+    @Select("SELECT t.* FROM (" +
+            "SELECT game_id, user_id, initial_chips, final_chips, total_bet, is_winner, position FROM player_game_history " +
+            "WHERE game_id BETWEEN #{fromGameId} AND #{toGameId} AND deleted = 0 " +
+            "UNION ALL " +
+            "SELECT game_id, user_id, initial_chips, final_chips, total_bet, is_winner, position FROM player_game_history_archive " +
+            "WHERE game_id BETWEEN #{fromGameId} AND #{toGameId} AND deleted = 0" +
+            ") t ORDER BY t.game_id, t.user_id")
+    List<PlayerGameHistory> selectPlayers(@Param("fromGameId") Long fromGameId, @Param("toGameId") Long toGameId);
+}
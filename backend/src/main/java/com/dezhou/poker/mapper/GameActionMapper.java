@@ -1,12 +1,14 @@
 package com.dezhou.poker.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.dto.PlayerActionSummary;
 import com.dezhou.poker.entity.GameAction;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -24,7 +26,7 @@ public interface GameActionMapper extends BaseMapper<GameAction> {
     @Select("SELECT ga.*, u.* FROM game_actions ga " +
             "LEFT JOIN users u ON ga.user_id = u.user_id " +
             "WHERE ga.game_id = #{gameId} AND ga.deleted = 0 " +
-            "ORDER BY ga.action_time ASC")
+            "ORDER BY ga.seq ASC")
     List<GameAction> selectByGameId(@Param("gameId") Long gameId);
 
     /**
@@ -37,16 +39,82 @@ public interface GameActionMapper extends BaseMapper<GameAction> {
     @Select("SELECT ga.*, u.* FROM game_actions ga " +
             "LEFT JOIN users u ON ga.user_id = u.user_id " +
             "WHERE ga.game_id = #{gameId} AND ga.round = #{round} AND ga.deleted = 0 " +
-            "ORDER BY ga.action_time ASC")
+            "ORDER BY ga.seq ASC")
     List<GameAction> selectByGameIdAndRound(@Param("gameId") Long gameId, @Param("round") String round);
 
     /**
-     * 计算奖池大小
+     * 查询某序号之后的动作（事件日志尾部）
      *
      * @param gameId 游戏ID
-     * @return 奖池大小
+     * @param seq    起始序号（不含）
+     * @return 按序号排列的动作列表
      */
-    @Select("SELECT COALESCE(SUM(amount), 0) FROM game_actions " +
-            "WHERE game_id = #{gameId} AND deleted = 0")
-    BigDecimal calculatePotSize(@Param("gameId") Long gameId);
-} 
\ No newline at end of file
+    @Select("SELECT * FROM game_actions " +
+            "WHERE game_id = #{gameId} AND seq > #{seq} AND deleted = 0 " +
+            "ORDER BY seq ASC")
+    List<GameAction> selectAfterSeq(@Param("gameId") Long gameId, @Param("seq") Long seq);
+
+    /**
+     * 一次查询每位玩家的弃牌标记、最后一个动作和指定轮次的投入
+     * 按玩家分组求出最大序号后与动作表按 (game_id, seq) 连接取最后一个动作，不依赖窗口函数
+     *
+     * @param gameId 游戏ID
+     * @param round  统计投入的轮次
+     * @return 每位已行动玩家一条汇总
+     */
+    @Select("SELECT a.user_id, a.folded, a.street_contribution, " +
+            "l.action_type AS last_action_type, l.amount AS last_amount, l.round AS last_round " +
+            "FROM (SELECT user_id, " +
+            "MAX(CASE WHEN action_type = 'FOLD' THEN 1 ELSE 0 END) AS folded, " +
+            "COALESCE(SUM(CASE WHEN round = #{round} THEN amount END), 0) AS street_contribution, " +
+            "MAX(seq) AS last_seq " +
+            "FROM game_actions WHERE game_id = #{gameId} AND deleted = 0 GROUP BY user_id) a " +
+            "JOIN game_actions l ON l.game_id = #{gameId} AND l.seq = a.last_seq")
+    List<PlayerActionSummary> selectPlayerSummaries(@Param("gameId") Long gameId, @Param("round") String round);
+
+    /**
+     * 查询最大动作序号
+     *
+     * @param gameId 游戏ID
+     * @return 最大序号，没有动作时返回 0
+     */
+    @Select("SELECT COALESCE(MAX(seq), 0) FROM game_actions WHERE game_id = #{gameId}")
+    long selectMaxSeq(@Param("gameId") Long gameId);
+
+    /**
+     * 查询牌局最后一个动作的时间
+     *
+     * @param gameId 游戏ID
+     * @return 最后动作时间，没有动作时返回 null
+     */
+    @Select("SELECT action_time FROM game_actions WHERE game_id = #{gameId} ORDER BY seq DESC LIMIT 1")
+    LocalDateTime selectLastActionTime(@Param("gameId") Long gameId);
+
+    /**
+     * 批量插入动作，已存在相同 (game_id, seq) 的动作时跳过（日志重放）
+     *
+     * @param actions 动作列表
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT INTO game_actions (game_id, seq, user_id, action_type, amount, round, action_time, created_at, updated_at, deleted) VALUES ",
+            "<foreach collection='actions' item='a' separator=','>",
+            "(#{a.gameId}, #{a.seq}, #{a.userId}, #{a.actionType}, #{a.amount}, #{a.round}, #{a.actionTime}, #{a.actionTime}, #{a.actionTime}, 0)",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE seq = seq",
+            "</script>"})
+    int insertBatch(@Param("actions") List<GameAction> actions);
+
+    /**
+     * 查询一局的全部动作，牌局已归档时从归档表读取
+     *
+     * @param gameId 游戏ID
+     * @return 按序号排列的动作列表
+     */
+    @Select("SELECT t.*, t.action_id AS id FROM (" +
+            "SELECT * FROM game_actions WHERE game_id = #{gameId} AND deleted = 0 " +
+            "UNION ALL " +
+            "SELECT * FROM game_actions_archive WHERE game_id = #{gameId} AND deleted = 0" +
+            ") t ORDER BY t.seq ASC")
+    List<GameAction> selectByGameIdWithArchive(@Param("gameId") Long gameId);
+}
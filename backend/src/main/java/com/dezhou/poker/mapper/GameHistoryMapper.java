@@ -1,10 +1,14 @@
 package com.dezhou.poker.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.dto.BettingUpdate;
 import com.dezhou.poker.entity.GameHistory;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 /**
  * 游戏历史Mapper接口
@@ -20,4 +24,34 @@ public interface GameHistoryMapper extends BaseMapper<GameHistory> {
      */
     @Select("SELECT * FROM game_history WHERE room_id = #{roomId} AND status = 'IN_PROGRESS' AND deleted = 0")
     GameHistory selectCurrentGameByRoomId(@Param("roomId") Long roomId);
-} 
\ No newline at end of file
+
+    /**
+     * 批量写回底池和当前下注
+     *
+     * @param updates 下注汇总，每局只保留最新一条
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE game_history SET ",
+            "pot_size = CASE game_id ",
+            "<foreach collection='updates' item='u'>WHEN #{u.gameId} THEN #{u.potSize} </foreach>END, ",
+            "current_bet = CASE game_id ",
+            "<foreach collection='updates' item='u'>WHEN #{u.gameId} THEN #{u.currentBet} </foreach>END ",
+            "WHERE game_id IN ",
+            "<foreach collection='updates' item='u' open='(' separator=',' close=')'>#{u.gameId}</foreach>",
+            "</script>"})
+    int batchUpdateBetting(@Param("updates") List<BettingUpdate> updates);
+
+    /**
+     * 查询房间的全部牌局（含归档），按开始时间倒序
+     *
+     * @param roomId 房间ID
+     * @return 牌局列表
+     */
+    @Select("SELECT t.*, t.game_id AS id FROM (" +
+            "SELECT * FROM game_history WHERE room_id = #{roomId} AND deleted = 0 " +
+            "UNION ALL " +
+            "SELECT * FROM game_history_archive WHERE room_id = #{roomId} AND deleted = 0" +
+            ") t ORDER BY t.start_time DESC")
+    List<GameHistory> selectByRoomIdWithArchive(@Param("roomId") Long roomId);
+}
@@ -0,0 +1,30 @@
+package com.dezhou.poker.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.entity.GameSnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 牌局状态快照Mapper接口
+ */
+@Mapper
+public interface GameSnapshotMapper extends BaseMapper<GameSnapshot> {
+
+    /**
+     * 写入快照，已存在时覆盖（只保留序号更大的快照）
+     *
+     * @param gameId 游戏ID
+     * @param seq    最后一个动作序号
+     * @param state  序列化的牌桌状态
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO game_snapshots (game_id, seq, state, created_at) " +
+            "VALUES (#{gameId}, #{seq}, #{state}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "state = IF(VALUES(seq) >= seq, VALUES(state), state), " +
+            "created_at = IF(VALUES(seq) >= seq, VALUES(created_at), created_at), " +
+            "seq = GREATEST(seq, VALUES(seq))")
+    int upsert(@Param("gameId") Long gameId, @Param("seq") Long seq, @Param("state") byte[] state);
+}
@@ -1,12 +1,16 @@
 package com.dezhou.poker.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.dto.BettingUpdate;
 import com.dezhou.poker.entity.PlayerGameHistory;
 import com.dezhou.poker.entity.PlayerGameHistoryId;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -45,4 +49,111 @@ public interface PlayerGameHistoryMapper extends BaseMapper<PlayerGameHistory> {
      */
     @Select("SELECT * FROM player_game_history WHERE game_id = #{id.gameId} AND user_id = #{id.userId} AND deleted = 0")
     PlayerGameHistory selectById(@Param("id") PlayerGameHistoryId id);
-} 
\ No newline at end of file
+
+    /**
+     * 开局时一次写入全部玩家记录（含手牌）
+     *
+     * @param players 玩家游戏历史
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT INTO player_game_history (game_id, user_id, initial_chips, final_chips, hole_cards, hole_cards_bin, position, total_bet, is_winner, created_at, updated_at, deleted) VALUES ",
+            "<foreach collection='players' item='p' separator=','>",
+            "(#{p.gameId}, #{p.userId}, #{p.initialChips}, #{p.finalChips}, #{p.holeCards}, #{p.holeCardsBin}, #{p.position}, 0, 0, #{p.createdAt}, #{p.createdAt}, 0)",
+            "</foreach>",
+            "</script>"})
+    int insertBatch(@Param("players") List<PlayerGameHistory> players);
+
+    /**
+     * 重新发牌时批量写入手牌
+     *
+     * @param gameId  游戏ID
+     * @param players 玩家记录（holeCards、holeCardsBin）
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE player_game_history SET ",
+            "hole_cards = CASE user_id ",
+            "<foreach collection='players' item='p'>WHEN #{p.userId} THEN #{p.holeCards} </foreach>END, ",
+            "hole_cards_bin = CASE user_id ",
+            "<foreach collection='players' item='p'>WHEN #{p.userId} THEN #{p.holeCardsBin} </foreach>END ",
+            "WHERE game_id = #{gameId} AND user_id IN ",
+            "<foreach collection='players' item='p' open='(' separator=',' close=')'>#{p.userId}</foreach>",
+            "</script>"})
+    int batchUpdateHoleCards(@Param("gameId") Long gameId, @Param("players") List<PlayerGameHistory> players);
+
+    /**
+     * 批量写入一手牌的结算结果，同时标记为已计入玩家统计（汇总在同一事务中累加）
+     *
+     * @param gameId  游戏ID
+     * @param players 玩家结算记录（finalChips、isWinner、finalHandType）
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE player_game_history SET ",
+            "final_chips = CASE user_id ",
+            "<foreach collection='players' item='p'>WHEN #{p.userId} THEN #{p.finalChips} </foreach>END, ",
+            "is_winner = CASE user_id ",
+            "<foreach collection='players' item='p'>WHEN #{p.userId} THEN #{p.isWinner} </foreach>END, ",
+            "final_hand_type = CASE user_id ",
+            "<foreach collection='players' item='p'>WHEN #{p.userId} THEN #{p.finalHandType} </foreach>END, ",
+            "stats_applied = 1 ",
+            "WHERE game_id = #{gameId} AND user_id IN ",
+            "<foreach collection='players' item='p' open='(' separator=',' close=')'>#{p.userId}</foreach>",
+            "</script>"})
+    int batchUpdateSettlement(@Param("gameId") Long gameId, @Param("players") List<PlayerGameHistory> players);
+
+    /**
+     * 批量写回玩家本局累计投入
+     *
+     * @param updates 下注汇总，每个 (游戏, 玩家) 只保留最新一条
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE player_game_history SET ",
+            "total_bet = CASE ",
+            "<foreach collection='updates' item='u'>WHEN game_id = #{u.gameId} AND user_id = #{u.userId} THEN #{u.totalBet} </foreach>",
+            "ELSE total_bet END ",
+            "WHERE (game_id, user_id) IN ",
+            "<foreach collection='updates' item='u' open='(' separator=',' close=')'>(#{u.gameId}, #{u.userId})</foreach>",
+            "</script>"})
+    int batchUpdateTotalBet(@Param("updates") List<BettingUpdate> updates);
+
+    /**
+     * 按 (created_at, game_id) 倒序的键集分页，走 (user_id, created_at) 索引，不使用 OFFSET。
+     * 热表和归档表各取一页后合并，已归档的牌局照常出现在历史中
+     *
+     * @param userId      用户ID
+     * @param afterTime   上一页最后一条的创建时间，第一页为 null
+     * @param afterGameId 上一页最后一条的游戏ID
+     * @param limit       数量
+     * @return 玩家游戏历史
+     */
+    @Select({"<script>",
+            "SELECT * FROM (",
+            "(SELECT * FROM player_game_history WHERE user_id = #{userId} AND deleted = 0 ",
+            "<if test='afterTime != null'>",
+            "AND (created_at &lt; #{afterTime} OR (created_at = #{afterTime} AND game_id &lt; #{afterGameId})) ",
+            "</if>",
+            "ORDER BY created_at DESC, game_id DESC LIMIT #{limit}) ",
+            "UNION ALL ",
+            "(SELECT * FROM player_game_history_archive WHERE user_id = #{userId} AND deleted = 0 ",
+            "<if test='afterTime != null'>",
+            "AND (created_at &lt; #{afterTime} OR (created_at = #{afterTime} AND game_id &lt; #{afterGameId})) ",
+            "</if>",
+            "ORDER BY created_at DESC, game_id DESC LIMIT #{limit})",
+            ") t ORDER BY created_at DESC, game_id DESC LIMIT #{limit}",
+            "</script>"})
+    List<PlayerGameHistory> selectPageByUser(@Param("userId") Long userId, @Param("afterTime") LocalDateTime afterTime,
+                                             @Param("afterGameId") Long afterGameId, @Param("limit") int limit);
+
+    /**
+     * 统计用户游戏历史记录数（含归档）
+     *
+     * @param userId 用户ID
+     * @return 记录数
+     */
+    @Select("SELECT (SELECT COUNT(*) FROM player_game_history WHERE user_id = #{userId} AND deleted = 0) + " +
+            "(SELECT COUNT(*) FROM player_game_history_archive WHERE user_id = #{userId} AND deleted = 0)")
+    long countByUser(@Param("userId") Long userId);
+}
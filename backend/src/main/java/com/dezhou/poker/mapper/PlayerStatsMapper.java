@@ -0,0 +1,94 @@
+package com.dezhou.poker.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.entity.PlayerStats;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 玩家统计汇总Mapper接口
+ */
+@Mapper
+public interface PlayerStatsMapper extends BaseMapper<PlayerStats> {
+
+    /**
+     * 累加一手牌的统计，玩家没有汇总记录时创建
+     *
+     * @param deltas 每位玩家本手的增量
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT INTO player_stats (user_id, hands, wins, net_profit, vpip_hands, pfr_hands) VALUES ",
+            "<foreach collection='deltas' item='d' separator=','>",
+            "(#{d.userId}, #{d.hands}, #{d.wins}, #{d.netProfit}, #{d.vpipHands}, #{d.pfrHands})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE hands = hands + VALUES(hands), wins = wins + VALUES(wins), ",
+            "net_profit = net_profit + VALUES(net_profit), vpip_hands = vpip_hands + VALUES(vpip_hands), ",
+            "pfr_hands = pfr_hands + VALUES(pfr_hands)",
+            "</script>"})
+    int batchAccumulate(@Param("deltas") List<PlayerStats> deltas);
+
+    /**
+     * 回填：按用户ID升序取下一批有待计入记录的用户
+     *
+     * @param afterUserId 上一批最后一个用户ID（不含）
+     * @param limit       批大小
+     * @return 用户ID
+     */
+    @Select("SELECT DISTINCT user_id FROM player_game_history " +
+            "WHERE user_id > #{afterUserId} AND stats_applied = 0 AND deleted = 0 " +
+            "ORDER BY user_id LIMIT #{limit}")
+    List<Long> selectPendingUserIds(@Param("afterUserId") Long afterUserId, @Param("limit") int limit);
+
+    /**
+     * 回填第一步：认领一批用户已结束牌局（FINISHED 或旧流程的 COMPLETED）中尚未计入的记录
+     *
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId   结束用户ID（含）
+     * @return 认领的记录数
+     */
+    @Update("UPDATE player_game_history p JOIN game_history g ON g.game_id = p.game_id " +
+            "SET p.stats_applied = 2 " +
+            "WHERE p.user_id BETWEEN #{fromUserId} AND #{toUserId} AND p.stats_applied = 0 AND p.deleted = 0 " +
+            "AND g.status IN ('FINISHED', 'COMPLETED')")
+    int claimPending(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 回填第二步：把已认领的记录按用户汇总后累加到 player_stats
+     * VPIP/PFR 按翻牌前动作推算：跟注、下注、加注或全下计入 VPIP，下注、加注或全下计入 PFR
+     *
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId   结束用户ID（含）
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO player_stats (user_id, hands, wins, net_profit, vpip_hands, pfr_hands) " +
+            "SELECT p.user_id, COUNT(*), COALESCE(SUM(p.is_winner), 0), " +
+            "COALESCE(SUM(COALESCE(p.final_chips, p.initial_chips) - p.initial_chips), 0), " +
+            "COALESCE(SUM(EXISTS (SELECT 1 FROM game_actions a WHERE a.game_id = p.game_id AND a.user_id = p.user_id " +
+            "AND a.round = 'PRE_FLOP' AND a.action_type IN ('CALL', 'BET', 'RAISE', 'ALL_IN') AND a.deleted = 0)), 0), " +
+            "COALESCE(SUM(EXISTS (SELECT 1 FROM game_actions a WHERE a.game_id = p.game_id AND a.user_id = p.user_id " +
+            "AND a.round = 'PRE_FLOP' AND a.action_type IN ('BET', 'RAISE', 'ALL_IN') AND a.deleted = 0)), 0) " +
+            "FROM player_game_history p " +
+            "WHERE p.user_id BETWEEN #{fromUserId} AND #{toUserId} AND p.stats_applied = 2 " +
+            "GROUP BY p.user_id " +
+            "ON DUPLICATE KEY UPDATE hands = hands + VALUES(hands), wins = wins + VALUES(wins), " +
+            "net_profit = net_profit + VALUES(net_profit), vpip_hands = vpip_hands + VALUES(vpip_hands), " +
+            "pfr_hands = pfr_hands + VALUES(pfr_hands)")
+    int accumulateClaimed(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+
+    /**
+     * 回填第三步：把已认领的记录标记为已计入
+     *
+     * @param fromUserId 起始用户ID（含）
+     * @param toUserId   结束用户ID（含）
+     * @return 影响行数
+     */
+    @Update("UPDATE player_game_history SET stats_applied = 1 " +
+            "WHERE user_id BETWEEN #{fromUserId} AND #{toUserId} AND stats_applied = 2")
+    int markClaimedApplied(@Param("fromUserId") Long fromUserId, @Param("toUserId") Long toUserId);
+}
@@ -1,10 +1,12 @@
 package com.dezhou.poker.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.dto.SettlementEntry;
 import com.dezhou.poker.entity.RoomPlayer;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 import java.util.List;
 
@@ -46,4 +48,34 @@ public interface RoomPlayerMapper extends BaseMapper<RoomPlayer> {
      */
     @Select("SELECT * FROM room_players WHERE room_id = #{roomId} AND seat_number = #{seatNumber} AND deleted = 0")
     RoomPlayer selectBySeat(@Param("roomId") Long roomId, @Param("seatNumber") Integer seatNumber);
-} 
\ No newline at end of file
+
+    /**
+     * 批量更新房间内玩家状态
+     *
+     * @param roomId  房间ID
+     * @param userIds 用户ID
+     * @param status  状态
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE room_players SET status = #{status} ",
+            "WHERE room_id = #{roomId} AND deleted = 0 AND user_id IN ",
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>"})
+    int batchUpdateStatus(@Param("roomId") Long roomId, @Param("userIds") List<Long> userIds, @Param("status") String status);
+
+    /**
+     * 批量写回一手牌结束时玩家的桌上筹码
+     *
+     * @param roomId  房间ID
+     * @param entries 结算明细
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE room_players SET current_chips = CASE user_id ",
+            "<foreach collection='entries' item='e'>WHEN #{e.userId} THEN #{e.closingChips} </foreach>END ",
+            "WHERE room_id = #{roomId} AND deleted = 0 AND user_id IN ",
+            "<foreach collection='entries' item='e' open='(' separator=',' close=')'>#{e.userId}</foreach>",
+            "</script>"})
+    int batchUpdateClosingChips(@Param("roomId") Long roomId, @Param("entries") List<SettlementEntry> entries);
+}
@@ -0,0 +1,100 @@
+package com.dezhou.poker.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.entity.TableShard;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 牌桌分片租约Mapper接口
+ * 租约时间一律使用数据库时钟，避免节点之间的时钟偏差
+ */
+@Mapper
+public interface TableShardMapper extends BaseMapper<TableShard> {
+
+    /**
+     * 补齐分片行，已存在的分片不变
+     *
+     * @param shardIds 分片ID
+     * @return 影响行数
+     */
+    @Insert({"<script>",
+            "INSERT IGNORE INTO table_shards (shard_id, epoch) VALUES ",
+            "<foreach collection='shardIds' item='id' separator=','>(#{id}, 0)</foreach>",
+            "</script>"})
+    int insertMissing(@Param("shardIds") List<Integer> shardIds);
+
+    /**
+     * 查询全部分片及租约是否有效
+     *
+     * @return 分片列表
+     */
+    @Select("SELECT shard_id, owner_node, epoch, lease_expires_at, " +
+            "(owner_node IS NOT NULL AND lease_expires_at > NOW(3)) AS lease_valid " +
+            "FROM table_shards ORDER BY shard_id")
+    List<TableShard> selectAllWithValidity();
+
+    /**
+     * 获取无人持有或租约已过期的分片
+     *
+     * @param shardId 分片ID
+     * @param nodeId  节点ID
+     * @param ttlMs   租约时长（毫秒）
+     * @return 1 表示获取成功
+     */
+    @Update("UPDATE table_shards SET owner_node = #{nodeId}, epoch = epoch + 1, " +
+            "lease_expires_at = DATE_ADD(NOW(3), INTERVAL #{ttlMs} * 1000 MICROSECOND) " +
+            "WHERE shard_id = #{shardId} AND (owner_node IS NULL OR lease_expires_at IS NULL OR lease_expires_at <= NOW(3))")
+    int acquire(@Param("shardId") int shardId, @Param("nodeId") String nodeId, @Param("ttlMs") long ttlMs);
+
+    /**
+     * 续约本节点持有且仍有效的全部分片
+     *
+     * @param nodeId 节点ID
+     * @param ttlMs  租约时长（毫秒）
+     * @return 续约的分片数
+     */
+    @Update("UPDATE table_shards SET lease_expires_at = DATE_ADD(NOW(3), INTERVAL #{ttlMs} * 1000 MICROSECOND) " +
+            "WHERE owner_node = #{nodeId} AND lease_expires_at > NOW(3)")
+    int renew(@Param("nodeId") String nodeId, @Param("ttlMs") long ttlMs);
+
+    /**
+     * 释放本节点持有的分片
+     *
+     * @param shardId 分片ID
+     * @param nodeId  节点ID
+     * @return 1 表示释放成功
+     */
+    @Update("UPDATE table_shards SET owner_node = NULL, lease_expires_at = NULL " +
+            "WHERE shard_id = #{shardId} AND owner_node = #{nodeId}")
+    int release(@Param("shardId") int shardId, @Param("nodeId") String nodeId);
+
+    /**
+     * 读取分片的当前纪元
+     *
+     * @param shardId 分片ID
+     * @return 纪元，分片不存在返回 null
+     */
+    @Select("SELECT epoch FROM table_shards WHERE shard_id = #{shardId}")
+    Long selectEpoch(@Param("shardId") int shardId);
+
+    /**
+     * 在当前事务中以共享锁读取分片纪元：事务提交前其他节点无法获取这些分片的租约（acquire 需要排他锁），
+     * 纪元一致时本事务的写入不会与接管交错
+     *
+     * @param shardIds 分片ID
+     * @return 分片列表（只含分片ID和纪元）
+     */
+    @Select({"<script>",
+            "SELECT shard_id, epoch FROM table_shards WHERE shard_id IN ",
+            "<foreach collection='shardIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>",
+            " LOCK IN SHARE MODE",
+            "</script>"})
+    List<TableShard> selectEpochsForShare(@Param("shardIds") Collection<Integer> shardIds);
+}
@@ -1,12 +1,16 @@
 package com.dezhou.poker.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dezhou.poker.dto.SettlementEntry;
 import com.dezhou.poker.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 用户Mapper接口
@@ -36,4 +40,50 @@ public interface UserMapper extends BaseMapper<User> {
      */
     @Update("UPDATE users SET total_games = total_games + 1, wins = wins + #{isWin} WHERE user_id = #{userId}")
     int updateGameStats(@Param("userId") Long userId, @Param("isWin") int isWin);
-} 
\ No newline at end of file
+
+    /**
+     * 批量写入一手牌的结算结果：累加总局数和胜局数
+     * 筹码在桌上，由 room_players 记录，离桌时才结回用户余额
+     *
+     * @param entries 结算明细
+     * @return 影响行数
+     */
+    @Update({"<script>",
+            "UPDATE users SET ",
+            "total_games = total_games + 1, ",
+            "wins = wins + CASE user_id ",
+            "<foreach collection='entries' item='e'>WHEN #{e.userId} THEN #{e.winFlag} </foreach>END ",
+            "WHERE user_id IN ",
+            "<foreach collection='entries' item='e' open='(' separator=',' close=')'>#{e.userId}</foreach>",
+            "</script>"})
+    int batchApplySettlement(@Param("entries") List<SettlementEntry> entries);
+
+    /**
+     * 数据库当前时间，作为增量同步的水位
+     *
+     * @return 当前时间（毫秒精度）
+     */
+    @Select("SELECT NOW(3)")
+    LocalDateTime selectNow();
+
+    /**
+     * 按用户ID升序分批读取排行榜字段
+     *
+     * @param afterUserId 上一批最后一个用户ID（不含）
+     * @param limit       批大小
+     * @return 用户（只含ID、用户名、筹码、总局数、胜局数）
+     */
+    @Select("SELECT user_id AS id, username, current_chips, total_games, wins FROM users " +
+            "WHERE user_id > #{afterUserId} ORDER BY user_id LIMIT #{limit}")
+    List<User> selectRankingPage(@Param("afterUserId") Long afterUserId, @Param("limit") int limit);
+
+    /**
+     * 读取某时间之后修改过的用户的排行榜字段
+     *
+     * @param since 起始时间（含）
+     * @return 用户（只含ID、用户名、筹码、总局数、胜局数）
+     */
+    @Select("SELECT user_id AS id, username, current_chips, total_games, wins FROM users " +
+            "WHERE updated_at >= #{since}")
+    List<User> selectRankingUpdatedSince(@Param("since") LocalDateTime since);
+}
@@ -0,0 +1,188 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.mapper.ArchiveMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 牌局归档服务
+ * 定时把结束超过 poker.archive.retention-days 天的牌局连同玩家记录和动作移入归档表，
+ * 热表只保留近期和进行中的牌局，索引和数据页能常驻缓冲池。
+ * 每批一个事务（复制到归档表后从热表删除），批次之间按耗时停顿，
+ * 归档占用的数据库时间不超过 poker.archive.max-duty-percent。
+ * 个人历史等查询通过 UNION ALL 同时读热表和归档表，归档对接口透明。
+ * 多个节点同时归档时由行锁互斥，INSERT IGNORE 保证重复复制无副作用。
+ */
+@Service
+public class ArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+
+    @Autowired
+    private ArchiveMapper archiveMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${poker.archive.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 牌局结束后在热表保留的天数
+     */
+    @Value("${poker.archive.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * 每批归档的牌局数
+     */
+    @Value("${poker.archive.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 归档占用时间的上限（百分比），批次之间停顿 耗时 * (100 / 上限 - 1)
+     */
+    @Value("${poker.archive.max-duty-percent:20}")
+    private int maxDutyPercent;
+
+    /**
+     * 单次运行最多归档的牌局数，剩余的留到下次
+     */
+    @Value("${poker.archive.max-games-per-run:50000}")
+    private int maxGamesPerRun;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder archivedGames = new LongAdder();
+    private final LongAdder archivedPlayers = new LongAdder();
+    private final LongAdder archivedActions = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder throttledMillis = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 定时归档
+     */
+    @Scheduled(fixedDelayString = "${poker.archive.interval-ms:3600000}",
+            initialDelayString = "${poker.archive.initial-delay-ms:300000}")
+    public void scheduledArchive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive();
+        } catch (IllegalStateException e) {
+            log.debug("跳过本次归档: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("牌局归档失败", e);
+        }
+    }
+
+    /**
+     * 归档一轮
+     *
+     * @return 归档的牌局数
+     */
+    public long archive() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("牌局归档正在进行");
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            long total = 0;
+            long afterGameId = 0L;
+            while (total < maxGamesPerRun) {
+                List<Long> gameIds = archiveMapper.selectArchivableGameIds(afterGameId, cutoff,
+                        (int) Math.min(batchSize, maxGamesPerRun - total));
+                if (gameIds.isEmpty()) {
+                    break;
+                }
+                long start = System.nanoTime();
+                transactionTemplate.executeWithoutResult(status -> {
+                    archiveMapper.copyGames(gameIds);
+                    archivedPlayers.add(archiveMapper.copyPlayers(gameIds));
+                    archivedActions.add(archiveMapper.copyActions(gameIds));
+                    archiveMapper.deleteSnapshots(gameIds);
+                    archiveMapper.deleteVotes(gameIds);
+                    archiveMapper.deleteActions(gameIds);
+                    archiveMapper.deletePlayers(gameIds);
+                    archiveMapper.deleteGames(gameIds);
+                });
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                total += gameIds.size();
+                archivedGames.add(gameIds.size());
+                batches.increment();
+                afterGameId = gameIds.get(gameIds.size() - 1);
+                if (!throttle(elapsedMs)) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("归档 {} 局结束于 {} 之前的牌局", total, cutoff);
+            }
+            return total;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 按上一批的耗时停顿
+     *
+     * @return 是否继续（线程被中断时返回 false）
+     */
+    private boolean throttle(long elapsedMs) {
+        int duty = Math.max(1, Math.min(maxDutyPercent, 100));
+        long pauseMs = Math.max(10L, elapsedMs * (100 - duty) / duty);
+        throttledMillis.add(pauseMs);
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public long getArchivedGames() {
+        return archivedGames.sum();
+    }
+
+    public long getArchivedPlayers() {
+        return archivedPlayers.sum();
+    }
+
+    public long getArchivedActions() {
+        return archivedActions.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getThrottledMillis() {
+        return throttledMillis.sum();
+    }
+}
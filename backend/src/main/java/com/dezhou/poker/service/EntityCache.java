@@ -0,0 +1,209 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.entity.Room;
+import com.dezhou.poker.entity.RoomPlayer;
+import com.dezhou.poker.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 房间、房间玩家和用户的读穿缓存，位于 RoomService / UserService 之后
+ * <ul>
+ *     <li>rooms：房间ID -> 房间</li>
+ *     <li>roomPlayers：房间ID -> 按座位号排序的全部房间玩家，入座玩家、入座人数和单个玩家都由它筛选</li>
+ *     <li>users：用户ID -> 用户</li>
+ * </ul>
+ * 写入方在修改后按房间ID或用户ID失效，事务中的失效在提交后再执行一次，
+ * 避免提交前被其他线程用旧数据重新填充。返回值都是副本，调用方修改后不影响缓存。
+ * 多节点部署时其他节点的修改只能等过期，过期时间由 poker.cache.ttl-seconds 控制。
+ */
+@Component
+public class EntityCache {
+
+    @Value("${poker.cache.max-rooms:10000}")
+    private long maxRooms;
+
+    @Value("${poker.cache.max-users:100000}")
+    private long maxUsers;
+
+    @Value("${poker.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<Long, Room> rooms;
+    private Cache<Long, List<RoomPlayer>> roomPlayers;
+    private Cache<Long, User> users;
+
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        rooms = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        roomPlayers = Caffeine.newBuilder()
+                .maximumSize(maxRooms)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取房间，未命中时调用 loader 加载（不存在的房间不缓存）
+     *
+     * @param roomId 房间ID
+     * @param loader 加载函数
+     * @return 房间副本，不存在返回 null
+     */
+    public Room getRoom(Long roomId, Function<Long, Room> loader) {
+        return copy(rooms.get(roomId, loader), new Room());
+    }
+
+    /**
+     * 获取房间全部玩家（按座位号排序），未命中时调用 loader 加载
+     *
+     * @param roomId 房间ID
+     * @param loader 加载函数
+     * @return 玩家副本列表
+     */
+    public List<RoomPlayer> getRoomPlayers(Long roomId, Function<Long, List<RoomPlayer>> loader) {
+        List<RoomPlayer> players = roomPlayers.get(roomId, id -> Collections.unmodifiableList(loader.apply(id)));
+        List<RoomPlayer> result = new ArrayList<>(players.size());
+        for (RoomPlayer player : players) {
+            result.add(copy(player, new RoomPlayer()));
+        }
+        return result;
+    }
+
+    /**
+     * 获取用户，未命中时调用 loader 加载（不存在的用户不缓存）
+     *
+     * @param userId 用户ID
+     * @param loader 加载函数
+     * @return 用户副本，不存在返回 null
+     */
+    public User getUser(Long userId, Function<Long, User> loader) {
+        return copy(users.get(userId, loader), new User());
+    }
+
+    /**
+     * 房间信息变化（状态、人数、删除）
+     *
+     * @param roomId 房间ID
+     */
+    public void invalidateRoom(Long roomId) {
+        if (roomId == null) {
+            return;
+        }
+        rooms.invalidate(roomId);
+        invalidations.increment();
+        afterCommit(() -> rooms.invalidate(roomId));
+    }
+
+    /**
+     * 房间玩家变化（加入、离开、入座、离座、状态和筹码）
+     *
+     * @param roomId 房间ID
+     */
+    public void invalidateRoomPlayers(Long roomId) {
+        if (roomId == null) {
+            return;
+        }
+        roomPlayers.invalidate(roomId);
+        invalidations.increment();
+        afterCommit(() -> roomPlayers.invalidate(roomId));
+    }
+
+    /**
+     * 用户信息变化（筹码、战绩）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        users.invalidate(userId);
+        invalidations.increment();
+        afterCommit(() -> users.invalidate(userId));
+    }
+
+    /**
+     * 批量失效用户
+     *
+     * @param userIds 用户ID
+     */
+    public void invalidateUsers(Collection<Long> userIds) {
+        users.invalidateAll(userIds);
+        invalidations.add(userIds.size());
+        afterCommit(() -> users.invalidateAll(userIds));
+    }
+
+    /**
+     * 各缓存的命中率、加载和淘汰统计（淘汰只计容量和过期，写入方的主动失效单独计数）
+     *
+     * @return 缓存名 -> 统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("invalidations", invalidations.sum());
+        stats.put("rooms", stats(rooms));
+        stats.put("roomPlayers", stats(roomPlayers));
+        stats.put("users", stats(users));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", Math.round(stats.hitRate() * 1000) / 1000.0);
+        result.put("loads", stats.loadCount());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    private static <T> T copy(T source, T target) {
+        if (source == null) {
+            return null;
+        }
+        BeanUtils.copyProperties(source, target);
+        return target;
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        }
+    }
+}
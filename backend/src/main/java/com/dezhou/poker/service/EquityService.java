@@ -0,0 +1,179 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.dto.EquityResult;
+import com.dezhou.poker.engine.Cards;
+import com.dezhou.poker.engine.EquityCalculator;
+import com.dezhou.poker.engine.TableState;
+import com.dezhou.poker.engine.TableStateManager;
+import com.dezhou.poker.entity.GameAction;
+import com.dezhou.poker.exception.BusinessException;
+import com.dezhou.poker.exception.ResourceNotFoundException;
+import com.dezhou.poker.mapper.AllinVoteMapper;
+import com.dezhou.poker.websocket.WebSocketMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 胜率服务
+ * 所有未弃牌玩家都已无法继续下注（全下锁定）时，按当前可见公共牌计算每位玩家的胜率。
+ * 只在全下锁定后计算，避免牌局进行中泄露手牌信息。
+ */
+@Service
+public class EquityService {
+
+    private static final Logger log = LoggerFactory.getLogger(EquityService.class);
+
+    @Autowired
+    private TableStateManager tableStateManager;
+
+    @Autowired
+    private AllinVoteMapper allinVoteMapper;
+
+    @Autowired
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Value("${poker.equity.exhaustive-limit:4000000}")
+    private long exhaustiveLimit;
+
+    @Value("${poker.equity.max-samples:2000000}")
+    private long maxSamples;
+
+    @Value("${poker.equity.budget-ms:200}")
+    private long budgetMs;
+
+    @Value("${poker.equity.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    private EquityCalculator calculator;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads);
+        calculator = new EquityCalculator(pool, exhaustiveLimit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 计算牌局当前的胜率
+     *
+     * @param gameId 游戏ID
+     * @return 胜率结果
+     */
+    public EquityResult calculate(Long gameId) {
+        TableState state = tableStateManager.get(gameId);
+        if (state == null) {
+            throw new ResourceNotFoundException("游戏", "id", gameId);
+        }
+
+        GameAction.GameRound street;
+        byte[] visible;
+        List<Long> userIds = new ArrayList<>();
+        List<Long> holeCards = new ArrayList<>();
+        synchronized (state) {
+            if (!isAllInLocked(state)) {
+                throw new BusinessException("只有全下后才能计算胜率");
+            }
+            street = state.getStreet();
+            visible = state.getVisibleBoardCards();
+            for (int i = 0; i < state.size(); i++) {
+                if (!state.isFolded(i)) {
+                    userIds.add(state.getUserId(i));
+                    holeCards.add(state.getHoleCards(i));
+                }
+            }
+        }
+
+        long board = Cards.mask(visible);
+        long[] hands = new long[holeCards.size()];
+        for (int i = 0; i < hands.length; i++) {
+            hands[i] = holeCards.get(i);
+        }
+
+        long start = System.nanoTime();
+        EquityCalculator.Result result = calculator.calculate(hands, board, 0L, maxSamples,
+                TimeUnit.MILLISECONDS.toNanos(budgetMs));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<EquityResult.PlayerEquity> players = new ArrayList<>(hands.length);
+        for (int i = 0; i < hands.length; i++) {
+            players.add(new EquityResult.PlayerEquity(userIds.get(i), Cards.maskToString(hands[i]),
+                    result.getEquity()[i], result.getWin()[i], result.getTie()[i]));
+        }
+
+        List<Integer> runs = allinVoteMapper.findMostVotedOptionByGameId(gameId);
+
+        EquityResult equity = new EquityResult();
+        equity.setGameId(gameId);
+        equity.setRoomId(state.getRoomId());
+        equity.setRound(street.name());
+        equity.setCommunityCards(Cards.toString(visible));
+        equity.setExhaustive(result.isExhaustive());
+        equity.setTrials(result.getTrials());
+        equity.setElapsedMs(elapsedMs);
+        equity.setRuns(runs.isEmpty() ? null : runs.get(0));
+        equity.setPlayers(players);
+
+        log.debug("计算胜率, 游戏ID: {}, 玩家数: {}, 穷举: {}, 发牌次数: {}, 耗时: {}ms",
+                gameId, hands.length, result.isExhaustive(), result.getTrials(), elapsedMs);
+        return equity;
+    }
+
+    /**
+     * 如果牌局已全下锁定，计算胜率并推送到房间
+     *
+     * @param gameId 游戏ID
+     */
+    @Async
+    public void publishIfAllIn(Long gameId) {
+        TableState state = tableStateManager.get(gameId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (!isAllInLocked(state)) {
+                return;
+            }
+        }
+        try {
+            EquityResult equity = calculate(gameId);
+
+            WebSocketMessage message = new WebSocketMessage();
+            message.setType(WebSocketMessage.MessageType.EQUITY);
+            message.setContent("全下胜率");
+            message.setData(equity);
+            messagingTemplate.convertAndSend("/topic/room." + equity.getRoomId(), message);
+        } catch (RuntimeException e) {
+            log.warn("推送胜率失败, 游戏ID: {}, 原因: {}", gameId, e.getMessage());
+        }
+    }
+
+    /**
+     * 全下锁定：至少两名玩家未弃牌、其中有人全下，且已无人可以继续下注
+     */
+    private boolean isAllInLocked(TableState state) {
+        return state.getStreet() != GameAction.GameRound.SHOWDOWN
+                && state.getAllInMask() != 0
+                && state.activeCount() >= 2
+                && state.actionableCount() <= 1
+                && state.isStreetComplete();
+    }
+}
@@ -24,7 +24,7 @@ public interface GameActionService extends IService<GameAction> {
     GameAction recordAction(Long gameId, Long userId, String actionType, BigDecimal amount, String round);
 
     /**
-     * 获取游戏动作列表
+     * 获取游戏动作列表（含已归档的牌局）
      *
      * @param gameId 游戏ID
      * @return 游戏动作列表
@@ -74,7 +74,7 @@ public interface GameHistoryService extends IService<GameHistory> {
     GameHistory getCurrentGame(Long roomId);
 
     /**
-     * 获取房间历史游戏
+     * 获取房间历史游戏（含已归档的牌局）
      *
      * @param roomId 房间ID
      * @return 历史游戏列表
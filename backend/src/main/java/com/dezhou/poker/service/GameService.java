@@ -3,6 +3,19 @@ package com.dezhou.poker.service;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.dezhou.poker.dto.PlayerActionSummary;
+import com.dezhou.poker.dto.SettlementEntry;
+import com.dezhou.poker.engine.Cards;
+import com.dezhou.poker.engine.ChipUnits;
+import com.dezhou.poker.engine.DeckSource;
+import com.dezhou.poker.engine.HandCategory;
+import com.dezhou.poker.engine.HandEvaluator;
+import com.dezhou.poker.engine.PotSettlement;
+import com.dezhou.poker.engine.TableState;
+import com.dezhou.poker.engine.TableStateManager;
+import com.dezhou.poker.engine.WriteBehindJournal;
 import com.dezhou.poker.exception.ResourceNotFoundException;
 import com.dezhou.poker.entity.*;
 
@@ -10,14 +23,18 @@ import com.dezhou.poker.mapper.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 import java.util.HashMap;
-import java.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.dezhou.poker.entity.PlayerStatus;
@@ -31,6 +48,11 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
 
     private static final Logger log = LoggerFactory.getLogger(GameService.class);
 
+    /**
+     * 全下后最多发牌次数
+     */
+    private static final int MAX_RUNS = 3;
+
     @Autowired
     private PlayerGameHistoryMapper playerGameHistoryMapper;
 
@@ -40,15 +62,51 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
     @Autowired
     private AllinVoteMapper allinVoteMapper;
 
-    @Autowired
-    private ChipTransactionMapper chipTransactionMapper;
-
     @Autowired
     private RoomService roomService;
 
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TableStateManager tableStateManager;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RoomPlayerMapper roomPlayerMapper;
+
+    @Autowired
+    private ShardLeaseService shardLeaseService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DeckSource deckSource;
+
+    @Autowired
+    private TurnTimerService turnTimerService;
+
+    @Autowired
+    private WriteBehindJournal journal;
+
+    @Autowired
+    private TableDeltaService tableDeltaService;
+
+    @Autowired
+    private HoleCardService holeCardService;
+
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
     /**
      * 开始新游戏
      *
@@ -62,10 +120,11 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         if (room == null) {
             throw new IllegalArgumentException("房间不存在");
         }
+        shardLeaseService.checkEpoch(roomId);
         
         // 检查房间中的玩家数量是否达到最小要求
-        int seatedPlayerCount = roomService.getSeatedPlayerCount(roomId);
-        if (seatedPlayerCount < room.getMinPlayers()) {
+        List<RoomPlayer> seatedPlayers = roomService.getSeatedPlayers(roomId);
+        if (seatedPlayers.size() < room.getMinPlayers()) {
             throw new IllegalArgumentException("玩家数量不足，无法开始游戏");
         }
         
@@ -98,70 +157,60 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         newGame.setUpdatedAt(LocalDateTime.now());
         newGame.setDeleted(0);
         
-        // 设置庄家位置
+        // 设置庄家、小盲注和大盲注位置
         newGame.setDealerPosition(dealerPosition);
+        applyBlindsPositions(newGame, seatedPlayers, dealerPosition);
         
-        // 保存游戏
-        save(newGame);
-        
-        // 设置小盲注和大盲注位置
-        setBlindsPositions(newGame.getId(), dealerPosition);
-        
-        // 重新获取游戏，确保包含小盲注和大盲注位置
-        newGame = getById(newGame.getId());
-        
-        // 创建玩家游戏历史记录
-        List<RoomPlayer> seatedPlayers = roomService.getSeatedPlayers(roomId);
+        // 插入前先发好手牌和公共牌：开局只需插入游戏、批量插入玩家记录、批量更新座位状态和写快照
+        List<PlayerGameHistory> players = new ArrayList<>(seatedPlayers.size());
+        List<Long> userIds = new ArrayList<>(seatedPlayers.size());
         for (RoomPlayer player : seatedPlayers) {
             PlayerGameHistory playerGameHistory = new PlayerGameHistory();
-            playerGameHistory.setGameId(newGame.getId());
             playerGameHistory.setUserId(player.getUserId());
             playerGameHistory.setInitialChips(player.getCurrentChips());
             playerGameHistory.setFinalChips(player.getCurrentChips());
-            playerGameHistory.setCreatedAt(LocalDateTime.now());
-            playerGameHistory.setUpdatedAt(LocalDateTime.now());
+            playerGameHistory.setPosition(player.getSeatNumber());
+            playerGameHistory.setCreatedAt(newGame.getCreatedAt());
+            playerGameHistory.setUpdatedAt(newGame.getCreatedAt());
             playerGameHistory.setDeleted(0);
-            playerGameHistoryMapper.insert(playerGameHistory);
+            players.add(playerGameHistory);
+            userIds.add(player.getUserId());
+        }
+        byte[] communityCards = deal(players);
+        newGame.setCommunityCards(Cards.toString(communityCards));
+        newGame.setCommunityCardsBin(communityCards);
+        
+        // 保存游戏和玩家游戏历史记录（含手牌）
+        save(newGame);
+        for (PlayerGameHistory player : players) {
+            player.setGameId(newGame.getId());
         }
+        playerGameHistoryMapper.insertBatch(players);
+        
+        // 入座玩家一起进入游戏
+        roomService.updatePlayerStatus(roomId, userIds, PlayerStatus.IN_GAME);
         
-        // 发牌
-        Map<String, Object> dealResult = dealCards(newGame.getId());
+        // 创建牌桌内存状态并写入发牌结果
+        TableState state = tableStateManager.open(newGame, seatedPlayers);
+        applyDeal(state, newGame.getId(), players, communityCards);
         
         // 返回创建的游戏
         return newGame;
     }
 
     /**
-     * 结束游戏
+     * 牌局所在的房间，用于把命令投递到正确的房间邮箱
      *
-     * @param gameId         游戏ID
-     * @param communityCards 公共牌
-     * @return 更新后的游戏
+     * @param gameId 游戏ID
+     * @return 房间ID，牌局不存在返回 null
      */
-    @Transactional
-    public GameHistory endGame(Long gameId, String communityCards) {
-        GameHistory gameHistory = getById(gameId);
-        if (gameHistory == null) {
-            throw new IllegalStateException("游戏不存在");
+    public Long getRoomIdOfGame(Long gameId) {
+        TableState state = tableStateManager.get(gameId);
+        if (state != null) {
+            return state.getRoomId();
         }
-        
-        // 更新游戏历史记录
-        gameHistory.setStatusEnum(GameHistory.GameStatus.FINISHED);
-        gameHistory.setEndTime(LocalDateTime.now());
-        gameHistory.setCommunityCards(communityCards);
-        
-        // 计算奖池大小
-        BigDecimal potSize = gameActionMapper.calculatePotSize(gameId);
-        gameHistory.setPot(potSize);
-        
-        // 更新房间状态
-        Room room = roomService.getById(gameHistory.getRoomId());
-        room.setStatusEnum(Room.RoomStatus.WAITING);
-        roomService.updateById(room);
-        
-        updateById(gameHistory);
-        
-        return gameHistory;
+        GameHistory game = getById(gameId);
+        return game != null ? game.getRoomId() : null;
     }
 
     /**
@@ -176,18 +225,60 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
      */
     @Transactional
     public GameAction recordGameAction(Long gameId, Long userId, GameAction.ActionType actionType, BigDecimal amount, GameAction.GameRound round) {
-        GameHistory gameHistory = getById(gameId);
-        User user = userService.getById(userId);
-        
-        // 创建游戏动作
+        // 先在内存状态上校验并应用动作，实际投入的筹码以状态机结果为准
         GameAction gameAction = new GameAction();
         gameAction.setGameId(gameId);
         gameAction.setUserId(userId);
         gameAction.setActionTypeEnum(actionType);
-        gameAction.setAmount(amount);
-        gameAction.setRoundEnum(round);
         gameAction.setActionTime(LocalDateTime.now());
-        gameActionMapper.insert(gameAction);
+        
+        Long nextToAct = null;
+        TableState state = tableStateManager.get(gameId);
+        if (state == null) {
+            // 所有动作都必须经过状态机校验，没有进行中的牌桌状态说明游戏不存在或已结束
+            throw new IllegalStateException("游戏不存在或已结束");
+        }
+        synchronized (state) {
+            int index = state.indexOf(userId);
+            if (index < 0) {
+                throw new IllegalStateException("玩家不在当前牌局中");
+            }
+            gameAction.setRoundEnum(state.getStreet());
+            gameAction.setAmount(ChipUnits.toDecimal(state.apply(index, actionType, ChipUnits.toUnits(amount))));
+            gameAction.setSeq(state.nextSeq());
+            
+            // 事务提交后动作连同底池、当前下注和玩家累计投入写入本地日志（落盘后才返回），由后台线程批量写库；
+            // 写日志成功后才做快照和广播增量，写日志失败时丢弃内存状态并把异常抛给调用方（afterCommit 中的异常会传给调用方），
+            // 事务回滚时同样丢弃内存状态，下次访问从数据库重建
+            long pot = state.getPot();
+            long currentBet = state.getCurrentBet();
+            long contribution = state.getTotalContribution(index);
+            runAfterCommit(() -> {
+                try {
+                    journal.appendAction(state.getRoomId(), gameAction, pot, currentBet, contribution);
+                } catch (RuntimeException e) {
+                    log.error("写入动作日志失败，丢弃内存牌桌状态, 游戏ID: {}", gameId, e);
+                    tableStateManager.evict(gameId);
+                    turnTimerService.cancel(gameId);
+                    throw new IllegalStateException("动作未能保存，请重试", e);
+                }
+                synchronized (state) {
+                    tableStateManager.onEvent(state);
+                    tableDeltaService.publish(state);
+                }
+            });
+            evictOnRollback(gameId);
+            if (state.activeCount() > 1 && !state.isStreetComplete()) {
+                nextToAct = state.getToActUserId();
+            }
+        }
+
+        // 轮到下一位玩家时重新计时；本轮下注结束则停止计时，等待进入下一轮
+        if (nextToAct != null) {
+            turnTimerService.start(gameId, state.getRoomId(), nextToAct);
+        } else {
+            turnTimerService.cancel(gameId);
+        }
         
         return gameAction;
     }
@@ -262,47 +353,6 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         return options.isEmpty() ? null : options.get(0);
     }
 
-    /**
-     * 更新获胜者信息
-     *
-     * @param gameId        游戏ID
-     * @param userId        用户ID
-     * @param finalChips    最终筹码
-     * @param finalHandType 最终牌型
-     * @return 更新后的玩家游戏历史记录
-     */
-    @Transactional
-    public PlayerGameHistory updateWinner(Long gameId, Long userId, BigDecimal finalChips, String finalHandType) {
-        PlayerGameHistoryId id = new PlayerGameHistoryId(gameId, userId);
-        PlayerGameHistory playerGameHistory = playerGameHistoryMapper.selectByGameIdAndUserId(gameId, userId);
-        if (playerGameHistory == null) {
-            throw new IllegalStateException("玩家游戏历史记录不存在");
-        }
-        
-        // 更新玩家游戏历史记录
-        playerGameHistory.setFinalChips(finalChips);
-        playerGameHistory.setFinalHandType(finalHandType);
-        playerGameHistory.setIsWinner(true);
-        playerGameHistoryMapper.updateById(playerGameHistory);
-        
-        // 更新用户统计信息
-        userService.updateGameStats(userId, true);
-        
-        // 更新用户筹码
-        userService.updateChips(userId, finalChips);
-        
-        // 记录筹码变动
-        ChipTransaction chipTransaction = new ChipTransaction();
-        chipTransaction.setUserId(userId);
-        chipTransaction.setAmount(finalChips);
-        chipTransaction.setTransactionType("WIN");
-        chipTransaction.setGameId(gameId);
-        chipTransaction.setCreatedAt(LocalDateTime.now());
-        chipTransactionMapper.insert(chipTransaction);
-        
-        return playerGameHistory;
-    }
-
     /**
      * 根据ID查找游戏
      *
@@ -344,9 +394,23 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
      * @return 动作列表
      */
     public List<GameAction> getGameActions(Long gameId) {
+        awaitJournal(gameId);
         return gameActionMapper.selectByGameId(gameId);
     }
 
+    /**
+     * 获取每位玩家的动作汇总（弃牌、最后一个动作、本轮投入），一次查询代替逐个玩家查询动作
+     *
+     * @param gameId 游戏ID
+     * @param round  统计投入的轮次
+     * @return 用户ID -> 汇总，未行动的玩家不在其中
+     */
+    public Map<Long, PlayerActionSummary> getPlayerActionSummaries(Long gameId, GameAction.GameRound round) {
+        awaitJournal(gameId);
+        return gameActionMapper.selectPlayerSummaries(gameId, round.name()).stream()
+                .collect(Collectors.toMap(PlayerActionSummary::getUserId, summary -> summary));
+    }
+
     /**
      * 获取游戏轮次动作列表
      *
@@ -355,6 +419,7 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
      * @return 动作列表
      */
     public List<GameAction> getGameRoundActions(Long gameId, GameAction.GameRound round) {
+        awaitJournal(gameId);
         return gameActionMapper.selectByGameIdAndRound(gameId, round.name());
     }
 
@@ -371,118 +436,129 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
             throw new ResourceNotFoundException("Game", "id", gameId);
         }
 
+        if (gameHistory.getStatusEnum() != GameHistory.GameStatus.IN_PROGRESS) {
+            throw new IllegalStateException("游戏已结束");
+        }
+
         // 获取游戏玩家
         List<PlayerGameHistory> players = getGamePlayers(gameId);
         if (players.isEmpty()) {
             throw new IllegalStateException("游戏没有玩家");
         }
-
-        // 生成牌组
-        String[] deck = generateDeck();
-        
-        // 洗牌
-        shuffleDeck(deck);
-        
-        // 发手牌
-        int cardIndex = 0;
-        for (PlayerGameHistory player : players) {
-            // 每个玩家发两张牌
-            String card1 = deck[cardIndex++];
-            String card2 = deck[cardIndex++];
-            String holeCards = card1 + "," + card2;
-            
-            // 使用LambdaUpdateWrapper来更新玩家手牌
-            playerGameHistoryMapper.update(
-                null,
-                new com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper<PlayerGameHistory>()
-                    .eq(PlayerGameHistory::getGameId, player.getGameId())
-                    .eq(PlayerGameHistory::getUserId, player.getUserId())
-                    .set(PlayerGameHistory::getHoleCards, holeCards)
-            );
-            
-            // 更新玩家状态为IN_GAME
-            RoomPlayer roomPlayer = roomService.getRoomPlayer(gameHistory.getRoomId(), player.getUserId());
-            if (roomPlayer != null) {
-                roomPlayer.setStatus(PlayerStatus.IN_GAME);
-                roomService.updateRoomPlayer(roomPlayer);
-            }
-        }
-        
-        // 发公共牌（预留5张）
-        String[] communityCards = new String[5];
-        for (int i = 0; i < 5; i++) {
-            communityCards[i] = deck[cardIndex++];
+        // 开局时已发牌，不允许重新发牌换掉玩家手牌和公共牌
+        boolean dealt = gameHistory.getCommunityCardsBin() != null
+                || players.stream().anyMatch(player -> player.getHoleCardsBin() != null || player.getHoleCards() != null);
+        if (dealt) {
+            throw new IllegalStateException("本局已发牌");
         }
-        
-        // 更新游戏公共牌
-        gameHistory.setCommunityCards(String.join(",", communityCards));
-        updateById(gameHistory);
+
+        // 发手牌和公共牌
+        byte[] communityCards = deal(players);
+        gameHistory.setCommunityCards(Cards.toString(communityCards));
+        gameHistory.setCommunityCardsBin(communityCards);
+        
+        // 手牌和座位状态各用一条语句批量更新
+        playerGameHistoryMapper.batchUpdateHoleCards(gameId, players);
+        roomService.updatePlayerStatus(gameHistory.getRoomId(),
+                players.stream().map(PlayerGameHistory::getUserId).collect(Collectors.toList()), PlayerStatus.IN_GAME);
+        // 只写公共牌列，底池和当前下注由写后日志异步写回，整行更新会用读到的旧值覆盖
+        update(new LambdaUpdateWrapper<GameHistory>()
+                .eq(GameHistory::getId, gameId)
+                .set(GameHistory::getCommunityCards, gameHistory.getCommunityCards())
+                .set(GameHistory::getCommunityCardsBin, communityCards));
+        applyDeal(tableStateManager.get(gameId), gameId, players, communityCards);
         
         // 构建结果
         Map<String, Object> result = new HashMap<>();
         result.put("gameId", gameId);
         result.put("playerCount", players.size());
-        result.put("communityCards", communityCards);
+        result.put("communityCards", Cards.toStrings(communityCards));
         
         return result;
     }
 
     /**
-     * 获取玩家手牌
+     * 取一副洗好的牌，给每位玩家发两张手牌（写入玩家记录），再预留5张公共牌
      *
-     * @param gameId 游戏ID
-     * @param userId 用户ID
-     * @return 玩家手牌
+     * @param players 玩家记录
+     * @return 公共牌
      */
-    public String getPlayerCards(Long gameId, Long userId) {
-        PlayerGameHistory player = playerGameHistoryMapper.selectByGameIdAndUserId(gameId, userId);
-        return player != null ? player.getHoleCards() : null;
+    private byte[] deal(List<PlayerGameHistory> players) {
+        byte[] deck = deckSource.nextDeck();
+        int cardIndex = 0;
+        for (PlayerGameHistory player : players) {
+            byte[] holeCards = {deck[cardIndex++], deck[cardIndex++]};
+            player.setHoleCards(Cards.toString(holeCards));
+            player.setHoleCardsBin(holeCards);
+        }
+        return Arrays.copyOfRange(deck, cardIndex, cardIndex + Cards.BOARD_SIZE);
     }
 
     /**
-     * 获取公共牌
+     * 把发牌结果写入内存状态，写开局快照并广播；手牌在提交后再推送，避免发牌回滚后玩家已看到牌
      *
-     * @param gameId 游戏ID
-     * @return 公共牌
+     * @param state          牌桌状态，可为 null
+     * @param gameId         游戏ID
+     * @param players        已发牌的玩家记录
+     * @param communityCards 公共牌
      */
-    public String getCommunityCards(Long gameId) {
-        GameHistory gameHistory = getById(gameId);
-        return gameHistory != null ? gameHistory.getCommunityCards() : null;
+    private void applyDeal(TableState state, Long gameId, List<PlayerGameHistory> players, byte[] communityCards) {
+        Map<Long, String> dealt = new HashMap<>();
+        for (PlayerGameHistory player : players) {
+            dealt.put(player.getUserId(), player.getHoleCards());
+        }
+        if (state != null) {
+            synchronized (state) {
+                for (PlayerGameHistory player : players) {
+                    int index = state.indexOf(player.getUserId());
+                    if (index >= 0) {
+                        state.setHoleCards(index, Cards.mask(player.getHoleCardsBin()));
+                    }
+                }
+                state.setBoard(communityCards);
+                // 开局快照包含手牌和公共牌，恢复时无需再读取玩家记录
+                tableStateManager.snapshot(state);
+                tableDeltaService.publish(state);
+            }
+        }
+        runAfterCommit(() -> holeCardService.deal(gameId, dealt));
     }
 
     /**
-     * 生成牌组
+     * 获取玩家手牌
      *
-     * @return 牌组数组
+     * @param gameId 游戏ID
+     * @param userId 用户ID
+     * @return 玩家手牌
      */
-    private String[] generateDeck() {
-        String[] suits = {"H", "D", "C", "S"}; // 红桃、方块、梅花、黑桃
-        String[] ranks = {"2", "3", "4", "5", "6", "7", "8", "9", "T", "J", "Q", "K", "A"};
-        String[] deck = new String[52];
-        
-        int index = 0;
-        for (String suit : suits) {
-            for (String rank : ranks) {
-                deck[index++] = rank + suit;
+    public String getPlayerCards(Long gameId, Long userId) {
+        TableState state = tableStateManager.get(gameId);
+        if (state != null) {
+            int index = state.indexOf(userId);
+            if (index >= 0 && state.getHoleCards(index) != 0L) {
+                return Cards.maskToString(state.getHoleCards(index));
             }
         }
-        
-        return deck;
+        String cached = holeCardService.get(gameId, userId);
+        if (cached != null) {
+            return cached;
+        }
+        PlayerGameHistory player = playerGameHistoryMapper.selectByGameIdAndUserId(gameId, userId);
+        if (player == null) {
+            return null;
+        }
+        return player.getHoleCardsBin() != null ? Cards.toString(player.getHoleCardsBin()) : player.getHoleCards();
     }
 
     /**
-     * 洗牌
+     * 获取公共牌
      *
-     * @param deck 牌组数组
+     * @param gameId 游戏ID
+     * @return 公共牌
      */
-    private void shuffleDeck(String[] deck) {
-        java.util.Random random = new java.util.Random();
-        for (int i = deck.length - 1; i > 0; i--) {
-            int j = random.nextInt(i + 1);
-            String temp = deck[i];
-            deck[i] = deck[j];
-            deck[j] = temp;
-        }
+    public String getCommunityCards(Long gameId) {
+        GameHistory gameHistory = getById(gameId);
+        return gameHistory != null ? gameHistory.getCommunityCards() : null;
     }
 
     /**
@@ -519,19 +595,10 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         if (currentGame == null) {
             // 没有进行中的游戏，检查是否可以开始新游戏
             if (activePlayers >= room.getMinPlayers()) {
-                // 人数足够，开始新游戏
+                // 人数足够，开始新游戏（开局时已发牌）
                 GameHistory newGame = startNewGame(roomId);
-                result.put("action", "GAME_STARTED");
+                result.put("action", "GAME_STARTED_AND_DEALT");
                 result.put("gameId", newGame.getId());
-                
-                // 自动发牌
-                try {
-                    Map<String, Object> dealResult = dealCards(newGame.getId());
-                    result.put("dealResult", dealResult);
-                    result.put("action", "GAME_STARTED_AND_DEALT");
-                } catch (Exception e) {
-                    result.put("dealError", e.getMessage());
-                }
             } else {
                 // 人数不足，等待更多玩家
                 result.put("action", "WAITING_FOR_PLAYERS");
@@ -559,19 +626,10 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
             } else if (currentGame.getStatusEnum() == GameHistory.GameStatus.FINISHED) {
                 // 游戏已结束，检查是否可以开始新游戏
                 if (activePlayers >= room.getMinPlayers()) {
-                    // 人数足够，开始新游戏
+                    // 人数足够，开始新游戏（开局时已发牌）
                     GameHistory newGame = startNewGame(roomId);
-                    result.put("action", "NEW_GAME_STARTED");
+                    result.put("action", "NEW_GAME_STARTED_AND_DEALT");
                     result.put("gameId", newGame.getId());
-                    
-                    // 自动发牌
-                    try {
-                        Map<String, Object> dealResult = dealCards(newGame.getId());
-                        result.put("dealResult", dealResult);
-                        result.put("action", "NEW_GAME_STARTED_AND_DEALT");
-                    } catch (Exception e) {
-                        result.put("dealError", e.getMessage());
-                    }
                 } else {
                     // 人数不足，等待更多玩家
                     result.put("action", "GAME_FINISHED_WAITING_FOR_PLAYERS");
@@ -619,21 +677,17 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         
         // 记录玩家弃牌动作
         try {
-            GameAction foldAction = new GameAction();
-            foldAction.setGameId(currentGame.getId());
-            foldAction.setUserId(userId);
-            foldAction.setActionTypeEnum(GameAction.ActionType.FOLD);
-            foldAction.setAmount(BigDecimal.ZERO);
+            TableState state = tableStateManager.get(currentGame.getId());
+            if (state != null && state.indexOf(userId) >= 0 && state.isFolded(state.indexOf(userId))) {
+                result.put("action", "PLAYER_ALREADY_FOLDED");
+                return result;
+            }
             
             // 获取当前轮次
-            String roundStr = currentGame.getCurrentRound() != null 
-                ? currentGame.getCurrentRound().toString() 
-                : "PRE_FLOP";
-            GameAction.GameRound round = GameAction.GameRound.valueOf(roundStr);
-            foldAction.setRoundEnum(round);
-            
-            foldAction.setActionTime(LocalDateTime.now());
-            gameActionMapper.insert(foldAction);
+            GameAction.GameRound round = state != null
+                ? state.getStreet()
+                : GameAction.GameRound.values()[currentGame.getCurrentRound() != null ? currentGame.getCurrentRound() : 0];
+            recordGameAction(currentGame.getId(), userId, GameAction.ActionType.FOLD, BigDecimal.ZERO, round);
             
             result.put("action", "PLAYER_AUTO_FOLDED");
         } catch (Exception e) {
@@ -658,167 +712,322 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
             return false;
         }
         
-        // 获取游戏玩家
-        List<PlayerGameHistory> players = getGamePlayers(gameId);
+        TableState state = tableStateManager.get(gameId);
+        if (state == null) {
+            return false;
+        }
         
-        // 获取未弃牌的玩家
-        List<PlayerGameHistory> activePlayers = players.stream()
-                .filter(p -> {
-                    List<GameAction> playerActions = gameActionMapper.selectList(
-                        new QueryWrapper<GameAction>()
-                            .eq("game_id", gameId)
-                            .eq("user_id", p.getUserId())
-                            .eq("action_type", GameAction.ActionType.FOLD.name())
-                    );
-                    return playerActions.isEmpty(); // 没有弃牌动作的玩家
-                })
-                .collect(Collectors.toList());
-        
-        // 检查是否只剩一名玩家
-        if (activePlayers.size() <= 1) {
-            // 只剩一名玩家，结束游戏
-            if (activePlayers.size() == 1) {
-                // 设置获胜者
-                PlayerGameHistory winner = activePlayers.get(0);
-                
-                // 计算奖池
-                BigDecimal potSize = gameActionMapper.calculatePotSize(gameId);
-                
-                // 更新获胜者信息
-                updateWinner(gameId, winner.getUserId(), potSize, "Last Player Standing");
+        synchronized (state) {
+            // 检查是否只剩一名玩家
+            if (state.activeCount() <= 1) {
+                // 只剩一名玩家，赢得全部奖池
+                settleHand(game, state, null);
+                finishGame(game);
+                return true;
             }
             
-            // 更新游戏状态
-            game.setStatusEnum(GameHistory.GameStatus.FINISHED);
-            game.setEndTime(LocalDateTime.now());
-            updateById(game);
+            // 检查当前轮次是否所有玩家都已行动
+            if (!state.isStreetComplete()) {
+                return false;
+            }
             
+            // 进入下一轮；可行动玩家不足两人时无需再下注，直接发完剩余公共牌
+            GameAction.GameRound completed = state.getStreet();
+            GameAction.GameRound next = state.advanceStreet();
+            while (next != GameAction.GameRound.SHOWDOWN && state.actionableCount() <= 1) {
+                next = state.advanceStreet();
+            }
+            game.setCurrentRound(next.ordinal());
+            
+            if (next != GameAction.GameRound.SHOWDOWN) {
+                game.setCurrentPlayerId(state.getToActUserId());
+                update(new LambdaUpdateWrapper<GameHistory>()
+                        .eq(GameHistory::getId, gameId)
+                        .set(GameHistory::getCurrentRound, game.getCurrentRound())
+                        .set(GameHistory::getCurrentPlayerId, game.getCurrentPlayerId()));
+                long pot = state.getPot();
+                long currentBet = state.getCurrentBet();
+                runAfterCommit(() -> journal.appendBetting(state.getRoomId(), gameId, pot, currentBet));
+                tableStateManager.snapshot(state);
+                tableDeltaService.publish(state);
+                if (state.getToActUserId() != null) {
+                    turnTimerService.start(gameId, state.getRoomId(), state.getToActUserId());
+                }
+                return false;
+            }
+            
+            // 河牌阶段完成（或全下锁定），按投票结果发牌后摊牌并结束游戏
+            settleHand(game, state, dealRunouts(game, state, completed));
+            finishGame(game);
             return true;
         }
-        
-        // 检查当前轮次是否所有玩家都已行动
-        String currentRoundStr = game.getCurrentRound() != null 
-            ? game.getCurrentRound().toString() 
-            : "PRE_FLOP";
-        boolean allPlayersActed = true;
-        BigDecimal currentBet = BigDecimal.ZERO;
-        
-        // 获取当前轮次的下注动作
-        List<GameAction> betActions = gameActionMapper.selectList(
-            new QueryWrapper<GameAction>()
-                .eq("game_id", gameId)
-                .eq("round", currentRoundStr)
-                .in("action_type", Arrays.asList(
-                    GameAction.ActionType.BET.name(), 
-                    GameAction.ActionType.RAISE.name())
-                )
-                .orderByDesc("action_time")
-        );
-        
-        if (!betActions.isEmpty()) {
-            currentBet = betActions.get(0).getAmount();
+    }
+    
+    /**
+     * 全下锁定后按投票结果多次发牌
+     * 第一次沿用开局预留的公共牌，其余每次从剩余牌堆中补发未公开的公共牌，各次之间不重复
+     *
+     * @param game         游戏
+     * @param state        牌桌状态
+     * @param lockedStreet 最后一轮下注所在的轮次
+     * @return 每次发牌的完整公共牌掩码
+     */
+    private long[] dealRunouts(GameHistory game, TableState state, GameAction.GameRound lockedStreet) {
+        long reservedBoard = state.getBoard();
+        int visible = TableState.visibleBoardCount(lockedStreet);
+        int toDeal = Cards.BOARD_SIZE - visible;
+        Integer voted = toDeal > 0 && state.getAllInMask() != 0 ? getMostVotedAllinOption(game.getId()) : null;
+        byte[] reserved = state.getBoardCards();
+        if (voted == null || voted <= 1 || reserved.length < Cards.BOARD_SIZE) {
+            game.setRunCount(1);
+            return new long[]{reservedBoard};
         }
-        
-        // 检查每个活跃玩家的最后一个动作
-        for (PlayerGameHistory player : activePlayers) {
-            List<GameAction> playerRoundActions = gameActionMapper.selectList(
-                new QueryWrapper<GameAction>()
-                    .eq("game_id", gameId)
-                    .eq("user_id", player.getUserId())
-                    .eq("round", currentRoundStr)
-                    .orderByDesc("action_time")
-            );
-            
-            if (playerRoundActions.isEmpty()) {
-                // 玩家在当前轮次没有行动
-                allPlayersActed = false;
-                break;
+
+        long visibleBoard = Cards.mask(reserved, visible);
+        StringBuilder visibleText = new StringBuilder();
+        for (int i = 0; i < visible; i++) {
+            visibleText.append(Cards.toString(reserved[i])).append(',');
+        }
+
+        // 剩余牌堆：从一副新洗好的牌中去掉所有手牌（含已弃牌玩家）和预留的公共牌
+        long used = reservedBoard;
+        for (int i = 0; i < state.size(); i++) {
+            used |= state.getHoleCards(i);
+        }
+        byte[] deck = deckSource.nextDeck();
+        int n = 0;
+        for (byte card : deck) {
+            if ((used & Cards.bit(card)) == 0) {
+                deck[n++] = card;
             }
-            
-            GameAction lastAction = playerRoundActions.get(0);
-            if (lastAction.getActionTypeEnum() == GameAction.ActionType.BET 
-                || lastAction.getActionTypeEnum() == GameAction.ActionType.RAISE) {
-                // 最后一个动作是下注或加注，其他玩家可能需要跟注
-                continue;
+        }
+
+        int runs = Math.min(Math.min(voted, MAX_RUNS), 1 + n / toDeal);
+        long[] boards = new long[runs];
+        boards[0] = reservedBoard;
+        StringBuilder runouts = new StringBuilder(Cards.toString(reserved));
+        int next = 0;
+        for (int run = 1; run < runs; run++) {
+            long board = visibleBoard;
+            StringBuilder text = new StringBuilder(visibleText);
+            for (int k = 0; k < toDeal; k++) {
+                byte card = deck[next++];
+                board |= Cards.bit(card);
+                text.append(Cards.toString(card)).append(k + 1 < toDeal ? "," : "");
             }
-            
-            if (lastAction.getActionTypeEnum() == GameAction.ActionType.CALL) {
-                // 最后一个动作是跟注，检查金额是否匹配当前最高下注
-                if (lastAction.getAmount().compareTo(currentBet) != 0) {
-                    allPlayersActed = false;
-                    break;
+            boards[run] = board;
+            runouts.append(';').append(text);
+        }
+        game.setRunCount(runs);
+        game.setRunouts(runouts.toString());
+        log.info("全下多次发牌, 游戏ID: {}, 发牌次数: {}, 公共牌: {}", game.getId(), runs, game.getRunouts());
+        return boards;
+    }
+
+    /**
+     * 结算一手牌
+     * 按分层边池在内存中完成派彩计算（多次发牌时每个奖池按次数等分），
+     * 然后一次性批量写入 player_game_history、room_players（桌上筹码）、users（局数和胜局数）、player_stats 和 chip_transactions
+     *
+     * @param game   游戏
+     * @param state  牌桌状态
+     * @param boards 每次发牌的完整公共牌，null 表示其他玩家全部弃牌、无需摊牌
+     */
+    private void settleHand(GameHistory game, TableState state, long[] boards) {
+        // 结算直接写库，先确认分片租约仍在本节点，避免被接管后旧所有者重复结算
+        shardLeaseService.checkEpoch(game.getRoomId());
+        int size = state.size();
+        boolean showdown = boards != null;
+        int runs = showdown ? boards.length : 1;
+        int[][] handValues = new int[runs][size];
+        long[] contributions = new long[size];
+        for (int i = 0; i < size; i++) {
+            contributions[i] = state.getTotalContribution(i);
+            if (showdown && !state.isFolded(i)) {
+                for (int run = 0; run < runs; run++) {
+                    handValues[run][i] = HandEvaluator.evaluate(boards[run] | state.getHoleCards(i));
                 }
             }
+        }
+        PotSettlement.Result result = PotSettlement.settle(contributions, state.getFoldedMask(), handValues, state.getDealerIndex());
+        long[] payouts = result.getPayouts();
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<PlayerGameHistory> playerRecords = new ArrayList<>(size);
+        List<SettlementEntry> entries = new ArrayList<>(size);
+        List<ChipTransaction> transactions = new ArrayList<>();
+        List<PlayerStats> statsDeltas = new ArrayList<>(size);
+        List<Long> winnerIds = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            long userId = state.getUserId(i);
+            // 只按净赢判定获胜：退回未被跟注的下注或无人争夺的边池不算赢
+            long net = payouts[i] - contributions[i];
+            boolean winner = net > 0;
+            String handType = null;
+            if (showdown && !state.isFolded(i)) {
+                handType = HandCategory.of(handValues[0][i]).name();
+            } else if (!showdown && !state.isFolded(i)) {
+                handType = "Last Player Standing";
+            }
+            
+            // 买入时筹码已从用户余额转到桌上，结算只写回桌上筹码，离桌时再结回用户余额
+            BigDecimal netChips = ChipUnits.toDecimal(net);
+            BigDecimal closingChips = ChipUnits.toDecimal(state.getStack(i) + payouts[i]);
+            PlayerGameHistory record = new PlayerGameHistory();
+            record.setUserId(userId);
+            record.setFinalChips(closingChips);
+            record.setIsWinner(winner);
+            record.setFinalHandType(handType);
+            playerRecords.add(record);
+            
+            entries.add(new SettlementEntry(userId, closingChips, winner ? 1 : 0));
+            statsDeltas.add(new PlayerStats().setUserId(userId)
+                    .setHands(1)
+                    .setWins(winner ? 1 : 0)
+                    .setNetProfit(netChips)
+                    .setVpipHands((state.getVpipMask() >>> i) & 1)
+                    .setPfrHands((state.getPfrMask() >>> i) & 1));
             
-            if (lastAction.getActionTypeEnum() == GameAction.ActionType.CHECK 
-                && currentBet.compareTo(BigDecimal.ZERO) > 0) {
-                // 如果有人下注，但玩家选择了过牌（应该是不合法的），视为未完成行动
-                allPlayersActed = false;
-                break;
+            if (winner) {
+                winnerIds.add(userId);
+            }
+            // 流水按净输赢记录双方，赢家记 WIN、输家记 LOSE，金额均为正数
+            if (net != 0) {
+                ChipTransaction transaction = new ChipTransaction();
+                transaction.setUserId(userId);
+                transaction.setGameId(game.getId());
+                transaction.setAmount(ChipUnits.toDecimal(Math.abs(net)));
+                transaction.setTransactionType((winner ? ChipTransaction.TransactionType.WIN
+                        : ChipTransaction.TransactionType.LOSE).name());
+                transaction.setTransactionTime(now);
+                transaction.setCreatedAt(now);
+                transactions.add(transaction);
             }
         }
         
-        if (allPlayersActed) {
-            // 所有玩家都已行动，进入下一轮或结束游戏
-            if ("PRE_FLOP".equals(currentRoundStr)) {
-                // 翻牌前阶段完成，进入翻牌阶段
-                game.setCurrentRound(GameAction.GameRound.FLOP.ordinal());
-                updateById(game);
-            } else if ("FLOP".equals(currentRoundStr)) {
-                // 翻牌阶段完成，进入转牌阶段
-                game.setCurrentRound(GameAction.GameRound.TURN.ordinal());
-                updateById(game);
-            } else if ("TURN".equals(currentRoundStr)) {
-                // 转牌阶段完成，进入河牌阶段
-                game.setCurrentRound(GameAction.GameRound.RIVER.ordinal());
-                updateById(game);
-            } else if ("RIVER".equals(currentRoundStr)) {
-                // 河牌阶段完成，进入摊牌阶段并结束游戏
-                try {
-                    game.setCurrentRound(GameAction.GameRound.SHOWDOWN.ordinal());
-                    game.setStatusEnum(GameHistory.GameStatus.FINISHED);
-                    game.setEndTime(LocalDateTime.now());
-                    updateById(game);
-                    
-                    // 这里应该有摊牌和确定获胜者的逻辑
-                    // 简化处理：计算奖池并按比例分配给未弃牌的玩家
-                    BigDecimal potSize = gameActionMapper.calculatePotSize(gameId);
-                    BigDecimal share = potSize.divide(new BigDecimal(activePlayers.size()), 2, BigDecimal.ROUND_DOWN);
-                    
-                    for (PlayerGameHistory player : activePlayers) {
-                        updateWinner(gameId, player.getUserId(), share, "Showdown");
-                    }
-                } catch (Exception e) {
-                    // 记录错误并尝试使用备用方法
-                    log.error("设置游戏轮次为SHOWDOWN时出错: {}", e.getMessage(), e);
-                    
-                    // 尝试使用字符串名称设置
-                    try {
-                        // 直接使用数字4（SHOWDOWN的序号）
-                        game.setCurrentRound(4);
-                        game.setStatusEnum(GameHistory.GameStatus.FINISHED);
-                        game.setEndTime(LocalDateTime.now());
-                        updateById(game);
-                        
-                        // 这里应该有摊牌和确定获胜者的逻辑
-                        // 简化处理：计算奖池并按比例分配给未弃牌的玩家
-                        BigDecimal potSize = gameActionMapper.calculatePotSize(gameId);
-                        BigDecimal share = potSize.divide(new BigDecimal(activePlayers.size()), 2, BigDecimal.ROUND_DOWN);
-                        
-                        for (PlayerGameHistory player : activePlayers) {
-                            updateWinner(gameId, player.getUserId(), share, "Showdown");
-                        }
-                    } catch (Exception ex) {
-                        log.error("使用备用方法设置游戏轮次为SHOWDOWN时出错: {}", ex.getMessage(), ex);
-                        throw ex;
-                    }
+        if (!playerRecords.isEmpty()) {
+            playerGameHistoryMapper.batchUpdateSettlement(game.getId(), playerRecords);
+            userMapper.batchApplySettlement(entries);
+            roomPlayerMapper.batchUpdateClosingChips(game.getRoomId(), entries);
+            entityCache.invalidateRoomPlayers(game.getRoomId());
+            playerStatsService.accumulate(statsDeltas);
+            entityCache.invalidateUsers(entries.stream().map(SettlementEntry::getUserId).collect(Collectors.toList()));
+            leaderboardService.onSettlement(entries);
+        }
+        if (!transactions.isEmpty()) {
+            runAfterCommit(() -> journal.appendTransactions(game.getRoomId(), transactions));
+        }
+        
+        // 奖池信息随游戏状态一起写回
+        List<Map<String, Object>> sidePots = new ArrayList<>();
+        for (PotSettlement.Pot pot : result.getPots()) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("amount", ChipUnits.toDecimal(pot.getAmount()));
+            item.put("eligible", userIdsOf(state, pot.getEligibleMask()));
+            item.put("winners", userIdsOf(state, pot.getWinnerMask()));
+            if (result.getRuns() > 1) {
+                List<List<Long>> runWinners = new ArrayList<>(result.getRuns());
+                for (int run = 0; run < result.getRuns(); run++) {
+                    runWinners.add(userIdsOf(state, pot.getWinnerMask(run)));
                 }
-                
-                return true;
+                item.put("runWinners", runWinners);
             }
+            sidePots.add(item);
+        }
+        game.setPot(ChipUnits.toDecimal(state.getPot()));
+        game.setTotalPot(ChipUnits.toDecimal(state.getPot()));
+        try {
+            game.setWinnerIds(objectMapper.writeValueAsString(winnerIds));
+            game.setSidePots(objectMapper.writeValueAsString(sidePots));
+        } catch (JsonProcessingException e) {
+            log.warn("序列化奖池信息失败, 游戏ID: {}", game.getId(), e);
+        }
+    }
+    
+    private static List<Long> userIdsOf(TableState state, int mask) {
+        List<Long> userIds = new ArrayList<>(Integer.bitCount(mask));
+        for (int i = 0; i < state.size(); i++) {
+            if ((mask & (1 << i)) != 0) {
+                userIds.add(state.getUserId(i));
+            }
+        }
+        return userIds;
+    }
+    
+    /**
+     * 结束牌局并释放内存状态
+     * 只写结算和结束相关的列，底池和当前下注由写后日志写回，不用开局时读到的旧值覆盖
+     *
+     * @param game 游戏
+     */
+    private void finishGame(GameHistory game) {
+        game.setStatusEnum(GameHistory.GameStatus.FINISHED);
+        game.setEndTime(LocalDateTime.now());
+        update(new LambdaUpdateWrapper<GameHistory>()
+                .eq(GameHistory::getId, game.getId())
+                .set(GameHistory::getStatus, game.getStatus())
+                .set(GameHistory::getEndTime, game.getEndTime())
+                .set(GameHistory::getCurrentRound, game.getCurrentRound())
+                .set(GameHistory::getRunCount, game.getRunCount())
+                .set(GameHistory::getRunouts, game.getRunouts())
+                .set(GameHistory::getTotalPot, game.getTotalPot())
+                .set(GameHistory::getWinnerIds, game.getWinnerIds())
+                .set(GameHistory::getSidePots, game.getSidePots()));
+        tableStateManager.close(game.getId());
+        turnTimerService.clear(game.getId());
+        tableDeltaService.publishEnd(game.getId(), game.getRoomId());
+        holeCardService.evict(game.getId());
+        flushJournalAfterCommit(game.getId());
+    }
+
+    /**
+     * 牌局结束时等待本局的动作和筹码流水落库；在事务中调用时等到提交之后，
+     * 避免后台写线程插入子表时等待本事务持有的 game_history 行锁
+     */
+    private void flushJournalAfterCommit(Long gameId) {
+        // 超时只说明写库较慢，记录仍在队列中由后台线程继续写入，牌局已结束无需回退
+        runAfterCommit(() -> journal.flushGame(gameId));
+    }
+
+    /**
+     * 读取动作表前等待本局已追加的记录落库，超时时拒绝返回不完整的结果
+     */
+    private void awaitJournal(Long gameId) {
+        if (!journal.flushGame(gameId)) {
+            throw new IllegalStateException("动作记录尚未保存完成，请稍后重试");
+        }
+    }
+
+    /**
+     * 当前事务回滚时丢弃内存牌桌状态，下次访问从数据库重建
+     */
+    private void evictOnRollback(Long gameId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        tableStateManager.evict(gameId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 当前事务提交后执行，没有事务时立即执行
+     */
+    private void runAfterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
         }
-        
-        return false;
     }
 
     /**
@@ -828,61 +1037,31 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
      * @return 当前轮次应显示的公共牌
      */
     public String getVisibleCommunityCards(Long gameId) {
+        // 进行中的牌局直接从内存状态读取
+        TableState state = tableStateManager.get(gameId);
+        if (state != null) {
+            synchronized (state) {
+                return Cards.toString(state.getVisibleBoardCards());
+            }
+        }
+        
         GameHistory gameHistory = getById(gameId);
         if (gameHistory == null) {
             return null;
         }
         
-        // 获取所有公共牌
-        String allCommunityCards = gameHistory.getCommunityCards();
-        if (allCommunityCards == null || allCommunityCards.isEmpty()) {
-            return "";
-        }
-        
-        // 按照轮次显示不同数量的公共牌
-        String[] cards = allCommunityCards.split(",");
-        Integer currentRound = gameHistory.getCurrentRound();
-        
         // 如果没有设置轮次，默认为前翻牌阶段（不显示公共牌）
+        Integer currentRound = gameHistory.getCurrentRound();
         if (currentRound == null) {
             return "";
         }
         
-        StringBuilder visibleCards = new StringBuilder();
-        
-        // 根据当前轮次确定应显示的公共牌数量
-        int visibleCardCount = 0;
-        
-        // 0: PRE_FLOP - 不显示公共牌
-        // 1: FLOP - 显示前3张公共牌
-        // 2: TURN - 显示前4张公共牌
-        // 3: RIVER - 显示全部5张公共牌
-        // 4: SHOWDOWN - 显示全部5张公共牌
-        
-        if (currentRound >= 1) { // FLOP及以后
-            visibleCardCount = 3;
-        }
-        
-        if (currentRound >= 2) { // TURN及以后
-            visibleCardCount = 4;
-        }
-        
-        if (currentRound >= 3) { // RIVER及以后
-            visibleCardCount = 5;
-        }
-        
-        // 确保不会超出实际牌的数量
-        visibleCardCount = Math.min(visibleCardCount, cards.length);
-        
-        // 构建可见公共牌字符串
-        for (int i = 0; i < visibleCardCount; i++) {
-            if (i > 0) {
-                visibleCards.append(",");
-            }
-            visibleCards.append(cards[i]);
-        }
-        
-        return visibleCards.toString();
+        byte[] cards = gameHistory.getCommunityCardsBin() != null
+                ? gameHistory.getCommunityCardsBin()
+                : Cards.parseBytes(gameHistory.getCommunityCards());
+        GameAction.GameRound round = GameAction.GameRound.values()[Math.min(currentRound, GameAction.GameRound.SHOWDOWN.ordinal())];
+        int visibleCardCount = Math.min(TableState.visibleBoardCount(round), cards.length);
+        return Cards.toString(Arrays.copyOf(cards, visibleCardCount));
     }
 
     /**
@@ -954,9 +1133,23 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         }
         
         // 获取房间中有座位的玩家
-        List<RoomPlayer> seatedPlayers = roomService.getSeatedPlayers(game.getRoomId());
+        if (applyBlindsPositions(game, roomService.getSeatedPlayers(game.getRoomId()), dealerPosition)) {
+            // 保存庄家和盲注位置
+            update(blindsPositionsUpdate(game));
+        }
+    }
+    
+    /**
+     * 按入座玩家计算小盲注和大盲注位置并写入游戏（不落库）
+     *
+     * @param game           游戏
+     * @param seatedPlayers  入座玩家
+     * @param dealerPosition 庄家位置
+     * @return 是否设置了盲注位置
+     */
+    private boolean applyBlindsPositions(GameHistory game, List<RoomPlayer> seatedPlayers, Integer dealerPosition) {
         if (seatedPlayers.size() < 2) {
-            return;
+            return false;
         }
         
         // 获取座位号列表并排序
@@ -969,7 +1162,7 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         // 找到庄家在排序后列表中的位置
         int dealerIndex = seats.indexOf(dealerPosition);
         if (dealerIndex == -1) {
-            return;
+            return false;
         }
         
         // 计算小盲注和大盲注位置（顺时针方向）
@@ -982,9 +1175,67 @@ public class GameService extends ServiceImpl<GameHistoryMapper, GameHistory> {
         
         // 设置庄家位置
         game.setDealerPosition(dealerPosition);
+        return true;
+    }
+    
+    /**
+     * 只写庄家和盲注位置的更新条件，避免整行更新覆盖写后日志写回的底池和当前下注
+     *
+     * @param game 游戏
+     * @return 更新条件
+     */
+    private static LambdaUpdateWrapper<GameHistory> blindsPositionsUpdate(GameHistory game) {
+        return new LambdaUpdateWrapper<GameHistory>()
+                .eq(GameHistory::getId, game.getId())
+                .set(GameHistory::getDealerPosition, game.getDealerPosition())
+                .set(GameHistory::getSmallBlindPosition, game.getSmallBlindPosition())
+                .set(GameHistory::getBigBlindPosition, game.getBigBlindPosition());
+    }
+    
+    /**
+     * 随机指定庄家并重新计算盲注位置，只能在本局第一个动作之前调用
+     *
+     * @param gameId 游戏ID
+     * @return 庄家、盲注座位和当前行动玩家
+     */
+    @Transactional
+    public Map<String, Object> assignDealer(Long gameId) {
+        GameHistory game = getById(gameId);
+        if (game == null) {
+            throw new ResourceNotFoundException("Game", "id", gameId);
+        }
+        TableState state = tableStateManager.get(gameId);
+        if (state == null) {
+            throw new IllegalStateException("游戏不存在或已结束");
+        }
         
-        // 保存游戏信息
-        updateById(game);
+        Long currentTurn;
+        synchronized (state) {
+            if (state.getLastSeq() > 0) {
+                throw new IllegalStateException("本局已有玩家行动，不能更换庄家");
+            }
+            int dealerIndex = ThreadLocalRandom.current().nextInt(state.size());
+            if (!applyBlindsPositions(game, roomService.getRoomPlayers(game.getRoomId()), state.getSeatNumber(dealerIndex))) {
+                throw new IllegalStateException("无法确定庄家座位");
+            }
+            state.moveDealer(dealerIndex);
+            currentTurn = state.getToActUserId();
+            game.setCurrentPlayerId(currentTurn);
+            update(blindsPositionsUpdate(game).set(GameHistory::getCurrentPlayerId, currentTurn));
+            tableStateManager.snapshot(state);
+            tableDeltaService.publish(state);
+        }
+        if (currentTurn != null) {
+            turnTimerService.start(gameId, game.getRoomId(), currentTurn);
+        }
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("gameId", gameId);
+        result.put("dealerSeat", game.getDealerPosition());
+        result.put("smallBlindSeat", game.getSmallBlindPosition());
+        result.put("bigBlindSeat", game.getBigBlindPosition());
+        result.put("currentTurn", currentTurn);
+        return result;
     }
     
     /**
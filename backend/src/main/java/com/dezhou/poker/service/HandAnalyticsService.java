@@ -0,0 +1,199 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.dto.PlayerAggregate;
+import com.dezhou.poker.engine.ChipUnits;
+import com.dezhou.poker.engine.ColumnarFile;
+import com.dezhou.poker.entity.GameAction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 离线牌局分析
+ * 只读取 HandExportService 导出的列式文件，不访问业务库：按日期和房间目录裁剪分区，
+ * 每个文件只解压需要的列，计算每位玩家的手数、胜局、盈亏、VPIP、PFR 和激进度。
+ */
+@Service
+public class HandAnalyticsService {
+
+    private static final Set<String> PLAYER_COLUMNS = new HashSet<>(Arrays.asList(
+            "game_id", "user_id", "initial_chips", "final_chips", "total_bet", "is_winner"));
+    private static final Set<String> ACTION_COLUMNS = new HashSet<>(Arrays.asList(
+            "game_id", "user_id", "round", "action_type"));
+
+    private static final int PRE_FLOP = GameAction.GameRound.PRE_FLOP.ordinal();
+    private static final int CALL = GameAction.ActionType.CALL.ordinal();
+    private static final int BET = GameAction.ActionType.BET.ordinal();
+    private static final int RAISE = GameAction.ActionType.RAISE.ordinal();
+    private static final int ALL_IN = GameAction.ActionType.ALL_IN.ordinal();
+
+    @Autowired
+    private HandExportService handExportService;
+
+    /**
+     * 计算玩家统计
+     *
+     * @param from   起始日期（含），为空不限
+     * @param to     结束日期（含），为空不限
+     * @param roomId 房间ID，为空表示全部房间
+     * @param userId 用户ID，为空表示全部玩家
+     * @param limit  最多返回的玩家数，按手数倒序
+     * @return 玩家统计
+     */
+    public List<PlayerAggregate> playerAggregates(LocalDate from, LocalDate to, Long roomId, Long userId, int limit) {
+        Map<Long, Accumulator> accumulators = new HashMap<>();
+        try {
+            for (Path partition : partitions(Paths.get(handExportService.getDir()), from, to, roomId)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(partition, "*.hcol")) {
+                    for (Path file : files) {
+                        String name = file.getFileName().toString();
+                        if (name.startsWith("players-")) {
+                            scanPlayers(ColumnarFile.read(file, PLAYER_COLUMNS), userId, accumulators);
+                        } else if (name.startsWith("actions-")) {
+                            scanActions(ColumnarFile.read(file, ACTION_COLUMNS), userId, accumulators);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<PlayerAggregate> result = new ArrayList<>(accumulators.size());
+        for (Map.Entry<Long, Accumulator> entry : accumulators.entrySet()) {
+            Accumulator acc = entry.getValue();
+            if (acc.hands == 0) {
+                continue;
+            }
+            result.add(new PlayerAggregate(entry.getKey(), acc.hands, acc.wins,
+                    ChipUnits.toDecimal(acc.netProfit), ChipUnits.toDecimal(acc.totalBet),
+                    round((double) acc.vpipHands / acc.hands), round((double) acc.pfrHands / acc.hands),
+                    round(acc.calls > 0 ? (double) acc.aggressive / acc.calls : acc.aggressive)));
+        }
+        result.sort(Comparator.comparingInt(PlayerAggregate::getHands).reversed()
+                .thenComparing(PlayerAggregate::getUserId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 按目录名裁剪出符合条件的 date=/room= 分区
+     */
+    private static List<Path> partitions(Path root, LocalDate from, LocalDate to, Long roomId) throws IOException {
+        List<Path> result = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return result;
+        }
+        try (DirectoryStream<Path> dates = Files.newDirectoryStream(root, "date=*")) {
+            for (Path date : dates) {
+                LocalDate day = parseDate(date.getFileName().toString().substring("date=".length()));
+                if (day == null ? from != null || to != null
+                        : (from != null && day.isBefore(from)) || (to != null && day.isAfter(to))) {
+                    continue;
+                }
+                try (DirectoryStream<Path> rooms = Files.newDirectoryStream(date, roomId != null ? "room=" + roomId : "room=*")) {
+                    for (Path room : rooms) {
+                        if (Files.isDirectory(room)) {
+                            result.add(room);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void scanPlayers(Map<String, long[]> columns, Long userId, Map<Long, Accumulator> accumulators) {
+        long[] users = columns.get("user_id");
+        long[] initial = columns.get("initial_chips");
+        long[] fin = columns.get("final_chips");
+        long[] bet = columns.get("total_bet");
+        long[] winner = columns.get("is_winner");
+        for (int i = 0; i < users.length; i++) {
+            if (userId != null && users[i] != userId) {
+                continue;
+            }
+            Accumulator acc = accumulators.computeIfAbsent(users[i], id -> new Accumulator());
+            acc.hands++;
+            acc.wins += (int) winner[i];
+            acc.netProfit += fin[i] - initial[i];
+            acc.totalBet += bet[i];
+        }
+    }
+
+    /**
+     * 动作按 (game_id, seq) 排序写入，同一局的动作连续，按局去重 VPIP/PFR
+     */
+    private static void scanActions(Map<String, long[]> columns, Long userId, Map<Long, Accumulator> accumulators) {
+        long[] games = columns.get("game_id");
+        long[] users = columns.get("user_id");
+        long[] rounds = columns.get("round");
+        long[] types = columns.get("action_type");
+        Set<Long> vpip = new HashSet<>();
+        Set<Long> pfr = new HashSet<>();
+        long currentGame = Long.MIN_VALUE;
+        for (int i = 0; i < users.length; i++) {
+            if (games[i] != currentGame) {
+                currentGame = games[i];
+                vpip.clear();
+                pfr.clear();
+            }
+            if (userId != null && users[i] != userId) {
+                continue;
+            }
+            Accumulator acc = accumulators.computeIfAbsent(users[i], id -> new Accumulator());
+            int type = (int) types[i];
+            boolean aggressive = type == BET || type == RAISE || type == ALL_IN;
+            if (aggressive) {
+                acc.aggressive++;
+            } else if (type == CALL) {
+                acc.calls++;
+            }
+            if (rounds[i] == PRE_FLOP && (aggressive || type == CALL)) {
+                if (vpip.add(users[i])) {
+                    acc.vpipHands++;
+                }
+                if (aggressive && pfr.add(users[i])) {
+                    acc.pfrHands++;
+                }
+            }
+        }
+    }
+
+    private static LocalDate parseDate(String text) {
+        try {
+            return LocalDate.parse(text);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10000) / 10000.0;
+    }
+
+    private static final class Accumulator {
+        private int hands;
+        private int wins;
+        private long netProfit;
+        private long totalBet;
+        private int vpipHands;
+        private int pfrHands;
+        private long aggressive;
+        private long calls;
+    }
+}
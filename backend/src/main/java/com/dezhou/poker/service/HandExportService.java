@@ -0,0 +1,279 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.engine.ChipUnits;
+import com.dezhou.poker.engine.ColumnarFile;
+import com.dezhou.poker.entity.GameAction;
+import com.dezhou.poker.entity.GameHistory;
+import com.dezhou.poker.entity.PlayerGameHistory;
+import com.dezhou.poker.mapper.ExportMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 牌局导出服务
+ * 按游戏ID键集分页读取已结束的牌局（含归档），写成按日期和房间分区的列式文件，供离线分析使用，
+ * 分析师不再直接查询业务库的 game_actions：
+ * <pre>
+ * {dir}/date=2024-05-06/room=12/actions-{批次首个游戏ID}.hcol
+ * {dir}/date=2024-05-06/room=12/players-{批次首个游戏ID}.hcol
+ * </pre>
+ * 每批写完全部文件后推进检查点（最后导出的游戏ID），中途崩溃时从检查点重新导出该批，
+ * 文件名由批次决定，重写会原子覆盖，不会重复。
+ * 导出写本地磁盘，只需在一个节点上开启。
+ */
+@Service
+public class HandExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(HandExportService.class);
+
+    public static final String[] ACTION_COLUMNS = {"game_id", "seq", "user_id", "round", "action_type", "amount", "action_time"};
+    public static final String[] PLAYER_COLUMNS = {"game_id", "user_id", "initial_chips", "final_chips", "total_bet", "is_winner", "position"};
+
+    private static final String CHECKPOINT = "_checkpoint";
+
+    @Autowired
+    private ExportMapper exportMapper;
+
+    @Value("${poker.export.enabled:false}")
+    private boolean enabled;
+
+    @Value("${poker.export.dir:data/export}")
+    private String dir;
+
+    /**
+     * 每批导出的牌局数
+     */
+    @Value("${poker.export.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 牌局结束多久后才导出（秒），等写后日志把动作落库
+     */
+    @Value("${poker.export.lag-seconds:300}")
+    private long lagSeconds;
+
+    /**
+     * 开始超过多少小时仍未结束的牌局视为废弃，不再阻塞导出
+     */
+    @Value("${poker.export.stale-hours:24}")
+    private long staleHours;
+
+    /**
+     * 批次之间的停顿（毫秒）
+     */
+    @Value("${poker.export.pause-ms:100}")
+    private long pauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder exportedGames = new LongAdder();
+    private final LongAdder exportedActions = new LongAdder();
+    private final LongAdder exportedFiles = new LongAdder();
+
+    /**
+     * 定时导出
+     */
+    @Scheduled(fixedDelayString = "${poker.export.interval-ms:600000}",
+            initialDelayString = "${poker.export.interval-ms:600000}")
+    public void scheduledExport() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            export();
+        } catch (IllegalStateException e) {
+            log.debug("跳过本次导出: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("牌局导出失败", e);
+        }
+    }
+
+    /**
+     * 从检查点开始导出到当前上界
+     *
+     * @return 导出的牌局数
+     */
+    public long export() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("牌局导出正在进行");
+        }
+        try {
+            Path root = Paths.get(dir);
+            long afterGameId = readCheckpoint(root);
+            LocalDateTime now = LocalDateTime.now();
+            Long upper = exportMapper.selectUpperBound(now.minusHours(staleHours), now.minusSeconds(lagSeconds));
+            long upperGameId = upper != null ? upper : Long.MAX_VALUE;
+            long total = 0;
+            while (true) {
+                List<GameHistory> games = exportMapper.selectGames(afterGameId, upperGameId, batchSize);
+                if (games.isEmpty()) {
+                    break;
+                }
+                exportBatch(root, games);
+                afterGameId = games.get(games.size() - 1).getId();
+                writeCheckpoint(root, afterGameId);
+                total += games.size();
+                exportedGames.add(games.size());
+                if (pauseMs > 0) {
+                    try {
+                        Thread.sleep(pauseMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            if (total > 0) {
+                log.info("导出 {} 局牌局，检查点 {}", total, afterGameId);
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void exportBatch(Path root, List<GameHistory> games) throws IOException {
+        Long from = games.get(0).getId();
+        Long to = games.get(games.size() - 1).getId();
+        Map<Long, String> partitions = new HashMap<>();
+        for (GameHistory game : games) {
+            partitions.put(game.getId(), partitionOf(game));
+        }
+
+        Map<String, ColumnarFile.Table> actions = new TreeMap<>();
+        for (GameAction action : exportMapper.selectActions(from, to)) {
+            String partition = partitions.get(action.getGameId());
+            if (partition == null) {
+                continue;
+            }
+            actions.computeIfAbsent(partition, p -> new ColumnarFile.Table(ACTION_COLUMNS)).add(
+                    action.getGameId(),
+                    action.getSeq() != null ? action.getSeq() : 0L,
+                    action.getUserId(),
+                    ordinal(GameAction.GameRound.class, action.getRound()),
+                    ordinal(GameAction.ActionType.class, action.getActionType()),
+                    ChipUnits.toUnits(action.getAmount()),
+                    epochMillis(action.getActionTime()));
+            exportedActions.increment();
+        }
+
+        Map<String, ColumnarFile.Table> players = new TreeMap<>();
+        for (PlayerGameHistory player : exportMapper.selectPlayers(from, to)) {
+            String partition = partitions.get(player.getGameId());
+            if (partition == null) {
+                continue;
+            }
+            players.computeIfAbsent(partition, p -> new ColumnarFile.Table(PLAYER_COLUMNS)).add(
+                    player.getGameId(),
+                    player.getUserId(),
+                    ChipUnits.toUnits(player.getInitialChips()),
+                    ChipUnits.toUnits(player.getFinalChips()),
+                    ChipUnits.toUnits(player.getTotalBet()),
+                    Boolean.TRUE.equals(player.getIsWinner()) ? 1L : 0L,
+                    player.getPosition() != null ? player.getPosition() : -1L);
+        }
+
+        for (Map.Entry<String, ColumnarFile.Table> entry : actions.entrySet()) {
+            ColumnarFile.write(root.resolve(entry.getKey()).resolve("actions-" + from + ".hcol"), entry.getValue());
+            exportedFiles.increment();
+        }
+        for (Map.Entry<String, ColumnarFile.Table> entry : players.entrySet()) {
+            ColumnarFile.write(root.resolve(entry.getKey()).resolve("players-" + from + ".hcol"), entry.getValue());
+            exportedFiles.increment();
+        }
+    }
+
+    private static String partitionOf(GameHistory game) {
+        String date = game.getStartTime() != null ? game.getStartTime().toLocalDate().toString() : "unknown";
+        return "date=" + date + "/room=" + game.getRoomId();
+    }
+
+    private static <E extends Enum<E>> long ordinal(Class<E> type, String name) {
+        if (name == null) {
+            return -1L;
+        }
+        try {
+            return Enum.valueOf(type, name).ordinal();
+        } catch (IllegalArgumentException e) {
+            return -1L;
+        }
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    private static long readCheckpoint(Path root) throws IOException {
+        Path path = root.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return 0L;
+        }
+        String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("导出检查点损坏: " + path, e);
+        }
+    }
+
+    private static void writeCheckpoint(Path root, long gameId) throws IOException {
+        Files.createDirectories(root);
+        Path tmp = root.resolve(CHECKPOINT + ".tmp");
+        Files.write(tmp, Long.toString(gameId).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, root.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 当前检查点
+     *
+     * @return 最后导出的游戏ID
+     */
+    public long getCheckpoint() {
+        try {
+            return readCheckpoint(Paths.get(dir));
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public long getExportedGames() {
+        return exportedGames.sum();
+    }
+
+    public long getExportedActions() {
+        return exportedActions.sum();
+    }
+
+    public long getExportedFiles() {
+        return exportedFiles.sum();
+    }
+}
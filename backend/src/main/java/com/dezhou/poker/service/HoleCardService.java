@@ -0,0 +1,150 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 手牌推送服务
+ * 发牌时把每位玩家的手牌从内存直接推送到该玩家自己的 /user/queue/cards，
+ * 同时放入按局过期的短期缓存，断线重连时从缓存读取，不再逐个玩家查询 player_game_history。
+ * <p>
+ * 用户目的地按用户记录中的用户名寻址（与 STOMP 会话的 Principal 名称一致），
+ * 玩家连接在其他节点时由 broker relay 的用户目的地广播转发，不依赖本节点的连接记录。
+ */
+@Service
+public class HoleCardService {
+
+    private static final Logger log = LoggerFactory.getLogger(HoleCardService.class);
+
+    public static final String CARDS_DESTINATION = "/queue/cards";
+
+    @Autowired
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${poker.cards.cache-ttl-seconds:900}")
+    private long cacheTtlSeconds;
+
+    /**
+     * 游戏ID -> 该局手牌
+     */
+    private final Map<Long, Hand> hands = new ConcurrentHashMap<>();
+
+    private final LongAdder pushed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+
+    /**
+     * 缓存一局的手牌并推送给每位玩家
+     *
+     * @param gameId 游戏ID
+     * @param cards  用户ID -> 手牌（逗号分隔）
+     */
+    public void deal(Long gameId, Map<Long, String> cards) {
+        purgeExpired();
+        hands.put(gameId, new Hand(new HashMap<>(cards),
+                System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cacheTtlSeconds)));
+
+        for (Map.Entry<Long, String> entry : cards.entrySet()) {
+            User user = userService.getById(entry.getKey());
+            if (user == null) {
+                continue;
+            }
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "HOLE_CARDS");
+            message.put("gameId", gameId);
+            message.put("cards", entry.getValue());
+            try {
+                messagingTemplate.convertAndSendToUser(user.getUsername(), CARDS_DESTINATION, message);
+                pushed.increment();
+            } catch (RuntimeException e) {
+                log.warn("推送手牌失败, 游戏ID: {}, 用户ID: {}", gameId, entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * 从缓存获取玩家手牌
+     *
+     * @param gameId 游戏ID
+     * @param userId 用户ID
+     * @return 手牌，缓存中没有或已过期返回 null
+     */
+    public String get(Long gameId, Long userId) {
+        Hand hand = hands.get(gameId);
+        if (hand == null || hand.expiresAt < System.currentTimeMillis()) {
+            cacheMisses.increment();
+            return null;
+        }
+        String cards = hand.cards.get(userId);
+        if (cards == null) {
+            cacheMisses.increment();
+        } else {
+            cacheHits.increment();
+        }
+        return cards;
+    }
+
+    /**
+     * 牌局结束，释放该局的手牌
+     *
+     * @param gameId 游戏ID
+     */
+    public void evict(Long gameId) {
+        hands.remove(gameId);
+    }
+
+    public int getCachedGames() {
+        return hands.size();
+    }
+
+    public long getPushedCount() {
+        return pushed.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Hand> iterator = hands.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiresAt < now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 一局的手牌
+     */
+    private static final class Hand {
+
+        private final Map<Long, String> cards;
+        private final long expiresAt;
+
+        Hand(Map<Long, String> cards, long expiresAt) {
+            this.cards = cards;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
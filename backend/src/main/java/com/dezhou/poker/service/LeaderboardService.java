@@ -0,0 +1,459 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.dto.LeaderboardEntry;
+import com.dezhou.poker.dto.SettlementEntry;
+import com.dezhou.poker.engine.ChipUnits;
+import com.dezhou.poker.engine.RankedSkipList;
+import com.dezhou.poker.entity.User;
+import com.dezhou.poker.mapper.UserMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 排行榜服务
+ * 每个指标一个按 (分数, 用户ID) 排序的跳表，排名和前 k 名查询为 O(log n)，不再对 users 全表排序。
+ * <ul>
+ *     <li>本节点修改筹码和战绩（UserService.updateChips / updateGameStats、结算）时在提交后按增量更新</li>
+ *     <li>定时按 users.updated_at 增量同步，覆盖其他节点的修改，并以数据库中的绝对值纠正增量</li>
+ *     <li>定期把全部条目和同步水位写入磁盘快照，启动时先加载快照再增量同步，无需全表加载</li>
+ * </ul>
+ * 胜率榜只收录总局数不低于 poker.leaderboard.min-games 的玩家。
+ */
+@Service
+public class LeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private static final long RATE_SCALE = 1_000_000L;
+    private static final int SNAPSHOT_MAGIC = 0x4C424F44;
+    private static final int SNAPSHOT_FORMAT = 1;
+    private static final int LOAD_BATCH = 1000;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${poker.leaderboard.min-games:20}")
+    private int minGames;
+
+    @Value("${poker.leaderboard.snapshot-file:data/leaderboard/leaderboard.snap}")
+    private String snapshotFile;
+
+    /**
+     * 增量同步时向前多看的时间，覆盖修改时间早于水位、提交晚于上次同步的事务
+     */
+    @Value("${poker.leaderboard.lookback-ms:5000}")
+    private long lookbackMs;
+
+    /**
+     * 排行榜类型
+     */
+    public enum Board {
+        CHIPS("chips"),
+        WINS("wins"),
+        WIN_RATE("winRate");
+
+        private final String type;
+
+        Board(String type) {
+            this.type = type;
+        }
+
+        /**
+         * 按接口参数解析
+         *
+         * @param type chips、wins 或 winRate
+         * @return 排行榜类型，无效时返回 null
+         */
+        public static Board of(String type) {
+            for (Board board : values()) {
+                if (board.type.equals(type)) {
+                    return board;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Object lock = new Object();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final RankedSkipList chips = new RankedSkipList();
+    private final RankedSkipList wins = new RankedSkipList();
+    private final RankedSkipList winRate = new RankedSkipList();
+
+    private volatile boolean ready;
+    private volatile LocalDateTime watermark;
+
+    private final LongAdder incremental = new LongAdder();
+    private final LongAdder synced = new LongAdder();
+
+    /**
+     * 启动时加载快照并增量同步，没有可用快照时全表加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmStart() {
+        try {
+            if (loadSnapshot()) {
+                catchUp();
+            } else {
+                fullLoad();
+            }
+            ready = true;
+            log.info("排行榜已加载 {} 名玩家", size());
+        } catch (RuntimeException e) {
+            // 下一次定时同步会重新尝试全表加载
+            log.error("排行榜加载失败", e);
+        }
+    }
+
+    /**
+     * 定时增量同步
+     */
+    @Scheduled(fixedDelayString = "${poker.leaderboard.refresh-ms:10000}")
+    public void refresh() {
+        try {
+            if (ready) {
+                catchUp();
+            } else {
+                fullLoad();
+                ready = true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("排行榜同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时写快照
+     */
+    @Scheduled(fixedDelayString = "${poker.leaderboard.snapshot-ms:60000}",
+            initialDelayString = "${poker.leaderboard.snapshot-ms:60000}")
+    public void snapshot() {
+        if (ready) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * 筹码变动，事务中调用时在提交后生效
+     *
+     * @param userId 用户ID
+     * @param amount 变动量
+     */
+    public void onChipsChanged(Long userId, BigDecimal amount) {
+        long units = ChipUnits.toUnits(amount);
+        afterCommit(() -> update(userId, units, 0, 0));
+    }
+
+    /**
+     * 战绩变动，事务中调用时在提交后生效
+     *
+     * @param userId 用户ID
+     * @param isWin  是否获胜
+     */
+    public void onGameStats(Long userId, boolean isWin) {
+        afterCommit(() -> update(userId, 0L, 1, isWin ? 1 : 0));
+    }
+
+    /**
+     * 一手牌结算：总局数和胜局数，事务中调用时在提交后生效
+     * 结算不改变用户余额（筹码在桌上），筹码榜随离桌结回时的 onChipsChanged 更新
+     *
+     * @param settlement 结算明细
+     */
+    public void onSettlement(Collection<SettlementEntry> settlement) {
+        List<SettlementEntry> copy = new ArrayList<>(settlement);
+        afterCommit(() -> {
+            for (SettlementEntry entry : copy) {
+                update(entry.getUserId(), 0L, 1, entry.getWinFlag());
+            }
+        });
+    }
+
+    /**
+     * 查询一段排名
+     *
+     * @param board  排行榜类型
+     * @param offset 跳过的名次数
+     * @param limit  数量
+     * @return 排行榜条目
+     */
+    public List<LeaderboardEntry> top(Board board, int offset, int limit) {
+        List<LeaderboardEntry> result = new ArrayList<>(Math.max(0, Math.min(limit, 1000)));
+        synchronized (lock) {
+            boardOf(board).range(offset, limit, (rank, score, id) -> result.add(toEntry(rank, id, entries.get(id))));
+        }
+        return result;
+    }
+
+    /**
+     * 查询玩家排名
+     *
+     * @param board  排行榜类型
+     * @param userId 用户ID
+     * @return 排名条目，未上榜返回 null
+     */
+    public LeaderboardEntry rank(Board board, Long userId) {
+        synchronized (lock) {
+            Entry entry = entries.get(userId);
+            if (entry == null) {
+                return null;
+            }
+            int rank = boardOf(board).rank(entry.score(board, minGames), userId);
+            return rank > 0 ? toEntry(rank, userId, entry) : null;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getIncrementalCount() {
+        return incremental.sum();
+    }
+
+    public long getSyncedCount() {
+        return synced.sum();
+    }
+
+    private void fullLoad() {
+        LocalDateTime now = userMapper.selectNow();
+        long afterUserId = 0L;
+        while (true) {
+            List<User> users = userMapper.selectRankingPage(afterUserId, LOAD_BATCH);
+            if (users.isEmpty()) {
+                break;
+            }
+            put(users);
+            afterUserId = users.get(users.size() - 1).getId();
+        }
+        watermark = now;
+    }
+
+    private void catchUp() {
+        LocalDateTime now = userMapper.selectNow();
+        LocalDateTime since = watermark.minusNanos(lookbackMs * 1_000_000L);
+        List<User> users = userMapper.selectRankingUpdatedSince(since);
+        put(users);
+        watermark = now;
+    }
+
+    /**
+     * 以数据库中的绝对值覆盖
+     */
+    private void put(List<User> users) {
+        synchronized (lock) {
+            for (User user : users) {
+                Entry entry = new Entry(user.getUsername(),
+                        ChipUnits.toUnits(user.getCurrentChips()),
+                        user.getWins() != null ? user.getWins() : 0,
+                        user.getTotalGames() != null ? user.getTotalGames() : 0);
+                replace(user.getId(), entries.get(user.getId()), entry);
+            }
+        }
+        synced.add(users.size());
+    }
+
+    /**
+     * 按增量更新，本地还没有的用户等增量同步时加入
+     */
+    private void update(Long userId, long chipsDelta, int gamesDelta, int winsDelta) {
+        synchronized (lock) {
+            Entry current = entries.get(userId);
+            if (current == null) {
+                return;
+            }
+            replace(userId, current, new Entry(current.username, current.chips + chipsDelta,
+                    current.wins + winsDelta, current.totalGames + gamesDelta));
+        }
+        incremental.increment();
+    }
+
+    private void replace(long userId, Entry previous, Entry next) {
+        for (Board board : Board.values()) {
+            RankedSkipList list = boardOf(board);
+            long oldScore = previous != null ? previous.score(board, minGames) : -1L;
+            long newScore = next.score(board, minGames);
+            if (previous != null && oldScore == newScore) {
+                continue;
+            }
+            if (oldScore >= 0) {
+                list.remove(oldScore, userId);
+            }
+            if (newScore >= 0) {
+                list.insert(newScore, userId);
+            }
+        }
+        entries.put(userId, next);
+    }
+
+    private RankedSkipList boardOf(Board board) {
+        switch (board) {
+            case CHIPS:
+                return chips;
+            case WINS:
+                return wins;
+            default:
+                return winRate;
+        }
+    }
+
+    private static LeaderboardEntry toEntry(int rank, long userId, Entry entry) {
+        double rate = entry.totalGames > 0 ? (double) entry.wins / entry.totalGames : 0.0;
+        return new LeaderboardEntry(rank, userId, entry.username, ChipUnits.toDecimal(entry.chips),
+                entry.wins, entry.totalGames, Math.round(rate * 10000) / 10000.0);
+    }
+
+    /**
+     * 先写临时文件再原子替换，写到一半崩溃时旧快照仍然可用
+     */
+    private void writeSnapshot() {
+        List<Map.Entry<Long, Entry>> copy;
+        LocalDateTime mark;
+        synchronized (lock) {
+            copy = new ArrayList<>(entries.entrySet());
+            mark = watermark;
+        }
+        if (mark == null) {
+            return;
+        }
+        Path path = Paths.get(snapshotFile);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeByte(SNAPSHOT_FORMAT);
+                out.writeLong(Timestamp.valueOf(mark).getTime());
+                out.writeInt(copy.size());
+                for (Map.Entry<Long, Entry> item : copy) {
+                    Entry entry = item.getValue();
+                    out.writeLong(item.getKey());
+                    out.writeUTF(entry.username != null ? entry.username : "");
+                    out.writeLong(entry.chips);
+                    out.writeInt(entry.wins);
+                    out.writeInt(entry.totalGames);
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("写排行榜快照失败: {}", e.getMessage());
+        }
+    }
+
+    private boolean loadSnapshot() {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readByte() != SNAPSHOT_FORMAT) {
+                log.warn("排行榜快照格式不支持，改为全表加载");
+                return false;
+            }
+            LocalDateTime mark = new Timestamp(in.readLong()).toLocalDateTime();
+            int count = in.readInt();
+            synchronized (lock) {
+                entries.clear();
+                chips.clear();
+                wins.clear();
+                winRate.clear();
+                for (int i = 0; i < count; i++) {
+                    long userId = in.readLong();
+                    Entry entry = new Entry(in.readUTF(), in.readLong(), in.readInt(), in.readInt());
+                    replace(userId, null, entry);
+                }
+            }
+            watermark = mark;
+            return true;
+        } catch (IOException e) {
+            log.warn("读取排行榜快照失败，改为全表加载: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+
+    /**
+     * 玩家在各榜上的数据，不可变，修改时整体替换
+     */
+    private static final class Entry {
+
+        private final String username;
+        private final long chips;
+        private final int wins;
+        private final int totalGames;
+
+        Entry(String username, long chips, int wins, int totalGames) {
+            this.username = username;
+            this.chips = chips;
+            this.wins = wins;
+            this.totalGames = totalGames;
+        }
+
+        /**
+         * 在指定榜上的分数，不上榜返回 -1
+         */
+        long score(Board board, int minGames) {
+            switch (board) {
+                case CHIPS:
+                    return Math.max(chips, 0L);
+                case WINS:
+                    return wins;
+                default:
+                    return totalGames >= Math.max(minGames, 1) ? wins * RATE_SCALE / totalGames : -1L;
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.dezhou.poker.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.dezhou.poker.dto.CursorPage;
 import com.dezhou.poker.entity.PlayerGameHistory;
 
 import java.math.BigDecimal;
@@ -60,6 +61,18 @@ public interface PlayerGameHistoryService extends IService<PlayerGameHistory> {
      */
     List<PlayerGameHistory> getUserGameHistory(Long userId);
 
+    /**
+     * 按游标分页获取用户游戏历史，按创建时间倒序
+     *
+     * @param userId    用户ID
+     * @param cursor    上一页返回的游标，第一页为空
+     * @param size      每页大小
+     * @param withTotal 是否统计总数
+     * @return 分页结果
+     * @throws IllegalArgumentException 游标无效
+     */
+    CursorPage<PlayerGameHistory> getUserGameHistoryPage(Long userId, String cursor, int size, boolean withTotal);
+
     /**
      * 计算用户胜率
      *
@@ -0,0 +1,185 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.entity.PlayerStats;
+import com.dezhou.poker.mapper.PlayerStatsMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 玩家统计服务
+ * player_stats 在结算事务中按手累加（见 GameService.settleHand），个人资料只读一行。
+ * 引入汇总表之前的历史记录由回填任务补齐：按用户ID分批认领未计入的记录（stats_applied 0 -> 2），
+ * 汇总累加后标记为已计入，每批一个事务；结算路径只处理进行中的牌局，与回填不会重复计数，
+ * 多个节点同时回填时由行锁互斥。
+ */
+@Service
+public class PlayerStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerStatsService.class);
+
+    @Autowired
+    private PlayerStatsMapper playerStatsMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 启动后是否在后台回填
+     */
+    @Value("${poker.stats.backfill.enabled:true}")
+    private boolean backfillOnStartup;
+
+    /**
+     * 每批处理的用户数
+     */
+    @Value("${poker.stats.backfill.batch-size:200}")
+    private int batchSize;
+
+    /**
+     * 批次之间的停顿（毫秒），避免回填占满数据库
+     */
+    @Value("${poker.stats.backfill.pause-ms:50}")
+    private long pauseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean backfilling = new AtomicBoolean();
+    private final LongAdder backfilledRows = new LongAdder();
+    private final LongAdder backfillBatches = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 获取玩家统计
+     *
+     * @param userId 用户ID
+     * @return 统计，没有记录时各项为 0
+     */
+    public PlayerStats get(Long userId) {
+        PlayerStats stats = playerStatsMapper.selectById(userId);
+        if (stats == null) {
+            stats = new PlayerStats(userId, 0, 0, BigDecimal.ZERO, 0, 0, null);
+        }
+        return stats;
+    }
+
+    /**
+     * 累加一手牌的统计，需在结算事务中调用
+     *
+     * @param deltas 每位玩家本手的增量
+     */
+    public void accumulate(List<PlayerStats> deltas) {
+        if (!deltas.isEmpty()) {
+            playerStatsMapper.batchAccumulate(deltas);
+        }
+    }
+
+    /**
+     * 服务启动后在后台回填
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            startBackfill();
+        }
+    }
+
+    /**
+     * 在后台线程中启动回填
+     *
+     * @return 是否启动（已有回填在运行时返回 false）
+     */
+    public boolean startBackfill() {
+        if (backfilling.get()) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("玩家统计回填失败", e);
+            }
+        }, "stats-backfill");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * 把尚未计入的已结束牌局记录累加到 player_stats
+     *
+     * @return 计入的记录数
+     */
+    public long backfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            throw new IllegalStateException("玩家统计回填正在进行");
+        }
+        try {
+            long total = 0;
+            long afterUserId = 0L;
+            while (true) {
+                List<Long> userIds = playerStatsMapper.selectPendingUserIds(afterUserId, batchSize);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                Long from = userIds.get(0);
+                Long to = userIds.get(userIds.size() - 1);
+                Integer claimed = transactionTemplate.execute(status -> {
+                    int rows = playerStatsMapper.claimPending(from, to);
+                    if (rows > 0) {
+                        playerStatsMapper.accumulateClaimed(from, to);
+                        playerStatsMapper.markClaimedApplied(from, to);
+                    }
+                    return rows;
+                });
+                int rows = claimed != null ? claimed : 0;
+                total += rows;
+                backfilledRows.add(rows);
+                backfillBatches.increment();
+                afterUserId = to;
+                if (pauseMs > 0) {
+                    try {
+                        Thread.sleep(pauseMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+            if (total > 0) {
+                log.info("玩家统计回填完成，计入 {} 条牌局记录", total);
+            }
+            return total;
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    public boolean isBackfilling() {
+        return backfilling.get();
+    }
+
+    public long getBackfilledRows() {
+        return backfilledRows.sum();
+    }
+
+    public long getBackfillBatches() {
+        return backfillBatches.sum();
+    }
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dezhou.poker.entity.Room;
+import com.dezhou.poker.entity.PlayerStatus;
 import com.dezhou.poker.entity.RoomPlayer;
 import com.dezhou.poker.exception.ResourceNotFoundException;
 import com.dezhou.poker.model.RoomPlayerId;
@@ -101,6 +102,15 @@ public interface RoomService extends IService<Room> {
      */
     boolean updateRoomPlayer(RoomPlayer roomPlayer);
 
+    /**
+     * 用一条语句更新多个房间玩家的状态
+     * @param roomId  房间ID
+     * @param userIds 用户ID
+     * @param status  状态
+     * @return 更新的玩家数
+     */
+    int updatePlayerStatus(Long roomId, List<Long> userIds, PlayerStatus status);
+
     /**
      * 获取房间中已入座的玩家
      *
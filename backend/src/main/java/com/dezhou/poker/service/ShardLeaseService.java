@@ -0,0 +1,333 @@
+package com.dezhou.poker.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.dezhou.poker.engine.TableExecutor;
+import com.dezhou.poker.engine.TableRouter;
+import com.dezhou.poker.engine.TableStateManager;
+import com.dezhou.poker.engine.WriteBehindJournal;
+import com.dezhou.poker.entity.ClusterNode;
+import com.dezhou.poker.entity.GameHistory;
+import com.dezhou.poker.entity.TableShard;
+import com.dezhou.poker.mapper.ClusterNodeMapper;
+import com.dezhou.poker.mapper.GameHistoryMapper;
+import com.dezhou.poker.mapper.TableShardMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 牌桌分片租约服务
+ * 各节点在 cluster_nodes 中定期写心跳，在 table_shards 中为持有的分片续约。
+ * 每次心跳按在线节点重建哈希环，得出每个分片的目标节点：
+ * <ul>
+ *     <li>本节点持有但目标已是另一个在线节点的分片：先停止接收命令并排空邮箱，落库后释放租约（新节点加入时的再平衡）</li>
+ *     <li>无人持有或租约已过期、且目标是本节点的分片：获取租约，从快照和动作日志重建进行中的牌局并恢复回合计时（节点下线后的接管）</li>
+ * </ul>
+ * 租约时间使用数据库时钟判断；本节点只在本地计算的期限内（续约前的时刻加租约时长再减去安全余量）执行命令，
+ * 与数据库断开后租约在本地先于数据库到期，不会出现两个节点同时执行同一房间。
+ * <p>
+ * 每次获取租约纪元加一。本节点写入的日志记录和结算事务都携带持有租约时的纪元，写库时与 table_shards 中的纪元比对，
+ * 旧所有者在失去租约后迟到的写入（例如停顿后恢复、或重启后重放本地日志）会被丢弃或拒绝。
+ * <p>
+ * 心跳在独立线程上运行，不与归档、导出等耗时的定时任务共用调度线程，避免续约被拖过租约时长。
+ */
+@Service
+public class ShardLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardLeaseService.class);
+
+    @Autowired
+    private TableRouter tableRouter;
+
+    @Autowired
+    private TableExecutor tableExecutor;
+
+    @Autowired
+    private TableStateManager tableStateManager;
+
+    @Autowired
+    private WriteBehindJournal journal;
+
+    @Autowired
+    private TurnTimerService turnTimerService;
+
+    @Autowired
+    private TableDeltaService tableDeltaService;
+
+    @Autowired
+    private HoleCardService holeCardService;
+
+    @Autowired
+    private ClusterNodeMapper clusterNodeMapper;
+
+    @Autowired
+    private TableShardMapper tableShardMapper;
+
+    @Autowired
+    private GameHistoryMapper gameHistoryMapper;
+
+    @Value("${poker.cluster.lease.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 本节点对外访问地址，写入 cluster_nodes 供其他节点和客户端路由
+     */
+    @Value("${poker.cluster.url:}")
+    private String url;
+
+    @Value("${poker.cluster.lease.ttl-ms:15000}")
+    private long ttlMs;
+
+    @Value("${poker.cluster.lease.renew-ms:5000}")
+    private long renewMs;
+
+    /**
+     * 交出分片时等待邮箱排空的时间
+     */
+    @Value("${poker.cluster.lease.drain-timeout-ms:5000}")
+    private long drainTimeoutMs;
+
+    private volatile boolean initialized;
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    /**
+     * 上一次心跳得出的分片所有者
+     */
+    private String[] lastOwners;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder released = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+
+    /**
+     * 应用启动完成后开始心跳
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0L, renewMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (heartbeatExecutor != null) {
+            heartbeatExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 心跳：登记节点、续约、再平衡和接管
+     */
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            tick();
+        } catch (RuntimeException e) {
+            // 续约失败时本地租约到期后自动停止执行命令
+            log.error("分片租约心跳失败", e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 在当前事务中确认本节点仍持有该房间所在分片的租约：以共享锁读取纪元并与本地纪元比对，
+     * 事务提交前其他节点无法接管该分片。未开启租约时不检查
+     *
+     * @param roomId 房间ID
+     * @throws IllegalStateException 租约已被其他节点接管
+     */
+    public void checkEpoch(Long roomId) {
+        long epoch = tableRouter.epochOf(roomId);
+        if (epoch == 0L) {
+            return;
+        }
+        int shard = tableRouter.shardOf(roomId);
+        List<TableShard> shards = tableShardMapper.selectEpochsForShare(Collections.singletonList(shard));
+        if (shards.isEmpty() || shards.get(0).getEpoch() != epoch) {
+            throw new IllegalStateException("房间所在分片的租约已转移，请重试");
+        }
+    }
+
+    public long getAcquiredCount() {
+        return acquired.sum();
+    }
+
+    public long getReleasedCount() {
+        return released.sum();
+    }
+
+    public long getLostCount() {
+        return lost.sum();
+    }
+
+    private void tick() {
+        String self = tableRouter.getNodeId();
+        int shardCount = tableRouter.getShardCount();
+        if (!initialized) {
+            List<Integer> ids = new ArrayList<>(shardCount);
+            for (int i = 0; i < shardCount; i++) {
+                ids.add(i);
+            }
+            tableShardMapper.insertMissing(ids);
+            initialized = true;
+        }
+
+        clusterNodeMapper.heartbeat(self, url);
+        Map<String, String> live = new LinkedHashMap<>();
+        for (ClusterNode node : clusterNodeMapper.selectLive(ttlMs)) {
+            live.put(node.getNodeId(), node.getUrl());
+        }
+        live.putIfAbsent(self, url);
+        tableRouter.setNodes(live);
+
+        // 续约前取本地时间，本地期限只会早于数据库中的到期时间
+        long renewStart = System.nanoTime();
+        tableShardMapper.renew(self, ttlMs);
+        long localDeadline = renewStart + TimeUnit.MILLISECONDS.toNanos(ttlMs - ttlMs / 5);
+
+        String[] owners = new String[shardCount];
+        long[] deadlines = new long[shardCount];
+        long[] epochs = new long[shardCount];
+        List<Integer> toRelease = new ArrayList<>();
+        Set<Integer> taken = new HashSet<>();
+
+        for (TableShard shard : tableShardMapper.selectAllWithValidity()) {
+            int id = shard.getShardId();
+            if (id >= shardCount) {
+                continue;
+            }
+            boolean valid = Boolean.TRUE.equals(shard.getLeaseValid());
+            String target = tableRouter.targetOf(id);
+            boolean mine = self.equals(shard.getOwnerNode());
+
+            if (mine && valid) {
+                owners[id] = self;
+                deadlines[id] = localDeadline;
+                epochs[id] = shard.getEpoch();
+                if (!self.equals(target) && live.containsKey(target)) {
+                    toRelease.add(id);
+                }
+                continue;
+            }
+            if (mine || (lastOwners != null && self.equals(lastOwners[id]))) {
+                // 租约已在数据库中过期，期间其他节点可能已接管，本地状态不再可信
+                lost.increment();
+                log.warn("分片 {} 的租约已过期", id);
+                dropLocal(id);
+            }
+            if ((shard.getOwnerNode() == null || !valid) && self.equals(target)
+                    && tableShardMapper.acquire(id, self, ttlMs) == 1) {
+                owners[id] = self;
+                deadlines[id] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs - ttlMs / 5);
+                // acquire 把纪元加一，重新读取本节点这次租约的纪元
+                epochs[id] = tableShardMapper.selectEpoch(id);
+                taken.add(id);
+                acquired.increment();
+                continue;
+            }
+            owners[id] = valid ? shard.getOwnerNode() : null;
+        }
+        tableRouter.setShardOwners(owners, deadlines, epochs);
+        lastOwners = owners;
+
+        for (Integer id : toRelease) {
+            release(id, self);
+            owners[id] = null;
+        }
+        if (!taken.isEmpty()) {
+            takeOver(taken);
+        }
+    }
+
+    /**
+     * 把分片交给目标节点：先拒绝新命令，再在房间邮箱里排空已排队的命令并丢弃内存状态，
+     * 等该分片的动作日志落库后释放租约，新的所有者据此重建；超时则保留租约等下次心跳重试
+     */
+    private void release(int shard, String self) {
+        tableRouter.revoke(shard);
+        dropLocal(shard);
+        if (!journal.flushShard(shard)) {
+            // 尾部未落库就交出会被新所有者漏掉、再被纪元防护丢弃；保留租约，下次心跳重试
+            log.warn("分片 {} 的动作日志未在超时前落库，暂不交出", shard);
+            return;
+        }
+        if (tableShardMapper.release(shard, self) == 1) {
+            released.increment();
+            log.info("分片 {} 已交给节点 {}", shard, tableRouter.targetOf(shard));
+        }
+    }
+
+    private void dropLocal(int shard) {
+        for (Map.Entry<Long, Long> entry : tableStateManager.rooms().entrySet()) {
+            Long roomId = entry.getKey();
+            Long gameId = entry.getValue();
+            if (tableRouter.shardOf(roomId) != shard) {
+                continue;
+            }
+            try {
+                tableExecutor.submitLocal(roomId, () -> {
+                    tableStateManager.evict(gameId);
+                    turnTimerService.release(gameId);
+                    tableDeltaService.forget(gameId);
+                    holeCardService.evict(gameId);
+                    return null;
+                }).get(drainTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.error("交出房间失败, 房间ID: {}", roomId, e);
+            }
+        }
+    }
+
+    /**
+     * 接管分片：重建其中进行中的牌局，并恢复回合计时
+     */
+    private void takeOver(Set<Integer> shards) {
+        List<GameHistory> games = gameHistoryMapper.selectList(new LambdaQueryWrapper<GameHistory>()
+                .eq(GameHistory::getStatus, GameHistory.GameStatus.IN_PROGRESS.name()));
+        int rebuilt = 0;
+        for (GameHistory game : games) {
+            if (!shards.contains(tableRouter.shardOf(game.getRoomId()))) {
+                continue;
+            }
+            try {
+                if (tableStateManager.get(game.getId()) != null) {
+                    rebuilt++;
+                }
+            } catch (RuntimeException e) {
+                log.error("接管牌局失败, 游戏ID: {}", game.getId(), e);
+            }
+        }
+        turnTimerService.rearm();
+        log.info("已接管分片 {}，重建 {} 个进行中的牌局", shards, rebuilt);
+    }
+}
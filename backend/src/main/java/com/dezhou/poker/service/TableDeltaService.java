@@ -0,0 +1,239 @@
+package com.dezhou.poker.service;
+
+import com.dezhou.poker.engine.Cards;
+import com.dezhou.poker.engine.ChipUnits;
+import com.dezhou.poker.engine.TableState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 牌桌增量广播服务
+ * 每次牌桌状态变化后，与上一次广播的视图比较，只把变化的字段推送到 /topic/room.{roomId}。
+ * 每条增量带有该局内连续递增的序号，客户端发现序号不连续时调用快照接口重新同步。
+ * <p>
+ * 增量消息使用短字段名以压缩体积：
+ * t=类型("D")，g=游戏ID，s=序号，r=轮次，p=底池，b=当前下注，a=行动玩家ID，
+ * c=已公开的公共牌，u=座位变化 [用户ID, 剩余筹码, 本轮投入, 状态(0 正常/1 弃牌/2 全下)]，e=牌局结束，
+ * f=完整视图（该节点对该局的第一条增量包含全部字段，客户端可直接以它为基准，不论序号）
+ */
+@Service
+public class TableDeltaService {
+
+    private static final int SEAT_ACTIVE = 0;
+    private static final int SEAT_FOLDED = 1;
+    private static final int SEAT_ALL_IN = 2;
+
+    @Autowired
+    private SimpMessageSendingOperations messagingTemplate;
+
+    /**
+     * 游戏ID -> 最近一次广播的视图
+     */
+    private final Map<Long, View> views = new ConcurrentHashMap<>();
+
+    private final LongAdder deltas = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+
+    /**
+     * 广播自上次以来的变化，没有变化时不发送，调用方需持有状态锁
+     *
+     * @param state 牌桌状态
+     */
+    public void publish(TableState state) {
+        View view = views.computeIfAbsent(state.getGameId(), id -> new View(state.size()));
+        Map<String, Object> delta = view.diff(state);
+        if (delta != null) {
+            send(state.getRoomId(), delta);
+        }
+    }
+
+    /**
+     * 广播牌局结束并释放该局的视图
+     *
+     * @param gameId 游戏ID
+     * @param roomId 房间ID
+     */
+    public void publishEnd(Long gameId, Long roomId) {
+        View view = views.remove(gameId);
+        if (view == null) {
+            return;
+        }
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("t", "D");
+        delta.put("g", gameId);
+        delta.put("s", ++view.seq);
+        delta.put("e", 1);
+        send(roomId, delta);
+    }
+
+    /**
+     * 丢弃该局的视图（房间交给其他节点时），不发送消息
+     *
+     * @param gameId 游戏ID
+     */
+    public void forget(Long gameId) {
+        views.remove(gameId);
+    }
+
+    /**
+     * 完整快照，供客户端发现序号不连续时重新同步，调用方需持有状态锁
+     * 快照先补发尚未广播的变化，保证返回的序号之后的增量都能衔接上
+     *
+     * @param state 牌桌状态
+     * @return 快照
+     */
+    public Map<String, Object> snapshot(TableState state) {
+        publish(state);
+        View view = views.get(state.getGameId());
+        snapshots.increment();
+
+        List<Map<String, Object>> seats = new ArrayList<>(state.size());
+        for (int i = 0; i < state.size(); i++) {
+            Map<String, Object> seat = new LinkedHashMap<>();
+            seat.put("userId", state.getUserId(i));
+            seat.put("seatNumber", state.getSeatNumber(i));
+            seat.put("stack", ChipUnits.toDecimal(state.getStack(i)));
+            seat.put("streetBet", ChipUnits.toDecimal(state.getStreetContribution(i)));
+            seat.put("totalBet", ChipUnits.toDecimal(state.getTotalContribution(i)));
+            seat.put("folded", state.isFolded(i));
+            seat.put("allIn", state.isAllIn(i));
+            seats.add(seat);
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("gameId", state.getGameId());
+        snapshot.put("roomId", state.getRoomId());
+        snapshot.put("seq", view != null ? view.seq : 0L);
+        snapshot.put("round", state.getStreet().name());
+        snapshot.put("pot", ChipUnits.toDecimal(state.getPot()));
+        snapshot.put("currentBet", ChipUnits.toDecimal(state.getCurrentBet()));
+        snapshot.put("toAct", state.getToActUserId());
+        snapshot.put("communityCards", Cards.toString(state.getVisibleBoardCards()));
+        snapshot.put("seats", seats);
+        return snapshot;
+    }
+
+    /**
+     * 累计发送的增量数
+     */
+    public long getDeltaCount() {
+        return deltas.sum();
+    }
+
+    /**
+     * 累计提供的重新同步快照数
+     */
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    private void send(long roomId, Map<String, Object> delta) {
+        deltas.increment();
+        messagingTemplate.convertAndSend("/topic/room." + roomId, delta);
+    }
+
+    private static int seatStatus(TableState state, int index) {
+        if (state.isFolded(index)) {
+            return SEAT_FOLDED;
+        }
+        return state.isAllIn(index) ? SEAT_ALL_IN : SEAT_ACTIVE;
+    }
+
+    /**
+     * 最近一次广播时客户端看到的牌桌
+     */
+    private static final class View {
+
+        private long seq;
+        private int street = -1;
+        private long pot = -1L;
+        private long currentBet = -1L;
+        private Long toAct;
+        private int boardCount = -1;
+        private final long[] stacks;
+        private final long[] bets;
+        private final int[] statuses;
+
+        View(int size) {
+            stacks = new long[size];
+            bets = new long[size];
+            statuses = new int[size];
+            for (int i = 0; i < size; i++) {
+                stacks[i] = -1L;
+                bets[i] = -1L;
+                statuses[i] = -1;
+            }
+        }
+
+        /**
+         * 比较并更新视图
+         *
+         * @return 增量消息，没有变化时返回 null
+         */
+        Map<String, Object> diff(TableState state) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            if (state.getStreet().ordinal() != street) {
+                street = state.getStreet().ordinal();
+                delta.put("r", state.getStreet().name());
+            }
+            if (state.getPot() != pot) {
+                pot = state.getPot();
+                delta.put("p", ChipUnits.toDecimal(pot));
+            }
+            if (state.getCurrentBet() != currentBet) {
+                currentBet = state.getCurrentBet();
+                delta.put("b", ChipUnits.toDecimal(currentBet));
+            }
+            Long nextToAct = state.getToActUserId();
+            if (boardCount < 0 || (nextToAct == null ? toAct != null : !nextToAct.equals(toAct))) {
+                toAct = nextToAct;
+                delta.put("a", toAct);
+            }
+            byte[] board = state.getVisibleBoardCards();
+            if (board.length != boardCount) {
+                boardCount = board.length;
+                delta.put("c", Cards.toString(board));
+            }
+
+            List<Object[]> seats = null;
+            for (int i = 0; i < stacks.length; i++) {
+                long stack = state.getStack(i);
+                long bet = state.getStreetContribution(i);
+                int status = seatStatus(state, i);
+                if (stack != stacks[i] || bet != bets[i] || status != statuses[i]) {
+                    stacks[i] = stack;
+                    bets[i] = bet;
+                    statuses[i] = status;
+                    if (seats == null) {
+                        seats = new ArrayList<>();
+                    }
+                    seats.add(new Object[]{state.getUserId(i), ChipUnits.toDecimal(stack), ChipUnits.toDecimal(bet), status});
+                }
+            }
+            if (seats != null) {
+                delta.put("u", seats);
+            }
+
+            if (delta.isEmpty()) {
+                return null;
+            }
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("t", "D");
+            message.put("g", state.getGameId());
+            if (seq == 0) {
+                message.put("f", 1);
+            }
+            message.put("s", ++seq);
+            message.putAll(delta);
+            return message;
+        }
+    }
+}
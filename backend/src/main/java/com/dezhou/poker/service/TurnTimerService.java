@@ -0,0 +1,334 @@
+package com.dezhou.poker.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.dezhou.poker.engine.HashedWheelTimer;
+import com.dezhou.poker.engine.TableExecutor;
+import com.dezhou.poker.engine.TableRouter;
+import com.dezhou.poker.engine.TableState;
+import com.dezhou.poker.engine.TableStateManager;
+import com.dezhou.poker.entity.GameHistory;
+import com.dezhou.poker.mapper.GameActionMapper;
+import com.dezhou.poker.mapper.GameHistoryMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回合计时服务
+ * 每局只保留当前行动玩家的一个到期时间，挂在共享的哈希时间轮上，玩家行动时 O(1) 取消；
+ * 每回合只向房间推送一次到期时间戳，倒计时由客户端自行计算。
+ * 到期时间只保存在内存中，回合开始时不写库；服务重启或接管房间后按最后一个动作的时间
+ * （没有动作时按开局时间）加每回合时间重新挂回时间轮，已经过期的回合会在下一个 tick 立即触发。
+ * 超时处理投递到房间邮箱执行，与玩家动作串行。
+ */
+@Service
+public class TurnTimerService {
+
+    private static final Logger log = LoggerFactory.getLogger(TurnTimerService.class);
+
+    /**
+     * 超时处理器
+     */
+    public interface TimeoutHandler {
+
+        /**
+         * 玩家回合超时，在房间邮箱线程上调用
+         *
+         * @param gameId 游戏ID
+         * @param roomId 房间ID
+         * @param userId 超时的玩家ID
+         */
+        void onTimeout(Long gameId, Long roomId, Long userId);
+    }
+
+    @Autowired
+    private GameHistoryMapper gameHistoryMapper;
+
+    @Autowired
+    private GameActionMapper gameActionMapper;
+
+    @Autowired
+    private TableStateManager tableStateManager;
+
+    @Autowired
+    private TableExecutor tableExecutor;
+
+    @Autowired
+    private TableRouter tableRouter;
+
+    @Autowired
+    private SimpMessageSendingOperations messagingTemplate;
+
+    @Value("${poker.turn.seconds:30}")
+    private int defaultSeconds;
+
+    @Value("${poker.turn.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${poker.turn.wheel-size:512}")
+    private int wheelSize;
+
+    private HashedWheelTimer wheel;
+
+    private volatile TimeoutHandler timeoutHandler;
+
+    private final Map<Long, Turn> turns = new ConcurrentHashMap<>();
+
+    private final Map<Long, Integer> turnSeconds = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        wheel = new HashedWheelTimer("turn-timer", tickMs, TimeUnit.MILLISECONDS, wheelSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.close();
+    }
+
+    /**
+     * 注册超时处理器
+     *
+     * @param handler 超时处理器
+     */
+    public void setTimeoutHandler(TimeoutHandler handler) {
+        this.timeoutHandler = handler;
+    }
+
+    /**
+     * 设置每回合行动时间，从下一回合开始生效
+     *
+     * @param gameId  游戏ID
+     * @param seconds 每回合时间（秒）
+     */
+    public void setTurnSeconds(Long gameId, int seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("每回合时间必须大于0");
+        }
+        gameHistoryMapper.update(null, new LambdaUpdateWrapper<GameHistory>()
+                .eq(GameHistory::getId, gameId)
+                .set(GameHistory::getTurnSeconds, seconds));
+        turnSeconds.put(gameId, seconds);
+    }
+
+    /**
+     * 获取每回合行动时间
+     *
+     * @param gameId 游戏ID
+     * @return 每回合时间（秒）
+     */
+    public int getTurnSeconds(Long gameId) {
+        return turnSeconds.computeIfAbsent(gameId, id -> {
+            GameHistory game = gameHistoryMapper.selectById(id);
+            return game != null && game.getTurnSeconds() != null ? game.getTurnSeconds() : defaultSeconds;
+        });
+    }
+
+    /**
+     * 开始玩家的回合计时，替换该局之前的计时，并向房间推送到期时间
+     *
+     * @param gameId 游戏ID
+     * @param roomId 房间ID
+     * @param userId 行动玩家ID
+     * @return 到期时间（epoch 毫秒）
+     */
+    public long start(Long gameId, Long roomId, Long userId) {
+        int seconds = getTurnSeconds(gameId);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(seconds);
+        arm(gameId, roomId, userId, deadline);
+        broadcast(gameId, roomId, userId, deadline, seconds);
+        return deadline;
+    }
+
+    /**
+     * 停止该局的回合计时（例如本轮下注已结束，等待进入下一轮）
+     *
+     * @param gameId 游戏ID
+     */
+    public void cancel(Long gameId) {
+        Turn turn = turns.remove(gameId);
+        if (turn != null) {
+            turn.cancel();
+        }
+    }
+
+    /**
+     * 牌局结束，停止计时并释放该局的计时信息
+     *
+     * @param gameId 游戏ID
+     */
+    public void clear(Long gameId) {
+        cancel(gameId);
+        turnSeconds.remove(gameId);
+    }
+
+    /**
+     * 房间交给其他节点时停止本地计时，新的所有者按最后动作时间恢复
+     *
+     * @param gameId 游戏ID
+     */
+    public void release(Long gameId) {
+        Turn turn = turns.remove(gameId);
+        if (turn != null) {
+            turn.cancel();
+        }
+        turnSeconds.remove(gameId);
+    }
+
+    /**
+     * 获取该局当前回合的到期时间
+     *
+     * @param gameId 游戏ID
+     * @return 到期时间（epoch 毫秒），没有计时返回 null
+     */
+    public Long getDeadline(Long gameId) {
+        Turn turn = turns.get(gameId);
+        return turn != null ? turn.deadline : null;
+    }
+
+    /**
+     * 服务启动或接管房间后把进行中牌局的回合计时重新挂回时间轮，只恢复由本节点负责的房间
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rearm() {
+        List<GameHistory> games = gameHistoryMapper.selectList(new LambdaQueryWrapper<GameHistory>()
+                .eq(GameHistory::getStatus, GameHistory.GameStatus.IN_PROGRESS.name()));
+        int count = 0;
+        for (GameHistory game : games) {
+            if (!tableRouter.isLocal(game.getRoomId()) || turns.containsKey(game.getId())) {
+                continue;
+            }
+            try {
+                TableState state = tableStateManager.get(game.getId());
+                if (state == null || state.activeCount() <= 1 || state.isStreetComplete()) {
+                    continue;
+                }
+                Long userId = state.getToActUserId();
+                if (userId == null) {
+                    continue;
+                }
+                if (game.getTurnSeconds() != null) {
+                    turnSeconds.put(game.getId(), game.getTurnSeconds());
+                }
+                // 回合从上一个动作（或开局）开始计时
+                LocalDateTime turnStart = gameActionMapper.selectLastActionTime(game.getId());
+                if (turnStart == null) {
+                    turnStart = game.getStartTime() != null ? game.getStartTime() : LocalDateTime.now();
+                }
+                long deadline = turnStart.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                        + TimeUnit.SECONDS.toMillis(getTurnSeconds(game.getId()));
+                arm(game.getId(), game.getRoomId(), userId, deadline);
+                count++;
+            } catch (RuntimeException e) {
+                log.error("恢复回合计时失败, 游戏ID: {}", game.getId(), e);
+            }
+        }
+        if (count > 0) {
+            log.info("已恢复 {} 个牌局的回合计时", count);
+        }
+    }
+
+    /**
+     * 时间轮中等待到期的回合数
+     */
+    public int getPending() {
+        return wheel.getPending();
+    }
+
+    public long getExpiredCount() {
+        return wheel.getExpiredCount();
+    }
+
+    public long getCancelledCount() {
+        return wheel.getCancelledCount();
+    }
+
+    private void arm(Long gameId, Long roomId, Long userId, long deadline) {
+        // 先登记再挂到时间轮，保证到期时一定能在 turns 中找到自己
+        Turn turn = new Turn(gameId, roomId, userId, deadline);
+        Turn previous = turns.put(gameId, turn);
+        turn.timeout = wheel.schedule(() -> expire(turn),
+                deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    /**
+     * 时间轮线程上调用，只负责把超时投递到房间邮箱
+     */
+    private void expire(Turn turn) {
+        if (!turns.remove(turn.gameId, turn)) {
+            return;
+        }
+        TimeoutHandler handler = timeoutHandler;
+        if (handler == null) {
+            log.warn("未注册超时处理器, 游戏ID: {}", turn.gameId);
+            return;
+        }
+        tableExecutor.submit(turn.roomId, () -> {
+            handler.onTimeout(turn.gameId, turn.roomId, turn.userId);
+            return null;
+        }).whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("处理回合超时失败, 游戏ID: {}", turn.gameId, e);
+            }
+        });
+    }
+
+    private void broadcast(Long gameId, Long roomId, Long userId, long deadline, int seconds) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("deadline", deadline);
+        data.put("serverTime", System.currentTimeMillis());
+        data.put("totalTime", seconds);
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("type", "TURN_DEADLINE");
+        message.put("gameId", gameId);
+        message.put("userId", userId);
+        message.put("data", data);
+        messagingTemplate.convertAndSend("/topic/room/" + roomId, message);
+    }
+
+    /**
+     * 一个回合的计时
+     */
+    private static final class Turn {
+
+        private final Long gameId;
+        private final Long roomId;
+        private final Long userId;
+        private final long deadline;
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        Turn(Long gameId, Long roomId, Long userId, long deadline) {
+            this.gameId = gameId;
+            this.roomId = roomId;
+            this.userId = userId;
+            this.deadline = deadline;
+        }
+
+        void cancel() {
+            HashedWheelTimer.Timeout current = timeout;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
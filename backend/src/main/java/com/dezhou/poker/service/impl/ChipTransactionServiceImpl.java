@@ -2,11 +2,13 @@ package com.dezhou.poker.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.dezhou.poker.dto.CursorPage;
 import com.dezhou.poker.entity.ChipTransaction;
 import com.dezhou.poker.entity.User;
 import com.dezhou.poker.mapper.ChipTransactionMapper;
 import com.dezhou.poker.service.ChipTransactionService;
 import com.dezhou.poker.service.UserService;
+import com.dezhou.poker.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -78,6 +80,25 @@ public class ChipTransactionServiceImpl extends ServiceImpl<ChipTransactionMappe
         return list(queryWrapper);
     }
 
+    @Override
+    public CursorPage<ChipTransaction> getUserTransactionPage(Long userId, String cursor, int size, boolean withTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        // 多取一条判断是否还有下一页
+        List<ChipTransaction> records = baseMapper.selectPageByUser(userId,
+                after != null ? after.getCreatedAt() : null, after != null ? after.getId() : null, size + 1);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = records.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ChipTransaction last = records.get(size - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        Long total = withTotal ? baseMapper.countByUser(userId) : null;
+        return new CursorPage<>(records, nextCursor, hasMore, total);
+    }
+
     @Override
     public List<ChipTransaction> getGameTransactions(Long gameId) {
         LambdaQueryWrapper<ChipTransaction> queryWrapper = new LambdaQueryWrapper<>();
@@ -35,11 +35,7 @@ public class GameActionServiceImpl extends ServiceImpl<GameActionMapper, GameAct
 
     @Override
     public List<GameAction> getGameActions(Long gameId) {
-        LambdaQueryWrapper<GameAction> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(GameAction::getGameId, gameId)
-                .orderByAsc(GameAction::getActionTime);
-        
-        return list(queryWrapper);
+        return baseMapper.selectByGameIdWithArchive(gameId);
     }
 
     @Override
@@ -2,6 +2,7 @@ package com.dezhou.poker.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.dezhou.poker.engine.Cards;
 import com.dezhou.poker.entity.GameHistory;
 import com.dezhou.poker.mapper.GameHistoryMapper;
 import com.dezhou.poker.service.GameHistoryService;
@@ -101,6 +102,7 @@ public class GameHistoryServiceImpl extends ServiceImpl<GameHistoryMapper, GameH
         }
         
         gameHistory.setCommunityCards(communityCards);
+        gameHistory.setCommunityCardsBin(Cards.parseBytes(communityCards));
         return updateById(gameHistory);
     }
 
@@ -132,10 +134,6 @@ public class GameHistoryServiceImpl extends ServiceImpl<GameHistoryMapper, GameH
 
     @Override
     public List<GameHistory> getRoomGames(Long roomId) {
-        LambdaQueryWrapper<GameHistory> queryWrapper = new LambdaQueryWrapper<>();
-        queryWrapper.eq(GameHistory::getRoomId, roomId)
-                .orderByDesc(GameHistory::getStartTime);
-        
-        return list(queryWrapper);
+        return baseMapper.selectByRoomIdWithArchive(roomId);
     }
 } 
\ No newline at end of file
@@ -2,10 +2,15 @@ package com.dezhou.poker.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.dezhou.poker.dto.CursorPage;
 import com.dezhou.poker.entity.PlayerGameHistory;
 import com.dezhou.poker.entity.PlayerGameHistoryId;
+import com.dezhou.poker.entity.PlayerStats;
 import com.dezhou.poker.mapper.PlayerGameHistoryMapper;
 import com.dezhou.poker.service.PlayerGameHistoryService;
+import com.dezhou.poker.service.PlayerStatsService;
+import com.dezhou.poker.util.PageCursor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +24,9 @@ import java.util.List;
 @Service
 public class PlayerGameHistoryServiceImpl extends ServiceImpl<PlayerGameHistoryMapper, PlayerGameHistory> implements PlayerGameHistoryService {
 
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
     @Override
     @Transactional
     public PlayerGameHistory createPlayerGameHistory(Long gameId, Long userId, Integer seatNumber, BigDecimal initialChips, String holeCards) {
@@ -86,34 +94,38 @@ public class PlayerGameHistoryServiceImpl extends ServiceImpl<PlayerGameHistoryM
         return list(queryWrapper);
     }
 
+    @Override
+    public CursorPage<PlayerGameHistory> getUserGameHistoryPage(Long userId, String cursor, int size, boolean withTotal) {
+        PageCursor after = PageCursor.decode(cursor);
+        // 多取一条判断是否还有下一页
+        List<PlayerGameHistory> records = baseMapper.selectPageByUser(userId,
+                after != null ? after.getCreatedAt() : null, after != null ? after.getId() : null, size + 1);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = records.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            PlayerGameHistory last = records.get(size - 1);
+            nextCursor = new PageCursor(last.getCreatedAt(), last.getGameId()).encode();
+        }
+        Long total = withTotal ? baseMapper.countByUser(userId) : null;
+        return new CursorPage<>(records, nextCursor, hasMore, total);
+    }
+
     @Override
     public double calculateWinRate(Long userId) {
-        LambdaQueryWrapper<PlayerGameHistory> totalQueryWrapper = new LambdaQueryWrapper<>();
-        totalQueryWrapper.eq(PlayerGameHistory::getUserId, userId);
-        long totalGames = count(totalQueryWrapper);
-        
-        if (totalGames == 0) {
+        // 读取汇总表，不再按用户统计全部历史记录
+        PlayerStats stats = playerStatsService.get(userId);
+        if (stats.getHands() == 0) {
             return 0.0;
         }
         
-        LambdaQueryWrapper<PlayerGameHistory> winQueryWrapper = new LambdaQueryWrapper<>();
-        winQueryWrapper.eq(PlayerGameHistory::getUserId, userId)
-                .eq(PlayerGameHistory::getIsWinner, true);
-        long winGames = count(winQueryWrapper);
-        
-        return (double) winGames / totalGames;
+        return (double) stats.getWins() / stats.getHands();
     }
 
     @Override
     public BigDecimal calculateTotalProfit(Long userId) {
-        List<PlayerGameHistory> histories = getUserGameHistory(userId);
-        BigDecimal totalProfit = BigDecimal.ZERO;
-        
-        for (PlayerGameHistory history : histories) {
-            BigDecimal profit = history.getFinalChips().subtract(history.getInitialChips());
-            totalProfit = totalProfit.add(profit);
-        }
-        
-        return totalProfit.setScale(2, RoundingMode.HALF_UP);
+        return playerStatsService.get(userId).getNetProfit().setScale(2, RoundingMode.HALF_UP);
     }
 } 
\ No newline at end of file
@@ -11,6 +11,7 @@ import com.dezhou.poker.entity.User;
 import com.dezhou.poker.exception.BusinessException;
 import com.dezhou.poker.exception.ResourceNotFoundException;
 import com.dezhou.poker.mapper.RoomPlayerMapper;
+import com.dezhou.poker.service.EntityCache;
 import com.dezhou.poker.service.RoomPlayerService;
 import com.dezhou.poker.service.RoomService;
 import com.dezhou.poker.service.UserService;
@@ -39,6 +40,16 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private EntityCache entityCache;
+
+    @Override
+    public boolean updateById(RoomPlayer roomPlayer) {
+        boolean updated = super.updateById(roomPlayer);
+        entityCache.invalidateRoomPlayers(roomPlayer.getRoomId());
+        return updated;
+    }
+
     @Override
     @Transactional
     public RoomPlayer joinRoom(Long roomId, Long userId, Integer seatNumber, BigDecimal buyIn) {
@@ -92,6 +103,7 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
         roomPlayer.setDeleted(0);
 
         save(roomPlayer);
+        entityCache.invalidateRoomPlayers(roomId);
 
         // 更新房间当前玩家数量
         room.setCurrentPlayers(room.getCurrentPlayers() + 1);
@@ -121,6 +133,7 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
         boolean result = remove(new LambdaQueryWrapper<RoomPlayer>()
                 .eq(RoomPlayer::getRoomId, roomId)
                 .eq(RoomPlayer::getUserId, userId));
+        entityCache.invalidateRoomPlayers(roomId);
 
         // 更新房间当前玩家数量
         Room room = roomService.getById(roomId);
@@ -154,10 +167,12 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
         try {
             // 将字符串转换为枚举值
             PlayerStatus playerStatus = PlayerStatus.valueOf(status);
-            return update(new LambdaUpdateWrapper<RoomPlayer>()
+            boolean updated = update(new LambdaUpdateWrapper<RoomPlayer>()
                     .eq(RoomPlayer::getRoomId, roomId)
                     .eq(RoomPlayer::getUserId, userId)
                     .set(RoomPlayer::getStatus, playerStatus.name()));
+            entityCache.invalidateRoomPlayers(roomId);
+            return updated;
         } catch (IllegalArgumentException e) {
             log.error("Invalid player status: " + status, e);
             return false;
@@ -180,10 +195,12 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
             throw new BusinessException("筹码不足");
         }
 
-        return update(new LambdaUpdateWrapper<RoomPlayer>()
+        boolean updated = update(new LambdaUpdateWrapper<RoomPlayer>()
                 .eq(RoomPlayer::getRoomId, roomId)
                 .eq(RoomPlayer::getUserId, userId)
                 .set(RoomPlayer::getCurrentChips, newChips));
+        entityCache.invalidateRoomPlayers(roomId);
+        return updated;
     }
 
     /**
@@ -256,6 +273,7 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
                 .eq(RoomPlayer::getUserId, userId)
                 .set(RoomPlayer::getSeatNumber, seatNumber)
                 .set(RoomPlayer::getStatus, "SEATED"));
+        entityCache.invalidateRoomPlayers(roomId);
                 
         if (!updated) {
             throw new BusinessException("更新座位信息失败");
@@ -277,6 +295,7 @@ public class RoomPlayerServiceImpl extends ServiceImpl<RoomPlayerMapper, RoomPla
             return false;
         }
         
+        entityCache.invalidateRoomPlayers(roomPlayer.getRoomId());
         // 使用条件更新而不是updateById
         return update(new LambdaUpdateWrapper<RoomPlayer>()
                 .eq(RoomPlayer::getRoomId, roomPlayer.getRoomId())
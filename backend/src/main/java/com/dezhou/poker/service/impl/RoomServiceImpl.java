@@ -6,16 +6,19 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dezhou.poker.entity.Room;
+import com.dezhou.poker.entity.PlayerStatus;
 import com.dezhou.poker.entity.RoomPlayer;
 import com.dezhou.poker.exception.ResourceNotFoundException;
 import com.dezhou.poker.mapper.RoomMapper;
 import com.dezhou.poker.mapper.RoomPlayerMapper;
+import com.dezhou.poker.service.EntityCache;
 import com.dezhou.poker.service.RoomService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,6 +37,34 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
     @Autowired
     private RoomPlayerMapper roomPlayerMapper;
 
+    @Autowired
+    private EntityCache entityCache;
+
+    @Override
+    public Room getById(Serializable id) {
+        if (!(id instanceof Long)) {
+            return super.getById(id);
+        }
+        return entityCache.getRoom((Long) id, super::getById);
+    }
+
+    @Override
+    public boolean updateById(Room room) {
+        boolean updated = super.updateById(room);
+        entityCache.invalidateRoom(room.getId());
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean removed = super.removeById(id);
+        if (id instanceof Long) {
+            entityCache.invalidateRoom((Long) id);
+            entityCache.invalidateRoomPlayers((Long) id);
+        }
+        return removed;
+    }
+
     @Override
     public Room createRoom(String name, String password, Long creatorId, Integer minPlayers, Integer maxPlayers, BigDecimal smallBlind, BigDecimal bigBlind) {
         Room room = new Room();
@@ -93,20 +124,19 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
 
     @Override
     public List<RoomPlayer> getRoomPlayers(Long roomId) {
-        return roomPlayerMapper.selectList(
+        return entityCache.getRoomPlayers(roomId, id -> roomPlayerMapper.selectList(
             new QueryWrapper<RoomPlayer>()
-                .eq("room_id", roomId)
+                .eq("room_id", id)
                 .orderBy(true, true, "seat_number")
-        );
+        ));
     }
 
     @Override
     public RoomPlayer getRoomPlayer(Long roomId, Long userId) {
-        return roomPlayerMapper.selectOne(
-            new LambdaQueryWrapper<RoomPlayer>()
-                .eq(RoomPlayer::getRoomId, roomId)
-                .eq(RoomPlayer::getUserId, userId)
-        );
+        return getRoomPlayers(roomId).stream()
+                .filter(player -> userId.equals(player.getUserId()))
+                .findFirst()
+                .orElse(null);
     }
 
     @Override
@@ -122,10 +152,21 @@ public class RoomServiceImpl extends ServiceImpl<RoomMapper, Room> implements Ro
                 .eq(RoomPlayer::getRoomId, roomPlayer.getRoomId())
                 .eq(RoomPlayer::getUserId, roomPlayer.getUserId())
         );
+        entityCache.invalidateRoomPlayers(roomPlayer.getRoomId());
         
         return updated > 0;
     }
 
+    @Override
+    public int updatePlayerStatus(Long roomId, List<Long> userIds, PlayerStatus status) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        int updated = roomPlayerMapper.batchUpdateStatus(roomId, userIds, status.name());
+        entityCache.invalidateRoomPlayers(roomId);
+        return updated;
+    }
+
     /**
      * 获取房间中已入座的玩家
      *
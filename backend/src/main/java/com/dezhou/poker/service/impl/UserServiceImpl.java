@@ -5,12 +5,15 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dezhou.poker.entity.User;
 import com.dezhou.poker.exception.ResourceNotFoundException;
 import com.dezhou.poker.mapper.UserMapper;
+import com.dezhou.poker.service.EntityCache;
+import com.dezhou.poker.service.LeaderboardService;
 import com.dezhou.poker.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -26,6 +29,27 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private EntityCache entityCache;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Override
+    public User getById(Serializable id) {
+        if (!(id instanceof Long)) {
+            return super.getById(id);
+        }
+        return entityCache.getUser((Long) id, super::getById);
+    }
+
+    @Override
+    public boolean updateById(User user) {
+        boolean updated = super.updateById(user);
+        entityCache.invalidateUser(user.getId());
+        return updated;
+    }
+
     @Override
     public User getByUsername(String username) {
         User user = getOne(new LambdaQueryWrapper<User>().eq(User::getUsername, username));
@@ -60,12 +84,22 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Override
     @Transactional
     public boolean updateChips(Long userId, BigDecimal amount) {
-        return baseMapper.updateChips(userId, amount) > 0;
+        int updated = baseMapper.updateChips(userId, amount);
+        entityCache.invalidateUser(userId);
+        if (updated > 0) {
+            leaderboardService.onChipsChanged(userId, amount);
+        }
+        return updated > 0;
     }
 
     @Override
     @Transactional
     public boolean updateGameStats(Long userId, boolean isWin) {
-        return baseMapper.updateGameStats(userId, isWin ? 1 : 0) > 0;
+        int updated = baseMapper.updateGameStats(userId, isWin ? 1 : 0);
+        entityCache.invalidateUser(userId);
+        if (updated > 0) {
+            leaderboardService.onGameStats(userId, isWin);
+        }
+        return updated > 0;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.dezhou.poker.util;
+
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * 键集分页游标
+ * 记录上一页最后一条记录的 (创建时间, ID)，下一页从它之后继续查询，不使用 OFFSET，翻到多深都只扫描一页的索引。
+ * 对外编码为 URL 安全的 Base64 字符串，客户端只需原样传回。
+ */
+public final class PageCursor {
+
+    private static final byte VERSION = 1;
+    private static final int LENGTH = 1 + 8 + 4 + 8;
+
+    private final LocalDateTime createdAt;
+    private final long id;
+
+    public PageCursor(LocalDateTime createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 编码为游标字符串
+     *
+     * @return 游标
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+        buffer.put(VERSION);
+        buffer.putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(createdAt.getNano());
+        buffer.putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @param cursor 游标，为空表示第一页
+     * @return 游标，第一页返回 null
+     * @throws IllegalArgumentException 游标无效
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+        if (bytes.length != LENGTH || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, LENGTH - 1);
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        try {
+            return new PageCursor(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC), buffer.getLong());
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
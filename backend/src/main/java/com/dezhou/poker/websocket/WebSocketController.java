@@ -1,9 +1,11 @@
 package com.dezhou.poker.websocket;
 
+import com.dezhou.poker.engine.TableExecutor;
 import com.dezhou.poker.entity.GameAction;
 import com.dezhou.poker.entity.GameHistory;
 import com.dezhou.poker.entity.PlayerGameHistory;
 import com.dezhou.poker.security.UserPrincipal;
+import com.dezhou.poker.service.EquityService;
 import com.dezhou.poker.service.GameService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +37,12 @@ public class WebSocketController {
     @Autowired
     private GameService gameService;
 
+    @Autowired
+    private EquityService equityService;
+
+    @Autowired
+    private TableExecutor tableExecutor;
+
     /**
      * 加入房间
      *
@@ -102,17 +110,16 @@ public class WebSocketController {
 
     /**
      * 游戏动作
+     * 动作提交到房间的牌桌执行器中按顺序执行，执行完成后广播结果
      *
      * @param roomId         房间ID
      * @param message        消息
      * @param authentication 认证信息
-     * @return 游戏动作消息
      */
     @MessageMapping("/room/{roomId}/action")
-    @SendTo("/topic/room.{roomId}")
-    public WebSocketMessage gameAction(@DestinationVariable Long roomId,
-                                       @Payload WebSocketMessage message,
-                                       Authentication authentication) {
+    public void gameAction(@DestinationVariable Long roomId,
+                           @Payload WebSocketMessage message,
+                           Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         
         // 设置消息信息
@@ -125,29 +132,40 @@ public class WebSocketController {
         Long gameId = Long.valueOf(actionData.get("gameId").toString());
         String actionType = actionData.get("actionType").toString();
         String round = actionData.get("round").toString();
-        BigDecimal amount = null;
-        if (actionData.containsKey("amount")) {
-            amount = new BigDecimal(actionData.get("amount").toString());
+        BigDecimal amount = actionData.containsKey("amount")
+                ? new BigDecimal(actionData.get("amount").toString())
+                : null;
+        
+        // 命令只能投递到牌局所在房间的邮箱，否则会与该房间的执行器并发修改同一牌局
+        if (!roomId.equals(gameService.getRoomIdOfGame(gameId))) {
+            message.setType(WebSocketMessage.MessageType.ERROR);
+            message.setContent("执行动作失败: 牌局不属于该房间");
+            messagingTemplate.convertAndSend("/topic/room." + roomId, message);
+            return;
         }
         
-        try {
+        tableExecutor.submit(roomId, () -> {
             // 记录游戏动作
             GameAction.ActionType type = GameAction.ActionType.valueOf(actionType);
             GameAction.GameRound gameRound = GameAction.GameRound.valueOf(round);
-            GameAction gameAction = gameService.recordGameAction(gameId, userPrincipal.getId(), type, amount, gameRound);
-            
-            // 设置消息内容
-            message.setContent(userPrincipal.getUsername() + " " + actionType + (amount != null ? " " + amount : ""));
-            message.setData(gameAction);
-            
-            logger.info("用户 {} 在游戏 {} 执行动作: {}", userPrincipal.getUsername(), gameId, actionType);
-        } catch (Exception e) {
-            message.setType(WebSocketMessage.MessageType.ERROR);
-            message.setContent("执行动作失败: " + e.getMessage());
-            logger.error("执行动作失败", e);
-        }
-        
-        return message;
+            return gameService.recordGameAction(gameId, userPrincipal.getId(), type, amount, gameRound);
+        }).whenComplete((gameAction, error) -> {
+            if (error == null) {
+                // 设置消息内容
+                message.setContent(userPrincipal.getUsername() + " " + actionType + (amount != null ? " " + amount : ""));
+                message.setData(gameAction);
+                
+                logger.info("用户 {} 在游戏 {} 执行动作: {}", userPrincipal.getUsername(), gameId, actionType);
+                
+                // 全下后无人可继续下注时，异步计算胜率并推送到房间
+                equityService.publishIfAllIn(gameId);
+            } else {
+                message.setType(WebSocketMessage.MessageType.ERROR);
+                message.setContent("执行动作失败: " + error.getMessage());
+                logger.error("执行动作失败", error);
+            }
+            messagingTemplate.convertAndSend("/topic/room." + roomId, message);
+        });
     }
 
     /**
@@ -176,6 +194,10 @@ public class WebSocketController {
         Integer voteOption = Integer.valueOf(voteData.get("voteOption").toString());
         
         try {
+            if (!roomId.equals(gameService.getRoomIdOfGame(gameId))) {
+                throw new IllegalArgumentException("牌局不属于该房间");
+            }
+            
             // 记录All-in投票
             gameService.recordAllinVote(gameId, userPrincipal.getId(), voteOption);
             
@@ -224,37 +246,17 @@ public class WebSocketController {
         try {
             if ("start".equals(action)) {
                 // 开始游戏
-                GameHistory gameHistory = gameService.startNewGame(roomId);
+                GameHistory gameHistory = tableExecutor.call(roomId, () -> gameService.startNewGame(roomId));
                 List<PlayerGameHistory> players = gameService.getGamePlayers(gameHistory.getId());
                 
                 message.setContent("游戏开始");
                 message.setData(new Object[]{gameHistory, players});
                 
                 logger.info("用户 {} 在房间 {} 开始游戏", userPrincipal.getUsername(), roomId);
-            } else if ("end".equals(action)) {
-                // 结束游戏
-                Long gameId = Long.valueOf(gameData.get("gameId").toString());
-                String communityCards = gameData.get("communityCards").toString();
-                
-                GameHistory gameHistory = gameService.endGame(gameId, communityCards);
-                
-                message.setContent("游戏结束");
-                message.setData(gameHistory);
-                
-                logger.info("用户 {} 结束游戏 {}", userPrincipal.getUsername(), gameId);
-            } else if ("winner".equals(action)) {
-                // 更新获胜者
-                Long gameId = Long.valueOf(gameData.get("gameId").toString());
-                Long winnerId = Long.valueOf(gameData.get("userId").toString());
-                BigDecimal finalChips = new BigDecimal(gameData.get("finalChips").toString());
-                String finalHandType = gameData.get("finalHandType").toString();
-                
-                PlayerGameHistory playerGameHistory = gameService.updateWinner(gameId, winnerId, finalChips, finalHandType);
-                
-                message.setContent(playerGameHistory.getUser().getUsername() + " 获胜，赢得 " + finalChips + " 筹码");
-                message.setData(playerGameHistory);
-                
-                logger.info("用户 {} 在游戏 {} 获胜", playerGameHistory.getUser().getUsername(), gameId);
+            } else if ("end".equals(action) || "winner".equals(action)) {
+                // 牌局在最后一轮下注结束后由服务端摊牌结算并结束，不接受客户端上报公共牌或获胜者
+                message.setType(WebSocketMessage.MessageType.ERROR);
+                message.setContent("牌局由服务端结算并结束");
             }
         } catch (Exception e) {
             message.setType(WebSocketMessage.MessageType.ERROR);
@@ -18,6 +18,7 @@ public class WebSocketMessage {
         GAME,       // 游戏
         ACTION,     // 动作
         ALLIN_VOTE, // All-in投票
+        EQUITY,     // 全下胜率
         ERROR       // 错误
     }
 
@@ -0,0 +1,16 @@
+-- 集群节点：每个应用节点定期写入心跳，超过租约时长未更新视为下线
+CREATE TABLE IF NOT EXISTS cluster_nodes (
+    node_id VARCHAR(64) PRIMARY KEY,
+    url VARCHAR(255) COMMENT '节点访问地址',
+    started_at DATETIME(3) NOT NULL,
+    heartbeat_at DATETIME(3) NOT NULL
+);
+
+-- 牌桌分片租约：房间按哈希落到固定数量的分片，每个分片同一时间只由持有有效租约的节点执行
+CREATE TABLE IF NOT EXISTS table_shards (
+    shard_id INT PRIMARY KEY,
+    owner_node VARCHAR(64) COMMENT '租约持有节点，NULL 表示无人持有',
+    epoch BIGINT NOT NULL DEFAULT 0 COMMENT '每次换手加一',
+    lease_expires_at DATETIME(3) COMMENT '租约到期时间（数据库时钟）',
+    INDEX idx_table_shards_owner (owner_node)
+);
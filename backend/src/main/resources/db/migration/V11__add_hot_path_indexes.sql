@@ -0,0 +1,15 @@
+-- 热点查询的组合索引
+-- 动作表：按玩家统计弃牌和最后一个动作（game_id, user_id 分组取 MAX(seq)），索引覆盖判断所需的列
+CREATE INDEX idx_game_actions_game_user_type ON game_actions (game_id, user_id, action_type, seq);
+
+-- 动作表：按轮次和动作类型筛选，按动作时间排序
+CREATE INDEX idx_game_actions_game_round_type_time ON game_actions (game_id, round, action_type, action_time);
+
+-- 牌局表：查询房间当前进行中的牌局（room_id + status，按开始时间倒序取一条）
+CREATE INDEX idx_game_history_room_status_start ON game_history (room_id, status, start_time);
+
+-- 玩家牌局记录：按用户分页查看历史牌局
+CREATE INDEX idx_player_game_history_user_created ON player_game_history (user_id, created_at);
+
+-- 筹码交易：按用户分页查看交易记录
+CREATE INDEX idx_chip_transactions_user_created ON chip_transactions (user_id, created_at);
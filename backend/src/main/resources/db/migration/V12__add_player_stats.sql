@@ -0,0 +1,16 @@
+-- 玩家统计汇总：结算时在同一事务中累加，个人资料直接读取，不再扫描 player_game_history
+CREATE TABLE IF NOT EXISTS player_stats (
+    user_id BIGINT PRIMARY KEY,
+    hands INT NOT NULL DEFAULT 0 COMMENT '已结束的手数',
+    wins INT NOT NULL DEFAULT 0 COMMENT '赢得奖池的手数',
+    net_profit DECIMAL(15,2) NOT NULL DEFAULT 0.00 COMMENT '净盈亏（最终筹码 - 初始筹码）',
+    vpip_hands INT NOT NULL DEFAULT 0 COMMENT '翻牌前主动入池的手数',
+    pfr_hands INT NOT NULL DEFAULT 0 COMMENT '翻牌前加注的手数',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(user_id)
+);
+
+-- 玩家牌局记录是否已计入 player_stats：0 未计入，1 已计入，2 回填任务已认领
+-- 结算时与汇总一起置为 1；已有记录由回填任务按用户分批认领、累加后置为 1，两条路径不会重复计数
+ALTER TABLE player_game_history
+ADD COLUMN stats_applied TINYINT NOT NULL DEFAULT 0 COMMENT '是否已计入 player_stats';
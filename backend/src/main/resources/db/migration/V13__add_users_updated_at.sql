@@ -0,0 +1,5 @@
+-- 用户最后修改时间：排行榜按它增量同步筹码和战绩（包括其他节点的修改）
+ALTER TABLE users
+ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3) COMMENT '最后修改时间';
+
+CREATE INDEX idx_users_updated_at ON users (updated_at);
@@ -0,0 +1,14 @@
+-- 冷数据归档：结束超过保留期的牌局由归档任务分批移入 *_archive 表，热表只保留近期和进行中的牌局
+-- 归档表与热表列顺序一致（归档用 INSERT ... SELECT *，历史查询用 UNION ALL），以后修改热表结构时需同步修改归档表
+CREATE TABLE IF NOT EXISTS game_history_archive LIKE game_history;
+CREATE TABLE IF NOT EXISTS player_game_history_archive LIKE player_game_history;
+CREATE TABLE IF NOT EXISTS game_actions_archive LIKE game_actions;
+
+-- 筹码交易是用户账本，留在热表，只去掉指向 game_history 的外键，牌局归档后交易记录仍保留 game_id
+SET @fk = (SELECT CONSTRAINT_NAME FROM information_schema.KEY_COLUMN_USAGE
+           WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chip_transactions'
+             AND COLUMN_NAME = 'game_id' AND REFERENCED_TABLE_NAME = 'game_history' LIMIT 1);
+SET @ddl = IF(@fk IS NULL, 'SELECT 1', CONCAT('ALTER TABLE chip_transactions DROP FOREIGN KEY ', @fk));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,11 @@
+-- 牌局结算后状态写为 FINISHED（GameService.endGame / 摊牌结算），但 V1 的 ENUM 中没有该值，
+-- 严格模式下写入失败，非严格模式下被存成空串，统计回填和归档都找不到已结束的牌局
+ALTER TABLE game_history
+MODIFY COLUMN status ENUM('IN_PROGRESS', 'COMPLETED', 'CANCELLED', 'FINISHED') DEFAULT 'IN_PROGRESS';
+
+-- 归档表由 V14 按 game_history 复制结构，保持一致
+ALTER TABLE game_history_archive
+MODIFY COLUMN status ENUM('IN_PROGRESS', 'COMPLETED', 'CANCELLED', 'FINISHED') DEFAULT 'IN_PROGRESS';
+
+-- 此前被存成空串的牌局：有结束时间的视为已结束
+UPDATE game_history SET status = 'FINISHED' WHERE status = '' AND end_time IS NOT NULL;
@@ -0,0 +1,4 @@
+-- 全下后多次发牌
+ALTER TABLE game_history
+ADD COLUMN run_count INT DEFAULT 1 COMMENT '发牌次数',
+ADD COLUMN runouts VARCHAR(255) COMMENT '每次发出的公共牌，分号分隔';
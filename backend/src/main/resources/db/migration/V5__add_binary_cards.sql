@@ -0,0 +1,6 @@
+-- 紧凑格式的牌（每张牌一个字节，编码见 Cards），与原文本列并存
+ALTER TABLE game_history
+ADD COLUMN community_cards_bin VARBINARY(5) COMMENT '公共牌，每张一个字节';
+
+ALTER TABLE player_game_history
+ADD COLUMN hole_cards_bin VARBINARY(2) COMMENT '手牌，每张一个字节';
@@ -0,0 +1,22 @@
+-- 牌局事件日志：动作按局内单调递增的序号排序，不再依赖 action_time
+ALTER TABLE game_actions
+ADD COLUMN seq BIGINT COMMENT '局内动作序号，从1开始';
+
+-- 为已有动作回填序号
+UPDATE game_actions ga
+JOIN (
+    SELECT action_id, ROW_NUMBER() OVER (PARTITION BY game_id ORDER BY action_time, action_id) AS rn
+    FROM game_actions
+) t ON ga.action_id = t.action_id
+SET ga.seq = t.rn;
+
+CREATE UNIQUE INDEX uk_game_actions_game_seq ON game_actions (game_id, seq);
+
+-- 牌局状态快照（每局只保留最新一份）
+CREATE TABLE IF NOT EXISTS game_snapshots (
+    game_id BIGINT PRIMARY KEY,
+    seq BIGINT NOT NULL COMMENT '快照包含的最后一个动作序号',
+    state VARBINARY(2048) NOT NULL COMMENT '序列化的牌桌状态',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (game_id) REFERENCES game_history(game_id)
+);
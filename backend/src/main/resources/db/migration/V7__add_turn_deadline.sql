@@ -0,0 +1,4 @@
+-- 行动计时：持久化当前回合的到期时间，服务重启后据此重新挂到时间轮上
+ALTER TABLE game_history
+ADD COLUMN turn_seconds INT COMMENT '每回合行动时间（秒），为空时使用默认值',
+ADD COLUMN turn_deadline BIGINT COMMENT '当前行动玩家的到期时间（epoch 毫秒），无人计时为空';
@@ -0,0 +1,5 @@
+-- 写后日志：筹码流水记录日志序号，重放日志时按序号去重
+ALTER TABLE chip_transactions
+ADD COLUMN journal_lsn BIGINT COMMENT '写后日志序号，非日志写入的记录为空';
+
+CREATE UNIQUE INDEX uk_chip_transactions_journal_lsn ON chip_transactions (journal_lsn);
@@ -0,0 +1,11 @@
+-- 下注汇总：底池、当前下注和玩家累计投入随动作批量写回，读取时不再扫描 game_actions
+-- current_bet 及当前玩家、庄家和盲注位置此前只在实体中声明，这里补齐对应的列
+ALTER TABLE game_history
+ADD COLUMN current_bet DECIMAL(15,2) DEFAULT 0.00 COMMENT '本轮当前最高下注',
+ADD COLUMN current_player_id BIGINT COMMENT '当前行动玩家ID',
+ADD COLUMN dealer_position INT COMMENT '庄家座位号',
+ADD COLUMN small_blind_position INT COMMENT '小盲注座位号',
+ADD COLUMN big_blind_position INT COMMENT '大盲注座位号';
+
+ALTER TABLE player_game_history
+ADD COLUMN total_bet DECIMAL(15,2) DEFAULT 0.00 COMMENT '本局累计投入';
@@ -0,0 +1,101 @@
+package com.dezhou.poker.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * ColumnarFile 测试
+ */
+class ColumnarFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsAllColumns() throws IOException {
+        Random random = new Random(3);
+        int rows = 5000;
+        long[] ids = new long[rows];
+        long[] amounts = new long[rows];
+        long[] times = new long[rows];
+        ColumnarFile.Table table = new ColumnarFile.Table("id", "amount", "time");
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < rows; i++) {
+            ids[i] = 1000 + i;
+            // 金额有正有负，覆盖 zigzag 编码
+            amounts[i] = random.nextInt(2_000_000) - 1_000_000;
+            time += random.nextInt(5000);
+            times[i] = time;
+            table.add(ids[i], amounts[i], times[i]);
+        }
+        // 极值也要能还原
+        table.add(Long.MAX_VALUE, Long.MIN_VALUE, 0L);
+        Path path = dir.resolve("actions.hcol");
+        ColumnarFile.write(path, table);
+
+        Map<String, long[]> columns = ColumnarFile.read(path, null);
+
+        assertThat(columns.keySet()).containsExactly("id", "amount", "time");
+        assertThat(columns.get("id")).hasSize(rows + 1).startsWith(ids).endsWith(Long.MAX_VALUE);
+        assertThat(columns.get("amount")).startsWith(amounts).endsWith(Long.MIN_VALUE);
+        assertThat(columns.get("time")).startsWith(times).endsWith(0L);
+    }
+
+    @Test
+    void readsOnlyProjectedColumns() throws IOException {
+        ColumnarFile.Table table = new ColumnarFile.Table("id", "amount");
+        table.add(1, 10);
+        table.add(2, 20);
+        Path path = dir.resolve("projected.hcol");
+        ColumnarFile.write(path, table);
+
+        Map<String, long[]> columns = ColumnarFile.read(path, Collections.singleton("amount"));
+
+        assertThat(columns).containsOnlyKeys("amount");
+        assertThat(columns.get("amount")).containsExactly(10, 20);
+    }
+
+    @Test
+    void writesEmptyTable() throws IOException {
+        Path path = dir.resolve("empty.hcol");
+        ColumnarFile.write(path, new ColumnarFile.Table("id"));
+
+        assertThat(ColumnarFile.read(path, null).get("id")).isEmpty();
+    }
+
+    @Test
+    void rejectsCorruptedColumn() throws IOException {
+        ColumnarFile.Table table = new ColumnarFile.Table("id", "amount");
+        for (int i = 0; i < 100; i++) {
+            table.add(i, i * 7L);
+        }
+        Path path = dir.resolve("corrupted.hcol");
+        ColumnarFile.write(path, table);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x01;
+        Files.write(path, bytes);
+
+        assertThatThrownBy(() -> ColumnarFile.read(path, null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("amount");
+        // 损坏的列没被投影时不影响读取
+        assertThat(ColumnarFile.read(path, Collections.singleton("id")).get("id")).hasSize(100);
+    }
+
+    @Test
+    void rejectsRowWithWrongColumnCount() {
+        ColumnarFile.Table table = new ColumnarFile.Table("id", "amount");
+
+        assertThatThrownBy(() -> table.add(1L)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,38 @@
+package com.dezhou.poker.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DeckPool 测试
+ */
+class DeckPoolTest {
+
+    @Test
+    void seededPoolIsDeterministic() {
+        try (DeckPool first = DeckPool.seeded(42L); DeckPool second = DeckPool.seeded(42L)) {
+            for (int i = 0; i < 100; i++) {
+                assertThat(first.nextDeck()).containsExactly(second.nextDeck());
+            }
+        }
+    }
+
+    @Test
+    void differentSeedsShuffleDifferently() {
+        try (DeckPool first = DeckPool.seeded(1L); DeckPool second = DeckPool.seeded(2L)) {
+            assertThat(first.nextDeck()).isNotEqualTo(second.nextDeck());
+        }
+    }
+
+    @Test
+    void everyDeckIsAPermutation() {
+        try (DeckPool pool = DeckPool.seeded(7L)) {
+            for (int i = 0; i < 1000; i++) {
+                byte[] deck = pool.nextDeck();
+                assertThat(deck).hasSize(Cards.DECK_SIZE);
+                assertThat(Cards.mask(deck)).isEqualTo((1L << Cards.DECK_SIZE) - 1);
+            }
+        }
+    }
+}
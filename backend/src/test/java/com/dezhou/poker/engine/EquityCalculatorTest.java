@@ -0,0 +1,173 @@
+package com.dezhou.poker.engine;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * EquityCalculator 测试：穷举结果与已知值和独立枚举比对，抽样结果收敛到穷举结果
+ */
+class EquityCalculatorTest {
+
+    private static final long EXHAUSTIVE_LIMIT = 4_000_000L;
+    private static final long BUDGET = TimeUnit.SECONDS.toNanos(30);
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void setUp() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void countsRiverOutsExactly() {
+        // 转牌圈：AK 同花听牌对三条 Q，剩余 44 张牌中只有 7 张红桃赢（3h 让对手成葫芦，Qh 成四条）
+        long[] hands = {Cards.parseMask("AH,KH"), Cards.parseMask("QS,QD")};
+        long board = Cards.parseMask("2H,7H,QC,3S");
+
+        EquityCalculator.Result result = new EquityCalculator(pool, EXHAUSTIVE_LIMIT)
+                .calculate(hands, board, 0L, 0L, BUDGET);
+
+        assertThat(result.isExhaustive()).isTrue();
+        assertThat(result.getTrials()).isEqualTo(44);
+        assertThat(result.getEquity()[0]).isCloseTo(7.0 / 44, within(1e-12));
+        assertThat(result.getEquity()[1]).isCloseTo(37.0 / 44, within(1e-12));
+        assertThat(result.getTie()[0]).isZero();
+    }
+
+    @Test
+    void acesAgainstKingsPreflop() {
+        long[] hands = {Cards.parseMask("AH,AS"), Cards.parseMask("KD,KC")};
+
+        EquityCalculator.Result result = new EquityCalculator(pool, EXHAUSTIVE_LIMIT)
+                .calculate(hands, 0L, 0L, 0L, BUDGET);
+
+        // C(48, 5) 种发牌全部计算，AA 对 KK 约 82%
+        assertThat(result.isExhaustive()).isTrue();
+        assertThat(result.getTrials()).isEqualTo(1_712_304L);
+        assertThat(result.getEquity()[0]).isBetween(0.81, 0.83);
+        assertThat(result.getEquity()[0] + result.getEquity()[1]).isCloseTo(1.0, within(1e-9));
+        assertThat(result.getWin()[0] + result.getWin()[1] + result.getTie()[0]).isCloseTo(1.0, within(1e-9));
+    }
+
+    @Test
+    void splitBoardIsATie() {
+        // 公共牌是皇家同花顺，两人平分
+        long[] hands = {Cards.parseMask("2C,3D"), Cards.parseMask("4C,5D")};
+        long board = Cards.parseMask("AS,KS,QS,JS,TS");
+
+        EquityCalculator.Result result = new EquityCalculator(pool, EXHAUSTIVE_LIMIT)
+                .calculate(hands, board, 0L, 0L, BUDGET);
+
+        assertThat(result.getTrials()).isEqualTo(1);
+        assertThat(result.getEquity()).containsExactly(0.5, 0.5);
+        assertThat(result.getTie()).containsExactly(1.0, 1.0);
+    }
+
+    @Test
+    void exhaustiveMatchesDirectEnumeration() {
+        long[] hands = {Cards.parseMask("AH,KD"), Cards.parseMask("8C,8S"), Cards.parseMask("JH,TH")};
+        long board = Cards.parseMask("9H,8D,2H");
+        long dead = Cards.parseMask("AC");
+
+        EquityCalculator.Result result = new EquityCalculator(pool, EXHAUSTIVE_LIMIT)
+                .calculate(hands, board, dead, 0L, BUDGET);
+
+        double[] expected = enumerate(hands, board, dead);
+        assertThat(result.isExhaustive()).isTrue();
+        for (int i = 0; i < hands.length; i++) {
+            assertThat(result.getEquity()[i]).isCloseTo(expected[i], within(1e-12));
+        }
+    }
+
+    @Test
+    void samplingConvergesToExhaustive() {
+        long[] hands = {Cards.parseMask("AH,KD"), Cards.parseMask("8C,8S"), Cards.parseMask("JH,TH")};
+        long board = Cards.parseMask("9H,8D,2H");
+
+        EquityCalculator.Result exact = new EquityCalculator(pool, EXHAUSTIVE_LIMIT)
+                .calculate(hands, board, 0L, 0L, BUDGET);
+        // 穷举上限为 0 时强制抽样
+        EquityCalculator.Result sampled = new EquityCalculator(pool, 0L)
+                .calculate(hands, board, 0L, 400_000L, BUDGET);
+
+        assertThat(sampled.isExhaustive()).isFalse();
+        assertThat(sampled.getTrials()).isBetween(390_000L, 410_000L);
+        for (int i = 0; i < hands.length; i++) {
+            assertThat(sampled.getEquity()[i]).isCloseTo(exact.getEquity()[i], within(0.01));
+        }
+    }
+
+    @Test
+    void stopsSamplingAtDeadline() {
+        long[] hands = {Cards.parseMask("AH,AS"), Cards.parseMask("KD,KC")};
+
+        EquityCalculator.Result result = new EquityCalculator(pool, 0L)
+                .calculate(hands, 0L, 0L, Long.MAX_VALUE / 2, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(result.getTrials()).isPositive();
+        assertThat(result.getEquity()[0]).isBetween(0.7, 0.9);
+    }
+
+    @Test
+    void rejectsDuplicateCards() {
+        long[] hands = {Cards.parseMask("AH,AS"), Cards.parseMask("AH,KC")};
+
+        assertThatThrownBy(() -> new EquityCalculator(pool, EXHAUSTIVE_LIMIT).calculate(hands, 0L, 0L, 0L, BUDGET))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 不经过计算器，直接枚举剩余两张公共牌
+     */
+    private static double[] enumerate(long[] hands, long board, long dead) {
+        long used = board | dead;
+        for (long hand : hands) {
+            used |= hand;
+        }
+        double[] equity = new double[hands.length];
+        long trials = 0;
+        for (int a = 0; a < Cards.DECK_SIZE; a++) {
+            for (int b = a + 1; b < Cards.DECK_SIZE; b++) {
+                long extra = Cards.bit(a) | Cards.bit(b);
+                if ((used & extra) != 0) {
+                    continue;
+                }
+                int best = Integer.MIN_VALUE;
+                int winners = 0;
+                int[] values = new int[hands.length];
+                for (int i = 0; i < hands.length; i++) {
+                    values[i] = HandEvaluator.evaluate(board | extra | hands[i]);
+                    if (values[i] > best) {
+                        best = values[i];
+                        winners = 1;
+                    } else if (values[i] == best) {
+                        winners++;
+                    }
+                }
+                for (int i = 0; i < hands.length; i++) {
+                    if (values[i] == best) {
+                        equity[i] += 1.0 / winners;
+                    }
+                }
+                trials++;
+            }
+        }
+        for (int i = 0; i < hands.length; i++) {
+            equity[i] /= trials;
+        }
+        return equity;
+    }
+}
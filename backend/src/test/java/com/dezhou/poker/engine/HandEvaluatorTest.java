@@ -0,0 +1,69 @@
+package com.dezhou.poker.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HandEvaluator 测试
+ */
+class HandEvaluatorTest {
+
+    @Test
+    void countsEveryFiveCardCategory() {
+        Map<HandCategory, Integer> counts = new EnumMap<>(HandCategory.class);
+        for (int a = 0; a < Cards.DECK_SIZE; a++) {
+            for (int b = a + 1; b < Cards.DECK_SIZE; b++) {
+                for (int c = b + 1; c < Cards.DECK_SIZE; c++) {
+                    for (int d = c + 1; d < Cards.DECK_SIZE; d++) {
+                        long four = Cards.bit(a) | Cards.bit(b) | Cards.bit(c) | Cards.bit(d);
+                        for (int e = d + 1; e < Cards.DECK_SIZE; e++) {
+                            counts.merge(HandEvaluator.category(four | Cards.bit(e)), 1, Integer::sum);
+                        }
+                    }
+                }
+            }
+        }
+
+        assertThat(counts.get(HandCategory.HIGH_CARD)).isEqualTo(1_302_540);
+        assertThat(counts.get(HandCategory.ONE_PAIR)).isEqualTo(1_098_240);
+        assertThat(counts.get(HandCategory.TWO_PAIR)).isEqualTo(123_552);
+        assertThat(counts.get(HandCategory.THREE_OF_A_KIND)).isEqualTo(54_912);
+        assertThat(counts.get(HandCategory.STRAIGHT)).isEqualTo(10_200);
+        assertThat(counts.get(HandCategory.FLUSH)).isEqualTo(5_108);
+        assertThat(counts.get(HandCategory.FULL_HOUSE)).isEqualTo(3_744);
+        assertThat(counts.get(HandCategory.FOUR_OF_A_KIND)).isEqualTo(624);
+        assertThat(counts.get(HandCategory.STRAIGHT_FLUSH)).isEqualTo(36);
+        assertThat(counts.get(HandCategory.ROYAL_FLUSH)).isEqualTo(4);
+    }
+
+    @Test
+    void picksBestFiveOfSeven() {
+        // 公共牌带同花顺时，手牌的对子不影响结果
+        long board = Cards.parseMask("9H,TH,JH,QH,KH");
+        assertThat(HandEvaluator.category(board | Cards.parseMask("2S,2D"))).isEqualTo(HandCategory.STRAIGHT_FLUSH);
+        assertThat(HandEvaluator.category(board | Cards.parseMask("AH,2D"))).isEqualTo(HandCategory.ROYAL_FLUSH);
+    }
+
+    @Test
+    void ranksWheelBelowSixHighStraight() {
+        int wheel = HandEvaluator.evaluate(Cards.parseMask("AS,2D,3C,4H,5S"));
+        int sixHigh = HandEvaluator.evaluate(Cards.parseMask("2D,3C,4H,5S,6D"));
+
+        assertThat(HandCategory.of(wheel)).isEqualTo(HandCategory.STRAIGHT);
+        assertThat(wheel).isLessThan(sixHigh);
+    }
+
+    @Test
+    void comparesKickers() {
+        int aceKicker = HandEvaluator.evaluate(Cards.parseMask("KS,KD,AC,7H,2S"));
+        int queenKicker = HandEvaluator.evaluate(Cards.parseMask("KH,KC,QC,7D,2D"));
+        int sameKickers = HandEvaluator.evaluate(Cards.parseMask("KH,KC,AD,7D,2D"));
+
+        assertThat(aceKicker).isGreaterThan(queenKicker);
+        assertThat(aceKicker).isEqualTo(sameKickers);
+    }
+}
@@ -0,0 +1,89 @@
+package com.dezhou.poker.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * PotSettlement 测试
+ */
+class PotSettlementTest {
+
+    @Test
+    void shortAllInOnlyWinsMainPot() {
+        long[] contributions = {100, 300, 300};
+        PotSettlement.Result result = PotSettlement.settle(contributions, 0, new int[]{30, 20, 10}, 0);
+
+        assertThat(result.getPots()).hasSize(2);
+        assertThat(result.getPots().get(0).getAmount()).isEqualTo(300);
+        assertThat(result.getPots().get(0).getEligibleMask()).isEqualTo(0b111);
+        assertThat(result.getPots().get(1).getAmount()).isEqualTo(400);
+        assertThat(result.getPots().get(1).getEligibleMask()).isEqualTo(0b110);
+        assertThat(result.getPayouts()).containsExactly(300, 400, 0);
+    }
+
+    @Test
+    void foldedChipsStayInPotButFoldedPlayerCannotWin() {
+        long[] contributions = {50, 200, 200};
+        // 弃牌玩家的牌力再大也不参与分配
+        PotSettlement.Result result = PotSettlement.settle(contributions, 0b001, new int[]{99, 20, 20}, 0);
+
+        for (PotSettlement.Pot pot : result.getPots()) {
+            assertThat(pot.getEligibleMask() & 0b001).isZero();
+        }
+        assertThat(result.getPayouts()).containsExactly(0, 225, 225);
+    }
+
+    @Test
+    void oddChipGoesToFirstWinnerLeftOfDealer() {
+        long[] contributions = {3, 3, 3};
+        int[] values = {50, 10, 50};
+
+        // 庄家在 0 号位：从 1 号位起算，2 号位先于 0 号位拿到零头
+        assertThat(PotSettlement.settle(contributions, 0, values, 0).getPayouts()).containsExactly(4, 0, 5);
+        // 庄家在 2 号位：0 号位先拿到零头
+        assertThat(PotSettlement.settle(contributions, 0, values, 2).getPayouts()).containsExactly(5, 0, 4);
+    }
+
+    @Test
+    void multipleRunsSplitEachPot() {
+        long[] contributions = {101, 101};
+        int[][] runs = {{20, 10}, {10, 20}};
+        PotSettlement.Result result = PotSettlement.settle(contributions, 0, runs, 1);
+
+        // 202 分两次发牌：101 + 101
+        assertThat(result.getPayouts()).containsExactly(101, 101);
+        assertThat(result.getPots().get(0).getWinnerMask(0)).isEqualTo(0b01);
+        assertThat(result.getPots().get(0).getWinnerMask(1)).isEqualTo(0b10);
+    }
+
+    @Test
+    void conservesChips() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2000; round++) {
+            int size = 2 + random.nextInt(8);
+            long[] contributions = new long[size];
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                contributions[i] = 1 + random.nextInt(500);
+                values[i] = random.nextInt(5);
+            }
+            // 至少留一名未弃牌玩家
+            int folded = random.nextInt(1 << size) & ~(1 << random.nextInt(size));
+            PotSettlement.Result result = PotSettlement.settle(contributions, folded, values, random.nextInt(size));
+
+            long paid = Arrays.stream(result.getPayouts()).sum();
+            long potTotal = result.getPots().stream().mapToLong(PotSettlement.Pot::getAmount).sum();
+            assertThat(paid).isEqualTo(Arrays.stream(contributions).sum());
+            assertThat(potTotal).isEqualTo(paid);
+            for (int i = 0; i < size; i++) {
+                if ((folded & (1 << i)) != 0) {
+                    assertThat(result.getPayouts()[i]).isZero();
+                }
+            }
+        }
+    }
+}
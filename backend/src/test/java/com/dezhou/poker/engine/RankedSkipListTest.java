@@ -0,0 +1,87 @@
+package com.dezhou.poker.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * RankedSkipList 测试，与有序集合逐项比对排名和区间
+ */
+class RankedSkipListTest {
+
+    private static final Comparator<long[]> ORDER = Comparator.<long[]>comparingLong(e -> -e[0])
+            .thenComparingLong(e -> e[1]);
+
+    @Test
+    void ordersByScoreDescendingThenIdAscending() {
+        RankedSkipList list = new RankedSkipList();
+        list.insert(100, 3);
+        list.insert(200, 2);
+        list.insert(100, 1);
+
+        assertThat(list.rank(200, 2)).isEqualTo(1);
+        assertThat(list.rank(100, 1)).isEqualTo(2);
+        assertThat(list.rank(100, 3)).isEqualTo(3);
+        assertThat(list.rank(100, 4)).isZero();
+    }
+
+    @Test
+    void matchesSortedReferenceUnderRandomUpdates() {
+        Random random = new Random(11);
+        RankedSkipList list = new RankedSkipList();
+        TreeSet<long[]> reference = new TreeSet<>(ORDER);
+        long[] scores = new long[500];
+
+        for (int step = 0; step < 20000; step++) {
+            int id = random.nextInt(scores.length);
+            long old = scores[id];
+            if (old != 0 && reference.remove(new long[]{old, id})) {
+                assertThat(list.remove(old, id)).isTrue();
+            }
+            if (random.nextInt(4) == 0) {
+                // 只删除不重新插入，让规模有增有减
+                scores[id] = 0;
+            } else {
+                long score = random.nextInt(50) + 1;
+                scores[id] = score;
+                list.insert(score, id);
+                reference.add(new long[]{score, id});
+            }
+
+            if (step % 500 == 0) {
+                verify(list, reference, random);
+            }
+        }
+        verify(list, reference, random);
+    }
+
+    private static void verify(RankedSkipList list, TreeSet<long[]> reference, Random random) {
+        assertThat(list.size()).isEqualTo(reference.size());
+        if (reference.isEmpty()) {
+            return;
+        }
+        List<long[]> expected = new ArrayList<>(reference);
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(list.rank(expected.get(i)[0], expected.get(i)[1])).isEqualTo(i + 1);
+        }
+
+        int offset = random.nextInt(expected.size());
+        int limit = 1 + random.nextInt(50);
+        List<long[]> visited = new ArrayList<>();
+        list.range(offset, limit, (rank, score, id) -> {
+            assertThat(rank).isEqualTo(offset + visited.size() + 1);
+            visited.add(new long[]{score, id});
+        });
+        List<long[]> slice = expected.subList(offset, Math.min(expected.size(), offset + limit));
+        assertThat(visited).hasSize(slice.size());
+        for (int i = 0; i < slice.size(); i++) {
+            assertThat(visited.get(i)).containsExactly(slice.get(i));
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.dezhou.poker.engine;
+
+import com.dezhou.poker.entity.GameAction;
+import org.junit.jupiter.api.Test;
+
+import static com.dezhou.poker.entity.GameAction.ActionType.ALL_IN;
+import static com.dezhou.poker.entity.GameAction.ActionType.BET;
+import static com.dezhou.poker.entity.GameAction.ActionType.CALL;
+import static com.dezhou.poker.entity.GameAction.ActionType.CHECK;
+import static com.dezhou.poker.entity.GameAction.ActionType.FOLD;
+import static com.dezhou.poker.entity.GameAction.ActionType.RAISE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * TableState 测试
+ */
+class TableStateTest {
+
+    private static final long BIG_BLIND = 10L;
+
+    /**
+     * 三人桌，庄家在 0 号位，从 1 号位开始行动
+     */
+    private static TableState table(long... stacks) {
+        long[] userIds = new long[stacks.length];
+        int[] seats = new int[stacks.length];
+        for (int i = 0; i < stacks.length; i++) {
+            userIds[i] = 100 + i;
+            seats[i] = i + 1;
+        }
+        TableState state = new TableState(1L, 2L, userIds, seats, stacks, 0);
+        state.setBigBlind(BIG_BLIND);
+        return state;
+    }
+
+    @Test
+    void actsInTurnFromLeftOfDealer() {
+        TableState state = table(1000, 1000, 1000);
+
+        assertThat(state.getToAct()).isEqualTo(1);
+        assertThatThrownBy(() -> state.apply(0, CHECK, 0)).isInstanceOf(IllegalStateException.class);
+
+        state.apply(1, CHECK, 0);
+        state.apply(2, CHECK, 0);
+        assertThat(state.isStreetComplete()).isFalse();
+        state.apply(0, CHECK, 0);
+
+        assertThat(state.isStreetComplete()).isTrue();
+        // 本轮结束后不再接受动作
+        assertThatThrownBy(() -> state.apply(1, CHECK, 0)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(state.advanceStreet()).isEqualTo(GameAction.GameRound.FLOP);
+        assertThat(state.getToAct()).isEqualTo(1);
+        assertThat(state.isStreetComplete()).isFalse();
+    }
+
+    @Test
+    void skipsFoldedPlayers() {
+        TableState state = table(1000, 1000, 1000);
+
+        state.apply(1, FOLD, 0);
+        state.apply(2, CHECK, 0);
+        state.apply(0, CHECK, 0);
+        state.advanceStreet();
+
+        assertThat(state.getToAct()).isEqualTo(2);
+        assertThatThrownBy(() -> state.apply(1, CHECK, 0)).hasMessageContaining("弃牌");
+    }
+
+    @Test
+    void enforcesMinimumRaise() {
+        TableState state = table(1000, 1000, 1000);
+
+        assertThatThrownBy(() -> state.apply(1, BET, 5)).isInstanceOf(IllegalStateException.class);
+        state.apply(1, BET, 10);
+        assertThat(state.minRaise()).isEqualTo(10);
+
+        // 已有下注时不能 BET，也不能过牌
+        assertThatThrownBy(() -> state.apply(2, BET, 30)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> state.apply(2, CHECK, 0)).isInstanceOf(IllegalStateException.class);
+        // 金额必须超过需跟注额
+        assertThatThrownBy(() -> state.apply(2, RAISE, 10)).isInstanceOf(IllegalStateException.class);
+        // 加到 15 只加了 5，小于最小加注 10
+        assertThatThrownBy(() -> state.apply(2, RAISE, 15)).isInstanceOf(IllegalStateException.class);
+
+        state.apply(2, RAISE, 40);
+        assertThat(state.getCurrentBet()).isEqualTo(40);
+        assertThat(state.minRaise()).isEqualTo(30);
+        assertThatThrownBy(() -> state.apply(0, RAISE, 60)).isInstanceOf(IllegalStateException.class);
+        state.apply(0, RAISE, 70);
+        assertThat(state.getCurrentBet()).isEqualTo(70);
+
+        // 进入下一轮后最小加注回到大盲注
+        state.apply(1, CALL, 0);
+        state.apply(2, CALL, 0);
+        assertThat(state.isStreetComplete()).isTrue();
+        state.advanceStreet();
+        assertThat(state.minRaise()).isEqualTo(BIG_BLIND);
+        assertThat(state.getPot()).isEqualTo(210);
+    }
+
+    @Test
+    void rejectedActionLeavesStateUntouched() {
+        TableState state = table(1000, 1000, 1000);
+        state.apply(1, BET, 20);
+        byte[] before = state.toSnapshot();
+
+        assertThatThrownBy(() -> state.apply(2, RAISE, 25)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> state.apply(0, CALL, 0)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(state.toSnapshot()).isEqualTo(before);
+    }
+
+    @Test
+    void callRequiresSomethingToCall() {
+        TableState state = table(1000, 1000, 1000);
+
+        assertThatThrownBy(() -> state.apply(1, CALL, 0)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void fullRaiseReopensAction() {
+        TableState state = table(1000, 1000, 1000);
+        state.apply(1, BET, 10);
+        state.apply(2, CALL, 0);
+        state.apply(0, RAISE, 30);
+
+        state.apply(1, CALL, 0);
+        // 2 号位在加注前已跟注，完整加注后需要再次表态
+        assertThat(state.isStreetComplete()).isFalse();
+        assertThat(state.getToAct()).isEqualTo(2);
+        state.apply(2, CALL, 0);
+        assertThat(state.isStreetComplete()).isTrue();
+    }
+
+    @Test
+    void shortAllInDoesNotReopenAction() {
+        TableState state = table(1000, 1000, 15);
+        state.apply(1, BET, 10);
+        // 全下 15 只加了 5，不足最小加注
+        assertThat(state.apply(2, ALL_IN, 0)).isEqualTo(15);
+        assertThat(state.isAllIn(2)).isTrue();
+        assertThat(state.getCurrentBet()).isEqualTo(15);
+        assertThat(state.minRaise()).isEqualTo(10);
+
+        state.apply(0, CALL, 0);
+        assertThat(state.isStreetComplete()).isFalse();
+        state.apply(1, CALL, 0);
+        assertThat(state.isStreetComplete()).isTrue();
+
+        // 已全下的玩家不能再行动，包括弃牌
+        state.advanceStreet();
+        assertThatThrownBy(() -> state.apply(2, FOLD, 0)).hasMessageContaining("全下");
+    }
+
+    @Test
+    void betAtLeastStackIsAllIn() {
+        TableState state = table(1000, 300, 1000);
+
+        assertThat(state.apply(1, BET, 5000)).isEqualTo(300);
+        assertThat(state.isAllIn(1)).isTrue();
+        assertThat(state.getStack(1)).isZero();
+        assertThat(state.actionableCount()).isEqualTo(2);
+    }
+
+    @Test
+    void callIsCappedByStack() {
+        TableState state = table(1000, 1000, 50);
+        state.apply(1, BET, 200);
+
+        assertThat(state.apply(2, CALL, 0)).isEqualTo(50);
+        assertThat(state.isAllIn(2)).isTrue();
+        state.apply(0, FOLD, 0);
+
+        // 只剩一名可行动玩家且已跟平，本轮结束
+        assertThat(state.isStreetComplete()).isTrue();
+        assertThat(state.getTotalContribution(1)).isEqualTo(200);
+        assertThat(state.getTotalContribution(2)).isEqualTo(50);
+    }
+
+    @Test
+    void snapshotRoundTrip() {
+        TableState state = table(1000, 1000, 1000);
+        state.setHoleCards(0, Cards.parseMask("AS,AD"));
+        state.setHoleCards(1, Cards.parseMask("KS,KD"));
+        state.setHoleCards(2, Cards.parseMask("2C,7H"));
+        state.setBoard(Cards.parseBytes("QH,JH,TH,3S,4D"));
+        state.apply(1, BET, 10);
+        state.apply(2, FOLD, 0);
+        state.apply(0, RAISE, 40);
+        state.setLastSeq(state.nextSeq() + 2);
+
+        byte[] snapshot = state.toSnapshot();
+        TableState restored = TableState.fromSnapshot(snapshot);
+
+        assertThat(restored.toSnapshot()).isEqualTo(snapshot);
+        assertThat(restored.getRoomId()).isEqualTo(1L);
+        assertThat(restored.getGameId()).isEqualTo(2L);
+        assertThat(restored.getToAct()).isEqualTo(1);
+        assertThat(restored.getFoldedMask()).isEqualTo(0b100);
+        assertThat(restored.getCurrentBet()).isEqualTo(40);
+        assertThat(restored.getPot()).isEqualTo(50);
+        assertThat(restored.getBigBlind()).isEqualTo(BIG_BLIND);
+        assertThat(restored.minRaise()).isEqualTo(30);
+        assertThat(restored.getHoleCards(1)).isEqualTo(Cards.parseMask("KS,KD"));
+        assertThat(restored.getBoardCards()).isEqualTo(Cards.parseBytes("QH,JH,TH,3S,4D"));
+        assertThat(restored.getLastSeq()).isEqualTo(state.getLastSeq());
+        assertThat(restored.getVpipMask()).isEqualTo(state.getVpipMask());
+        assertThat(restored.getPfrMask()).isEqualTo(state.getPfrMask());
+
+        // 恢复后的状态继续按相同规则行动
+        assertThatThrownBy(() -> restored.apply(1, RAISE, 50)).isInstanceOf(IllegalStateException.class);
+        restored.apply(1, CALL, 0);
+        assertThat(restored.isStreetComplete()).isTrue();
+    }
+
+    @Test
+    void rejectsUnknownSnapshotFormat() {
+        byte[] snapshot = table(1000, 1000).toSnapshot();
+        snapshot[0] = 9;
+
+        assertThatThrownBy(() -> TableState.fromSnapshot(snapshot)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,127 @@
+package com.dezhou.poker.engine;
+
+import com.dezhou.poker.dto.BettingUpdate;
+import com.dezhou.poker.entity.ChipTransaction;
+import com.dezhou.poker.entity.GameAction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 预写日志记录编解码和校验测试
+ */
+class WriteBehindJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsRecordsWithShardAndEpoch() throws IOException {
+        Path path = dir.resolve("journal-1.log");
+        Files.write(path, WriteBehindJournal.encode(records(), 100L));
+
+        List<WriteBehindJournal.Record> decoded = WriteBehindJournal.read(path);
+
+        assertThat(decoded).hasSize(3);
+        assertThat(decoded).extracting(r -> r.lsn).containsExactly(100L, 101L, 102L);
+
+        WriteBehindJournal.Record action = decoded.get(0);
+        assertThat(action.type).isEqualTo(WriteBehindJournal.TYPE_ACTION);
+        assertThat(action.action.getGameId()).isEqualTo(7L);
+        assertThat(action.action.getSeq()).isEqualTo(3L);
+        assertThat(action.action.getUserId()).isEqualTo(11L);
+        assertThat(action.action.getActionType()).isEqualTo("RAISE");
+        assertThat(action.action.getAmount()).isEqualByComparingTo("40.00");
+        assertThat(action.action.getRound()).isEqualTo("FLOP");
+        assertThat(action.betting.getPotSize()).isEqualByComparingTo("120.00");
+        assertThat(action.betting.getCurrentBet()).isEqualByComparingTo("40.00");
+        assertThat(action.betting.getTotalBet()).isEqualByComparingTo("60.00");
+        assertThat(action.shard).isEqualTo(5);
+        assertThat(action.epoch).isEqualTo(9L);
+
+        WriteBehindJournal.Record betting = decoded.get(1);
+        assertThat(betting.type).isEqualTo(WriteBehindJournal.TYPE_BETTING);
+        assertThat(betting.betting.getGameId()).isEqualTo(7L);
+        assertThat(betting.betting.getUserId()).isNull();
+        assertThat(betting.betting.getTotalBet()).isNull();
+        assertThat(betting.shard).isEqualTo(-1);
+
+        WriteBehindJournal.Record chip = decoded.get(2);
+        assertThat(chip.type).isEqualTo(WriteBehindJournal.TYPE_CHIP);
+        assertThat(chip.transaction.getUserId()).isEqualTo(11L);
+        assertThat(chip.transaction.getGameId()).isNull();
+        assertThat(chip.transaction.getAmount()).isEqualByComparingTo("-25.50");
+        assertThat(chip.transaction.getTransactionType()).isEqualTo("BUY_IN");
+        assertThat(chip.shard).isEqualTo(5);
+        assertThat(chip.epoch).isEqualTo(10L);
+    }
+
+    @Test
+    void stopsAtCorruptedRecord() throws IOException {
+        byte[] bytes = WriteBehindJournal.encode(records(), 1L);
+        // 破坏第二条记录的数据（长度 + CRC 之后的第一个字节）
+        int second = firstRecordLength(bytes);
+        bytes[second + 8] ^= 0x5A;
+        Path path = dir.resolve("journal-1.log");
+        Files.write(path, bytes);
+
+        List<WriteBehindJournal.Record> decoded = WriteBehindJournal.read(path);
+
+        assertThat(decoded).hasSize(1);
+        assertThat(decoded.get(0).lsn).isEqualTo(1L);
+    }
+
+    @Test
+    void ignoresTruncatedTail() throws IOException {
+        byte[] bytes = WriteBehindJournal.encode(records(), 1L);
+        Path path = dir.resolve("journal-1.log");
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThat(WriteBehindJournal.read(path)).extracting(r -> r.lsn).containsExactly(1L, 2L);
+    }
+
+    private static int firstRecordLength(byte[] bytes) {
+        int length = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+        return 8 + length;
+    }
+
+    private static List<WriteBehindJournal.Record> records() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 30, 15);
+
+        GameAction gameAction = new GameAction();
+        gameAction.setGameId(7L);
+        gameAction.setSeq(3L);
+        gameAction.setUserId(11L);
+        gameAction.setActionType("RAISE");
+        gameAction.setAmount(new BigDecimal("40.00"));
+        gameAction.setRound("FLOP");
+        gameAction.setActionTime(now);
+        WriteBehindJournal.Record action = new WriteBehindJournal.Record(WriteBehindJournal.TYPE_ACTION, gameAction, null);
+        action.betting = new BettingUpdate(7L, 11L, new BigDecimal("120.00"), new BigDecimal("40.00"), new BigDecimal("60.00"));
+        action.shard = 5;
+        action.epoch = 9L;
+
+        WriteBehindJournal.Record betting = new WriteBehindJournal.Record(WriteBehindJournal.TYPE_BETTING, null, null);
+        betting.betting = new BettingUpdate(7L, null, new BigDecimal("120.00"), BigDecimal.ZERO, null);
+
+        ChipTransaction transaction = new ChipTransaction();
+        transaction.setUserId(11L);
+        transaction.setAmount(new BigDecimal("-25.50"));
+        transaction.setTransactionType("BUY_IN");
+        transaction.setTransactionTime(now);
+        WriteBehindJournal.Record chip = new WriteBehindJournal.Record(WriteBehindJournal.TYPE_CHIP, null, transaction);
+        chip.shard = 5;
+        chip.epoch = 10L;
+
+        return Arrays.asList(action, betting, chip);
+    }
+}
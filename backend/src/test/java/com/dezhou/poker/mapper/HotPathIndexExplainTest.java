@@ -0,0 +1,207 @@
+package com.dezhou.poker.mapper;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热点查询执行计划回归测试
+ * 在 MySQL 8.0 容器中执行全部迁移并写入成批数据，对 Mapper 注解中的 SQL（经 MyBatis 解析、绑定参数后）执行 EXPLAIN，
+ * 确认走 V11 的组合索引。没有可用的 Docker 时跳过。
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class HotPathIndexExplainTest {
+
+    private static final int USERS = 200;
+    private static final int ROOMS = 50;
+    private static final int GAMES = 5000;
+    private static final int PLAYERS_PER_GAME = 6;
+    private static final int ACTIONS = 60000;
+    private static final int TRANSACTIONS = 30000;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private static Connection connection;
+
+    private static Configuration configuration;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        Flyway.configure()
+                .dataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        connection = DriverManager.getConnection(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        seed();
+
+        configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(GameHistoryMapper.class);
+        configuration.addMapper(GameActionMapper.class);
+        configuration.addMapper(ChipTransactionMapper.class);
+        configuration.addMapper(PlayerGameHistoryMapper.class);
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * GameHistoryMapper.selectCurrentGameByRoomId
+     */
+    @Test
+    void currentGameUsesRoomStatusIndex() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("roomId", 1L);
+
+        assertThat(keys(GameHistoryMapper.class, "selectCurrentGameByRoomId", params, "game_history"))
+                .containsOnly("idx_game_history_room_status_start");
+    }
+
+    /**
+     * GameActionMapper.selectPlayerSummaries：按玩家分组的子查询
+     */
+    @Test
+    void playerSummariesUseGameUserTypeIndex() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("gameId", 1L);
+        params.put("round", "FLOP");
+
+        assertThat(keys(GameActionMapper.class, "selectPlayerSummaries", params, "game_actions"))
+                .containsOnly("idx_game_actions_game_user_type");
+    }
+
+    /**
+     * GameActionMapper.selectByGameIdAndRound
+     */
+    @Test
+    void actionsByRoundUseRoundTypeIndex() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("gameId", 1L);
+        params.put("round", "FLOP");
+
+        assertThat(keys(GameActionMapper.class, "selectByGameIdAndRound", params, "ga"))
+                .containsOnly("idx_game_actions_game_round_type_time");
+    }
+
+    /**
+     * ChipTransactionMapper.selectPageByUser，非第一页
+     */
+    @Test
+    void transactionPageUsesUserCreatedIndex() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", 1L);
+        params.put("afterTime", LocalDateTime.now().minusDays(10));
+        params.put("afterId", (long) TRANSACTIONS);
+        params.put("limit", 20);
+
+        assertThat(keys(ChipTransactionMapper.class, "selectPageByUser", params, "chip_transactions"))
+                .containsOnly("idx_chip_transactions_user_created");
+    }
+
+    /**
+     * PlayerGameHistoryMapper.selectPageByUser，非第一页：热表分支
+     */
+    @Test
+    void historyPageUsesUserCreatedIndex() throws SQLException {
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", 1L);
+        params.put("afterTime", LocalDateTime.now().minusDays(1));
+        params.put("afterGameId", (long) GAMES);
+        params.put("limit", 20);
+
+        assertThat(keys(PlayerGameHistoryMapper.class, "selectPageByUser", params, "player_game_history"))
+                .containsOnly("idx_player_game_history_user_created");
+    }
+
+    /**
+     * 写入成批数据并刷新统计信息，空表或过期统计会让优化器直接全表扫描
+     */
+    private static void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET SESSION cte_max_recursion_depth = " + ACTIONS);
+            statement.execute("INSERT INTO users (username, password) " +
+                    series(USERS) + "SELECT CONCAT('user', n), 'x' FROM seq");
+            statement.execute("INSERT INTO rooms (room_name, owner_id, small_blind, big_blind) " +
+                    series(ROOMS) + "SELECT CONCAT('room', n), 1, 1, 2 FROM seq");
+            // 每个房间只有最后一局进行中，其余已结束
+            statement.execute("INSERT INTO game_history (room_id, start_time, end_time, status) " +
+                    series(GAMES) + "SELECT 1 + n % " + ROOMS + ", NOW() - INTERVAL (" + GAMES + " - n) MINUTE, " +
+                    "IF(n >= " + (GAMES - ROOMS) + ", NULL, NOW() - INTERVAL (" + GAMES + " - n) MINUTE + INTERVAL 30 SECOND), " +
+                    "IF(n >= " + (GAMES - ROOMS) + ", 'IN_PROGRESS', 'FINISHED') FROM seq");
+            statement.execute("INSERT INTO player_game_history (game_id, user_id, initial_chips, position, created_at) " +
+                    series(GAMES * PLAYERS_PER_GAME) + "SELECT 1 + n DIV " + PLAYERS_PER_GAME + ", " +
+                    "1 + ((n DIV " + PLAYERS_PER_GAME + ") * 7 + n % " + PLAYERS_PER_GAME + ") % " + USERS + ", 1000, " +
+                    "n % " + PLAYERS_PER_GAME + ", NOW() - INTERVAL (" + GAMES + " - n DIV " + PLAYERS_PER_GAME + ") MINUTE FROM seq");
+            // 每局 12 个动作，轮次和动作类型轮换
+            statement.execute("INSERT INTO game_actions (game_id, user_id, action_type, amount, round, seq) " +
+                    series(ACTIONS) + "SELECT 1 + n % " + GAMES + ", 1 + n % " + USERS + ", " +
+                    "ELT(1 + n % 6, 'FOLD', 'CHECK', 'CALL', 'BET', 'RAISE', 'ALL_IN'), 10, " +
+                    "ELT(1 + (n DIV " + GAMES + ") % 4, 'PRE_FLOP', 'FLOP', 'TURN', 'RIVER'), 1 + n DIV " + GAMES + " FROM seq");
+            statement.execute("INSERT INTO chip_transactions (user_id, amount, transaction_type, game_id, created_at) " +
+                    series(TRANSACTIONS) + "SELECT 1 + n % " + USERS + ", 10, IF(n % 2 = 0, 'WIN', 'LOSE'), " +
+                    "1 + n % " + GAMES + ", NOW() - INTERVAL (" + TRANSACTIONS + " - n) MINUTE FROM seq");
+            statement.execute("ANALYZE TABLE game_actions, game_history, player_game_history, chip_transactions");
+        }
+    }
+
+    /**
+     * 生成 0 到 count - 1 的序列
+     */
+    private static String series(int count) {
+        return "WITH RECURSIVE seq (n) AS (SELECT 0 UNION ALL SELECT n + 1 FROM seq WHERE n < " + (count - 1) + ") ";
+    }
+
+    /**
+     * 对 Mapper 方法绑定参数后的 SQL 执行 EXPLAIN，返回指定表（或别名）各行实际使用的索引
+     */
+    private static List<String> keys(Class<?> mapper, String method, Map<String, Object> params, String table)
+            throws SQLException {
+        MappedStatement statement = configuration.getMappedStatement(mapper.getName() + "." + method);
+        BoundSql boundSql = statement.getBoundSql(params);
+        ParameterHandler parameterHandler = new DefaultParameterHandler(statement, params, boundSql);
+
+        List<String> keys = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            parameterHandler.setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (table.equals(rs.getString("table"))) {
+                        keys.add(String.valueOf(rs.getString("key")));
+                    }
+                }
+            }
+        }
+        assertThat(keys).as("%s.%s 的执行计划中没有表 %s", mapper.getSimpleName(), method, table).isNotEmpty();
+        return keys;
+    }
+}
@@ -0,0 +1,52 @@
+package com.dezhou.poker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * PageCursor 测试
+ */
+class PageCursorTest {
+
+    @Test
+    void roundTripsTimeAndId() {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 2, 29, 23, 59, 59, 123_000_000);
+        PageCursor cursor = new PageCursor(createdAt, 9_876_543_210L);
+
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        assertThat(decoded.getCreatedAt()).isEqualTo(createdAt);
+        assertThat(decoded.getId()).isEqualTo(9_876_543_210L);
+    }
+
+    @Test
+    void encodesUrlSafe() {
+        String encoded = new PageCursor(LocalDateTime.of(2030, 1, 1, 0, 0), -1L).encode();
+
+        assertThat(encoded).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void treatsEmptyAsFirstPage() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("")).isNull();
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        assertThatThrownBy(() -> PageCursor.decode("not a cursor!")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PageCursor.decode("AAAA")).isInstanceOf(IllegalArgumentException.class);
+
+        // 长度正确但版本号不对
+        String encoded = new PageCursor(LocalDateTime.of(2024, 1, 1, 0, 0), 1L).encode();
+        byte[] bytes = Base64.getUrlDecoder().decode(encoded);
+        bytes[0]++;
+        String wrongVersion = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        assertThatThrownBy(() -> PageCursor.decode(wrongVersion)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
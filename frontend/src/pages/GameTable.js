@@ -39,6 +39,8 @@ const GameTable = ({ currentUser }) => {
   const [currentBet, setCurrentBet] = useState(0);
   const [currentRound, setCurrentRound] = useState('PRE_FLOP');
   const [roundTimeLeft, setRoundTimeLeft] = useState(0);
+  const [turnDeadline, setTurnDeadline] = useState(null);
+  const turnWarnedRef = useRef(false);
   
   // 聊天消息
   const [messages, setMessages] = useState([]);
@@ -55,6 +57,11 @@ const GameTable = ({ currentUser }) => {
   // 计时器引用
   const timerRef = useRef(null);
   
+  // 牌桌增量序号和最新玩家列表（WebSocket 回调中读取，避免闭包拿到旧值）
+  const deltaSeqRef = useRef({ gameId: null, seq: 0 });
+  const resyncingRef = useRef(false);
+  const playersRef = useRef([]);
+  
   // 游戏结果
   const [showResults, setShowResults] = useState(false);
   const [winners, setWinners] = useState([]);
@@ -70,6 +77,10 @@ const GameTable = ({ currentUser }) => {
         console.log('WebSocket连接成功');
           setWebSocketConnected(true);
           addSystemMessage('已连接到游戏服务器');
+          // 重连期间可能错过手牌推送，从服务端缓存补取
+          if (deltaSeqRef.current.gameId) {
+            loadPlayerCards(deltaSeqRef.current.gameId);
+          }
       },
       onMessage: handleWebSocketMessage,
       onError: (error) => {
@@ -104,6 +115,36 @@ const GameTable = ({ currentUser }) => {
     }
   }, [currentUser, roomId]);
   
+  useEffect(() => {
+    playersRef.current = players;
+  }, [players]);
+  
+  // 根据回合到期时间本地倒计时
+  useEffect(() => {
+    if (!turnDeadline) {
+      setRoundTimeLeft(0);
+      return undefined;
+    }
+    
+    const tick = () => {
+      const timeLeft = Math.max(0, Math.ceil((turnDeadline - Date.now()) / 1000));
+      setRoundTimeLeft(timeLeft);
+      
+      // 如果是当前玩家的回合且剩余时间很少，显示一次警告
+      if (timeLeft > 0 && timeLeft <= 10 && !turnWarnedRef.current && isCurrentPlayerTurn()) {
+        turnWarnedRef.current = true;
+        addMessage({
+          type: 'SYSTEM',
+          content: `警告：您的回合剩余时间还有 ${timeLeft} 秒`
+        });
+      }
+    };
+    
+    tick();
+    const countdown = setInterval(tick, 1000);
+    return () => clearInterval(countdown);
+  }, [turnDeadline]);
+  
   // 启动游戏数据更新定时器
   const startGameUpdater = () => {
     // 清除现有定时器（如果有）
@@ -111,8 +152,11 @@ const GameTable = ({ currentUser }) => {
       clearInterval(timerRef.current);
     }
     
-    // 创建新的定时器，每10秒更新一次游戏数据
+    // 创建新的定时器，每10秒更新一次游戏数据；WebSocket 连接时由牌桌增量推送更新
     timerRef.current = setInterval(() => {
+      if (WebSocketService.isConnected) {
+        return;
+      }
       if (game && game.id) {
         // 只有在游戏进行中时才自动更新
         if (game.status === 'IN_PROGRESS') {
@@ -756,12 +800,133 @@ const GameTable = ({ currentUser }) => {
     }
   };
   
+  // 座位状态编码：0 正常，1 弃牌，2 全下
+  const SEAT_STATUS = ['ACTIVE', 'FOLDED', 'ALL_IN'];
+  
+  // 用户ID对应的座位号
+  const seatOfUser = (userId) => {
+    if (userId === null || userId === undefined) {
+      return null;
+    }
+    const player = playersRef.current.find(p => (p.user?.id || p.userId) === userId);
+    return player ? player.seatNumber : null;
+  };
+  
+  // 更新玩家筹码和状态
+  const applySeatUpdates = (updates) => {
+    const byUser = {};
+    updates.forEach(u => {
+      byUser[u.userId] = u;
+    });
+    setPlayers(prev => prev.map(p => {
+      const update = byUser[p.user?.id || p.userId];
+      if (!update) {
+        return p;
+      }
+      return {
+        ...p,
+        currentChips: update.stack,
+        streetBet: update.streetBet,
+        status: update.status
+      };
+    }));
+  };
+  
+  // 应用牌桌完整快照
+  const applyTableSnapshot = (snapshot) => {
+    deltaSeqRef.current = { gameId: snapshot.gameId, seq: snapshot.seq };
+    setCurrentRound(snapshot.round);
+    setPotSize(snapshot.pot);
+    setCurrentBet(snapshot.currentBet);
+    setCommunityCards(PokerUtils.parseCards(snapshot.communityCards));
+    setCurrentTurn(seatOfUser(snapshot.toAct));
+    applySeatUpdates(snapshot.seats.map(seat => ({
+      userId: seat.userId,
+      stack: seat.stack,
+      streetBet: seat.streetBet,
+      status: seat.folded ? 'FOLDED' : (seat.allIn ? 'ALL_IN' : 'ACTIVE')
+    })));
+  };
+  
+  // 序号不连续时拉取快照重新同步
+  const resyncTableState = (gameId) => {
+    if (resyncingRef.current) {
+      return;
+    }
+    resyncingRef.current = true;
+    GameService.getTableState(gameId)
+      .then(response => {
+        if (response.data && response.data.success) {
+          applyTableSnapshot(response.data.data);
+        }
+      })
+      .catch(() => {
+        // 牌局已结束或状态不在本节点，退回完整加载
+        loadGameData();
+      })
+      .finally(() => {
+        resyncingRef.current = false;
+      });
+  };
+  
+  // 处理牌桌增量
+  const handleTableDelta = (delta) => {
+    const last = deltaSeqRef.current;
+    if (delta.e) {
+      deltaSeqRef.current = { gameId: null, seq: 0 };
+      loadGameData();
+      return;
+    }
+    const expected = last.gameId === delta.g ? last.seq + 1 : 1;
+    // 完整视图（新牌局或房间换了节点）不论序号直接作为新的基准
+    if (!delta.f) {
+      if (delta.s < expected) {
+        // 快照已包含该增量
+        return;
+      }
+      if (resyncingRef.current || delta.s > expected) {
+        resyncTableState(delta.g);
+        return;
+      }
+    }
+    deltaSeqRef.current = { gameId: delta.g, seq: delta.s };
+    
+    if (delta.r !== undefined) {
+      setCurrentRound(delta.r);
+    }
+    if (delta.p !== undefined) {
+      setPotSize(delta.p);
+    }
+    if (delta.b !== undefined) {
+      setCurrentBet(delta.b);
+    }
+    if (delta.c !== undefined) {
+      setCommunityCards(PokerUtils.parseCards(delta.c));
+    }
+    if ('a' in delta) {
+      setCurrentTurn(seatOfUser(delta.a));
+    }
+    if (delta.u) {
+      applySeatUpdates(delta.u.map(([userId, stack, streetBet, status]) => ({
+        userId, stack, streetBet, status: SEAT_STATUS[status]
+      })));
+    }
+  };
+  
   // 处理WebSocket消息
   const handleWebSocketMessage = (message) => {
     console.log('收到WebSocket消息:', message);
     
+    // 牌桌增量
+    if (message.t === 'D') {
+      handleTableDelta(message);
+    }
+    // 发牌时推送到私有频道的手牌
+    else if (message.type === 'HOLE_CARDS') {
+      setPlayerCards(PokerUtils.parseCards(message.cards));
+    }
     // 添加聊天消息
-    if (message.type === 'CHAT' || message.type === 'JOIN' || message.type === 'LEAVE') {
+    else if (message.type === 'CHAT' || message.type === 'JOIN' || message.type === 'LEAVE') {
       addMessage(message);
     }
     // 处理游戏动作
@@ -771,8 +936,8 @@ const GameTable = ({ currentUser }) => {
         content: message.content
       });
       
-      // 重新加载游戏数据
-      loadGameData();
+      // 底池、下注、座位和行动玩家由同一动作产生的牌桌增量更新（handleTableDelta），
+      // 只有增量序号出现缺口时才重新拉取，这里不再整页重新加载
     }
     // 处理发牌消息
     else if (message.type === 'DEAL_CARDS') {
@@ -781,26 +946,19 @@ const GameTable = ({ currentUser }) => {
         content: '发牌完成，游戏开始'
       });
       
-      // 如果收到发牌消息，尝试获取玩家手牌
-      if (message.gameId || (game && game.id)) {
-        loadPlayerCards(message.gameId || game.id);
-      }
-      
+      // 手牌已通过 /user/queue/cards 推送，无需再请求
       // 重新加载游戏数据
       loadGameData();
     }
-    // 处理回合时间更新
-    else if (message.type === 'ROUND_TIME_UPDATE') {
-      if (message.data && message.data.timeLeft !== undefined) {
-        setRoundTimeLeft(message.data.timeLeft);
-        
-        // 如果是当前玩家的回合且剩余时间很少，显示警告
-        if (isCurrentPlayerTurn() && message.data.timeLeft <= 10) {
-          addMessage({
-            type: 'SYSTEM',
-            content: `警告：您的回合剩余时间还有 ${message.data.timeLeft} 秒`
-          });
-        }
+    // 处理回合到期时间（每回合只推送一次，倒计时在本地计算）
+    else if (message.type === 'TURN_DEADLINE') {
+      if (message.data && message.data.deadline) {
+        // 按服务器时间校正本地时钟偏差
+        const offset = message.data.serverTime ? message.data.serverTime - Date.now() : 0;
+        setTurnDeadline(message.data.deadline - offset);
+        turnWarnedRef.current = false;
+      } else {
+        setTurnDeadline(null);
       }
     }
     // 处理玩家回合通知
@@ -1003,8 +1161,10 @@ const GameTable = ({ currentUser }) => {
           // 移动到下一个玩家
           moveToNextPlayer();
           
-          // 重新加载游戏数据
-          loadGameData();
+          // WebSocket 连接时由牌桌增量更新，断开时才重新加载游戏数据
+          if (!WebSocketService.isConnected) {
+            loadGameData();
+          }
         } else {
           const errorMessage = response.data?.message || '执行动作失败';
           console.error('执行动作失败:', errorMessage);
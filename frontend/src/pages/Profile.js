@@ -25,8 +25,8 @@ const Profile = ({ currentUser }) => {
           headers: AuthService.getAuthHeader()
         });
 
-        setGameHistory(historyResponse.data || []);
-        setChipTransactions(transactionsResponse.data || []);
+        setGameHistory((historyResponse.data && historyResponse.data.records) || []);
+        setChipTransactions((transactionsResponse.data && transactionsResponse.data.records) || []);
         setLoading(false);
       } catch (error) {
         const resMessage =
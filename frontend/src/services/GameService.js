@@ -22,6 +22,15 @@ class GameService {
       });
   }
 
+  /**
+   * 获取牌桌完整快照，用于增量序号不连续时重新同步
+   * @param {string} gameId - 游戏ID
+   * @returns {Promise} - 返回牌桌快照的Promise
+   */
+  getTableState(gameId) {
+    return axios.get(`${API_URL}/games/${gameId}/state`, { headers: authHeader() });
+  }
+
   /**
    * 获取游戏历史
    * @param {string} roomId - 房间ID
@@ -1,6 +1,7 @@
 import SockJS from 'sockjs-client';
 import { Client } from '@stomp/stompjs';
 import AuthService from './AuthService';
+import authHeader from './auth-header';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080';
 
@@ -8,6 +9,8 @@ class WebSocketService {
   constructor() {
     this.stompClient = null;
     this.subscription = null;
+    this.deltaSubscription = null;
+    this.cardsSubscription = null;
     this.isConnected = false;
     this.callbacks = {
       onConnect: () => {},
@@ -41,6 +44,8 @@ class WebSocketService {
     // 创建STOMP客户端
     this.stompClient = new Client({
       webSocketFactory: () => new SockJS(`${API_URL}/ws`),
+      // 携带令牌，服务端据此识别用户并推送私有消息（手牌）
+      connectHeaders: authHeader(),
       debug: function(str) {
         console.debug(str);
       },
@@ -63,6 +68,22 @@ class WebSocketService {
           }
         );
         
+        // 订阅牌桌增量频道
+        this.deltaSubscription = this.stompClient.subscribe(
+          `/topic/room.${this.roomId}`,
+          (message) => {
+            this.onMessageReceived(message);
+          }
+        );
+        
+        // 订阅自己的手牌频道
+        this.cardsSubscription = this.stompClient.subscribe(
+          '/user/queue/cards',
+          (message) => {
+            this.onMessageReceived(message);
+          }
+        );
+        
         console.log('WebSocketService: 已订阅房间频道', this.roomId);
         
         // 发送加入消息
@@ -169,6 +190,14 @@ class WebSocketService {
       this.subscription.unsubscribe();
       this.subscription = null;
     }
+    if (this.deltaSubscription) {
+      this.deltaSubscription.unsubscribe();
+      this.deltaSubscription = null;
+    }
+    if (this.cardsSubscription) {
+      this.cardsSubscription.unsubscribe();
+      this.cardsSubscription = null;
+    }
     
     // 断开连接
     if (this.stompClient) {